@@ -40,8 +40,15 @@ public class LogDTO implements Serializable {
 
     private Map<String, Object> context;
 
+    private Map<String, Object> extra;
+
     private LocalDateTime timestamp;
 
+    /**
+     * 时间戳（纪元微秒，SDK 以数值发送，优先于 timestamp）
+     */
+    private Long timestampMicros;
+
     private Long responseTime;
 
     private String exceptionType;
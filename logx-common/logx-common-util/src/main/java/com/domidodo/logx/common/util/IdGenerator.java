@@ -0,0 +1,77 @@
+package com.domidodo.logx.common.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 十六进制ID生成器
+ * 替代 UUID.randomUUID().toString().replace("-", "")：
+ * 随机数使用 ThreadLocalRandom（无锁、不阻塞），直接编码到定长字符数组，每个ID只创建一个字符串
+ * <p>
+ * 生成的ID不可预测性弱于 SecureRandom，不能用作 API Key、令牌等安全凭证
+ */
+public final class IdGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 上一个时间戳：高 48 位为毫秒，低 16 位为同一毫秒内的序号
+     */
+    private static final AtomicLong LAST_STAMP = new AtomicLong();
+
+    private IdGenerator() {
+    }
+
+    /**
+     * 时间有序ID（32位十六进制）
+     * 前 16 位为毫秒时间戳 + 序号（同一 JVM 内严格递增），后 16 位为随机数；
+     * 按生成顺序排序，作为 Elasticsearch 文档 _id 时批量写入的局部性更好
+     */
+    public static String timeOrderedId() {
+        char[] chars = new char[32];
+        encode(nextStamp(), chars, 0);
+        encode(ThreadLocalRandom.current().nextLong(), chars, 16);
+        return new String(chars);
+    }
+
+    /**
+     * 随机ID（32位十六进制，格式同去掉横线的 UUID）
+     */
+    public static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[32];
+        encode(random.nextLong(), chars, 0);
+        encode(random.nextLong(), chars, 16);
+        return new String(chars);
+    }
+
+    /**
+     * 随机短ID（16位十六进制）
+     */
+    public static String shortRandomId() {
+        char[] chars = new char[16];
+        encode(ThreadLocalRandom.current().nextLong(), chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * 同一毫秒内超过 65536 个ID时序号进位到毫秒部分，仍保持递增和唯一
+     */
+    private static long nextStamp() {
+        long now = System.currentTimeMillis() << 16;
+        while (true) {
+            long last = LAST_STAMP.get();
+            long next = now > last ? now : last + 1;
+            if (LAST_STAMP.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    private static void encode(long value, char[] chars, int offset) {
+        for (int i = offset + 15; i >= offset; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
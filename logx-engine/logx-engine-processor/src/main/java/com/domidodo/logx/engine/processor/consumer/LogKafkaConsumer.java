@@ -153,8 +153,14 @@ public class LogKafkaConsumer {
 
         try {
             List<CompletableFuture<?>> futures = new ArrayList<>();
+            int expected = 0;
 
             for (Map<String, Object> logOne : logs) {
+                // 请求指标汇总不是日志，不参与规则检测
+                if (LogParser.isMetric(logOne)) {
+                    continue;
+                }
+                expected++;
                 try {
                     // 转换为JSON
                     String logJson = JsonUtil.toJson(logOne);
@@ -186,10 +192,10 @@ public class LogKafkaConsumer {
                     .filter(f -> f.isDone() && !f.isCompletedExceptionally())
                     .count();
 
-            boolean allSuccess = successCount == logs.size();
+            boolean allSuccess = successCount == expected;
 
             log.info("转发到检测模块：{}/{}日志成功",
-                    successCount, logs.size());
+                    successCount, expected);
 
             return allSuccess;
 
@@ -18,6 +18,8 @@ import java.util.regex.Pattern;
  * 2. 字段标准化
  * 3. 敏感信息脱敏
  * 4. 字段补全
+ * 5. 按指纹补全 SDK 去重后的异常堆栈
+ * 6. SDK 请求指标汇总（extra.recordType=metric）的字段提升到顶层 metric 对象，写入指标索引
  */
 @Slf4j
 @Component
@@ -53,6 +55,42 @@ public class LogParser {
     private static final Pattern IP_PATTERN = Pattern.compile(
             "\\b(?:\\d{1,3}\\.){3}\\d{1,3}\\b");
 
+    /**
+     * SDK 附带的异常指纹、是否只发送了栈顶帧（extra 中的键）
+     */
+    private static final String FINGERPRINT_KEY = "exceptionFingerprint";
+    private static final String OMITTED_KEY = "exceptionOmitted";
+
+    /**
+     * 请求指标汇总在文档中的顶层对象（存在时写入指标索引而不是日志索引）
+     */
+    public static final String METRIC_KEY = "metric";
+
+    /**
+     * SDK 在 extra 中标记记录类型的键和指标汇总的取值
+     */
+    private static final String RECORD_TYPE_KEY = "recordType";
+    private static final String RECORD_TYPE_METRIC = "metric";
+
+    /**
+     * 从 extra 提升到 metric 对象的字段
+     */
+    private static final List<String> METRIC_FIELDS = List.of(
+            "metricType", "status", "intervalStart", "intervalMillis", "count", "errorCount", "ratePerSecond",
+            "durationSum", "durationMax", "durationP50", "durationP90", "durationP99");
+
+    /**
+     * SDK 发送的耗时直方图（桶上界 → 计数），转换为 ES histogram 字段 durationHistogram
+     */
+    private static final String DURATION_BUCKETS_KEY = "durationBuckets";
+    private static final String DURATION_HISTOGRAM_KEY = "durationHistogram";
+    private static final String OVERFLOW_BUCKET = "+Inf";
+
+    /**
+     * 按指纹缓存的异常堆栈数量上限
+     */
+    private static final int STACK_TRACE_CACHE_SIZE = 2048;
+
     /**
      * 时间戳格式列表
      */
@@ -65,6 +103,17 @@ public class LogParser {
             DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss")
     );
 
+    /**
+     * 指纹 → 已脱敏的完整堆栈（不含异常首行），按最近使用淘汰
+     */
+    private final Map<String, String> stackTraceCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > STACK_TRACE_CACHE_SIZE;
+                }
+            });
+
     /**
      * 解析日志
      */
@@ -132,9 +181,16 @@ public class LogParser {
         // 扩展信息
         normalized.put("tags", logMap.get("tags"));
         normalized.put("extra", sanitizeExtra(logMap.get("extra")));
+        Map<String, Object> metric = extractMetric(normalized.get("extra"));
+        if (metric != null) {
+            normalized.put(METRIC_KEY, metric);
+        }
 
-        // 时间戳处理
-        normalized.put("timestamp", parseTimestamp(logMap.get("timestamp")));
+        // 时间戳处理（SDK 发送数值类型的纪元微秒，无需解析字符串）
+        Object timestampMicros = logMap.get("timestampMicros");
+        normalized.put("timestamp", timestampMicros instanceof Number micros
+                ? fromEpochMicros(micros.longValue())
+                : parseTimestamp(logMap.get("timestamp")));
 
         return normalized;
     }
@@ -179,7 +235,7 @@ public class LogParser {
         // 脱敏 exception
         String exception = (String) logMap.get("exception");
         if (exception != null) {
-            exception = desensitizeString(exception);
+            exception = desensitizeException(exception, logMap.get("extra"));
             logMap.put("exception", exception);
         }
 
@@ -199,6 +255,34 @@ public class LogParser {
 //        }
     }
 
+    /**
+     * 异常堆栈脱敏
+     * SDK 按指纹去重堆栈：完整堆栈脱敏后按指纹缓存；只有栈顶帧的堆栈（exceptionOmitted）只脱敏首行，
+     * 其余部分从缓存补全（Caused by 的消息来自首次出现时），缓存未命中时保留 SDK 发送的内容
+     */
+    private String desensitizeException(String exception, Object extra) {
+        if (!(extra instanceof Map<?, ?> extraMap)
+                || !(extraMap.get(FINGERPRINT_KEY) instanceof String fingerprint)) {
+            return desensitizeString(exception);
+        }
+
+        int bodyStart = exception.indexOf("\n\t");
+        if (!Boolean.TRUE.equals(extraMap.get(OMITTED_KEY))) {
+            String desensitized = desensitizeString(exception);
+            int cachedStart = desensitized.indexOf("\n\t");
+            if (cachedStart >= 0) {
+                stackTraceCache.put(fingerprint, desensitized.substring(cachedStart));
+            }
+            return desensitized;
+        }
+
+        String body = stackTraceCache.get(fingerprint);
+        if (body == null || bodyStart < 0) {
+            return desensitizeString(exception);
+        }
+        return desensitizeString(exception.substring(0, bodyStart)) + body;
+    }
+
     /**
      * 字符串脱敏
      */
@@ -257,6 +341,7 @@ public class LogParser {
         }
         bankCardMatcher.appendTail(result);
         text = result.toString();
+        result.setLength(0);
 
         // IP地址脱敏：192.168.*.*
         Matcher ipMatcher = IP_PATTERN.matcher(text);
@@ -293,6 +378,16 @@ public class LogParser {
         logMap.putIfAbsent("systemId", "unknown");
     }
 
+    /**
+     * 纪元微秒转换为本地时间
+     */
+    private LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofInstant(
+                Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L),
+                ZoneId.systemDefault()
+        );
+    }
+
     /**
      * 解析时间戳（支持多种格式）
      */
@@ -406,6 +501,78 @@ public class LogParser {
         return extra;
     }
 
+    /**
+     * 是否为请求指标汇总（写入指标索引，不转发到检测模块）
+     */
+    public static boolean isMetric(Map<String, Object> logMap) {
+        return logMap.get(METRIC_KEY) != null;
+    }
+
+    /**
+     * 将 SDK 请求指标汇总的字段从 extra 移到 metric 对象（extra 不建索引，metric 字段可查询和聚合）
+     *
+     * @return 不是指标汇总时返回 null
+     */
+    private Map<String, Object> extractMetric(Object extra) {
+        if (!(extra instanceof Map<?, ?> rawExtra) || !RECORD_TYPE_METRIC.equals(rawExtra.get(RECORD_TYPE_KEY))) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> extraMap = (Map<String, Object>) rawExtra;
+
+        Map<String, Object> metric = new HashMap<>();
+        for (String field : METRIC_FIELDS) {
+            Object value = extraMap.remove(field);
+            if (value != null) {
+                metric.put(field, value);
+            }
+        }
+        Map<String, Object> histogram = toHistogram(extraMap.remove(DURATION_BUCKETS_KEY), metric.get("durationMax"));
+        if (histogram != null) {
+            metric.put(DURATION_HISTOGRAM_KEY, histogram);
+        }
+        return metric;
+    }
+
+    /**
+     * 桶上界 → 计数 转换为 ES histogram 字段格式 {values: [...], counts: [...]}（values 严格递增）
+     * 溢出桶（+Inf）取最大耗时，最大耗时不超过最后一个上界时取上界 + 1
+     */
+    private Map<String, Object> toHistogram(Object buckets, Object durationMax) {
+        if (!(buckets instanceof Map<?, ?> bucketMap) || bucketMap.isEmpty()) {
+            return null;
+        }
+        TreeMap<Double, Long> sorted = new TreeMap<>();
+        long overflow = 0;
+        for (Map.Entry<?, ?> bucket : bucketMap.entrySet()) {
+            if (!(bucket.getValue() instanceof Number count) || count.longValue() <= 0) {
+                continue;
+            }
+            String bound = String.valueOf(bucket.getKey());
+            if (OVERFLOW_BUCKET.equals(bound)) {
+                overflow += count.longValue();
+                continue;
+            }
+            try {
+                sorted.merge(Double.parseDouble(bound), count.longValue(), Long::sum);
+            } catch (NumberFormatException e) {
+                log.warn("忽略无法解析的耗时桶：{}", bound);
+            }
+        }
+        if (overflow > 0) {
+            double lastBound = sorted.isEmpty() ? 0 : sorted.lastKey();
+            double max = durationMax instanceof Number number ? number.doubleValue() : 0;
+            sorted.merge(Math.max(max, lastBound + 1), overflow, Long::sum);
+        }
+        if (sorted.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> histogram = new HashMap<>();
+        histogram.put("values", new ArrayList<>(sorted.keySet()));
+        histogram.put("counts", new ArrayList<>(sorted.values()));
+        return histogram;
+    }
+
     /**
      * 字段验证
      */
@@ -6,6 +6,8 @@ import co.elastic.clients.elasticsearch.core.BulkRequest;
 import co.elastic.clients.elasticsearch.core.BulkResponse;
 import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import com.domidodo.logx.common.util.IdGenerator;
+import com.domidodo.logx.engine.processor.parser.LogParser;
 import com.domidodo.logx.engine.storage.elasticsearch.EsIndexManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -48,6 +50,11 @@ public class ElasticsearchWriter {
      */
     private static final String INDEX_PREFIX = "logx-logs-";
 
+    /**
+     * 请求指标汇总的索引前缀（与日志分开，不参与日志检索和统计）
+     */
+    private static final String METRIC_INDEX_PREFIX = "logx-metrics-";
+
     /**
      * 日期格式
      */
@@ -215,11 +222,19 @@ public class ElasticsearchWriter {
 
             if (indexInfo != null) {
                 log.info("自动创建索引: {}", indexName);
-                esIndexManager.createLogIndex(
-                        indexInfo.tenantId,
-                        indexInfo.systemId,
-                        indexInfo.date
-                );
+                if (indexInfo.metric) {
+                    esIndexManager.createMetricIndex(
+                            indexInfo.tenantId,
+                            indexInfo.systemId,
+                            indexInfo.date
+                    );
+                } else {
+                    esIndexManager.createLogIndex(
+                            indexInfo.tenantId,
+                            indexInfo.systemId,
+                            indexInfo.date
+                    );
+                }
                 log.info("索引创建成功: {}", indexName);
             } else {
                 log.error("无法解析索引名称，跳过创建: {}", indexName);
@@ -232,12 +247,14 @@ public class ElasticsearchWriter {
 
     /**
      * 解析索引名称
-     * 格式：logx-logs-{tenantId}-{systemId}-{yyyy.MM.dd}
+     * 格式：logx-logs-{tenantId}-{systemId}-{yyyy.MM.dd} 或 logx-metrics-{tenantId}-{systemId}-{yyyy.MM.dd}
      */
     private IndexInfo parseIndexName(String indexName) {
         try {
             // 移除前缀
-            String withoutPrefix = indexName.replace(INDEX_PREFIX, "");
+            boolean metric = indexName.startsWith(METRIC_INDEX_PREFIX);
+            String withoutPrefix = indexName.substring(
+                    metric ? METRIC_INDEX_PREFIX.length() : INDEX_PREFIX.length());
             String[] parts = withoutPrefix.split("-");
 
             if (parts.length >= 3) {
@@ -248,7 +265,7 @@ public class ElasticsearchWriter {
                 String datePart = parts[2];
                 LocalDate date = LocalDate.parse(datePart, DATE_FORMATTER);
 
-                return new IndexInfo(tenantId, systemId, date);
+                return new IndexInfo(tenantId, systemId, date, metric);
             }
         } catch (Exception e) {
             log.warn("解析索引名称失败: {}", indexName, e);
@@ -289,7 +306,7 @@ public class ElasticsearchWriter {
 
     /**
      * 生成索引名称
-     * 格式：logx-logs-{tenantId}-{systemId}-{yyyy.MM.dd}
+     * 格式：logx-logs-{tenantId}-{systemId}-{yyyy.MM.dd}，请求指标汇总写入 logx-metrics-{tenantId}-{systemId}-{yyyy.MM.dd}
      */
     private String generateIndexName(Map<String, Object> logOne) {
         // 获取并验证租户ID
@@ -304,8 +321,9 @@ public class ElasticsearchWriter {
         String date = extractDate(logOne);
 
         // 构建索引名称
+        String prefix = LogParser.isMetric(logOne) ? METRIC_INDEX_PREFIX : INDEX_PREFIX;
         String indexName = String.format("%s%s-%s-%s",
-                INDEX_PREFIX, tenantId, systemId, date);
+                prefix, tenantId, systemId, date);
 
         // 验证索引名称长度
         if (indexName.length() > MAX_INDEX_NAME_LENGTH) {
@@ -361,10 +379,8 @@ public class ElasticsearchWriter {
             return traceId + "-" + spanId;
         }
 
-        // 使用时间戳 + 随机数（最后的fallback）
-        long timestamp = System.currentTimeMillis();
-        int random = (int) (Math.random() * 10000);
-        return timestamp + "-" + random;
+        // 使用时间有序ID（最后的fallback）
+        return IdGenerator.timeOrderedId();
     }
 
     /**
@@ -469,11 +485,13 @@ public class ElasticsearchWriter {
         String tenantId;
         String systemId;
         LocalDate date;
+        boolean metric;
 
-        IndexInfo(String tenantId, String systemId, LocalDate date) {
+        IndexInfo(String tenantId, String systemId, LocalDate date, boolean metric) {
             this.tenantId = tenantId;
             this.systemId = systemId;
             this.date = date;
+            this.metric = metric;
         }
     }
 }
\ No newline at end of file
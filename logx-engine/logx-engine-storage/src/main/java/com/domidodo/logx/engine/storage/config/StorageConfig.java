@@ -37,6 +37,10 @@ public class StorageConfig {
     @Data
     public static class IndexConfig {
         private String prefix = "logx-logs";
+        /**
+         * 请求指标汇总的索引前缀
+         */
+        private String metricPrefix = "logx-metrics";
         private Integer shards = 5;
         private Integer replicas = 1;
         private String refreshInterval = "5s";
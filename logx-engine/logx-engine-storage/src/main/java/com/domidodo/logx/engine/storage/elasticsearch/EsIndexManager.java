@@ -39,8 +39,24 @@ public class EsIndexManager {
      * @return 索引名称
      */
     public String createLogIndex(String tenantId, String systemId, LocalDate date) {
-        String indexName = buildIndexName(tenantId, systemId, date);
+        String indexName = buildIndexName(storageConfig.getIndex().getPrefix(), tenantId, systemId, date);
+        return createIndex(indexName, buildIndexMappings());
+    }
+
+    /**
+     * 创建请求指标索引（SDK 周期汇总的请求量、错误数和耗时直方图，metric.* 字段可查询和聚合）
+     *
+     * @param tenantId 租户ID
+     * @param systemId 系统ID
+     * @param date     日期
+     * @return 索引名称
+     */
+    public String createMetricIndex(String tenantId, String systemId, LocalDate date) {
+        String indexName = buildIndexName(storageConfig.getIndex().getMetricPrefix(), tenantId, systemId, date);
+        return createIndex(indexName, buildMetricIndexMappings());
+    }
 
+    private String createIndex(String indexName, Map<String, Object> mappings) {
         try {
             IndexOperations indexOps = elasticsearchTemplate.indexOps(IndexCoordinates.of(indexName));
 
@@ -53,7 +69,6 @@ public class EsIndexManager {
             Map<String, Object> settings = buildIndexSettings();
 
             // 创建索引映射
-            Map<String, Object> mappings = buildIndexMappings();
             Document settingsDoc = Document.from(settings);
             Document mappingDoc = Document.from(mappings);
 
@@ -102,8 +117,9 @@ public class EsIndexManager {
         LocalDate cutoffDate = LocalDate.now().minusDays(beforeDays);
 
         try {
-            // 获取所有索引
+            // 获取所有索引（含请求指标索引）
             Set<String> allIndices = getAllLogIndices();
+            allIndices.addAll(getIndices(storageConfig.getIndex().getMetricPrefix() + "-*"));
 
             for (String indexName : allIndices) {
                 LocalDate indexDate = extractDateFromIndexName(indexName);
@@ -176,9 +192,9 @@ public class EsIndexManager {
     /**
      * 构建索引名称
      */
-    private String buildIndexName(String tenantId, String systemId, LocalDate date) {
+    private String buildIndexName(String prefix, String tenantId, String systemId, LocalDate date) {
         return String.format("%s-%s-%s-%s",
-                storageConfig.getIndex().getPrefix(),
+                prefix,
                 tenantId,
                 systemId,
                 date.format(DATE_FORMATTER));
@@ -204,20 +220,27 @@ public class EsIndexManager {
      * 获取所有日志索引
      */
     private Set<String> getAllLogIndices() {
+        return getIndices(storageConfig.getIndex().getPrefix() + "-*");
+    }
+
+    /**
+     * 获取匹配模式的索引
+     */
+    private Set<String> getIndices(String pattern) {
         Set<String> indices = new HashSet<>();
 
         try {
             // 使用 Elasticsearch 客户端获取索引列表
             GetIndexResponse response = elasticsearchClient.indices().get(b -> b
-                    .index(storageConfig.getIndex().getPrefix() + "-*")
+                    .index(pattern)
             );
 
             // 获取所有匹配的索引名称
             indices.addAll(response.result().keySet());
 
-            log.info("找到 {} 个日志索引", indices.size());
+            log.info("找到 {} 个索引: {}", indices.size(), pattern);
         } catch (Exception e) {
-            log.error("获取日志索引列表失败", e);
+            log.error("获取索引列表失败: {}", pattern, e);
         }
 
         return indices;
@@ -304,4 +327,33 @@ public class EsIndexManager {
         mappings.put("properties", properties);
         return mappings;
     }
-}
\ No newline at end of file
+
+    /**
+     * 构建请求指标索引映射
+     * 在日志映射的基础上增加 metric 对象：计数和耗时为数值字段，durationHistogram 为 histogram 字段，
+     * 可按路由、状态聚合并跨实例计算分位数（percentiles 聚合）
+     */
+    private Map<String, Object> buildMetricIndexMappings() {
+        Map<String, Object> mappings = buildIndexMappings();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> properties = (Map<String, Object>) mappings.get("properties");
+
+        Map<String, Object> metric = new HashMap<>();
+        metric.put("metricType", Map.of("type", "keyword"));
+        metric.put("status", Map.of("type", "keyword"));
+        metric.put("intervalStart", Map.of("type", "date", "format", "epoch_millis"));
+        metric.put("intervalMillis", Map.of("type", "long"));
+        metric.put("count", Map.of("type", "long"));
+        metric.put("errorCount", Map.of("type", "long"));
+        metric.put("ratePerSecond", Map.of("type", "double"));
+        metric.put("durationSum", Map.of("type", "long"));
+        metric.put("durationMax", Map.of("type", "long"));
+        metric.put("durationP50", Map.of("type", "long"));
+        metric.put("durationP90", Map.of("type", "long"));
+        metric.put("durationP99", Map.of("type", "long"));
+        metric.put("durationHistogram", Map.of("type", "histogram"));
+
+        properties.put("metric", Map.of("type", "object", "properties", metric));
+        return mappings;
+    }
+}
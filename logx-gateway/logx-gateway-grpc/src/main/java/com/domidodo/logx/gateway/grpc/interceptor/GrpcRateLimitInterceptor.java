@@ -13,6 +13,7 @@ import org.springframework.stereotype.Component;
 /**
  * gRPC 限流拦截器
  * 基于 Redis 实现三级限流
+ * 普通调用在建立时检查一次；客户端流式调用（持久批次流）对每条消息检查，超限时以 RESOURCE_EXHAUSTED 关闭调用
  */
 @Slf4j
 @Component
@@ -48,44 +49,80 @@ public class GrpcRateLimitInterceptor implements ServerInterceptor {
             return next.startCall(call, headers);
         }
 
-        try {
-            String tenantId = TenantContext.getTenantId();
-            String systemId = TenantContext.getSystemId();
+        String tenantId = TenantContext.getTenantId();
+        String systemId = TenantContext.getSystemId();
+
+        // 客户端流式调用（如持久批次流）在一次调用内持续发送，按消息逐条限流
+        if (!call.getMethodDescriptor().getType().clientSendsOneMessage()) {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(
+                    next.startCall(call, headers)) {
+                private boolean closed;
+
+                @Override
+                public void onMessage(ReqT message) {
+                    if (closed) {
+                        return;
+                    }
+                    Status status = checkLimits(tenantId, systemId);
+                    if (status != null) {
+                        // 关闭调用，客户端按退避重连并重发未确认的批次
+                        closed = true;
+                        call.close(status, new Metadata());
+                        return;
+                    }
+                    super.onMessage(message);
+                }
+
+                @Override
+                public void onHalfClose() {
+                    if (!closed) {
+                        super.onHalfClose();
+                    }
+                }
+            };
+        }
+
+        Status status = checkLimits(tenantId, systemId);
+        if (status != null) {
+            call.close(status, headers);
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        // 通过限流检查，继续处理
+        return next.startCall(call, headers);
+    }
 
+    /**
+     * 三级限流检查
+     *
+     * @return 超出限制时返回 RESOURCE_EXHAUSTED，通过时返回 null
+     */
+    private Status checkLimits(String tenantId, String systemId) {
+        try {
             // 1. 全局限流检查
             if (!checkGlobalLimit()) {
                 log.warn("超出全局速率限制");
-                call.close(Status.RESOURCE_EXHAUSTED
-                        .withDescription("系统繁忙，请稍后重试"), headers);
-                return new ServerCall.Listener<>() {
-                };
+                return Status.RESOURCE_EXHAUSTED.withDescription("系统繁忙，请稍后重试");
             }
 
             // 2. 租户限流检查
             if (tenantId != null && !checkTenantLimit(tenantId)) {
                 log.warn("超出租户速率限制：tenantId={}", tenantId);
-                call.close(Status.RESOURCE_EXHAUSTED
-                        .withDescription("租户请求过于频繁，请稍后重试"), headers);
-                return new ServerCall.Listener<>() {
-                };
+                return Status.RESOURCE_EXHAUSTED.withDescription("租户请求过于频繁，请稍后重试");
             }
 
             // 3. 系统限流检查
             if (systemId != null && !checkSystemLimit(tenantId, systemId)) {
                 log.warn("超出系统速率限制：tenantId={}，systemId={}", tenantId, systemId);
-                call.close(Status.RESOURCE_EXHAUSTED
-                        .withDescription("系统请求过于频繁，请稍后重试"), headers);
-                return new ServerCall.Listener<>() {
-                };
+                return Status.RESOURCE_EXHAUSTED.withDescription("系统请求过于频繁，请稍后重试");
             }
-
-            // 通过限流检查，继续处理
-            return next.startCall(call, headers);
+            return null;
 
         } catch (Exception e) {
             log.error("速率限制检查错误", e);
             // 异常情况放行，避免服务不可用
-            return next.startCall(call, headers);
+            return null;
         }
     }
 
@@ -1,9 +1,10 @@
 package com.domidodo.logx.gateway.grpc.service;
 
-import com.domidodo.logx.common.context.TenantContext;
 import com.domidodo.logx.common.grpc.*;
+import com.domidodo.logx.common.util.IdGenerator;
 import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +17,7 @@ import java.util.stream.Collectors;
 /**
  * gRPC 日志接收服务
  * 支持 google.protobuf.Struct 类型的 extra 字段
+ * 支持紧凑批次（version = 2，批次级字符串表），旧版客户端的普通批次照常处理
  */
 @Slf4j
 @GrpcService
@@ -24,6 +26,11 @@ public class LogIngestGrpcService extends LogServiceGrpc.LogServiceImplBase {
 
     private final KafkaLogSender kafkaLogSender;
 
+    /**
+     * 紧凑批次版本号
+     */
+    private static final int COMPACT_BATCH_VERSION = 2;
+
     @org.springframework.beans.factory.annotation.Value("${logx.batch.max-size:100}")
     private int maxBatchSize;
 
@@ -32,49 +39,110 @@ public class LogIngestGrpcService extends LogServiceGrpc.LogServiceImplBase {
      */
     @Override
     public void sendLogs(LogBatchRequest request, StreamObserver<LogBatchResponse> responseObserver) {
+        responseObserver.onNext(ingestBatch(request));
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * 批量接收紧凑批次（与 sendLogs 共用处理逻辑）
+     */
+    @Override
+    public void sendCompactLogs(LogBatchRequest request, StreamObserver<LogBatchResponse> responseObserver) {
+        sendLogs(request, responseObserver);
+    }
+
+    /**
+     * 持久双向流接收紧凑批次（与 streamLogBatches 共用处理逻辑）
+     */
+    @Override
+    public StreamObserver<LogBatchRequest> streamCompactLogBatches(StreamObserver<LogStreamAck> responseObserver) {
+        return streamLogBatches(responseObserver);
+    }
+
+    /**
+     * 持久双向流接收日志
+     * 客户端持续发送带序号的批次，每处理完一批立即返回确认
+     */
+    @Override
+    public StreamObserver<LogBatchRequest> streamLogBatches(StreamObserver<LogStreamAck> responseObserver) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(LogBatchRequest request) {
+                LogBatchResponse result = ingestBatch(request);
+                LogStreamAck ack = LogStreamAck.newBuilder()
+                        .setSequence(request.getSequence())
+                        .setSuccess(result.getSuccess())
+                        .setReceived(result.getReceived())
+                        .setSuccessCount(result.getSuccessCount())
+                        .setFailedCount(result.getFailedCount())
+                        .setMessage(result.getMessage())
+                        .build();
+                try {
+                    responseObserver.onNext(ack);
+                } catch (Exception e) {
+                    // 客户端已断开，未确认的批次会在重连后重发
+                    log.debug("发送批次确认失败: 序号={}", request.getSequence(), e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.warn("gRPC 日志流异常断开: {}", Status.fromThrowable(t));
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * 处理一个日志批次
+     */
+    private LogBatchResponse ingestBatch(LogBatchRequest request) {
         long startTime = System.currentTimeMillis();
 
         try {
             // 1. 参数校验
             if (request.getLogsList().isEmpty()) {
-                LogBatchResponse response = LogBatchResponse.newBuilder()
+                return LogBatchResponse.newBuilder()
                         .setSuccess(false)
                         .setMessage("日志列表不能为空")
                         .setReceived(0)
                         .setSuccessCount(0)
                         .setFailedCount(0)
                         .build();
-                responseObserver.onNext(response);
-                responseObserver.onCompleted();
-                return;
             }
 
             // 2. 检查批次大小
             int logCount = request.getLogsList().size();
             if (logCount > maxBatchSize) {
-                LogBatchResponse response = LogBatchResponse.newBuilder()
+                return LogBatchResponse.newBuilder()
                         .setSuccess(false)
                         .setMessage("批次大小超过限制，最大允许 " + maxBatchSize + " 条")
                         .setReceived(logCount)
                         .setSuccessCount(0)
                         .setFailedCount(logCount)
                         .build();
-                responseObserver.onNext(response);
-                responseObserver.onCompleted();
-                return;
             }
 
-            // 3. 转换为 Map 格式
+            // 3. 转换为 Map 格式（紧凑批次按字符串表还原）
             List<Map<String, Object>> logs = request.getLogsList().stream()
-                    .map(this::convertToMap)
+                    .map(entry -> convertToMap(entry, request))
                     .collect(Collectors.toList());
 
             // 4. 发送到 Kafka
             int successCount = kafkaLogSender.sendBatch(logs);
             int failedCount = logCount - successCount;
 
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("gRPC批处理：租户＝{}，系统＝{}、日志＝{}；成功＝{}。持续时间＝{}毫秒",
+                    request.getTenantId(), request.getSystemId(),
+                    logCount, successCount, duration);
+
             // 5. 构建响应
-            LogBatchResponse response = LogBatchResponse.newBuilder()
+            return LogBatchResponse.newBuilder()
                     .setSuccess(successCount > 0)
                     .setReceived(logCount)
                     .setSuccessCount(successCount)
@@ -83,27 +151,16 @@ public class LogIngestGrpcService extends LogServiceGrpc.LogServiceImplBase {
                             logCount, successCount, failedCount))
                     .build();
 
-            responseObserver.onNext(response);
-            responseObserver.onCompleted();
-
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("gRPC批处理：租户＝{}，系统＝{}、日志＝{}；成功＝{}。持续时间＝{}毫秒",
-                    TenantContext.getTenantId(), TenantContext.getSystemId(),
-                    logCount, successCount, duration);
-
         } catch (Exception e) {
             log.error("处理gRPC日志批处理时出错", e);
 
-            LogBatchResponse response = LogBatchResponse.newBuilder()
+            return LogBatchResponse.newBuilder()
                     .setSuccess(false)
                     .setMessage("处理失败: " + e.getMessage())
                     .setReceived(request.getLogsList().size())
                     .setSuccessCount(0)
                     .setFailedCount(request.getLogsList().size())
                     .build();
-
-            responseObserver.onNext(response);
-            responseObserver.onCompleted();
         }
     }
 
@@ -173,50 +230,53 @@ public class LogIngestGrpcService extends LogServiceGrpc.LogServiceImplBase {
      * 支持 google.protobuf.Struct 类型的 extra 字段
      */
     private Map<String, Object> convertToMap(LogEntry entry) {
+        return convertToMap(entry, null);
+    }
+
+    /**
+     * 将批次中的 gRPC LogEntry 转换为 Map
+     * 紧凑批次中的低基数字段从字符串表取值，租户与系统信息沿用批次头
+     */
+    Map<String, Object> convertToMap(LogEntry entry, LogBatchRequest batch) {
+        List<String> table = batch != null && batch.getVersion() == COMPACT_BATCH_VERSION
+                ? batch.getStringsList()
+                : null;
         Map<String, Object> map = new HashMap<>();
 
         // ============ 基础字段 ============
+        // 协议中没有日志ID，由网关生成时间有序ID（用作 Elasticsearch 文档 _id）
+        map.put("id", IdGenerator.timeOrderedId());
         if (!entry.getTraceId().isEmpty()) {
             map.put("traceId", entry.getTraceId());
         }
         if (!entry.getSpanId().isEmpty()) {
             map.put("spanId", entry.getSpanId());
         }
-        if (!entry.getTenantId().isEmpty()) {
-            map.put("tenantId", entry.getTenantId());
-        }
-        if (!entry.getSystemId().isEmpty()) {
-            map.put("systemId", entry.getSystemId());
-        }
-        if (!entry.getSystemName().isEmpty()) {
-            map.put("systemName", entry.getSystemName());
-        }
+        putIfNotEmpty(map, "tenantId", entry.getTenantId().isEmpty() && table != null
+                ? batch.getTenantId() : entry.getTenantId());
+        putIfNotEmpty(map, "systemId", entry.getSystemId().isEmpty() && table != null
+                ? batch.getSystemId() : entry.getSystemId());
+        putIfNotEmpty(map, "systemName", entry.getSystemName().isEmpty() && table != null
+                ? batch.getSystemName() : entry.getSystemName());
 
         // ============ 时间戳处理 ============
-        if (entry.getTimestamp() > 0) {
+        if (entry.getTimestampMicros() > 0) {
+            map.put("timestamp", entry.getTimestampMicros() / 1_000L);
+            map.put("timestampMicros", entry.getTimestampMicros());
+        } else if (entry.getTimestamp() > 0) {
             map.put("timestamp", entry.getTimestamp());
         } else {
             map.put("timestamp", Instant.now().toEpochMilli());
         }
 
         // ============ 日志基础信息 ============
-        if (!entry.getLevel().isEmpty()) {
-            map.put("level", entry.getLevel());
-        }
-        if (!entry.getLogger().isEmpty()) {
-            map.put("logger", entry.getLogger());
-        }
-        if (!entry.getThread().isEmpty()) {
-            map.put("thread", entry.getThread());
-        }
+        putIfNotEmpty(map, "level", resolve(table, entry.getLevelRef(), entry.getLevel()));
+        putIfNotEmpty(map, "logger", resolve(table, entry.getLoggerRef(), entry.getLogger()));
+        putIfNotEmpty(map, "thread", resolve(table, entry.getThreadRef(), entry.getThread()));
 
         // ============ 代码位置 ============
-        if (!entry.getClassName().isEmpty()) {
-            map.put("className", entry.getClassName());
-        }
-        if (!entry.getMethodName().isEmpty()) {
-            map.put("methodName", entry.getMethodName());
-        }
+        putIfNotEmpty(map, "className", resolve(table, entry.getClassNameRef(), entry.getClassName()));
+        putIfNotEmpty(map, "methodName", resolve(table, entry.getMethodNameRef(), entry.getMethodName()));
         if (entry.getLineNumber() > 0) {
             map.put("lineNumber", entry.getLineNumber());
         }
@@ -238,20 +298,14 @@ public class LogIngestGrpcService extends LogServiceGrpc.LogServiceImplBase {
         }
 
         // ============ 业务信息 ============
-        if (!entry.getModule().isEmpty()) {
-            map.put("module", entry.getModule());
-        }
-        if (!entry.getOperation().isEmpty()) {
-            map.put("operation", entry.getOperation());
-        }
+        putIfNotEmpty(map, "module", resolve(table, entry.getModuleRef(), entry.getModule()));
+        putIfNotEmpty(map, "operation", resolve(table, entry.getOperationRef(), entry.getOperation()));
 
         // ============ 请求信息 ============
         if (!entry.getRequestUrl().isEmpty()) {
             map.put("requestUrl", entry.getRequestUrl());
         }
-        if (!entry.getRequestMethod().isEmpty()) {
-            map.put("requestMethod", entry.getRequestMethod());
-        }
+        putIfNotEmpty(map, "requestMethod", resolve(table, entry.getRequestMethodRef(), entry.getRequestMethod()));
         if (!entry.getRequestParams().isEmpty()) {
             map.put("requestParams", entry.getRequestParams());
         }
@@ -263,14 +317,18 @@ public class LogIngestGrpcService extends LogServiceGrpc.LogServiceImplBase {
         if (!entry.getIp().isEmpty()) {
             map.put("ip", entry.getIp());
         }
-        if (!entry.getUserAgent().isEmpty()) {
-            map.put("userAgent", entry.getUserAgent());
-        }
+        putIfNotEmpty(map, "userAgent", resolve(table, entry.getUserAgentRef(), entry.getUserAgent()));
 
         // ============ 标签和扩展字段 ============
         // 标签列表
         if (!entry.getTagsList().isEmpty()) {
             map.put("tags", entry.getTagsList());
+        } else if (table != null && entry.getTagRefsCount() > 0) {
+            List<String> tags = new ArrayList<>(entry.getTagRefsCount());
+            for (int ref : entry.getTagRefsList()) {
+                tags.add(resolve(table, ref, ""));
+            }
+            map.put("tags", tags);
         }
 
         // 扩展字段（google.protobuf.Struct -> Map）
@@ -284,6 +342,25 @@ public class LogIngestGrpcService extends LogServiceGrpc.LogServiceImplBase {
         return map;
     }
 
+    /**
+     * 从字符串表取值，非紧凑批次或未设置引用时使用原字段
+     */
+    private static String resolve(List<String> table, int ref, String plain) {
+        if (table == null || ref == 0) {
+            return plain;
+        }
+        if (ref >= table.size()) {
+            throw new IllegalArgumentException("字符串表引用越界: " + ref);
+        }
+        return table.get(ref);
+    }
+
+    private static void putIfNotEmpty(Map<String, Object> map, String key, String value) {
+        if (!value.isEmpty()) {
+            map.put(key, value);
+        }
+    }
+
     /**
      * 将 google.protobuf.Struct 转换为 Map
      */
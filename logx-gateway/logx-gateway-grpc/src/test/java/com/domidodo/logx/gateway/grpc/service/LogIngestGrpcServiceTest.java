@@ -0,0 +1,122 @@
+package com.domidodo.logx.gateway.grpc.service;
+
+import com.domidodo.logx.common.grpc.LogBatchRequest;
+import com.domidodo.logx.common.grpc.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 紧凑批次（version = 2）按字符串表还原，结果与普通批次一致
+ */
+class LogIngestGrpcServiceTest {
+
+    private static final long TIMESTAMP_MICROS = 1_700_000_000_123_456L;
+
+    /**
+     * 与 SDK 的 CompactBatchCodec 相同：下标 0 为空字符串，其余按首次出现的顺序编号
+     */
+    private static final List<String> TABLE = List.of(
+            "", "ERROR", "com.example.OrderService", "http-nio-8080-exec-1", "create", "order", "POST", "curl/8.0", "slow");
+
+    private final LogIngestGrpcService service = new LogIngestGrpcService(null);
+
+    @Test
+    void compactBatchConvertsToTheSameMapAsPlainBatch() {
+        LogBatchRequest plain = header()
+                .addLogs(LogEntry.newBuilder()
+                        .setTenantId("tenant-1")
+                        .setSystemId("system-1")
+                        .setSystemName("订单系统")
+                        .setTimestamp(TIMESTAMP_MICROS / 1_000L)
+                        .setTimestampMicros(TIMESTAMP_MICROS)
+                        .setLevel("ERROR")
+                        .setLogger("com.example.OrderService")
+                        .setThread("http-nio-8080-exec-1")
+                        .setClassName("com.example.OrderService")
+                        .setMethodName("create")
+                        .setLineNumber(42)
+                        .setModule("order")
+                        .setOperation("create")
+                        .setRequestMethod("POST")
+                        .setUserAgent("curl/8.0")
+                        .addTags("slow")
+                        .addTags("order")
+                        .setMessage("下单失败"))
+                .build();
+        LogBatchRequest compact = compact(LogEntry.newBuilder()
+                .setTimestampMicros(TIMESTAMP_MICROS)
+                .setLevelRef(1)
+                .setLoggerRef(2)
+                .setThreadRef(3)
+                .setClassNameRef(2)
+                .setMethodNameRef(4)
+                .setLineNumber(42)
+                .setModuleRef(5)
+                .setOperationRef(4)
+                .setRequestMethodRef(6)
+                .setUserAgentRef(7)
+                .addTagRefs(8)
+                .addTagRefs(5)
+                .setMessage("下单失败"));
+
+        Map<String, Object> expected = convert(plain);
+        Map<String, Object> actual = convert(compact);
+
+        assertEquals(expected, actual);
+        assertEquals("tenant-1", actual.get("tenantId"), "租户信息沿用批次头");
+        assertEquals(List.of("slow", "order"), actual.get("tags"));
+    }
+
+    @Test
+    void unsetRefsFallBackToPlainFields() {
+        Map<String, Object> map = convert(compact(LogEntry.newBuilder()
+                .setTimestampMicros(TIMESTAMP_MICROS)
+                .setLevelRef(1)
+                .setThread("worker-1")));
+
+        assertEquals("ERROR", map.get("level"));
+        assertEquals("worker-1", map.get("thread"));
+    }
+
+    @Test
+    void outOfRangeRefIsRejected() {
+        LogBatchRequest levelOutOfRange = compact(LogEntry.newBuilder().setLevelRef(TABLE.size()));
+        assertThrows(IllegalArgumentException.class, () -> convert(levelOutOfRange));
+
+        LogBatchRequest tagOutOfRange = compact(LogEntry.newBuilder().addTagRefs(1).addTagRefs(1_000));
+        assertThrows(IllegalArgumentException.class, () -> convert(tagOutOfRange));
+    }
+
+    @Test
+    void refsAreIgnoredInPlainBatch() {
+        LogBatchRequest plain = header()
+                .addLogs(LogEntry.newBuilder().setLevel("INFO").setLevelRef(1_000))
+                .build();
+
+        assertEquals("INFO", convert(plain).get("level"), "普通批次没有字符串表，只使用原字段");
+    }
+
+    private Map<String, Object> convert(LogBatchRequest batch) {
+        Map<String, Object> map = service.convertToMap(batch.getLogs(0), batch);
+        // id 由网关生成，每次不同
+        assertNotNull(map.remove("id"));
+        return map;
+    }
+
+    private static LogBatchRequest compact(LogEntry.Builder entry) {
+        return header().setVersion(2).addAllStrings(TABLE).addLogs(entry).build();
+    }
+
+    private static LogBatchRequest.Builder header() {
+        return LogBatchRequest.newBuilder()
+                .setTenantId("tenant-1")
+                .setSystemId("system-1")
+                .setSystemName("订单系统");
+    }
+}
@@ -0,0 +1,200 @@
+package com.domidodo.gateway.http.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 请求体解压过滤器
+ * <p>
+ * SDK 可按 Content-Encoding 发送 gzip / zstd 压缩的日志批次：
+ * 1. gzip 使用 JDK 解压；zstd 需要 classpath 中存在 zstd-jni，否则返回 415
+ * 2. 解压后的字节数超过上限时中断读取，防止压缩炸弹
+ * 3. 未压缩的请求原样放行
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final Constructor<?> ZSTD_STREAM = loadZstdStream();
+
+    /**
+     * 解压后请求体的最大字节数
+     */
+    @Value("${logx.http.max-decompressed-size:16777216}")
+    private long maxDecompressedSize;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        InputStream decoded;
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            decoded = new GZIPInputStream(request.getInputStream(), 8 * 1024);
+        } else if ("zstd".equalsIgnoreCase(encoding) && ZSTD_STREAM != null) {
+            decoded = newZstdStream(request.getInputStream());
+        } else {
+            log.warn("不支持的请求体编码: {}", encoding);
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + encoding);
+            return;
+        }
+
+        try (InputStream in = decoded) {
+            chain.doFilter(new DecompressedRequest(request, in, maxDecompressedSize), response);
+        }
+    }
+
+    private static InputStream newZstdStream(InputStream in) throws IOException {
+        try {
+            return (InputStream) ZSTD_STREAM.newInstance(in);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("创建 zstd 解压流失败", e);
+        }
+    }
+
+    private static Constructor<?> loadZstdStream() {
+        try {
+            return Class.forName("com.github.luben.zstd.ZstdInputStream").getConstructor(InputStream.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解压后的请求：隐藏 Content-Encoding，长度未知
+     */
+    private static class DecompressedRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream inputStream;
+
+        DecompressedRequest(HttpServletRequest request, InputStream decoded, long limit) {
+            super(request);
+            this.inputStream = new LimitedServletInputStream(decoded, limit);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (isRemovedHeader(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (isRemovedHeader(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1L;
+        }
+
+        private static boolean isRemovedHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * 限制读取总字节数的输入流
+     */
+    private static class LimitedServletInputStream extends ServletInputStream {
+
+        private final InputStream delegate;
+        private final long limit;
+        private long total;
+        private boolean finished;
+
+        LimitedServletInputStream(InputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b < 0) {
+                finished = true;
+            } else {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            if (n < 0) {
+                finished = true;
+            } else {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("解压后的请求体不支持异步读取");
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        private void count(int n) throws IOException {
+            total += n;
+            if (total > limit) {
+                throw new IOException("解压后的请求体超过上限: " + limit + " 字节");
+            }
+        }
+    }
+}
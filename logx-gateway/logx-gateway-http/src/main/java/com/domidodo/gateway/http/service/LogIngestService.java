@@ -6,13 +6,13 @@ import com.domidodo.logx.common.context.TenantContext;
 import com.domidodo.logx.common.dto.LogDTO;
 import com.domidodo.logx.common.exception.BusinessException;
 import com.domidodo.logx.common.result.Result;
+import com.domidodo.logx.common.util.IdGenerator;
 import com.domidodo.logx.common.util.JsonUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.*;
 
 @Slf4j
@@ -68,15 +68,15 @@ public class LogIngestService {
      */
     private void enrichLog(LogDTO logDTO) {
         if (logDTO.getId() == null) {
-            logDTO.setId(UUID.randomUUID().toString().replace("-", ""));
+            logDTO.setId(IdGenerator.timeOrderedId());
         }
 
         if (logDTO.getTenantId() == null) {
             logDTO.setTenantId(TenantContext.getTenantId());
         }
 
-        if (logDTO.getTimestamp() == null) {
-            logDTO.setTimestamp(LocalDateTime.now());
+        if (logDTO.getTimestamp() == null && logDTO.getTimestampMicros() == null) {
+            logDTO.setTimestampMicros(System.currentTimeMillis() * 1_000L);
         }
     }
 
@@ -3,6 +3,7 @@ package com.domidodo.logx.infrastructure.interceptor;
 
 import com.domidodo.logx.common.constant.SystemConstant;
 import com.domidodo.logx.common.context.TenantContext;
+import com.domidodo.logx.common.util.IdGenerator;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -10,8 +11,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import java.util.UUID;
-
 @Slf4j
 @Component
 public class TenantInterceptor implements HandlerInterceptor {
@@ -40,7 +39,7 @@ public class TenantInterceptor implements HandlerInterceptor {
         // 3. 生成或提取请求ID
         String requestId = request.getHeader(SystemConstant.REQUEST_ID_HEADER);
         if (!StringUtils.hasText(requestId)) {
-            requestId = UUID.randomUUID().toString().replace("-", "");
+            requestId = IdGenerator.randomId();
         }
         TenantContext.setRequestId(requestId);
 
@@ -0,0 +1,31 @@
+package com.domidodo.logx.sdk.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * <p>
+ * 参数与 JMH 命令行一致（如 {@code java -jar benchmarks.jar LogBuffer -t 4}），
+ * 未指定 -prof 时默认启用 gc 分析器，同时输出 ops/s 与每次操作的分配字节数（gc.alloc.rate.norm）
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        Options options = builder.parent(commandLine).build();
+        new Runner(options).run();
+    }
+}
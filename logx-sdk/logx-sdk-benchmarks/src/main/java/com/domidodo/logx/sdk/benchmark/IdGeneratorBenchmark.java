@@ -0,0 +1,39 @@
+package com.domidodo.logx.sdk.benchmark;
+
+import com.domidodo.logx.common.util.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志 / 追踪 ID 生成开销，与 UUID.randomUUID() 对比
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Benchmark
+    public String timeOrderedId() {
+        return IdGenerator.timeOrderedId();
+    }
+
+    @Benchmark
+    public String randomId() {
+        return IdGenerator.randomId();
+    }
+
+    @Benchmark
+    public String uuid() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
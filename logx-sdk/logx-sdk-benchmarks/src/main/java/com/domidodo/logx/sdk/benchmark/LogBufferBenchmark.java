@@ -0,0 +1,83 @@
+package com.domidodo.logx.sdk.benchmark;
+
+import com.domidodo.logx.sdk.core.buffer.LogBuffer;
+import com.domidodo.logx.sdk.core.buffer.OverflowPolicy;
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多生产者写入 LogBuffer 的吞吐
+ * <p>
+ * 后台线程模拟刷新线程持续按批取出；使用 DROP_OLDEST 策略，缓冲区满时生产者淘汰最旧日志后写入，
+ * 每次操作都真正入队，不会退化为测量满队列下的拒绝开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogBufferBenchmark {
+
+    private LogBuffer buffer;
+    private LogEntry entry;
+    private Thread consumer;
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        buffer = new LogBuffer(8192, OverflowPolicy.DROP_OLDEST, Duration.ZERO);
+        entry = LogEntry.builder().level("INFO").message("用户下单成功").build();
+        running = true;
+        consumer = new Thread(() -> {
+            while (running) {
+                List<LogEntry> batch = buffer.drain(500);
+                if (batch.isEmpty()) {
+                    Thread.onSpinWait();
+                }
+            }
+        }, "benchmark-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        consumer.join();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean add1() {
+        return buffer.add(entry);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean add4() {
+        return buffer.add(entry);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean add16() {
+        return buffer.add(entry);
+    }
+}
@@ -0,0 +1,85 @@
+package com.domidodo.logx.sdk.benchmark;
+
+import com.domidodo.logx.sdk.core.LogXClient;
+import com.domidodo.logx.sdk.core.buffer.OverflowPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 业务线程调用 info / error 的开销
+ * <p>
+ * 发送器为空实现：buffered=true 时测量入队开销（缓冲区满时丢弃，避免刷新线程成为瓶颈），
+ * buffered=false 时测量同步构建日志并交给发送器的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogXClientBenchmark {
+
+    @Param({"true", "false"})
+    public boolean buffered;
+
+    private LogXClient client;
+    private Map<String, Object> context;
+    private RuntimeException exception;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        client = LogXClient.builder()
+                .tenantId("benchmark")
+                .systemId("benchmark")
+                .apiKey("benchmark")
+                .bufferEnabled(buffered)
+                .bufferSize(8192)
+                .overflowPolicy(OverflowPolicy.DROP_NEWEST)
+                .flushInterval(Duration.ofMillis(50))
+                .sender(new NoopLogSender(blackhole))
+                .build();
+        context = Map.of("orderId", "O-20240101-0001", "amount", 99.5, "items", 3);
+        exception = new IllegalStateException("库存不足");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Benchmark
+    public void info() {
+        client.info("用户下单成功");
+    }
+
+    @Benchmark
+    public void infoWithContext() {
+        client.info("用户下单成功", context);
+    }
+
+    @Benchmark
+    public void infoParameterized() {
+        client.info("用户 {} 下单成功，金额 {}", "u-10086", 99.5);
+    }
+
+    @Benchmark
+    public void error() {
+        client.error("下单失败", exception);
+    }
+}
@@ -0,0 +1,29 @@
+package com.domidodo.logx.sdk.benchmark;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.sender.LogSender;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * 不发送任何数据的发送器，只把日志交给 Blackhole，用于隔离客户端自身开销
+ */
+final class NoopLogSender implements LogSender {
+
+    private final Blackhole blackhole;
+
+    NoopLogSender(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void send(LogEntry entry) {
+        blackhole.consume(entry);
+    }
+
+    @Override
+    public void sendBatch(List<LogEntry> entries) {
+        blackhole.consume(entries);
+    }
+}
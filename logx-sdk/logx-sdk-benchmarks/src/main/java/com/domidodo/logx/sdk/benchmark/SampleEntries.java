@@ -0,0 +1,64 @@
+package com.domidodo.logx.sdk.benchmark;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试用的典型日志批次
+ */
+public final class SampleEntries {
+
+    private SampleEntries() {
+    }
+
+    /**
+     * 生成一个批次，每条日志带追踪信息、上下文和 extra 结构体，每 10 条有一条带异常堆栈
+     */
+    public static List<LogEntry> batch(int size) {
+        long now = System.currentTimeMillis() * 1000;
+        List<LogEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LogEntry entry = LogEntry.builder()
+                    .traceId("6f1c2a9e4b3d8f70a1c2e3d4b5a69788")
+                    .spanId("a1b2c3d4e5f60718")
+                    .tenantId("benchmark")
+                    .systemId("order-service")
+                    .epochMicros(now + i)
+                    .level(i % 10 == 0 ? "ERROR" : "INFO")
+                    .logger("com.example.order.OrderService")
+                    .thread("http-nio-8080-exec-" + (i % 16))
+                    .className("com.example.order.OrderService")
+                    .methodName("createOrder")
+                    .lineNumber(128)
+                    .message("用户下单成功 orderId=O-" + i + " \"quoted\"\tamount=99.50")
+                    .userId("u-10086")
+                    .module("订单")
+                    .operation("创建订单")
+                    .requestUrl("/api/orders")
+                    .requestMethod("POST")
+                    .responseTime(35L)
+                    .ip("10.0.0.12")
+                    .tags(List.of("order", "create"))
+                    .context(Map.of("orderId", "O-" + i, "amount", 99.5, "items", 3))
+                    .extra(Struct.newBuilder()
+                            .putFields("channel", Value.newBuilder().setStringValue("app").build())
+                            .putFields("coupon", Value.newBuilder().setBoolValue(true).build())
+                            .putFields("weight", Value.newBuilder().setNumberValue(1.25).build())
+                            .build())
+                    .build();
+            if (i % 10 == 0) {
+                entry.setExceptionType("java.lang.IllegalStateException");
+                entry.setStackTrace("java.lang.IllegalStateException: 库存不足\n"
+                        + "\tat com.example.order.OrderService.createOrder(OrderService.java:128)\n"
+                        + "\tat com.example.order.OrderController.create(OrderController.java:42)\n");
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
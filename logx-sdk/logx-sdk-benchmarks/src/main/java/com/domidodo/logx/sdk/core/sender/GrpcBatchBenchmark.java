@@ -0,0 +1,74 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.sdk.benchmark.SampleEntries;
+import com.domidodo.logx.sdk.core.config.LogXConfig;
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * gRPC 发送器的批次构建（LogEntry 转 Protobuf，含 Struct 类型的 context / extra）
+ * <p>
+ * 位于 sender 包内以访问包级可见的 buildBatchRequest；channel 惰性连接，基准测试不会发起网络请求。
+ * build 只构建消息，serialize 额外包含序列化为字节数组的开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GrpcBatchBenchmark {
+
+    @Param({"100", "500"})
+    public int batchSize;
+
+    @Param({"true", "false"})
+    public boolean compact;
+
+    private List<LogEntry> entries;
+    private GrpcLogSender sender;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LogXConfig config = new LogXConfig();
+        config.setTenantId("benchmark");
+        config.setSystemId("order-service");
+        config.setSystemName("订单服务");
+        config.setApiKey("benchmark");
+        config.setMode("grpc");
+        config.setGrpcHost("127.0.0.1");
+        config.setGrpcCompactBatch(compact);
+        entries = SampleEntries.batch(batchSize);
+        sender = new GrpcLogSender(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sender.shutdown();
+    }
+
+    @Benchmark
+    public Object build() {
+        return sender.buildBatchRequest(entries).build();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return sender.buildBatchRequest(entries).build().toByteArray();
+    }
+}
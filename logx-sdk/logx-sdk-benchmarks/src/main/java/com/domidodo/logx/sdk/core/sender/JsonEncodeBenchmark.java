@@ -0,0 +1,63 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.sdk.benchmark.SampleEntries;
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP 发送器的批次编码（JsonLogEncoder 写入可复用的 RequestBodyBuffer）
+ * <p>
+ * 位于 sender 包内以访问包级可见的编码类；encoding=none 测量纯 JSON 编码，gzip 包含压缩开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonEncodeBenchmark {
+
+    @Param({"100", "500"})
+    public int batchSize;
+
+    @Param({"none", "gzip"})
+    public String encoding;
+
+    private List<LogEntry> entries;
+    private RequestBodyBuffer buffer;
+    private String resolvedEncoding;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entries = SampleEntries.batch(batchSize);
+        buffer = new RequestBodyBuffer();
+        resolvedEncoding = RequestBodyBuffer.resolveEncoding(encoding);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        buffer.dispose();
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        buffer.encode(entries, resolvedEncoding);
+        return buffer.size();
+    }
+}
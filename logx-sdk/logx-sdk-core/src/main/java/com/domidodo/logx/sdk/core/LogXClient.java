@@ -1,18 +1,38 @@
 package com.domidodo.logx.sdk.core;
 
+import com.domidodo.logx.common.util.IdGenerator;
+import com.domidodo.logx.sdk.core.aggregation.LogAggregator;
+import com.domidodo.logx.sdk.core.aggregation.RequestMetricsAggregator;
 import com.domidodo.logx.sdk.core.buffer.LogBuffer;
+import com.domidodo.logx.sdk.core.buffer.LogFlusher;
+import com.domidodo.logx.sdk.core.buffer.OverflowPolicy;
 import com.domidodo.logx.sdk.core.config.LogXConfig;
+import com.domidodo.logx.sdk.core.fingerprint.StackTraceDeduplicator;
+import com.domidodo.logx.sdk.core.location.CallerLocator;
+import com.domidodo.logx.sdk.core.location.CallerLocator.CodeLocation;
+import com.domidodo.logx.sdk.core.location.LocationCapture;
+import com.domidodo.logx.sdk.core.metrics.LogXMetrics;
+import com.domidodo.logx.sdk.core.metrics.TransportMetrics;
 import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.model.LogEntryPool;
+import com.domidodo.logx.sdk.core.sampling.LogSampler;
+import com.domidodo.logx.sdk.core.sampling.SamplingRule;
+import com.domidodo.logx.sdk.core.sender.DeliveryCounters;
+import com.domidodo.logx.sdk.core.sender.FailoverLogSender;
 import com.domidodo.logx.sdk.core.sender.GrpcLogSender;
 import com.domidodo.logx.sdk.core.sender.HttpLogSender;
 import com.domidodo.logx.sdk.core.sender.LogSender;
+import com.domidodo.logx.sdk.core.util.LogClock;
+import com.domidodo.logx.sdk.core.util.MessageFormatter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * LogX 客户端
@@ -25,7 +45,39 @@ public class LogXClient {
     private final LogXConfig config;
     private final LogSender sender;
     private final LogBuffer buffer;
-    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 高优先级通道的缓冲区（未启用缓冲或高优先级通道时为 null）
+     */
+    private final LogBuffer priorityBuffer;
+
+    /**
+     * 进入高优先级通道的最低级别
+     */
+    private final Level priorityLevel;
+
+    private final LogFlusher flusher;
+    private final LogEntryPool entryPool;
+    private final LogSampler sampler;
+    private final LogAggregator aggregator;
+
+    /**
+     * 异常堆栈去重（未启用时为 null）
+     */
+    private final StackTraceDeduplicator stackTraceDedup;
+
+    /**
+     * 请求 RED 指标聚合（未启用时为 null）
+     */
+    private final RequestMetricsAggregator requestMetrics;
+
+    private final LogClock clock;
+    private final CallerLocator callerLocator = new CallerLocator(LogXClient.class, LogXLogger.class);
+
+    /**
+     * 进入缓冲区或交给发送器的日志条数
+     */
+    private final LongAdder acceptedCount = new LongAdder();
 
     /**
      * 日志级别枚举
@@ -34,11 +86,33 @@ public class LogXClient {
         DEBUG, INFO, WARN, ERROR
     }
 
-    private LogXClient(LogXConfig config) {
+    private static final Level[] LEVELS = Level.values();
+
+    /**
+     * 堆栈去重记录的指纹数量上限
+     */
+    private static final int MAX_STACK_TRACE_FINGERPRINTS = 4096;
+
+    /**
+     * @param customSender 自定义发送器，为 null 时按配置创建
+     */
+    private LogXClient(LogXConfig config, LogSender customSender) {
         this.config = config;
+        this.clock = new LogClock(config.isPreciseTimestamp());
 
         // 根据配置选择发送器
-        if ("grpc".equalsIgnoreCase(config.getMode())) {
+        boolean grpc = "grpc".equalsIgnoreCase(config.getMode());
+        if (customSender != null) {
+            this.sender = customSender;
+            log.info("LogX SDK 已用自定义发送器 {} 初始化", customSender.getClass().getName());
+        } else if (config.isTransportFailover()) {
+            LogSender grpcSender = new GrpcLogSender(config);
+            LogSender httpSender = new HttpLogSender(config);
+            this.sender = grpc
+                    ? new FailoverLogSender(grpcSender, httpSender)
+                    : new FailoverLogSender(httpSender, grpcSender);
+            log.info("LogX SDK 已用 {} 模式初始化，启用传输故障转移", grpc ? "gRPC" : "HTTP");
+        } else if (grpc) {
             this.sender = new GrpcLogSender(config);
             log.info("LogX SDK 已用 gRPC 模式初始化");
         } else {
@@ -46,11 +120,41 @@ public class LogXClient {
             log.info("LogX SDK 已用 HTTP 模式初始化");
         }
 
-        this.buffer = new LogBuffer(config.getBufferSize());
-        this.scheduler = Executors.newScheduledThreadPool(1);
+        this.sampler = new LogSampler(config.getMinLevel(), config.getSamplingRules());
+        this.buffer = new LogBuffer(config.getBufferSize(), config.getOverflowPolicy(), config.getBlockTimeout());
+        this.priorityLevel = parseLevel(config.getPriorityLevel(), Level.ERROR);
+        this.priorityBuffer = config.isBufferEnabled() && config.isPriorityLaneEnabled()
+                ? new LogBuffer(Math.max(1, config.getPriorityBufferSize()))
+                : null;
+
+        // 无垃圾模式：池容量覆盖缓冲区和一个发送中的批次
+        this.entryPool = config.isGarbageFree()
+                ? new LogEntryPool(buffer.getCapacity() + config.getBatchSize()
+                + (priorityBuffer != null ? priorityBuffer.getCapacity() : 0))
+                : null;
+
+        // 启动刷新线程（独占发送，业务线程只写入缓冲区）
+        if (config.isBufferEnabled()) {
+            this.flusher = new LogFlusher(buffer, priorityBuffer, sender, entryPool,
+                    config.getBatchSize(), config.getMaxBatchBytes(), config.getFlushInterval());
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+
+        this.stackTraceDedup = config.isStackTraceDedupEnabled()
+                ? new StackTraceDeduplicator(config.getStackTraceDedupWindow(),
+                config.getStackTraceTopFrames(), MAX_STACK_TRACE_FINGERPRINTS)
+                : null;
+
+        this.aggregator = config.isAggregationEnabled()
+                ? new LogAggregator(config.getAggregationWindow(), this::appendAggregated, entryPool)
+                : null;
 
-        // 启动定时刷新任务
-        startFlushTask();
+        this.requestMetrics = config.isRequestMetricsEnabled()
+                ? new RequestMetricsAggregator(config.getRequestMetricsInterval(),
+                config.getRequestMetricsSampleRate(), config.getRequestMetricsMaxRoutes(), this::appendMetric)
+                : null;
     }
 
     public static Builder builder() {
@@ -73,6 +177,14 @@ public class LogXClient {
         log(Level.INFO, message, null, extra);
     }
 
+    /**
+     * 记录 INFO 日志（参数化消息，占位符语法同 SLF4J，最后一个参数可以是异常）
+     * 消息在通过级别和采样检查后才格式化，不可变参数延迟到刷新线程格式化
+     */
+    public void info(String pattern, Object... args) {
+        logFormatted(Level.INFO, null, pattern, args);
+    }
+
     /**
      * 记录 ERROR 日志
      */
@@ -94,6 +206,13 @@ public class LogXClient {
         log(Level.ERROR, message, throwable, extra);
     }
 
+    /**
+     * 记录 ERROR 日志（参数化消息）
+     */
+    public void error(String pattern, Object... args) {
+        logFormatted(Level.ERROR, null, pattern, args);
+    }
+
     /**
      * 记录 WARN 日志
      */
@@ -108,6 +227,13 @@ public class LogXClient {
         log(Level.WARN, message, null, extra);
     }
 
+    /**
+     * 记录 WARN 日志（参数化消息）
+     */
+    public void warn(String pattern, Object... args) {
+        logFormatted(Level.WARN, null, pattern, args);
+    }
+
     /**
      * 记录 DEBUG 日志
      */
@@ -122,6 +248,13 @@ public class LogXClient {
         log(Level.DEBUG, message, null, extra);
     }
 
+    /**
+     * 记录 DEBUG 日志（参数化消息）
+     */
+    public void debug(String pattern, Object... args) {
+        logFormatted(Level.DEBUG, null, pattern, args);
+    }
+
     // ============ 完整的日志方法 ============
 
     /**
@@ -129,9 +262,15 @@ public class LogXClient {
      */
     public void log(LogEntry entry) {
         try {
+            LogSampler.Policy policy = sampler.decide(entry.getLevel(), entry.getLogger());
+            if (policy == null) {
+                return;
+            }
+            entry.setContext(sampler.stamp(policy, entry.getContext()));
+
             // 补充基础信息
             if (entry.getId() == null) {
-                entry.setId(UUID.randomUUID().toString().replace("-", ""));
+                entry.setId(IdGenerator.timeOrderedId());
             }
             if (entry.getTenantId() == null) {
                 entry.setTenantId(config.getTenantId());
@@ -142,29 +281,34 @@ public class LogXClient {
             if (entry.getSystemName() == null) {
                 entry.setSystemName(config.getSystemName());
             }
-            if (entry.getTimestamp() == null) {
-                entry.setTimestamp(LocalDateTime.now());
+            if (entry.getTimestamp() == null && entry.getEpochMicros() == 0L) {
+                entry.setEpochMicros(clock.currentTimeMicros());
             }
 
             // 自动填充代码位置信息
             if (entry.getClassName() == null || entry.getMethodName() == null) {
-                fillCodeLocation(entry);
+                fillCodeLocation(entry, null);
             }
 
             // 处理异常对象
+            String fullTrace = null;
             if (entry.getThrowable() != null && entry.getException() == null) {
-                entry.setThrowable(entry.getThrowable());
+                fullTrace = attachThrowable(entry, entry.getThrowable());
             }
 
             // 添加到缓冲区或直接发送
-            if (config.isBufferEnabled()) {
-                buffer.add(entry);
-                if (buffer.isFull()) {
-                    flush();
-                }
+            boolean accepted;
+            if (flusher != null) {
+                accepted = enqueue(entry);
             } else {
+                accepted = true;
+                entry.resolveDeferred();
                 sender.send(entry);
             }
+            if (accepted) {
+                acceptedCount.increment();
+                markFullTraceSent(fullTrace);
+            }
         } catch (Exception e) {
             log.error("记录日志失败", e);
         }
@@ -175,73 +319,268 @@ public class LogXClient {
      * extra 参数会被转换为 google.protobuf.Struct
      */
     private void log(Level level, String message, Throwable throwable, Map<String, Object> extra) {
+        log(level, null, message, throwable, extra);
+    }
+
+    /**
+     * 核心日志记录方法（调用方已知 Logger 类名）
+     *
+     * @param loggerClassName Logger 所属类名，为 null 时从调用栈定位
+     */
+    void log(Level level, String loggerClassName, String message, Throwable throwable, Map<String, Object> extra) {
+        log(level, loggerClassName, message, null, throwable, extra);
+    }
+
+    /**
+     * 参数化日志记录方法（调用方已知 Logger 类名）
+     * 最后一个参数是异常且没有对应占位符时作为日志异常
+     */
+    void logFormatted(Level level, String loggerClassName, String pattern, Object[] args) {
+        Throwable throwable = MessageFormatter.trailingThrowable(pattern, args);
+        if (throwable != null) {
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+        log(level, loggerClassName, pattern, args, throwable, null);
+    }
+
+    /**
+     * @param args 消息参数，为空时 message 即为最终消息
+     */
+    private void log(Level level, String loggerClassName, String message, Object[] args,
+                     Throwable throwable, Map<String, Object> extra) {
         try {
-            LogEntry.LogEntryBuilder entryBuilder = LogEntry.builder()
-                    .id(UUID.randomUUID().toString().replace("-", ""))
-                    .tenantId(config.getTenantId())
-                    .systemId(config.getSystemId())
-                    .systemName(config.getSystemName())
-                    .level(level.name())
-                    .message(message)
-                    .timestamp(LocalDateTime.now());
+            // 采样决策先于创建日志条目，被丢弃的日志不产生任何对象
+            LogSampler.Policy policy = sampler.decide(level, loggerClassName);
+            if (policy == null) {
+                return;
+            }
+            extra = sampler.stamp(policy, extra);
+
+            boolean parameterized = args != null && args.length > 0;
+            LogEntry entry = entryPool != null
+                    ? createPooledEntry(level, loggerClassName, parameterized ? null : message)
+                    : createEntry(level, loggerClassName, parameterized ? null : message);
+            if (parameterized) {
+                entry.setMessagePattern(message);
+                entry.setMessageArgs(args);
+                // 可变参数可能在入队后被修改，在调用线程上格式化（重复日志聚合按模板比较，不需要最终消息）
+                if (flusher == null || !MessageFormatter.canDefer(args)) {
+                    entry.formatMessage();
+                }
+            }
 
             // 添加扩展字段（会被转换为 Struct）
             if (extra != null && !extra.isEmpty()) {
-                entryBuilder.context(extra);  // 使用 context，最终会合并到 extra Struct 中
+                entry.setContext(extra);  // 使用 context，最终会合并到 extra Struct 中
             }
 
-            LogEntry entry = entryBuilder.build();
+            // 自动填充代码位置信息
+            fillCodeLocation(entry, loggerClassName);
 
-            // 添加异常信息
-            if (throwable != null) {
-                entry.setThrowable(throwable);
+            // 重复日志被合并时不再格式化异常堆栈
+            if (aggregator != null && !aggregator.offer(entry, throwable)) {
+                return;
             }
 
-            // 自动填充代码位置信息
-            fillCodeLocation(entry);
+            // 添加异常信息
+            String fullTrace = throwable != null ? attachThrowable(entry, throwable) : null;
 
-            // 添加到缓冲区或直接发送
-            if (config.isBufferEnabled()) {
-                buffer.add(entry);
-                if (buffer.isFull()) {
-                    flush();
-                }
-            } else {
-                sender.send(entry);
+            if (append(entry)) {
+                markFullTraceSent(fullTrace);
             }
         } catch (Exception e) {
             log.error("记录日志失败", e);
         }
     }
 
+    /**
+     * 格式化异常：启用堆栈去重时，窗口内重复的堆栈只保留栈顶帧和指纹
+     *
+     * @return 设置了完整堆栈且需要在写入成功后记录的指纹，否则为 null
+     */
+    private String attachThrowable(LogEntry entry, Throwable throwable) {
+        if (stackTraceDedup != null) {
+            return stackTraceDedup.apply(entry, throwable);
+        }
+        entry.setThrowable(throwable);
+        return null;
+    }
+
+    /**
+     * 完整堆栈写入缓冲区后才记录指纹，写入失败时下一次仍发送完整堆栈
+     */
+    private void markFullTraceSent(String fingerprint) {
+        if (fingerprint != null) {
+            stackTraceDedup.markSent(fingerprint);
+        }
+    }
+
+    /**
+     * 发送聚合汇总日志（异常在此时才格式化）
+     */
+    private void appendAggregated(LogEntry entry, Throwable throwable) {
+        String fullTrace = throwable != null ? attachThrowable(entry, throwable) : null;
+        if (append(entry)) {
+            markFullTraceSent(fullTrace);
+        }
+    }
+
+    /**
+     * 发送请求指标汇总（不参与采样和聚合）
+     */
+    private void appendMetric(LogEntry entry) {
+        entry.setId(IdGenerator.timeOrderedId());
+        entry.setTenantId(config.getTenantId());
+        entry.setSystemId(config.getSystemId());
+        entry.setSystemName(config.getSystemName());
+        entry.setEpochMicros(clock.currentTimeMicros());
+        append(entry);
+    }
+
+    /**
+     * 添加到缓冲区或直接发送
+     *
+     * @return 是否写入成功
+     */
+    private boolean append(LogEntry entry) {
+        if (flusher != null) {
+            if (enqueue(entry)) {
+                acceptedCount.increment();
+                return true;
+            }
+            if (entryPool != null) {
+                entryPool.release(entry);
+            }
+            return false;
+        }
+        acceptedCount.increment();
+        entry.resolveDeferred();
+        sender.send(entry);
+        if (entryPool != null) {
+            entryPool.release(entry);
+        }
+        return true;
+    }
+
+    /**
+     * 写入缓冲区并通知刷新线程
+     * 高优先级日志优先写入预留通道；通道已满时借用普通缓冲区，普通缓冲区也满时淘汰最旧的日志，
+     * 不受溢出策略影响，也不会阻塞
+     *
+     * @return 是否写入成功
+     */
+    private boolean enqueue(LogEntry entry) {
+        if (priorityBuffer != null && isPriority(entry.getLevel())) {
+            if (priorityBuffer.offer(entry)) {
+                flusher.onPriorityAppended();
+                return true;
+            }
+            if (buffer.offer(entry) || buffer.offerEvicting(entry)) {
+                // 借用普通缓冲区时立即刷新，不等待 flushInterval
+                flusher.onAppended(entry);
+                flusher.flushNow();
+                return true;
+            }
+            return false;
+        }
+        if (buffer.add(entry)) {
+            flusher.onAppended(entry);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 是否进入高优先级通道（FATAL 等高于 ERROR 的级别也视为高优先级）
+     */
+    private boolean isPriority(String level) {
+        if (level == null) {
+            return false;
+        }
+        for (Level candidate : LEVELS) {
+            if (candidate.name().equalsIgnoreCase(level)) {
+                return candidate.ordinal() >= priorityLevel.ordinal();
+            }
+        }
+        return "FATAL".equalsIgnoreCase(level);
+    }
+
+    private static Level parseLevel(String level, Level defaultLevel) {
+        for (Level candidate : LEVELS) {
+            if (candidate.name().equalsIgnoreCase(level)) {
+                return candidate;
+            }
+        }
+        return defaultLevel;
+    }
+
+    /**
+     * 创建日志条目
+     */
+    private LogEntry createEntry(Level level, String loggerClassName, String message) {
+        return LogEntry.builder()
+                .id(IdGenerator.timeOrderedId())
+                .tenantId(config.getTenantId())
+                .systemId(config.getSystemId())
+                .systemName(config.getSystemName())
+                .level(level.name())
+                .logger(loggerClassName)
+                .loggerClassName(loggerClassName)
+                .message(message)
+                .epochMicros(clock.currentTimeMicros())
+                .build();
+    }
+
+    /**
+     * 从对象池取出日志条目（无垃圾模式）
+     * 不生成日志ID（由网关补充）
+     */
+    private LogEntry createPooledEntry(Level level, String loggerClassName, String message) {
+        LogEntry entry = entryPool.acquire();
+        entry.setTenantId(config.getTenantId());
+        entry.setSystemId(config.getSystemId());
+        entry.setSystemName(config.getSystemName());
+        entry.setLevel(level.name());
+        entry.setLogger(loggerClassName);
+        entry.setLoggerClassName(loggerClassName);
+        entry.setMessage(message);
+        entry.setEpochMicros(clock.currentTimeMicros());
+        return entry;
+    }
+
     /**
      * 自动填充代码位置信息
+     *
+     * @param loggerClassName 调用方已知的类名（如 LogXLogger），可为 null
      */
-    private void fillCodeLocation(LogEntry entry) {
+    private void fillCodeLocation(LogEntry entry, String loggerClassName) {
         try {
-            StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-            // 跳过 getStackTrace, fillCodeLocation, log 方法
-            // 通常需要跳过 4-5 层才能到达实际调用位置
-            for (int i = 4; i < Math.min(stackTrace.length, 10); i++) {
-                StackTraceElement element = stackTrace[i];
-                String className = element.getClassName();
-
-                // 跳过 LogXClient 和 LogXLogger 类
-                if (className.contains("LogXClient") || className.contains("LogXLogger")) {
-                    continue;
-                }
-
-                // 找到第一个用户代码
-                if (entry.getClassName() == null) {
-                    entry.setClassName(className);
-                }
-                if (entry.getMethodName() == null) {
-                    entry.setMethodName(element.getMethodName());
-                }
-                if (entry.getLineNumber() == null) {
-                    entry.setLineNumber(element.getLineNumber());
-                }
-                break;
+            switch (config.resolveLocationCapture()) {
+                case CLASS_ONLY:
+                    // 已知类名时无需遍历调用栈
+                    if (entry.getClassName() == null) {
+                        entry.setClassName(loggerClassName != null
+                                ? loggerClassName
+                                : callerLocator.locateClassName());
+                    }
+                    break;
+                case FULL:
+                    CodeLocation location = callerLocator.locate();
+                    if (location != null) {
+                        if (entry.getClassName() == null) {
+                            entry.setClassName(location.className());
+                        }
+                        if (entry.getMethodName() == null) {
+                            entry.setMethodName(location.methodName());
+                        }
+                        if (entry.getLineNumber() == null) {
+                            entry.setLineNumber(location.lineNumber());
+                        }
+                    }
+                    break;
+                case NONE:
+                default:
+                    break;
             }
 
             // 填充线程名
@@ -256,30 +595,101 @@ public class LogXClient {
 
     /**
      * 手动刷新缓冲区
+     * 仅通知刷新线程立即发送，不阻塞调用线程
      */
     public void flush() {
-        if (!buffer.isEmpty()) {
-            try {
-                sender.sendBatch(buffer.drain());
-            } catch (Exception e) {
-                log.error("刷新日志缓冲区失败", e);
-            }
+        if (flusher != null) {
+            flusher.flushNow();
         }
     }
 
     /**
-     * 启动定时刷新任务
+     * 指定级别的日志是否会被记录（未被最低级别过滤，不含采样）
      */
-    private void startFlushTask() {
-        if (config.isBufferEnabled()) {
-            long interval = config.getFlushInterval().toMillis();
-            scheduler.scheduleAtFixedRate(
-                    this::flush,
-                    interval,
-                    interval,
-                    TimeUnit.MILLISECONDS
-            );
+    public boolean isEnabled(Level level) {
+        return sampler.isEnabled(level);
+    }
+
+    /**
+     * 低于最低级别被过滤的日志数量
+     */
+    public long getFilteredCount() {
+        return sampler.getFilteredCount();
+    }
+
+    /**
+     * 被采样规则丢弃的日志数量（不含低于最低级别被过滤的日志）
+     */
+    public long getSampledOutCount() {
+        return sampler.getSampledOutCount();
+    }
+
+    /**
+     * 被合并到汇总日志中的重复日志数量
+     */
+    public long getAggregatedCount() {
+        return aggregator != null ? aggregator.getSuppressedCount() : 0L;
+    }
+
+    /**
+     * 请求 RED 指标聚合，未启用时返回 null
+     * 访问日志的调用方（切面、网关过滤器）用它记录请求，并决定是否仍逐条记录日志
+     */
+    public RequestMetricsAggregator getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    /**
+     * 因缓冲区溢出被丢弃的日志数量
+     */
+    public long getDroppedCount() {
+        return buffer.getDroppedCount();
+    }
+
+    /**
+     * SDK 自身运行指标快照
+     * 包括缓冲区占用、接收/丢弃/采样/聚合条数、发送结果、熔断、字节数、发送延迟与批次大小分布、磁盘溢写统计
+     */
+    public LogXMetrics metrics() {
+        LogXMetrics.LogXMetricsBuilder metrics = LogXMetrics.builder()
+                .bufferSize(flusher != null ? buffer.size() : 0)
+                .bufferCapacity(buffer.getCapacity())
+                .priorityBufferSize(priorityBuffer != null ? priorityBuffer.size() : 0)
+                .priorityBufferCapacity(priorityBuffer != null ? priorityBuffer.getCapacity() : 0)
+                .acceptedLogs(acceptedCount.sum())
+                .droppedLogs(buffer.getDroppedCount())
+                .filteredLogs(sampler.getFilteredCount())
+                .sampledOutLogs(sampler.getSampledOutCount())
+                .aggregatedLogs(getAggregatedCount())
+                .flushErrors(flusher != null ? flusher.getFlushErrorCount() : 0L)
+                .gatewayAvailable(sender.isAvailable());
+
+        // 各传输分别统计，顶层发送字段为合计
+        List<TransportMetrics> transports = new ArrayList<>();
+        for (DeliveryCounters counters : sender.getTransportCounters()) {
+            transports.add(TransportMetrics.from(counters));
         }
+        metrics.transports(transports);
+        if (!transports.isEmpty()) {
+            TransportMetrics total = TransportMetrics.sum(transports);
+            metrics.transport(total.getTransport())
+                    .sentBatches(total.getSentBatches())
+                    .sentLogs(total.getSentLogs())
+                    .failedBatches(total.getFailedBatches())
+                    .failedLogs(total.getFailedLogs())
+                    .retries(total.getRetries())
+                    .circuitOpens(total.getCircuitOpens())
+                    .shortCircuitedBatches(total.getShortCircuitedBatches())
+                    .bytesSent(total.getBytesSent())
+                    .sendLatency(total.getSendLatency())
+                    .batchSizes(total.getBatchSizes())
+                    .spilledBatches(total.getSpilledBatches())
+                    .spilledLogs(total.getSpilledLogs())
+                    .replayedBatches(total.getReplayedBatches())
+                    .evictedSegments(total.getEvictedSegments())
+                    .spillBytes(total.getSpillBytes());
+        }
+        return metrics.build();
     }
 
     /**
@@ -287,19 +697,22 @@ public class LogXClient {
      */
     public void shutdown() {
         try {
-            // 刷新剩余日志
-            flush();
+            // 发送未完成的汇总日志
+            if (aggregator != null) {
+                aggregator.shutdown();
+            }
+            if (requestMetrics != null) {
+                requestMetrics.shutdown();
+            }
 
-            // 关闭定时任务
-            scheduler.shutdown();
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+            // 停止刷新线程并发送剩余日志
+            if (flusher != null) {
+                flusher.shutdown(5, TimeUnit.SECONDS);
             }
 
             // 关闭发送器
-            if (sender instanceof GrpcLogSender) {
-                ((GrpcLogSender) sender).shutdown();
-            }
+            sender.shutdown();
+            clock.shutdown();
 
             log.info("LogX SDK 已关闭");
         } catch (Exception e) {
@@ -312,6 +725,7 @@ public class LogXClient {
      */
     public static class Builder {
         private final LogXConfig config = new LogXConfig();
+        private LogSender sender;
 
         /**
          * 设置租户ID（使用 String 类型）
@@ -366,6 +780,48 @@ public class LogXClient {
             return this;
         }
 
+        /**
+         * HTTP 网关地址列表（多个网关实例），不改变通信模式
+         */
+        public Builder gatewayUrls(List<String> urls) {
+            config.setGatewayUrls(new ArrayList<>(urls));
+            return this;
+        }
+
+        /**
+         * gRPC 节点列表（host:port），不改变通信模式
+         */
+        public Builder grpcEndpoints(List<String> endpoints) {
+            config.setGrpcEndpoints(new ArrayList<>(endpoints));
+            return this;
+        }
+
+        /**
+         * 重试预算：重试流量最多为成功流量的比例
+         */
+        public Builder retryBudgetRatio(double ratio) {
+            config.setRetryBudgetRatio(ratio);
+            return this;
+        }
+
+        /**
+         * 熔断器：连续失败 failureThreshold 次后暂停发送 openDuration（连续熔断时翻倍）
+         */
+        public Builder circuitBreaker(boolean enabled, int failureThreshold, Duration openDuration) {
+            config.setCircuitBreakerEnabled(enabled);
+            config.setCircuitFailureThreshold(failureThreshold);
+            config.setCircuitOpenDuration(openDuration);
+            return this;
+        }
+
+        /**
+         * 主传输不可用时改用另一种传输发送（需要同时配置 HTTP 和 gRPC 地址）
+         */
+        public Builder transportFailover(boolean enabled) {
+            config.setTransportFailover(enabled);
+            return this;
+        }
+
         public Builder bufferEnabled(boolean enabled) {
             config.setBufferEnabled(enabled);
             return this;
@@ -376,6 +832,75 @@ public class LogXClient {
             return this;
         }
 
+        /**
+         * 设置单批次最大日志条数
+         */
+        public Builder batchSize(int batchSize) {
+            config.setBatchSize(batchSize);
+            return this;
+        }
+
+        /**
+         * 设置单批次最大估算字节数
+         */
+        public Builder maxBatchBytes(long maxBatchBytes) {
+            config.setMaxBatchBytes(maxBatchBytes);
+            return this;
+        }
+
+        /**
+         * 设置缓冲区溢出策略
+         */
+        public Builder overflowPolicy(OverflowPolicy policy) {
+            config.setOverflowPolicy(policy);
+            return this;
+        }
+
+        /**
+         * 设置 BLOCK_WITH_TIMEOUT 策略下的最长等待时间
+         */
+        public Builder blockTimeout(Duration timeout) {
+            config.setBlockTimeout(timeout);
+            return this;
+        }
+
+        /**
+         * 高优先级通道
+         *
+         * @param minLevel   进入通道的最低级别（WARN / ERROR）
+         * @param bufferSize 预留容量
+         */
+        public Builder priorityLane(boolean enabled, String minLevel, int bufferSize) {
+            config.setPriorityLaneEnabled(enabled);
+            config.setPriorityLevel(minLevel);
+            config.setPriorityBufferSize(bufferSize);
+            return this;
+        }
+
+        /**
+         * 启用无垃圾模式（复用池化的 LogEntry）
+         */
+        public Builder garbageFree(boolean garbageFree) {
+            config.setGarbageFree(garbageFree);
+            return this;
+        }
+
+        /**
+         * 启用精确时间戳（每条日志读取系统时钟），默认使用每毫秒刷新一次的粗粒度时钟
+         */
+        public Builder preciseTimestamp(boolean preciseTimestamp) {
+            config.setPreciseTimestamp(preciseTimestamp);
+            return this;
+        }
+
+        /**
+         * 设置代码位置采集级别（NONE | CLASS_ONLY | FULL）
+         */
+        public Builder locationCapture(LocationCapture capture) {
+            config.setLocationCapture(capture);
+            return this;
+        }
+
         /**
          * 设置批量传输模式（batch | stream）
          * @param mode 批量模式
@@ -385,6 +910,14 @@ public class LogXClient {
             return this;
         }
 
+        /**
+         * 设置 gRPC 模式是否发送紧凑批次（批次级字符串表）
+         */
+        public Builder grpcCompactBatch(boolean compactBatch) {
+            config.setGrpcCompactBatch(compactBatch);
+            return this;
+        }
+
         /**
          * 设置刷新间隔
          */
@@ -409,6 +942,30 @@ public class LogXClient {
             return this;
         }
 
+        /**
+         * 设置同时在途的最大批次数
+         */
+        public Builder maxInFlightBatches(int maxInFlightBatches) {
+            config.setMaxInFlightBatches(maxInFlightBatches);
+            return this;
+        }
+
+        /**
+         * 设置 HTTP 协议版本（HTTP_1_1 | HTTP_2）
+         */
+        public Builder httpVersion(String httpVersion) {
+            config.setHttpVersion(httpVersion);
+            return this;
+        }
+
+        /**
+         * 设置 HTTP 请求体压缩方式（none | gzip | zstd）
+         */
+        public Builder compression(String compression) {
+            config.setCompression(compression);
+            return this;
+        }
+
         /**
          * 设置最大重试次数
          */
@@ -417,6 +974,97 @@ public class LogXClient {
             return this;
         }
 
+        /**
+         * 启用磁盘溢写，directory 为 null 时使用临时目录
+         */
+        public Builder spill(boolean enabled, String directory) {
+            config.setSpillEnabled(enabled);
+            config.setSpillDirectory(directory);
+            return this;
+        }
+
+        /**
+         * 设置溢写总大小上限与单个段文件大小（字节）
+         */
+        public Builder spillLimits(long maxBytes, long segmentBytes) {
+            config.setSpillMaxBytes(maxBytes);
+            config.setSpillSegmentBytes(segmentBytes);
+            return this;
+        }
+
+        /**
+         * 设置每秒最多重放的批次数
+         */
+        public Builder spillReplayRate(int batchesPerSecond) {
+            config.setSpillReplayRate(batchesPerSecond);
+            return this;
+        }
+
+        /**
+         * 启用重复日志聚合，window 为聚合窗口
+         */
+        public Builder aggregation(boolean enabled, Duration window) {
+            config.setAggregationEnabled(enabled);
+            config.setAggregationWindow(window);
+            return this;
+        }
+
+        /**
+         * 设置异常堆栈去重：window 内同一堆栈只发送一次完整内容，之后只发送栈顶 topFrames 帧和指纹
+         */
+        public Builder stackTraceDedup(boolean enabled, Duration window, int topFrames) {
+            config.setStackTraceDedupEnabled(enabled);
+            config.setStackTraceDedupWindow(window);
+            config.setStackTraceTopFrames(topFrames);
+            return this;
+        }
+
+        /**
+         * 启用请求 RED 指标本地聚合：每个 interval 发送一条汇总，
+         * 成功且不慢的请求只按 sampleRate 逐条记录日志
+         */
+        public Builder requestMetrics(boolean enabled, Duration interval, double sampleRate) {
+            config.setRequestMetricsEnabled(enabled);
+            config.setRequestMetricsInterval(interval);
+            config.setRequestMetricsSampleRate(sampleRate);
+            return this;
+        }
+
+        /**
+         * 设置请求指标聚合键（路由 + 方法 + 状态分类）的数量上限
+         */
+        public Builder requestMetricsMaxRoutes(int maxRoutes) {
+            config.setRequestMetricsMaxRoutes(maxRoutes);
+            return this;
+        }
+
+        /**
+         * 设置最低日志级别（DEBUG | INFO | WARN | ERROR）
+         */
+        public Builder minLevel(String minLevel) {
+            config.setMinLevel(minLevel);
+            return this;
+        }
+
+        /**
+         * 追加一条采样规则（按添加顺序匹配）
+         */
+        public Builder samplingRule(SamplingRule rule) {
+            config.getSamplingRules().add(rule);
+            return this;
+        }
+
+        /**
+         * 设置采样规则（按列表顺序匹配）
+         */
+        public Builder samplingRules(List<SamplingRule> rules) {
+            config.getSamplingRules().clear();
+            if (rules != null) {
+                config.getSamplingRules().addAll(rules);
+            }
+            return this;
+        }
+
         /**
          * 设置 gRPC 最大入站消息大小
          */
@@ -425,6 +1073,14 @@ public class LogXClient {
             return this;
         }
 
+        /**
+         * 使用自定义发送器（测试、基准测试或自定义传输），设置后不再校验网关地址
+         */
+        public Builder sender(LogSender sender) {
+            this.sender = sender;
+            return this;
+        }
+
         public LogXClient build() {
             // 验证必填参数
             if (config.getTenantId() == null || config.getTenantId().isEmpty()) {
@@ -437,18 +1093,34 @@ public class LogXClient {
                 throw new IllegalArgumentException("apiKey 不能为空");
             }
 
+            if (sender != null) {
+                return new LogXClient(config, sender);
+            }
+
             // 验证网关配置
-            if ("grpc".equalsIgnoreCase(config.getMode())) {
-                if (config.getGrpcHost() == null || config.getGrpcHost().isEmpty()) {
-                    throw new IllegalArgumentException("gRPC 模式下 grpcHost 不能为空");
+            boolean grpc = "grpc".equalsIgnoreCase(config.getMode());
+            if (grpc || config.isTransportFailover()) {
+                if (config.resolveGrpcEndpoints().isEmpty()) {
+                    throw new IllegalArgumentException(grpc
+                            ? "gRPC 模式下 grpcHost 不能为空"
+                            : "启用传输故障转移时 grpcHost 或 grpcEndpoints 不能为空");
                 }
-            } else {
-                if (config.getGatewayUrl() == null || config.getGatewayUrl().isEmpty()) {
-                    throw new IllegalArgumentException("HTTP 模式下 gatewayUrl 不能为空");
+                for (String endpoint : config.resolveGrpcEndpoints()) {
+                    int colon = endpoint.lastIndexOf(':');
+                    if (colon <= 0 || !endpoint.substring(colon + 1).matches("\\d+")) {
+                        throw new IllegalArgumentException("gRPC 节点格式应为 host:port: " + endpoint);
+                    }
+                }
+            }
+            if (!grpc || config.isTransportFailover()) {
+                if (config.resolveGatewayUrls().isEmpty()) {
+                    throw new IllegalArgumentException(!grpc
+                            ? "HTTP 模式下 gatewayUrl 不能为空"
+                            : "启用传输故障转移时 gatewayUrl 或 gatewayUrls 不能为空");
                 }
             }
 
-            return new LogXClient(config);
+            return new LogXClient(config, null);
         }
     }
 }
\ No newline at end of file
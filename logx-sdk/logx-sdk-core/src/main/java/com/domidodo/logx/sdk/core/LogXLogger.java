@@ -20,13 +20,22 @@ public class LogXLogger {
     }
 
     public void info(String message) {
-        info(message, null);
+        info(message, (Map<String, Object>) null);
     }
 
     public void info(String message, Map<String, Object> context) {
-        if (client != null) {
-            Map<String, Object> fullContext = addClassName(context);
-            client.info(message, fullContext);
+        if (client != null && client.isEnabled(LogXClient.Level.INFO)) {
+            client.log(LogXClient.Level.INFO, className, message, null, context);
+        }
+    }
+
+    /**
+     * 参数化消息（占位符语法同 SLF4J，如 info("用户 {} 下单 {}", userId, orderId)，最后一个参数可以是异常）
+     * 级别和采样检查通过后才格式化，不可变参数延迟到刷新线程格式化
+     */
+    public void info(String pattern, Object... args) {
+        if (client != null && client.isEnabled(LogXClient.Level.INFO)) {
+            client.logFormatted(LogXClient.Level.INFO, className, pattern, args);
         }
     }
 
@@ -39,39 +48,46 @@ public class LogXLogger {
     }
 
     public void error(String message, Throwable throwable, Map<String, Object> context) {
-        if (client != null) {
-            Map<String, Object> fullContext = addClassName(context);
-            client.error(message, throwable, fullContext);
+        if (client != null && client.isEnabled(LogXClient.Level.ERROR)) {
+            client.log(LogXClient.Level.ERROR, className, message, throwable, context);
+        }
+    }
+
+    public void error(String pattern, Object... args) {
+        if (client != null && client.isEnabled(LogXClient.Level.ERROR)) {
+            client.logFormatted(LogXClient.Level.ERROR, className, pattern, args);
         }
     }
 
     public void warn(String message) {
-        warn(message, null);
+        warn(message, (Map<String, Object>) null);
     }
 
     public void warn(String message, Map<String, Object> context) {
-        if (client != null) {
-            Map<String, Object> fullContext = addClassName(context);
-            client.warn(message, fullContext);
+        if (client != null && client.isEnabled(LogXClient.Level.WARN)) {
+            client.log(LogXClient.Level.WARN, className, message, null, context);
+        }
+    }
+
+    public void warn(String pattern, Object... args) {
+        if (client != null && client.isEnabled(LogXClient.Level.WARN)) {
+            client.logFormatted(LogXClient.Level.WARN, className, pattern, args);
         }
     }
 
     public void debug(String message) {
-        debug(message, null);
+        debug(message, (Map<String, Object>) null);
     }
 
     public void debug(String message, Map<String, Object> context) {
-        if (client != null) {
-            Map<String, Object> fullContext = addClassName(context);
-            client.debug(message, fullContext);
+        if (client != null && client.isEnabled(LogXClient.Level.DEBUG)) {
+            client.log(LogXClient.Level.DEBUG, className, message, null, context);
         }
     }
 
-    private Map<String, Object> addClassName(Map<String, Object> context) {
-        Map<String, Object> newContext = context != null
-                ? new java.util.HashMap<>(context)
-                : new java.util.HashMap<>();
-        newContext.put("className", className);
-        return newContext;
+    public void debug(String pattern, Object... args) {
+        if (client != null && client.isEnabled(LogXClient.Level.DEBUG)) {
+            client.logFormatted(LogXClient.Level.DEBUG, className, pattern, args);
+        }
     }
 }
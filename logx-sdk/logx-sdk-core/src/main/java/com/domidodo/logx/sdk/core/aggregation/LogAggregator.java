@@ -0,0 +1,240 @@
+package com.domidodo.logx.sdk.core.aggregation;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.model.LogEntryPool;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 重复日志聚合
+ * <p>
+ * 按 级别 + 消息模板（非参数化日志为消息）+ 类名 + 方法名 + 异常类型 计算指纹，在时间窗口内合并重复日志：
+ * 1. 窗口内首次出现的日志照常发送，不增加延迟
+ * 2. 之后的重复日志只计数，保留第一条重复日志作为汇总日志，其余直接丢弃（不格式化异常堆栈）
+ * 3. 窗口结束，或同一槽位出现不同日志时，发送汇总日志，
+ * 扩展字段中附带 repeatCount（汇总的条数）、firstSeen、lastSeen（毫秒时间戳）
+ * <p>
+ * 指纹按哈希映射到固定数量的槽位，哈希冲突视为日志变化，提前发送汇总，不会丢失计数
+ * <p>
+ * 参数化日志按模板比较，不需要在调用线程上格式化消息；参数不同的同一模板日志会被合并，汇总日志保留第一条重复日志的参数
+ */
+@Slf4j
+public class LogAggregator {
+
+    public static final String REPEAT_COUNT_KEY = "repeatCount";
+    public static final String FIRST_SEEN_KEY = "firstSeen";
+    public static final String LAST_SEEN_KEY = "lastSeen";
+
+    private static final int SLOT_COUNT = 256;
+
+    private final Slot[] slots = new Slot[SLOT_COUNT];
+    private final long windowMillis;
+    private final BiConsumer<LogEntry, Throwable> emitter;
+    private final LogEntryPool entryPool;
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder suppressedCount = new LongAdder();
+
+    /**
+     * @param window    聚合窗口
+     * @param emitter   汇总日志的发送入口（日志及其尚未格式化的异常）
+     * @param entryPool 无垃圾模式的对象池（被合并的日志归还到池中），可为 null
+     */
+    public LogAggregator(Duration window, BiConsumer<LogEntry, Throwable> emitter, LogEntryPool entryPool) {
+        this.windowMillis = Math.max(10L, window != null ? window.toMillis() : 1000L);
+        this.emitter = emitter;
+        this.entryPool = entryPool;
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slots[i] = new Slot();
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "logx-aggregate");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(10L, windowMillis / 2);
+        scheduler.scheduleAtFixedRate(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一条日志
+     *
+     * @param throwable 日志的异常（尚未格式化），汇总日志发送时才格式化
+     * @return true 表示调用方应照常发送该日志，false 表示已被合并
+     */
+    public boolean offer(LogEntry entry, Throwable throwable) {
+        Class<?> exceptionType = throwable != null ? throwable.getClass() : null;
+        int hash = fingerprint(entry, exceptionType);
+        long now = System.currentTimeMillis();
+
+        Slot slot = slots[(hash ^ (hash >>> 16)) & (SLOT_COUNT - 1)];
+        Summary pending;
+        synchronized (slot) {
+            if (slot.active && now - slot.windowStart < windowMillis
+                    && slot.matches(hash, entry, exceptionType)) {
+                if (slot.carrier == null) {
+                    slot.carrier = entry;
+                    slot.throwable = throwable;
+                    slot.firstSeen = now;
+                } else {
+                    release(entry);
+                }
+                slot.count++;
+                slot.lastSeen = now;
+                suppressedCount.increment();
+                return false;
+            }
+
+            // 新窗口或日志变化：发送上一轮汇总，当前日志作为首次出现照常发送
+            pending = slot.takeSummary();
+            slot.open(hash, entry, exceptionType, now);
+        }
+        emit(pending);
+        return true;
+    }
+
+    /**
+     * 被合并（未单独发送）的日志数量
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.sum();
+    }
+
+    /**
+     * 发送所有未完成的汇总并停止定时器
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Slot slot : slots) {
+            Summary pending;
+            synchronized (slot) {
+                pending = slot.takeSummary();
+                slot.active = false;
+            }
+            emit(pending);
+        }
+    }
+
+    /**
+     * 定时发送窗口已结束的汇总
+     */
+    private void flushExpired() {
+        long now = System.currentTimeMillis();
+        for (Slot slot : slots) {
+            Summary pending = null;
+            synchronized (slot) {
+                if (slot.active && now - slot.windowStart >= windowMillis) {
+                    pending = slot.takeSummary();
+                    slot.active = false;
+                }
+            }
+            emit(pending);
+        }
+    }
+
+    private void emit(Summary summary) {
+        if (summary == null) {
+            return;
+        }
+        try {
+            LogEntry entry = summary.entry;
+            Map<String, Object> context = entry.getContext() != null
+                    ? new HashMap<>(entry.getContext())
+                    : new HashMap<>(4);
+            context.put(REPEAT_COUNT_KEY, summary.count);
+            context.put(FIRST_SEEN_KEY, summary.firstSeen);
+            context.put(LAST_SEEN_KEY, summary.lastSeen);
+            entry.setContext(context);
+            emitter.accept(entry, summary.throwable);
+        } catch (Exception e) {
+            log.error("发送聚合日志失败", e);
+        }
+    }
+
+    private void release(LogEntry entry) {
+        if (entryPool != null) {
+            entryPool.release(entry);
+        }
+    }
+
+    private static int fingerprint(LogEntry entry, Class<?> exceptionType) {
+        int hash = Objects.hashCode(entry.getLevel());
+        hash = 31 * hash + Objects.hashCode(messageKey(entry));
+        hash = 31 * hash + Objects.hashCode(entry.getClassName());
+        hash = 31 * hash + Objects.hashCode(entry.getMethodName());
+        hash = 31 * hash + Objects.hashCode(exceptionType);
+        return hash;
+    }
+
+    /**
+     * 参与指纹的消息：参数化日志为模板，否则为消息
+     */
+    private static String messageKey(LogEntry entry) {
+        return entry.getMessagePattern() != null ? entry.getMessagePattern() : entry.getMessage();
+    }
+
+    /**
+     * 一个槽位的聚合状态（由槽位自身加锁保护）
+     */
+    private static final class Slot {
+        boolean active;
+        long windowStart;
+
+        int hash;
+        String level;
+        String message;
+        String className;
+        String methodName;
+        Class<?> exceptionType;
+
+        LogEntry carrier;
+        Throwable throwable;
+        long count;
+        long firstSeen;
+        long lastSeen;
+
+        boolean matches(int hash, LogEntry entry, Class<?> exceptionType) {
+            return this.hash == hash
+                    && this.exceptionType == exceptionType
+                    && Objects.equals(level, entry.getLevel())
+                    && Objects.equals(message, messageKey(entry))
+                    && Objects.equals(className, entry.getClassName())
+                    && Objects.equals(methodName, entry.getMethodName());
+        }
+
+        void open(int hash, LogEntry entry, Class<?> exceptionType, long now) {
+            this.active = true;
+            this.windowStart = now;
+            this.hash = hash;
+            this.level = entry.getLevel();
+            this.message = messageKey(entry);
+            this.className = entry.getClassName();
+            this.methodName = entry.getMethodName();
+            this.exceptionType = exceptionType;
+        }
+
+        Summary takeSummary() {
+            if (carrier == null) {
+                return null;
+            }
+            Summary summary = new Summary(carrier, throwable, count, firstSeen, lastSeen);
+            carrier = null;
+            throwable = null;
+            count = 0;
+            return summary;
+        }
+    }
+
+    private record Summary(LogEntry entry, Throwable throwable, long count, long firstSeen, long lastSeen) {
+    }
+}
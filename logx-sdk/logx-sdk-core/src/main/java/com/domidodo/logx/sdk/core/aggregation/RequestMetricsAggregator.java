@@ -0,0 +1,325 @@
+package com.domidodo.logx.sdk.core.aggregation;
+
+import com.domidodo.logx.sdk.core.metrics.Histogram;
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 请求 RED 指标（请求数 / 错误数 / 耗时）本地聚合
+ * <p>
+ * 1. 按 路由模板 + 请求方法 + 状态分类 在进程内累计请求数、错误数和耗时直方图（对数线性桶）
+ * 2. 每个周期为有请求的键发送一条汇总日志（标签 metric，extra.recordType=metric），代替每个请求一条访问日志
+ * 3. 调用方只为错误、慢请求和采样命中（见 {@link #sample()}）的请求单独记录日志
+ * 4. 键数量有上限，超出后新的路由合并为 OTHER，防止路径参数导致基数爆炸；连续多个周期没有请求的键被移除
+ * <p>
+ * 处理服务把汇总日志写入独立的 logx-metrics-* 索引，extra 中的指标字段提升为已建索引的 metric 对象，
+ * durationBuckets 转换为 ES histogram 字段，跨实例的分位数由 percentiles 聚合计算
+ */
+@Slf4j
+public class RequestMetricsAggregator {
+
+    public static final String RECORD_TYPE_KEY = "recordType";
+    public static final String RECORD_TYPE_METRIC = "metric";
+    public static final String METRIC_TAG = "metric";
+    public static final String OVERFLOW_ROUTE = "OTHER";
+
+    private static final String LOGGER_NAME = "LogXRequestMetrics";
+
+    /**
+     * 连续多少个周期没有请求后移除该键
+     */
+    private static final int IDLE_INTERVALS = 5;
+
+    private final Map<Key, RouteStats> stats = new ConcurrentHashMap<>();
+    private final long intervalMillis;
+    private final int maxRoutes;
+    private final double sampleRate;
+    private final Consumer<LogEntry> emitter;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long intervalStart = System.currentTimeMillis();
+
+    /**
+     * @param interval   汇总周期
+     * @param sampleRate 成功且不慢的请求仍单独记录日志的比例（0 ~ 1）
+     * @param maxRoutes  键数量上限
+     * @param emitter    汇总日志的发送入口
+     */
+    public RequestMetricsAggregator(Duration interval, double sampleRate, int maxRoutes, Consumer<LogEntry> emitter) {
+        this.intervalMillis = Math.max(1000L, interval != null ? interval.toMillis() : 60_000L);
+        this.sampleRate = Math.min(1.0, Math.max(0.0, sampleRate));
+        this.maxRoutes = Math.max(1, maxRoutes);
+        this.emitter = emitter;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "logx-request-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次请求
+     *
+     * @param route          路由模板，如 /orders/{id}（原始路径可先经过 {@link #normalizePath}）
+     * @param method         请求方法（GET / POST 等），非 HTTP 调用可使用其他分类
+     * @param status         状态分类，如 2xx / 4xx / 5xx
+     * @param error          是否计为错误
+     * @param durationMillis 耗时（毫秒）
+     */
+    public void record(String route, String method, String status, boolean error, long durationMillis) {
+        Key requested = new Key(route, method, status);
+        while (true) {
+            Key key = requested;
+            RouteStats routeStats = stats.get(key);
+            if (routeStats == null) {
+                if (stats.size() >= maxRoutes) {
+                    key = new Key(OVERFLOW_ROUTE, method, status);
+                }
+                routeStats = stats.computeIfAbsent(key, k -> new RouteStats());
+            }
+            if (routeStats.record(error, durationMillis)) {
+                return;
+            }
+            // 已被汇总线程移除，换用新的累计值重试
+            stats.remove(key, routeStats);
+        }
+    }
+
+    /**
+     * 成功且不慢的请求是否仍单独记录日志
+     */
+    public boolean sample() {
+        return sampleRate > 0.0 && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * 采样比例
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * HTTP 状态码分类：2xx / 3xx / 4xx / 5xx，没有状态码时为 unknown
+     */
+    public static String statusClass(int status) {
+        return status >= 100 && status < 600 ? (status / 100) + "xx" : "unknown";
+    }
+
+    /**
+     * 将路径中的数字、UUID 和长十六进制段替换为 {id}，用于没有路由模板时降低基数
+     */
+    public static String normalizePath(String path) {
+        if (path == null || path.isEmpty()) {
+            return path;
+        }
+        StringBuilder sb = null;
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (isIdentifier(path, start, end)) {
+                if (sb == null) {
+                    sb = new StringBuilder(path.length()).append(path, 0, start);
+                }
+                sb.append("{id}");
+            } else if (sb != null) {
+                sb.append(path, start, end);
+            }
+            if (end == path.length()) {
+                break;
+            }
+            if (sb != null) {
+                sb.append('/');
+            }
+            start = end + 1;
+        }
+        return sb != null ? sb.toString() : path;
+    }
+
+    /**
+     * 发送本周期的汇总日志
+     */
+    void flush() {
+        long start = intervalStart;
+        long now = System.currentTimeMillis();
+        intervalStart = now;
+        long elapsed = Math.max(1L, now - start);
+
+        for (Map.Entry<Key, RouteStats> entry : stats.entrySet()) {
+            try {
+                RouteStats routeStats = entry.getValue();
+                // 先停用再取快照：停用后不会再有请求计入，停用前计入的请求都在本次快照中
+                if (routeStats.idleIntervals + 1 >= IDLE_INTERVALS && routeStats.retire()) {
+                    stats.remove(entry.getKey(), routeStats);
+                }
+                Histogram.Snapshot durations = routeStats.durations.snapshotThenReset();
+                long errors = routeStats.errors.sumThenReset();
+                if (durations.count() == 0) {
+                    routeStats.idleIntervals++;
+                    continue;
+                }
+                routeStats.idleIntervals = 0;
+                emitter.accept(buildSummary(entry.getKey(), durations, errors, start, elapsed));
+            } catch (Exception e) {
+                log.error("发送请求指标失败", e);
+            }
+        }
+    }
+
+    private LogEntry buildSummary(Key key, Histogram.Snapshot durations, long errors, long start, long elapsed) {
+        long p50 = durations.percentile(0.50);
+        long p90 = durations.percentile(0.90);
+        long p99 = durations.percentile(0.99);
+
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put(RECORD_TYPE_KEY, RECORD_TYPE_METRIC);
+        context.put("metricType", "red");
+        context.put("status", key.status());
+        context.put("intervalStart", start);
+        context.put("intervalMillis", elapsed);
+        context.put("count", durations.count());
+        context.put("errorCount", errors);
+        context.put("ratePerSecond", durations.count() * 1000.0 / elapsed);
+        context.put("durationSum", durations.sum());
+        context.put("durationMax", durations.max());
+        context.put("durationP50", p50);
+        context.put("durationP90", p90);
+        context.put("durationP99", p99);
+        context.put("durationBuckets", buckets(durations));
+
+        LogEntry entry = LogEntry.builder()
+                .level("INFO")
+                .logger(LOGGER_NAME)
+                .className(RequestMetricsAggregator.class.getSimpleName())
+                .methodName("flush")
+                .message(key.method() + " " + key.route() + " " + key.status() + ": " + durations.count()
+                        + " 次, 错误 " + errors + ", p50 " + p50 + "ms, p99 " + p99 + "ms")
+                .requestUrl(key.route())
+                .requestMethod(key.method())
+                .responseTime(Math.round(durations.mean()))
+                .context(context)
+                .build();
+        entry.addTag(METRIC_TAG);
+        return entry;
+    }
+
+    /**
+     * 非零桶的计数，键为桶上界（毫秒），溢出桶为 +Inf（处理服务转换为 ES histogram 字段）
+     */
+    private static Map<String, Object> buckets(Histogram.Snapshot snapshot) {
+        Map<String, Object> buckets = new LinkedHashMap<>();
+        long[] counts = snapshot.counts();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                buckets.put(i < snapshot.bounds().length ? Long.toString(snapshot.bounds()[i]) : "+Inf", counts[i]);
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * 停止定时汇总并发送最后一个周期的数据
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    /**
+     * 路径段 [start, end) 是否为标识符：纯数字、UUID 或不少于 16 位的十六进制
+     */
+    private static boolean isIdentifier(String path, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+        boolean digits = true;
+        boolean hex = true;
+        int dashes = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c == '-') {
+                dashes++;
+                digits = false;
+            } else if (c < '0' || c > '9') {
+                digits = false;
+                if ((c < 'a' || c > 'f') && (c < 'A' || c > 'F')) {
+                    hex = false;
+                }
+            }
+        }
+        if (digits) {
+            return true;
+        }
+        return hex && ((length == 36 && dashes == 4) || (dashes == 0 && length >= 16));
+    }
+
+    private record Key(String route, String method, String status) {
+    }
+
+    /**
+     * 一个键的累计值（每个周期清零）
+     */
+    private static final class RouteStats {
+        private static final int RETIRED = -1;
+
+        final Histogram durations = new Histogram(Histogram.RESPONSE_MILLIS_BOUNDS);
+        final LongAdder errors = new LongAdder();
+
+        /**
+         * 正在计入的请求数，停用后为 RETIRED
+         */
+        private final AtomicInteger recorders = new AtomicInteger();
+
+        /**
+         * 连续没有请求的周期数（只在汇总线程上访问）
+         */
+        int idleIntervals;
+
+        /**
+         * @return false 表示已停用，请求未计入
+         */
+        boolean record(boolean error, long durationMillis) {
+            int current;
+            do {
+                current = recorders.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+            } while (!recorders.compareAndSet(current, current + 1));
+            try {
+                durations.record(durationMillis);
+                if (error) {
+                    errors.increment();
+                }
+                return true;
+            } finally {
+                recorders.decrementAndGet();
+            }
+        }
+
+        /**
+         * 没有正在计入的请求时停用
+         */
+        boolean retire() {
+            return recorders.compareAndSet(0, RETIRED);
+        }
+    }
+}
@@ -2,44 +2,226 @@ package com.domidodo.logx.sdk.core.buffer;
 
 import com.domidodo.logx.sdk.core.model.LogEntry;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
-
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-
+/**
+ * 日志缓冲区
+ * <p>
+ * 基于预分配环形数组的无锁有界队列（多生产者 / 单消费者）：
+ * 1. 容量向上取整为 2 的幂，槽位在构造时一次性分配，入队不产生节点对象
+ * 2. 每个槽位携带序号，生产者通过 CAS 抢占写指针，无需加锁
+ * 3. 出队同样基于 CAS，DROP_OLDEST 策略下生产者可安全淘汰最旧日志
+ * 4. 统计因溢出被丢弃的日志数量
+ */
 public class LogBuffer {
 
-    private final BlockingQueue<LogEntry> queue;
+    /**
+     * 阻塞策略下单次自旋等待的时长（纳秒）
+     */
+    private static final long PARK_NANOS = 50_000L;
+
+    private final LogEntry[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
     private final int capacity;
 
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+
+    private final LongAdder droppedCount = new LongAdder();
+
     public LogBuffer(int capacity) {
-        this.capacity = capacity;
-        this.queue = new LinkedBlockingQueue<>(capacity);
+        this(capacity, OverflowPolicy.DROP_NEWEST, Duration.ZERO);
+    }
+
+    public LogBuffer(int capacity, OverflowPolicy overflowPolicy, Duration blockTimeout) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("缓冲区大小必须大于 0");
+        }
+        this.capacity = ceilingPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.slots = new LogEntry[this.capacity];
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.DROP_NEWEST;
+        this.blockTimeoutNanos = blockTimeout != null ? blockTimeout.toNanos() : 0L;
     }
 
-    public void add(LogEntry entry) {
-        try {
-            queue.offer(entry);
-        } catch (Exception e) {
-            // 缓冲区满，丢弃旧日志
-            queue.poll();
-            queue.offer(entry);
+    /**
+     * 添加日志
+     *
+     * @return 是否写入成功（false 表示按溢出策略被丢弃）
+     */
+    public boolean add(LogEntry entry) {
+        if (offer(entry)) {
+            return true;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                // 淘汰最旧日志后重试，并发写入时可能需要多轮
+                while (!offer(entry)) {
+                    if (poll() != null) {
+                        droppedCount.increment();
+                    }
+                }
+                return true;
+            case BLOCK_WITH_TIMEOUT:
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(PARK_NANOS);
+                    if (offer(entry)) {
+                        return true;
+                    }
+                }
+                droppedCount.increment();
+                return false;
+            case DROP_NEWEST:
+            default:
+                droppedCount.increment();
+                return false;
         }
     }
 
+    /**
+     * 写入日志，缓冲区已满时淘汰最旧的日志（不受溢出策略限制，用于高优先级日志借用普通缓冲区）
+     *
+     * @return 是否写入成功（并发写入持续抢占时可能失败）
+     */
+    public boolean offerEvicting(LogEntry entry) {
+        for (int attempt = 0; attempt < capacity; attempt++) {
+            if (offer(entry)) {
+                return true;
+            }
+            if (poll() != null) {
+                droppedCount.increment();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取出所有日志
+     */
     public List<LogEntry> drain() {
-        List<LogEntry> entries = new ArrayList<>();
-        queue.drainTo(entries);
+        return drain(capacity);
+    }
+
+    /**
+     * 取出最多 maxEntries 条日志
+     */
+    public List<LogEntry> drain(int maxEntries) {
+        int expected = Math.min(size(), maxEntries);
+        List<LogEntry> entries = new ArrayList<>(Math.max(expected, 0));
+        LogEntry entry;
+        while (entries.size() < maxEntries && (entry = poll()) != null) {
+            entries.add(entry);
+        }
         return entries;
     }
 
     public boolean isEmpty() {
-        return queue.isEmpty();
+        return size() == 0;
     }
 
     public boolean isFull() {
-        return queue.size() >= capacity;
+        return size() >= capacity;
+    }
+
+    /**
+     * 当前缓冲的日志数量（并发写入时为近似值）
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * 实际容量（2 的幂）
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 因溢出被丢弃的日志数量
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * 入队，不应用溢出策略（槽位序号等于写指针时可写）
+     *
+     * @return 缓冲区已满时返回 false
+     */
+    public boolean offer(LogEntry entry) {
+        long pos = tail.get();
+        for (; ; ) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[index] = entry;
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // 槽位尚未被消费，缓冲区已满
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队（槽位序号等于读指针 + 1 时可读）
+     *
+     * @return 缓冲区为空时返回 null
+     */
+    public LogEntry poll() {
+        long pos = head.get();
+        for (; ; ) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    LogEntry entry = slots[index];
+                    slots[index] = null;
+                    sequences.lazySet(index, pos + capacity);
+                    return entry;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                // 槽位尚未写入，缓冲区为空
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        if (value >= (1 << 30)) {
+            return 1 << 30;
+        }
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
     }
 }
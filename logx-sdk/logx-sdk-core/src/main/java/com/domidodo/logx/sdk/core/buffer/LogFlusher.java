@@ -0,0 +1,313 @@
+package com.domidodo.logx.sdk.core.buffer;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.model.LogEntryPool;
+import com.domidodo.logx.sdk.core.sender.LogSender;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 日志刷新线程
+ * <p>
+ * 独占缓冲区的消费端，负责取出日志并调用发送器：
+ * 1. 业务线程只负责写入缓冲区并发出信号，不参与序列化和网络 I/O
+ * 2. 满足任一条件即触发发送：条数达到 batchSize、估算字节数达到 maxBatchBytes、最旧日志等待超过 flushInterval
+ * 3. 发送器的重试退避也只会阻塞本线程
+ * 4. 网关不可用（熔断中）且发送器没有磁盘溢写时暂停发送，日志留在缓冲区（写满后按溢出策略处理），恢复后继续
+ * 5. 参数化日志的消息格式化和上下文中的延迟值（DeferredValue）在本线程上求值，业务线程只保存快照
+ * 6. 高优先级通道（ERROR 等）有独立的缓冲区：写入后立即唤醒本线程单独发送，
+ * 不等待普通日志凑满批次；发送普通批次前也会先发送高优先级日志
+ */
+@Slf4j
+public class LogFlusher implements Runnable {
+
+    /**
+     * 单条日志的固定开销估算（字段名、时间戳、租户信息等）
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    /**
+     * 暂停发送期间检查网关是否恢复的间隔
+     */
+    private static final long PAUSE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LogBuffer buffer;
+    private final LogBuffer priorityBuffer;
+    private final LogSender sender;
+    private final LogEntryPool entryPool;
+    private final int batchSize;
+    private final long maxBatchBytes;
+    private final long maxAgeNanos;
+    private final Thread thread;
+
+    /**
+     * 缓冲区中日志的估算字节数
+     */
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    /**
+     * 最旧一条未发送日志的写入时间（0 表示没有待发送日志）
+     */
+    private final AtomicLong oldestPendingNanos = new AtomicLong();
+
+    /**
+     * 发送器抛出异常的批次数（异常已记录日志，批次中的日志丢失）
+     */
+    private final LongAdder flushErrors = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile boolean flushRequested = false;
+    private boolean paused = false;
+
+    /**
+     * @param entryPool 无垃圾模式下的对象池，发送完成后归还日志条目；可为 null
+     */
+    public LogFlusher(LogBuffer buffer, LogSender sender, LogEntryPool entryPool,
+                      int batchSize, long maxBatchBytes, Duration flushInterval) {
+        this(buffer, null, sender, entryPool, batchSize, maxBatchBytes, flushInterval);
+    }
+
+    /**
+     * @param priorityBuffer 高优先级通道的缓冲区，为 null 时不启用
+     * @param entryPool      无垃圾模式下的对象池，发送完成后归还日志条目；可为 null
+     */
+    public LogFlusher(LogBuffer buffer, LogBuffer priorityBuffer, LogSender sender, LogEntryPool entryPool,
+                      int batchSize, long maxBatchBytes, Duration flushInterval) {
+        this.buffer = buffer;
+        this.priorityBuffer = priorityBuffer;
+        this.sender = sender;
+        this.entryPool = entryPool;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchBytes = maxBatchBytes > 0 ? maxBatchBytes : Long.MAX_VALUE;
+        this.maxAgeNanos = flushInterval.toNanos();
+        this.thread = new Thread(this, "logx-flusher");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * 日志写入缓冲区后调用，必要时唤醒刷新线程
+     */
+    public void onAppended(LogEntry entry) {
+        long bytes = pendingBytes.addAndGet(estimateSize(entry));
+        oldestPendingNanos.compareAndSet(0L, System.nanoTime());
+
+        if (buffer.size() >= batchSize || bytes >= maxBatchBytes) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 高优先级日志写入后调用，立即唤醒刷新线程
+     */
+    public void onPriorityAppended() {
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * 请求立即刷新（不等待发送完成）
+     */
+    public void flushNow() {
+        flushRequested = true;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                boolean due = shouldFlush();
+                if (due || hasPriorityPending()) {
+                    if (shouldPause()) {
+                        LockSupport.parkNanos(this, PAUSE_CHECK_NANOS);
+                        continue;
+                    }
+                    // 只有高优先级日志时单独发送，普通日志继续攒批
+                    if (due) {
+                        flushRequested = false;
+                        drainAndSend(false);
+                    } else {
+                        drainPriority(false);
+                    }
+                } else {
+                    LockSupport.parkNanos(this, nanosUntilDue());
+                }
+            } catch (Throwable t) {
+                log.error("日志刷新线程异常", t);
+            }
+        }
+    }
+
+    /**
+     * 停止刷新线程，并在调用线程上发送剩余日志
+     * <p>
+     * 先让发送器提前执行待重试的批次，刷新线程不会在发送窗口上等待完整的退避周期；
+     * 刷新线程超时仍未结束时不在调用线程上发送（缓冲区只能有一个消费者），剩余日志记录日志后放弃
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        sender.expediteRetries();
+        LockSupport.unpark(thread);
+        try {
+            thread.join(unit.toMillis(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            int remaining = buffer.size() + (priorityBuffer != null ? priorityBuffer.size() : 0);
+            log.warn("刷新线程在 {} 毫秒内未结束，{} 条日志未发送", unit.toMillis(timeout), remaining);
+            return;
+        }
+        drainAndSend(true);
+    }
+
+    /**
+     * 发送器抛出异常的批次数
+     */
+    public long getFlushErrorCount() {
+        return flushErrors.sum();
+    }
+
+    private boolean hasPriorityPending() {
+        return priorityBuffer != null && !priorityBuffer.isEmpty();
+    }
+
+    private boolean shouldFlush() {
+        if (buffer.isEmpty()) {
+            return false;
+        }
+        if (flushRequested || buffer.size() >= batchSize || pendingBytes.get() >= maxBatchBytes) {
+            return true;
+        }
+        long oldest = oldestPendingNanos.get();
+        return oldest != 0L && System.nanoTime() - oldest >= maxAgeNanos;
+    }
+
+    /**
+     * 网关不可用且批次无处可去时暂停（仅由刷新线程调用）
+     */
+    private boolean shouldPause() {
+        boolean pause = !sender.isAvailable() && !sender.hasFallback();
+        if (pause != paused) {
+            paused = pause;
+            if (pause) {
+                log.warn("网关不可用，暂停发送，日志保留在缓冲区（当前 {} 条）", buffer.size());
+            } else {
+                log.info("网关已恢复，继续发送缓冲区中的日志");
+            }
+        }
+        return pause;
+    }
+
+    private long nanosUntilDue() {
+        long oldest = oldestPendingNanos.get();
+        if (oldest == 0L) {
+            return maxAgeNanos;
+        }
+        return Math.max(1L, maxAgeNanos - (System.nanoTime() - oldest));
+    }
+
+    /**
+     * 按批次取出并发送缓冲区中的全部日志
+     *
+     * @param force 关闭时为 true，网关不可用也交给发送器处理；否则每个批次前检查是否需要暂停
+     */
+    private void drainAndSend(boolean force) {
+        while (drainPriority(force) && !buffer.isEmpty()) {
+            if (!force && shouldPause()) {
+                break;
+            }
+            // 先重置时间基准，发送期间新写入的日志会重新登记
+            oldestPendingNanos.set(0L);
+            List<LogEntry> batch = buffer.drain(batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            long bytes = 0;
+            for (LogEntry entry : batch) {
+                // 先按入队时的状态估算，与 onAppended 登记的字节数一致
+                bytes += estimateSize(entry);
+                entry.resolveDeferred();
+            }
+            pendingBytes.addAndGet(-bytes);
+
+            send(batch);
+        }
+        if (buffer.isEmpty()) {
+            pendingBytes.set(0L);
+        } else {
+            oldestPendingNanos.compareAndSet(0L, System.nanoTime());
+        }
+    }
+
+    /**
+     * 发送高优先级通道中的全部日志
+     *
+     * @return false 表示需要暂停发送
+     */
+    private boolean drainPriority(boolean force) {
+        if (priorityBuffer == null) {
+            return true;
+        }
+        while (!priorityBuffer.isEmpty()) {
+            if (!force && shouldPause()) {
+                return false;
+            }
+            List<LogEntry> batch = priorityBuffer.drain(batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (LogEntry entry : batch) {
+                entry.resolveDeferred();
+            }
+            send(batch);
+        }
+        return true;
+    }
+
+    private void send(List<LogEntry> batch) {
+        try {
+            sender.sendBatch(batch);
+        } catch (Exception e) {
+            flushErrors.increment();
+            log.error("刷新日志缓冲区失败", e);
+        } finally {
+            // 发送器已完成序列化，条目可以归还复用
+            if (entryPool != null) {
+                for (LogEntry entry : batch) {
+                    entryPool.release(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * 估算日志序列化后的字节数
+     */
+    private static long estimateSize(LogEntry entry) {
+        long size = ENTRY_OVERHEAD_BYTES;
+        if (entry.getMessage() != null) {
+            size += entry.getMessage().length();
+        } else if (entry.getMessagePattern() != null) {
+            // 未格式化的参数化日志按模板长度的两倍估算
+            size += 2L * entry.getMessagePattern().length();
+        }
+        if (entry.getException() != null) {
+            size += entry.getException().length();
+        }
+        if (entry.getRequestParams() != null) {
+            size += entry.getRequestParams().length();
+        }
+        return size;
+    }
+}
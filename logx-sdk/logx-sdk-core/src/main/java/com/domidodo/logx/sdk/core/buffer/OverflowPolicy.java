@@ -0,0 +1,23 @@
+package com.domidodo.logx.sdk.core.buffer;
+
+/**
+ * 缓冲区溢出策略
+ * 缓冲区写满时如何处理新到达的日志
+ */
+public enum OverflowPolicy {
+
+    /**
+     * 丢弃新日志（默认，生产者永不阻塞）
+     */
+    DROP_NEWEST,
+
+    /**
+     * 丢弃最旧的日志，为新日志腾出空间
+     */
+    DROP_OLDEST,
+
+    /**
+     * 阻塞等待空位，超时后丢弃新日志
+     */
+    BLOCK_WITH_TIMEOUT
+}
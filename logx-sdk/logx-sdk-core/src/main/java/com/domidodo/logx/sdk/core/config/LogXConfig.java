@@ -1,7 +1,12 @@
 package com.domidodo.logx.sdk.core.config;
 
+import com.domidodo.logx.sdk.core.buffer.OverflowPolicy;
+import com.domidodo.logx.sdk.core.location.LocationCapture;
+import com.domidodo.logx.sdk.core.sampling.SamplingRule;
 import lombok.Data;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * LogX 配置类
@@ -52,6 +57,22 @@ public class LogXConfig {
      */
     private int grpcPort = 9090;
 
+    /**
+     * HTTP 网关地址列表（多个网关实例时客户端负载均衡，非空时优先于 gatewayUrl）
+     */
+    private List<String> gatewayUrls = new ArrayList<>();
+
+    /**
+     * gRPC 节点列表，格式 host:port（非空时优先于 grpcHost / grpcPort）
+     */
+    private List<String> grpcEndpoints = new ArrayList<>();
+
+    /**
+     * 是否启用传输故障转移：主传输（mode）不可用时新批次改用另一种传输发送，
+     * 需要同时配置 HTTP 和 gRPC 地址
+     */
+    private boolean transportFailover = false;
+
     /**
      * gRPC 模式：批量传输模式（batch | stream）
      */
@@ -78,6 +99,11 @@ public class LogXConfig {
      */
     private int grpcMaxConcurrentCallsPerConnection = 100;
 
+    /**
+     * gRPC 模式：是否发送紧凑批次（批次级字符串表），旧版网关不支持时自动回退
+     */
+    private boolean grpcCompactBatch = true;
+
     // ============ 缓冲配置 ============
     /**
      * 是否启用缓冲
@@ -90,10 +116,125 @@ public class LogXConfig {
     private int bufferSize = 1000;
 
     /**
-     * 刷新间隔
+     * 刷新间隔（最旧日志的最长等待时间）
      */
     private Duration flushInterval = Duration.ofSeconds(5);
 
+    /**
+     * 单批次最大日志条数（与网关 logx.batch.max-size 保持一致）
+     */
+    private int batchSize = 100;
+
+    /**
+     * 单批次最大估算字节数，达到后立即发送
+     */
+    private long maxBatchBytes = 1024 * 1024; // 1MB
+
+    /**
+     * 缓冲区溢出策略：DROP_NEWEST / DROP_OLDEST / BLOCK_WITH_TIMEOUT
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+    /**
+     * BLOCK_WITH_TIMEOUT 策略下的最长等待时间
+     */
+    private Duration blockTimeout = Duration.ofMillis(100);
+
+    /**
+     * 是否启用高优先级通道：达到 priorityLevel 的日志进入独立队列并立即发送，
+     * 不等待 flushInterval，也不会因普通日志占满缓冲区而被丢弃
+     */
+    private boolean priorityLaneEnabled = true;
+
+    /**
+     * 进入高优先级通道的最低级别：WARN / ERROR（FATAL 级别的日志始终视为高优先级）
+     */
+    private String priorityLevel = "ERROR";
+
+    /**
+     * 高优先级通道的预留容量，用满后借用普通缓冲区（必要时淘汰最旧的普通日志）
+     */
+    private int priorityBufferSize = 256;
+
+    /**
+     * 无垃圾模式：复用池化的 LogEntry，不生成日志ID
+     * 未设置 locationCapture 时不采集代码位置（遍历调用栈会分配对象）
+     */
+    private boolean garbageFree = false;
+
+    /**
+     * 精确时间戳：每条日志读取系统时钟（微秒精度）
+     * 默认使用每毫秒刷新一次的粗粒度时钟，读取开销更低
+     */
+    private boolean preciseTimestamp = false;
+
+    // ============ 采样配置 ============
+    /**
+     * 最低日志级别：DEBUG / INFO / WARN / ERROR，低于该级别的日志直接丢弃
+     */
+    private String minLevel = "DEBUG";
+
+    /**
+     * 采样规则（按顺序匹配，ERROR 日志不参与采样）
+     */
+    private List<SamplingRule> samplingRules = new ArrayList<>();
+
+    // ============ 聚合配置 ============
+    /**
+     * 是否启用重复日志聚合
+     */
+    private boolean aggregationEnabled = false;
+
+    /**
+     * 聚合窗口：窗口内的重复日志合并为一条汇总日志
+     */
+    private Duration aggregationWindow = Duration.ofSeconds(1);
+
+    // ============ 异常堆栈去重配置 ============
+    /**
+     * 是否按指纹去重异常堆栈：窗口内同一堆栈只发送一次完整内容，之后只发送栈顶帧和指纹
+     * 完整堆栈只能由处理服务的本地缓存补全，缓存未命中（重启、多实例消费、缓存淘汰）时只保留栈顶帧，默认关闭
+     */
+    private boolean stackTraceDedupEnabled = false;
+
+    /**
+     * 同一指纹两次发送完整堆栈的最小间隔
+     */
+    private Duration stackTraceDedupWindow = Duration.ofMinutes(10);
+
+    /**
+     * 精简堆栈保留的栈顶帧数
+     */
+    private int stackTraceTopFrames = 5;
+
+    // ============ 请求指标聚合配置 ============
+    /**
+     * 是否在本地聚合请求 RED 指标，按周期发送汇总，成功且不慢的请求不再逐条记录访问日志
+     */
+    private boolean requestMetricsEnabled = false;
+
+    /**
+     * 请求指标汇总周期
+     */
+    private Duration requestMetricsInterval = Duration.ofMinutes(1);
+
+    /**
+     * 成功且不慢的请求仍逐条记录日志的比例（0 ~ 1）
+     */
+    private double requestMetricsSampleRate = 0.01;
+
+    /**
+     * 聚合键（路由 + 方法 + 状态分类）的数量上限
+     */
+    private int requestMetricsMaxRoutes = 1000;
+
+    // ============ 代码位置配置 ============
+    /**
+     * 代码位置采集级别：NONE / CLASS_ONLY / FULL
+     * 未设置时默认 FULL，无垃圾模式下默认 NONE（见 {@link #resolveLocationCapture()}）
+     */
+    private LocationCapture locationCapture;
+
     // ============ HTTP 配置 ============
     /**
      * 连接超时（毫秒）
@@ -105,8 +246,98 @@ public class LogXConfig {
      */
     private int readTimeout = 5000;
 
+    /**
+     * HTTP 协议版本：HTTP_1_1（keep-alive）或 HTTP_2
+     */
+    private String httpVersion = "HTTP_1_1";
+
+    /**
+     * 同时在途的最大批次数
+     */
+    private int maxInFlightBatches = 4;
+
+    /**
+     * HTTP 请求体压缩：none | gzip | zstd（zstd 需要 classpath 中存在 zstd-jni，否则回退为 gzip）
+     */
+    private String compression = "none";
+
     /**
      * 最大重试次数
      */
     private int maxRetries = 3;
-}
\ No newline at end of file
+
+    /**
+     * 重试预算：重试流量最多为成功流量的比例（令牌桶，网关持续失败时停止重试）
+     */
+    private double retryBudgetRatio = 0.2;
+
+    /**
+     * 是否启用熔断器（网关持续失败时暂停发送，批次直接溢写或留在缓冲区）
+     */
+    private boolean circuitBreakerEnabled = true;
+
+    /**
+     * 连续失败多少次后熔断
+     */
+    private int circuitFailureThreshold = 5;
+
+    /**
+     * 熔断持续时间（连续熔断时翻倍，最长 5 分钟），结束后放行一个探测批次
+     */
+    private Duration circuitOpenDuration = Duration.ofSeconds(10);
+
+    /**
+     * 是否启用磁盘溢写（发送失败的批次写入本地磁盘，网关恢复后重放）
+     */
+    private boolean spillEnabled = false;
+
+    /**
+     * 溢写目录（默认 ${java.io.tmpdir}/logx-spill/{systemId}）
+     */
+    private String spillDirectory;
+
+    /**
+     * 溢写总大小上限（字节），超过后淘汰最旧数据
+     */
+    private long spillMaxBytes = 256L * 1024 * 1024;
+
+    /**
+     * 单个溢写段文件大小（字节）
+     */
+    private long spillSegmentBytes = 16L * 1024 * 1024;
+
+    /**
+     * 每秒最多重放的批次数
+     */
+    private int spillReplayRate = 20;
+
+    /**
+     * 生效的代码位置采集级别
+     */
+    public LocationCapture resolveLocationCapture() {
+        if (locationCapture != null) {
+            return locationCapture;
+        }
+        return garbageFree ? LocationCapture.NONE : LocationCapture.FULL;
+    }
+
+    /**
+     * 生效的 HTTP 网关地址列表（未配置时为空列表）
+     */
+    public List<String> resolveGatewayUrls() {
+        if (gatewayUrls != null && !gatewayUrls.isEmpty()) {
+            return List.copyOf(gatewayUrls);
+        }
+        return gatewayUrl == null || gatewayUrl.isEmpty() ? List.of() : List.of(gatewayUrl);
+    }
+
+    /**
+     * 生效的 gRPC 节点列表，格式 host:port（未配置时为空列表）
+     */
+    public List<String> resolveGrpcEndpoints() {
+        if (grpcEndpoints != null && !grpcEndpoints.isEmpty()) {
+            return List.copyOf(grpcEndpoints);
+        }
+        return grpcHost == null || grpcHost.isEmpty() ? List.of() : List.of(grpcHost + ":" + grpcPort);
+    }
+}
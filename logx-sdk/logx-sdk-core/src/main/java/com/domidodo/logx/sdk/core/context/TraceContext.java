@@ -1,11 +1,10 @@
 package com.domidodo.logx.sdk.core.context;
 
+import com.domidodo.logx.common.util.IdGenerator;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.UUID;
-
 /**
  * 分布式追踪上下文管理
  *
@@ -24,6 +23,7 @@ public class TraceContext {
     public static final String USER_ID_HEADER = "X-User-Id";
     public static final String USER_NAME_HEADER = "X-User-Name";
     public static final String TENANT_ID_HEADER = "X-Tenant-Id";
+    public static final String TRACE_FLAGGED_HEADER = "X-Trace-Flagged";
 
     // ============ Reactor Context Key（WebFlux 使用） ============
     public static final String TRACE_CONTEXT_KEY = "logx-trace-context";
@@ -45,6 +45,11 @@ public class TraceContext {
         private String tenantId;
         private long startTime;
 
+        /**
+         * 是否被标记（被标记的追踪不参与客户端采样，日志全部保留）
+         */
+        private boolean flagged;
+
         public TraceInfo() {
             this.startTime = System.currentTimeMillis();
         }
@@ -73,14 +78,14 @@ public class TraceContext {
      * 生成 TraceId（32位十六进制）
      */
     public static String generateTraceId() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return IdGenerator.randomId();
     }
 
     /**
      * 生成 SpanId（16位十六进制）
      */
     public static String generateSpanId() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        return IdGenerator.shortRandomId();
     }
 
     // ============ ThreadLocal 操作（Servlet 环境） ============
@@ -138,6 +143,13 @@ public class TraceContext {
         CONTEXT.remove();
     }
 
+    /**
+     * 解析标记头（"1" 或 "true" 表示被标记）
+     */
+    public static boolean parseFlagged(String headerValue) {
+        return "1".equals(headerValue) || "true".equalsIgnoreCase(headerValue);
+    }
+
     // ============ 工厂方法 ============
 
     /**
@@ -0,0 +1,190 @@
+package com.domidodo.logx.sdk.core.fingerprint;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 异常堆栈指纹与去重
+ * <p>
+ * 1. 指纹：异常类型 + 每一帧的 类名.方法名:行号（含 Caused by 链），不含异常消息；
+ * CGLIB 代理、Lambda、反射访问器等运行时生成的类名去掉编号后再计算，同一位置抛出的异常指纹相同
+ * 2. 一个指纹在窗口内只发送一次完整堆栈，之后只发送异常消息、栈顶若干帧和各级 Caused by 的首行，
+ * 由处理端按指纹补全完整堆栈
+ * 3. 扩展字段附带 exceptionFingerprint；只发送了栈顶帧时附带 exceptionOmitted=true
+ * 4. 窗口过期后重新发送一次完整堆栈，处理端缓存丢失（重启、扩容）后最多一个窗口即可恢复
+ * 5. 完整堆栈写入缓冲区后调用方才通过 {@link #markSent} 记录指纹；写入失败（缓冲区满、被过滤）时下一次仍发送完整堆栈
+ */
+public class StackTraceDeduplicator {
+
+    public static final String FINGERPRINT_KEY = "exceptionFingerprint";
+    public static final String OMITTED_KEY = "exceptionOmitted";
+
+    /**
+     * Caused by 链的最大遍历深度（防止循环引用）
+     */
+    private static final int MAX_CAUSE_DEPTH = 16;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long windowMillis;
+    private final int topFrames;
+    private final int maxFingerprints;
+
+    /**
+     * 指纹 → 上次发送完整堆栈的时间（毫秒）
+     */
+    private final Map<String, Long> lastFullSent = new ConcurrentHashMap<>();
+
+    /**
+     * @param window          同一指纹两次发送完整堆栈的最小间隔
+     * @param topFrames       精简堆栈保留的栈顶帧数
+     * @param maxFingerprints 记录的指纹数量上限，超出时清理过期指纹，仍超出则全部清空
+     */
+    public StackTraceDeduplicator(Duration window, int topFrames, int maxFingerprints) {
+        this.windowMillis = Math.max(1000L, window != null ? window.toMillis() : 600_000L);
+        this.topFrames = Math.max(0, topFrames);
+        this.maxFingerprints = Math.max(16, maxFingerprints);
+    }
+
+    /**
+     * 为日志设置异常：窗口内没有发送过完整堆栈的指纹设置完整堆栈，否则设置精简堆栈
+     *
+     * @return 设置了完整堆栈时返回指纹，日志写入缓冲区后需调用 {@link #markSent}；设置精简堆栈时返回 null
+     */
+    public String apply(LogEntry entry, Throwable throwable) {
+        String fingerprint = fingerprint(throwable);
+        boolean full = !isRecentlySent(fingerprint, System.currentTimeMillis());
+        if (full) {
+            entry.setThrowable(throwable);
+        } else {
+            entry.setThrowable(throwable, compact(throwable, fingerprint));
+        }
+
+        // context 可能是调用方传入的 Map，复制后再写入
+        Map<String, Object> context = entry.getContext() != null
+                ? new HashMap<>(entry.getContext())
+                : new HashMap<>(4);
+        context.put(FINGERPRINT_KEY, fingerprint);
+        if (!full) {
+            context.put(OMITTED_KEY, Boolean.TRUE);
+        }
+        entry.setContext(context);
+        return full ? fingerprint : null;
+    }
+
+    /**
+     * 记录指纹的完整堆栈已写入缓冲区，窗口内之后的同一指纹只发送精简堆栈
+     */
+    public void markSent(String fingerprint) {
+        long now = System.currentTimeMillis();
+        if (lastFullSent.size() >= maxFingerprints && !lastFullSent.containsKey(fingerprint)) {
+            lastFullSent.values().removeIf(sentAt -> now - sentAt >= windowMillis);
+            if (lastFullSent.size() >= maxFingerprints) {
+                lastFullSent.clear();
+            }
+        }
+        lastFullSent.put(fingerprint, now);
+    }
+
+    /**
+     * 计算异常指纹（16 位十六进制，64 位 FNV-1a）
+     */
+    public static String fingerprint(Throwable throwable) {
+        long hash = FNV_OFFSET;
+        Throwable current = throwable;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            hash = hash(hash, current.getClass().getName());
+            for (StackTraceElement element : current.getStackTrace()) {
+                hash = hash(hash, normalizeClassName(element.getClassName()));
+                hash = hash(hash, element.getMethodName());
+                hash = (hash ^ element.getLineNumber()) * FNV_PRIME;
+            }
+            current = current.getCause() != current ? current.getCause() : null;
+        }
+        String hex = Long.toHexString(hash);
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /**
+     * 当前已记录的指纹数量
+     */
+    public int size() {
+        return lastFullSent.size();
+    }
+
+    /**
+     * 窗口内是否已经发送过该指纹的完整堆栈
+     * 并发时同一指纹可能有多个线程同时发送完整堆栈，宁可多发不可丢失
+     */
+    private boolean isRecentlySent(String fingerprint, long now) {
+        Long previous = lastFullSent.get(fingerprint);
+        return previous != null && now - previous < windowMillis;
+    }
+
+    /**
+     * 精简堆栈：异常首行、栈顶 topFrames 帧、省略说明和各级 Caused by 的首行
+     */
+    private String compact(Throwable throwable, String fingerprint) {
+        StringBuilder sb = new StringBuilder(256);
+        appendHeader(sb, throwable);
+        StackTraceElement[] frames = throwable.getStackTrace();
+        int shown = Math.min(topFrames, frames.length);
+        for (int i = 0; i < shown; i++) {
+            sb.append("\tat ").append(frames[i]).append('\n');
+        }
+        sb.append("\t... ").append(frames.length - shown)
+                .append(" more (fingerprint ").append(fingerprint).append(")\n");
+
+        Throwable cause = throwable.getCause();
+        for (int depth = 1; cause != null && cause != throwable && depth < MAX_CAUSE_DEPTH; depth++) {
+            sb.append("Caused by: ");
+            appendHeader(sb, cause);
+            cause = cause.getCause() != cause ? cause.getCause() : null;
+        }
+        return sb.toString();
+    }
+
+    private static void appendHeader(StringBuilder sb, Throwable throwable) {
+        sb.append(throwable.getClass().getName());
+        if (throwable.getMessage() != null) {
+            sb.append(": ").append(throwable.getMessage());
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * 去掉运行时生成类名中的编号：
+     * Foo$$SpringCGLIB$$0、Foo$$Lambda$123/0x...、GeneratedMethodAccessor12、$Proxy34；
+     * 数字后缀只对反射访问器和 JDK 代理去掉，应用自己的 FieldAccessor1 等类名保持不变
+     */
+    static String normalizeClassName(String className) {
+        int generated = className.indexOf("$$");
+        if (generated > 0) {
+            return className.substring(0, generated);
+        }
+        int end = className.length();
+        while (end > 0 && Character.isDigit(className.charAt(end - 1))) {
+            end--;
+        }
+        if (end == className.length()) {
+            return className;
+        }
+        String simpleName = className.substring(className.lastIndexOf('.') + 1, end);
+        if ((simpleName.startsWith("Generated") && simpleName.endsWith("Accessor")) || simpleName.equals("$Proxy")) {
+            return className.substring(0, end);
+        }
+        return className;
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ '|') * FNV_PRIME;
+    }
+}
@@ -0,0 +1,94 @@
+package com.domidodo.logx.sdk.core.location;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 调用位置定位器
+ * <p>
+ * 使用 StackWalker 惰性遍历调用栈：
+ * 1. 只遍历到第一个非 LogX 的栈帧即停止，不生成完整的 StackTraceElement 数组
+ * 2. 按调用点（类、方法、字节码位置）缓存解析结果，行号只解析一次；
+ * 缓存以声明类为键挂在 ClassValue 上，不持有应用类的强引用，应用重新部署（或 devtools 重启）后旧的类加载器可以被回收
+ */
+public final class CallerLocator {
+
+    /**
+     * 每个类的调用点缓存上限，超过后不再缓存该类的新调用点
+     */
+    private static final int MAX_CACHED_CALL_SITES_PER_CLASS = 256;
+
+    private static final StackWalker WALKER =
+            StackWalker.getInstance(Set.of(StackWalker.Option.RETAIN_CLASS_REFERENCE));
+
+    private final Set<Class<?>> skippedClasses;
+    private final ClassValue<Map<CallSite, CodeLocation>> cache = new ClassValue<>() {
+        @Override
+        protected Map<CallSite, CodeLocation> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * @param skippedClasses 需要跳过的日志框架类（如 LogXClient、LogXLogger）
+     */
+    public CallerLocator(Class<?>... skippedClasses) {
+        this.skippedClasses = Set.of(skippedClasses);
+    }
+
+    /**
+     * 定位调用者（类名、方法名、行号）
+     *
+     * @return 调用位置，未找到时返回 null
+     */
+    public CodeLocation locate() {
+        Optional<StackWalker.StackFrame> frame = WALKER.walk(frames -> frames
+                .filter(f -> !isSkipped(f.getDeclaringClass()))
+                .findFirst());
+        return frame.map(this::resolve).orElse(null);
+    }
+
+    /**
+     * 仅定位调用者类名（不解析行号）
+     *
+     * @return 调用者类名，未找到时返回 null
+     */
+    public String locateClassName() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> !isSkipped(f.getDeclaringClass()))
+                .findFirst()
+                .map(StackWalker.StackFrame::getClassName)
+                .orElse(null));
+    }
+
+    private boolean isSkipped(Class<?> declaringClass) {
+        return declaringClass == CallerLocator.class || skippedClasses.contains(declaringClass);
+    }
+
+    private CodeLocation resolve(StackWalker.StackFrame frame) {
+        Map<CallSite, CodeLocation> callSites = cache.get(frame.getDeclaringClass());
+        CallSite key = new CallSite(frame.getMethodName(), frame.getDescriptor(), frame.getByteCodeIndex());
+        CodeLocation location = callSites.get(key);
+        if (location == null) {
+            location = new CodeLocation(frame.getClassName(), frame.getMethodName(), frame.getLineNumber());
+            if (callSites.size() < MAX_CACHED_CALL_SITES_PER_CLASS) {
+                callSites.putIfAbsent(key, location);
+            }
+        }
+        return location;
+    }
+
+    /**
+     * 声明类内的调用点标识
+     */
+    private record CallSite(String methodName, String descriptor, int byteCodeIndex) {
+    }
+
+    /**
+     * 代码位置
+     */
+    public record CodeLocation(String className, String methodName, int lineNumber) {
+    }
+}
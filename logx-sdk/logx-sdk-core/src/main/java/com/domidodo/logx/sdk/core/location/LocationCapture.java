@@ -0,0 +1,22 @@
+package com.domidodo.logx.sdk.core.location;
+
+/**
+ * 代码位置采集级别
+ */
+public enum LocationCapture {
+
+    /**
+     * 不采集代码位置
+     */
+    NONE,
+
+    /**
+     * 仅采集类名（已知 Logger 类名时无需遍历调用栈）
+     */
+    CLASS_ONLY,
+
+    /**
+     * 采集类名、方法名和行号
+     */
+    FULL
+}
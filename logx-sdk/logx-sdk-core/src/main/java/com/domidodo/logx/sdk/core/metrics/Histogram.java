@@ -0,0 +1,166 @@
+package com.domidodo.logx.sdk.core.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定桶直方图
+ * <p>
+ * 桶上界在构造时确定，记录时二分查找桶，计数使用 LongAdder，可在任意线程并发记录
+ */
+public class Histogram {
+
+    /**
+     * 发送延迟桶上界（毫秒）
+     */
+    public static final long[] LATENCY_MILLIS_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    /**
+     * 批次条数桶上界
+     */
+    public static final long[] BATCH_SIZE_BOUNDS = {1, 5, 10, 25, 50, 100, 250, 500, 1000};
+
+    /**
+     * 对数线性桶在每个数量级内的倍数（×10）
+     */
+    private static final int[] LOG_LINEAR_STEPS = {10, 12, 15, 20, 25, 30, 40, 50, 60, 70, 80, 90};
+
+    /**
+     * 请求耗时桶上界（毫秒）：10 毫秒以内每毫秒一个桶，之后每个数量级 12 个桶（1, 1.2, 1.5, 2, 2.5, 3, 4 ... 9 倍），
+     * 分位数估算的相对误差不超过 1/3，上限 100 秒
+     */
+    public static final long[] RESPONSE_MILLIS_BOUNDS = logLinearBounds(100_000);
+
+    private final long[] bounds;
+
+    /**
+     * 下标 bounds.length 为溢出桶（大于最大上界）
+     */
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public Histogram(long[] bounds) {
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        int i = Arrays.binarySearch(bounds, value);
+        if (i < 0) {
+            // 未命中时为第一个大于 value 的上界
+            i = -i - 1;
+        }
+        buckets[i].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(bounds.clone(), counts, count.sum(), sum.sum(), max.get());
+    }
+
+    /**
+     * 获取快照并清零，用于按周期输出增量
+     * 与并发的记录不会丢失计数，只可能计入下一个周期
+     */
+    public Snapshot snapshotThenReset() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sumThenReset();
+            total += counts[i];
+        }
+        count.sumThenReset();
+        return new Snapshot(bounds.clone(), counts, total, sum.sumThenReset(), max.getThenReset());
+    }
+
+    /**
+     * 对数线性桶上界：1 ~ 9 逐一递增，之后按 LOG_LINEAR_STEPS 递增到 max
+     */
+    private static long[] logLinearBounds(long max) {
+        long[] result = new long[128];
+        int n = 0;
+        for (long value = 1; value < 10; value++) {
+            result[n++] = value;
+        }
+        for (long magnitude = 10; magnitude <= max; magnitude *= 10) {
+            for (int step : LOG_LINEAR_STEPS) {
+                long bound = magnitude * step / 10;
+                if (bound > max) {
+                    break;
+                }
+                result[n++] = bound;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * 直方图快照
+     *
+     * @param bounds 桶上界
+     * @param counts 各桶计数（非累计），最后一个为溢出桶
+     */
+    public record Snapshot(long[] bounds, long[] counts, long count, long sum, long max) {
+
+        public double mean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * 估算分位数（返回所在桶的上界，落在溢出桶时返回最大值）
+         *
+         * @param quantile 0 ~ 1
+         */
+        public long percentile(double quantile) {
+            if (count == 0) {
+                return 0L;
+            }
+            long target = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(bounds[i], max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 合并两个桶上界相同的快照
+         */
+        public Snapshot merge(Snapshot other) {
+            if (!Arrays.equals(bounds, other.bounds)) {
+                throw new IllegalArgumentException("直方图桶上界不一致，无法合并");
+            }
+            long[] merged = counts.clone();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += other.counts[i];
+            }
+            return new Snapshot(bounds, merged, count + other.count, sum + other.sum, Math.max(max, other.max));
+        }
+
+        /**
+         * 小于等于指定桶上界的累计计数
+         */
+        public long cumulativeCount(int bucket) {
+            long total = 0;
+            for (int i = 0; i <= bucket && i < counts.length; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+    }
+}
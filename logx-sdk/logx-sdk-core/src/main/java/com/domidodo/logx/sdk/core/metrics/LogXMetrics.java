@@ -0,0 +1,138 @@
+package com.domidodo.logx.sdk.core.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * SDK 自身运行指标快照
+ * <p>
+ * 由 {@code LogXClient.metrics()} 生成，计数类字段均为客户端启动以来的累计值
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogXMetrics {
+
+    /**
+     * 传输方式（http / grpc，启用故障转移时为 grpc+http 形式，主传输在前）
+     */
+    private String transport;
+
+    /**
+     * 各传输的发送指标（启用故障转移时主传输在前）；下面的发送和溢写字段为所有传输的合计
+     */
+    private List<TransportMetrics> transports;
+
+    // ============ 缓冲区 ============
+
+    /**
+     * 缓冲区中待发送的日志条数（未启用缓冲时为 0）
+     */
+    private int bufferSize;
+
+    /**
+     * 缓冲区容量
+     */
+    private int bufferCapacity;
+
+    /**
+     * 高优先级通道中待发送的日志条数（未启用时为 0）
+     */
+    private int priorityBufferSize;
+
+    /**
+     * 高优先级通道容量（未启用时为 0）
+     */
+    private int priorityBufferCapacity;
+
+    // ============ 日志条数 ============
+
+    /**
+     * 进入缓冲区或交给发送器的日志条数
+     */
+    private long acceptedLogs;
+
+    /**
+     * 因缓冲区溢出被丢弃的日志条数
+     */
+    private long droppedLogs;
+
+    /**
+     * 低于最低级别被过滤的日志条数
+     */
+    private long filteredLogs;
+
+    /**
+     * 被采样规则丢弃的日志条数
+     */
+    private long sampledOutLogs;
+
+    /**
+     * 被合并到汇总日志中的重复日志条数
+     */
+    private long aggregatedLogs;
+
+    // ============ 发送 ============
+
+    private long sentBatches;
+    private long sentLogs;
+    private long failedBatches;
+    private long failedLogs;
+
+    /**
+     * 重试次数（含断线重连后的重发）
+     */
+    private long retries;
+
+    /**
+     * 熔断器打开次数
+     */
+    private long circuitOpens;
+
+    /**
+     * 因熔断未发送、直接溢写或丢弃的批次数
+     */
+    private long shortCircuitedBatches;
+
+    /**
+     * 网关当前是否可用（未熔断且有可用节点）
+     */
+    private boolean gatewayAvailable;
+
+    /**
+     * 发送器抛出异常的批次数
+     */
+    private long flushErrors;
+
+    /**
+     * 成功发送的字节数（压缩后的请求体或 protobuf 消息大小）
+     */
+    private long bytesSent;
+
+    /**
+     * 单次请求的发送延迟（毫秒）
+     */
+    private Histogram.Snapshot sendLatency;
+
+    /**
+     * 交给发送器的批次条数
+     */
+    private Histogram.Snapshot batchSizes;
+
+    // ============ 磁盘溢写 ============
+
+    private long spilledBatches;
+    private long spilledLogs;
+    private long replayedBatches;
+    private long evictedSegments;
+
+    /**
+     * 溢写段文件占用的磁盘大小（未启用溢写时为 0）
+     */
+    private long spillBytes;
+}
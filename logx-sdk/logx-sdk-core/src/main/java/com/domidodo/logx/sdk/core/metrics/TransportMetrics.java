@@ -0,0 +1,136 @@
+package com.domidodo.logx.sdk.core.metrics;
+
+import com.domidodo.logx.sdk.core.sender.DeliveryCounters;
+import com.domidodo.logx.sdk.core.spill.SpillStore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 单个传输的发送指标快照
+ * <p>
+ * 启用传输故障转移时 gRPC 和 HTTP 各有一份，发送延迟等分布不会混在一起
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransportMetrics {
+
+    /**
+     * 传输方式（http / grpc）
+     */
+    private String transport;
+
+    private long sentBatches;
+    private long sentLogs;
+    private long failedBatches;
+    private long failedLogs;
+
+    /**
+     * 重试次数（含断线重连后的重发）
+     */
+    private long retries;
+
+    /**
+     * 熔断器打开次数
+     */
+    private long circuitOpens;
+
+    /**
+     * 因熔断未发送、直接溢写或丢弃的批次数
+     */
+    private long shortCircuitedBatches;
+
+    /**
+     * 成功发送的字节数（压缩后的请求体或 protobuf 消息大小）
+     */
+    private long bytesSent;
+
+    /**
+     * 单次请求的发送延迟（毫秒）
+     */
+    private Histogram.Snapshot sendLatency;
+
+    /**
+     * 交给发送器的批次条数
+     */
+    private Histogram.Snapshot batchSizes;
+
+    private long spilledBatches;
+    private long spilledLogs;
+    private long replayedBatches;
+    private long evictedSegments;
+
+    /**
+     * 溢写段文件占用的磁盘大小（未启用溢写时为 0）
+     */
+    private long spillBytes;
+
+    /**
+     * 从发送结果计数生成快照
+     */
+    public static TransportMetrics from(DeliveryCounters counters) {
+        TransportMetrics.TransportMetricsBuilder metrics = TransportMetrics.builder()
+                .transport(counters.getTransport())
+                .sentBatches(counters.getSentBatches())
+                .sentLogs(counters.getSentEntries())
+                .failedBatches(counters.getFailedBatches())
+                .failedLogs(counters.getFailedEntries())
+                .retries(counters.getRetries())
+                .circuitOpens(counters.getCircuitOpens())
+                .shortCircuitedBatches(counters.getShortCircuitedBatches())
+                .bytesSent(counters.getBytesSent())
+                .sendLatency(counters.getSendLatency())
+                .batchSizes(counters.getBatchSizes())
+                .spilledBatches(counters.getSpilledBatches())
+                .spilledLogs(counters.getSpilledEntries());
+
+        SpillStore spillStore = counters.getSpillStore();
+        if (spillStore != null) {
+            metrics.replayedBatches(spillStore.getReplayedBatches())
+                    .evictedSegments(spillStore.getEvictedSegments())
+                    .spillBytes(spillStore.sizeBytes());
+        }
+        return metrics.build();
+    }
+
+    /**
+     * 多个传输的合计，传输方式以 + 连接（如 grpc+http），分布按桶合并
+     */
+    public static TransportMetrics sum(List<TransportMetrics> transports) {
+        TransportMetrics total = new TransportMetrics();
+        StringJoiner names = new StringJoiner("+");
+        for (TransportMetrics t : transports) {
+            names.add(t.transport);
+            total.sentBatches += t.sentBatches;
+            total.sentLogs += t.sentLogs;
+            total.failedBatches += t.failedBatches;
+            total.failedLogs += t.failedLogs;
+            total.retries += t.retries;
+            total.circuitOpens += t.circuitOpens;
+            total.shortCircuitedBatches += t.shortCircuitedBatches;
+            total.bytesSent += t.bytesSent;
+            total.sendLatency = merge(total.sendLatency, t.sendLatency);
+            total.batchSizes = merge(total.batchSizes, t.batchSizes);
+            total.spilledBatches += t.spilledBatches;
+            total.spilledLogs += t.spilledLogs;
+            total.replayedBatches += t.replayedBatches;
+            total.evictedSegments += t.evictedSegments;
+            total.spillBytes += t.spillBytes;
+        }
+        total.transport = names.toString();
+        return total;
+    }
+
+    private static Histogram.Snapshot merge(Histogram.Snapshot a, Histogram.Snapshot b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a.merge(b);
+    }
+}
@@ -0,0 +1,17 @@
+package com.domidodo.logx.sdk.core.model;
+
+/**
+ * 延迟求值的上下文值
+ * <p>
+ * 放入 {@link LogEntry#getContext()} 后，在发送前（启用缓冲时在刷新线程上）调用 {@link #resolve()}，
+ * 用结果替换自身；适合把参数序列化等耗时操作移出业务线程。
+ * 实现应只引用调用时的快照，并自行处理异常
+ */
+@FunctionalInterface
+public interface DeferredValue {
+
+    /**
+     * 求值，返回 String / Number / Boolean / List / Map 等可直接编码的值
+     */
+    Object resolve();
+}
@@ -1,16 +1,28 @@
 package com.domidodo.logx.sdk.core.model;
 
+import com.domidodo.logx.sdk.core.util.MessageFormatter;
 import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 日志实体
@@ -23,6 +35,16 @@ import java.util.Map;
 @AllArgsConstructor
 public class LogEntry {
 
+    /**
+     * 参数化日志的原始消息模板在 extra 中的键名，服务端可据此对同类日志分组
+     */
+    public static final String MESSAGE_PATTERN_KEY = "messagePattern";
+
+    /**
+     * LogXLogger 所属类名在 extra 中的键名
+     */
+    public static final String LOGGER_CLASS_NAME_KEY = "className";
+
     // ============ 内部字段 ============
     /**
      * 日志ID（内部生成，不发送到服务端）
@@ -58,10 +80,16 @@ public class LogEntry {
 
     // ============ 时间信息 ============
     /**
-     * 时间戳（LocalDateTime，发送时转为 long）
+     * 时间戳（LocalDateTime，仅用于调用方显式设置，发送时转为纪元微秒）
      */
     private LocalDateTime timestamp;
 
+    /**
+     * 时间戳（纪元微秒，0 表示未设置）
+     * SDK 创建的日志使用该字段，避免创建 LocalDateTime 和时区转换
+     */
+    private long epochMicros;
+
     // ============ 日志基础信息 ============
     /**
      * 日志级别：DEBUG/INFO/WARN/ERROR
@@ -100,6 +128,23 @@ public class LogEntry {
      */
     private String message;
 
+    /**
+     * 消息模板（参数化日志，如 "用户 {} 下单成功"），随 extra 发送
+     */
+    private String messagePattern;
+
+    /**
+     * LogXLogger 所属类名，随 extra 发送（不复制调用方传入的 context）
+     */
+    private String loggerClassName;
+
+    /**
+     * 消息参数（未格式化时非空，由 {@link #formatMessage()} 在发送前格式化到 message）
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient Object[] messageArgs;
+
     /**
      * 异常堆栈（完整的异常信息）
      */
@@ -197,16 +242,132 @@ public class LogEntry {
     @Deprecated
     private String stackTrace;
 
+    /**
+     * 是否来自对象池（发送完成后归还）
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    transient boolean pooled;
+
     // ============ 辅助方法 ============
 
+    /**
+     * 获取微秒时间戳
+     * 优先使用 epochMicros，其次转换 timestamp，均未设置时返回 0
+     */
+    public long toEpochMicros() {
+        if (epochMicros > 0) {
+            return epochMicros;
+        }
+        if (timestamp != null) {
+            Instant instant = timestamp.atZone(ZoneId.systemDefault()).toInstant();
+            return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000L;
+        }
+        return 0L;
+    }
+
+    /**
+     * 清空所有字段（对象池复用前调用）
+     * context / tags 可能引用调用方传入的集合，只解除引用不清空内容
+     */
+    public void reset() {
+        id = null;
+        systemName = null;
+        traceId = null;
+        spanId = null;
+        tenantId = null;
+        systemId = null;
+        timestamp = null;
+        epochMicros = 0L;
+        level = null;
+        logger = null;
+        thread = null;
+        className = null;
+        methodName = null;
+        lineNumber = null;
+        message = null;
+        messagePattern = null;
+        loggerClassName = null;
+        messageArgs = null;
+        exception = null;
+        userId = null;
+        userName = null;
+        module = null;
+        operation = null;
+        requestUrl = null;
+        requestMethod = null;
+        requestParams = null;
+        responseTime = null;
+        ip = null;
+        userAgent = null;
+        tags = null;
+        context = null;
+        extra = null;
+        throwable = null;
+        exceptionType = null;
+        stackTrace = null;
+    }
+
+    /**
+     * 发送前完成所有延迟操作：格式化消息参数，并将 context 中的 {@link DeferredValue} 替换为求值结果
+     */
+    public void resolveDeferred() {
+        formatMessage();
+        if (context == null || context.isEmpty()) {
+            return;
+        }
+        boolean deferred = false;
+        for (Object value : context.values()) {
+            if (value instanceof DeferredValue) {
+                deferred = true;
+                break;
+            }
+        }
+        if (!deferred) {
+            return;
+        }
+        Map<String, Object> resolved = new HashMap<>(context);
+        resolved.replaceAll((key, value) -> value instanceof DeferredValue deferredValue
+                ? resolveSafely(deferredValue)
+                : value);
+        context = resolved;
+    }
+
+    private static Object resolveSafely(DeferredValue value) {
+        try {
+            return value.resolve();
+        } catch (Exception e) {
+            return "[求值失败: " + e + "]";
+        }
+    }
+
+    /**
+     * 将消息参数格式化到 message（参数化日志延迟到发送前格式化，已格式化时不做任何事）
+     */
+    public void formatMessage() {
+        if (messageArgs != null) {
+            message = MessageFormatter.format(messagePattern, messageArgs);
+            messageArgs = null;
+        }
+    }
+
     /**
      * 设置异常信息
      * 自动合并异常类型和堆栈信息
      */
     public void setThrowable(Throwable throwable) {
+        setThrowable(throwable, throwable != null ? formatThrowable(throwable) : null);
+    }
+
+    /**
+     * 设置异常信息，使用已格式化的异常文本（如按指纹去重后的精简堆栈）
+     */
+    public void setThrowable(Throwable throwable, String exception) {
         this.throwable = throwable;
         if (throwable != null) {
-            this.exception = formatThrowable(throwable);
+            this.exception = exception;
             // 兼容旧字段
             this.exceptionType = throwable.getClass().getName();
             this.stackTrace = this.exception;
@@ -218,22 +379,44 @@ public class LogEntry {
      */
     private String formatThrowable(Throwable throwable) {
         StringBuilder sb = new StringBuilder();
-        sb.append(throwable.getClass().getName());
-        if (throwable.getMessage() != null) {
-            sb.append(": ").append(throwable.getMessage());
+        appendThrowable(sb, throwable, "", "", Collections.newSetFromMap(new IdentityHashMap<>()));
+        return sb.toString();
+    }
+
+    /**
+     * 追加异常、Suppressed 和 Caused by（同 Throwable.printStackTrace，已输出过的异常只输出引用，防止循环引用）
+     */
+    private static void appendThrowable(StringBuilder sb, Throwable throwable, String caption, String prefix,
+                                        Set<Throwable> seen) {
+        sb.append(prefix).append(caption);
+        if (!seen.add(throwable)) {
+            sb.append("[CIRCULAR REFERENCE: ");
+            appendHeader(sb, throwable);
+            sb.append("]\n");
+            return;
         }
+        appendHeader(sb, throwable);
         sb.append("\n");
 
         for (StackTraceElement element : throwable.getStackTrace()) {
-            sb.append("\tat ").append(element.toString()).append("\n");
+            sb.append(prefix).append("\tat ").append(element.toString()).append("\n");
+        }
+
+        for (Throwable suppressed : throwable.getSuppressed()) {
+            appendThrowable(sb, suppressed, "Suppressed: ", prefix + "\t", seen);
         }
 
         Throwable cause = throwable.getCause();
         if (cause != null) {
-            sb.append("Caused by: ").append(formatThrowable(cause));
+            appendThrowable(sb, cause, "Caused by: ", prefix, seen);
         }
+    }
 
-        return sb.toString();
+    private static void appendHeader(StringBuilder sb, Throwable throwable) {
+        sb.append(throwable.getClass().getName());
+        if (throwable.getMessage() != null) {
+            sb.append(": ").append(throwable.getMessage());
+        }
     }
 
     /**
@@ -0,0 +1,47 @@
+package com.domidodo.logx.sdk.core.model;
+
+import com.domidodo.logx.sdk.core.buffer.LogBuffer;
+
+/**
+ * LogEntry 对象池（无垃圾模式使用）
+ * <p>
+ * 1. 预先分配固定数量的 LogEntry，存放在无锁环形缓冲中
+ * 2. 取用时池为空则新建（新对象同样标记为池对象，归还后补充到池中）
+ * 3. 日志序列化发送完成后由刷新线程归还，重置后复用
+ */
+public class LogEntryPool {
+
+    private final LogBuffer free;
+
+    public LogEntryPool(int capacity) {
+        this.free = new LogBuffer(capacity);
+        for (int i = 0; i < free.getCapacity(); i++) {
+            free.offer(newPooledEntry());
+        }
+    }
+
+    /**
+     * 取出一个已重置的 LogEntry
+     */
+    public LogEntry acquire() {
+        LogEntry entry = free.poll();
+        return entry != null ? entry : newPooledEntry();
+    }
+
+    /**
+     * 归还 LogEntry（非池对象直接忽略，池已满时交给 GC）
+     */
+    public void release(LogEntry entry) {
+        if (entry == null || !entry.pooled) {
+            return;
+        }
+        entry.reset();
+        free.offer(entry);
+    }
+
+    private static LogEntry newPooledEntry() {
+        LogEntry entry = new LogEntry();
+        entry.pooled = true;
+        return entry;
+    }
+}
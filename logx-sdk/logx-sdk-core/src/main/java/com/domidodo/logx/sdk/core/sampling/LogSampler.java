@@ -0,0 +1,251 @@
+package com.domidodo.logx.sdk.core.sampling;
+
+import com.domidodo.logx.sdk.core.LogXClient.Level;
+import com.domidodo.logx.sdk.core.context.TraceContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端采样器
+ * <p>
+ * 在创建 LogEntry 之前决定是否保留一条日志：
+ * 1. 低于最低级别的日志直接过滤
+ * 2. ERROR 日志以及被标记的追踪（{@link TraceContext.TraceInfo#isFlagged()}）始终保留
+ * 3. 其余日志按第一条命中的规则进行固定比例采样和令牌桶限速
+ * <p>
+ * 命中规则并被保留的日志会在扩展字段中附带 sampleRate（采样比例）和
+ * sampledOut（自上一条保留日志以来该规则丢弃的条数），服务端据此还原真实数量
+ */
+public class LogSampler {
+
+    /**
+     * 扩展字段：采样比例
+     */
+    public static final String SAMPLE_RATE_KEY = "sampleRate";
+
+    /**
+     * 扩展字段：被采样丢弃的条数
+     */
+    public static final String SAMPLED_OUT_KEY = "sampledOut";
+
+    private static final Level[] LEVELS = Level.values();
+
+    /**
+     * 未命中任何规则时的保留结果
+     */
+    private static final Policy KEEP = new Policy(new SamplingRule());
+
+    private final Level minLevel;
+
+    /**
+     * 按级别预先筛选的规则（下标为 Level.ordinal()）
+     */
+    private final Policy[][] policiesByLevel;
+
+    private final LongAdder filteredCount = new LongAdder();
+    private final LongAdder sampledOutCount = new LongAdder();
+
+    public LogSampler(String minLevel, List<SamplingRule> rules) {
+        Level parsed = parseLevel(minLevel);
+        this.minLevel = parsed != null ? parsed : Level.DEBUG;
+
+        List<Policy> policies = new ArrayList<>();
+        if (rules != null) {
+            for (SamplingRule rule : rules) {
+                if (rule != null) {
+                    policies.add(new Policy(rule));
+                }
+            }
+        }
+
+        this.policiesByLevel = new Policy[LEVELS.length][];
+        for (Level level : LEVELS) {
+            List<Policy> matched = new ArrayList<>();
+            if (level != Level.ERROR) {
+                for (Policy policy : policies) {
+                    if (policy.level == null || policy.level == level) {
+                        matched.add(policy);
+                    }
+                }
+            }
+            policiesByLevel[level.ordinal()] = matched.toArray(new Policy[0]);
+        }
+    }
+
+    /**
+     * 是否未被最低级别过滤（不做采样）
+     */
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= minLevel.ordinal();
+    }
+
+    /**
+     * 采样决策
+     *
+     * @param logger Logger 名称，可为 null（只匹配未指定 logger 的规则）
+     * @return 保留时返回命中的策略，丢弃时返回 null
+     */
+    public Policy decide(Level level, String logger) {
+        if (!isEnabled(level)) {
+            filteredCount.increment();
+            return null;
+        }
+
+        Policy policy = match(level, logger);
+        if (policy == null || isTraceFlagged()) {
+            return KEEP;
+        }
+        if (policy.tryKeep()) {
+            return policy;
+        }
+        sampledOutCount.increment();
+        return null;
+    }
+
+    /**
+     * 采样决策（级别为字符串，无法识别的级别不做采样）
+     */
+    public Policy decide(String level, String logger) {
+        Level parsed = parseLevel(level);
+        return parsed != null ? decide(parsed, logger) : KEEP;
+    }
+
+    /**
+     * 将采样信息写入上下文
+     *
+     * @param context 原上下文（可能属于调用方，不做修改）
+     * @return 无需附带采样信息时返回原上下文，否则返回新的上下文
+     */
+    public Map<String, Object> stamp(Policy policy, Map<String, Object> context) {
+        if (policy == null || !policy.sampling) {
+            return context;
+        }
+        Map<String, Object> stamped = context != null ? new HashMap<>(context) : new HashMap<>(4);
+        stamped.put(SAMPLE_RATE_KEY, policy.ratio);
+        stamped.put(SAMPLED_OUT_KEY, policy.dropped.getAndSet(0));
+        return stamped;
+    }
+
+    /**
+     * 低于最低级别被过滤的日志数量
+     */
+    public long getFilteredCount() {
+        return filteredCount.sum();
+    }
+
+    /**
+     * 被采样规则丢弃的日志数量
+     */
+    public long getSampledOutCount() {
+        return sampledOutCount.sum();
+    }
+
+    private Policy match(Level level, String logger) {
+        for (Policy policy : policiesByLevel[level.ordinal()]) {
+            if (policy.logger == null || (logger != null && logger.startsWith(policy.logger))) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTraceFlagged() {
+        TraceContext.TraceInfo trace = TraceContext.getTrace();
+        return trace != null && trace.isFlagged();
+    }
+
+    /**
+     * 解析日志级别，无法识别时返回 null
+     */
+    static Level parseLevel(String level) {
+        if (level == null) {
+            return null;
+        }
+        for (Level candidate : LEVELS) {
+            if (candidate.name().equalsIgnoreCase(level)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 一条规则的运行时状态
+     */
+    public static final class Policy {
+
+        private final Level level;
+        private final String logger;
+        private final double ratio;
+
+        /**
+         * 令牌桶：每个令牌的间隔与突发容量（纳秒），interval 为 0 表示不限速
+         */
+        private final long intervalNanos;
+        private final long burstNanos;
+
+        /**
+         * 下一个令牌的理论到达时间（GCRA）
+         */
+        private final AtomicLong nextTokenNanos = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * 自上一条保留日志以来丢弃的条数
+         */
+        private final AtomicLong dropped = new AtomicLong();
+
+        /**
+         * 是否会丢弃日志（否则无需附带采样信息）
+         */
+        private final boolean sampling;
+
+        Policy(SamplingRule rule) {
+            this.level = parseLevel(rule.getLevel());
+            this.logger = rule.getLogger() != null && !rule.getLogger().isBlank() ? rule.getLogger() : null;
+            this.ratio = Math.max(0.0, Math.min(1.0, rule.getRatio()));
+            if (rule.getRatePerSecond() > 0) {
+                this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rule.getRatePerSecond();
+                this.burstNanos = intervalNanos * rule.getRatePerSecond();
+            } else {
+                this.intervalNanos = 0L;
+                this.burstNanos = 0L;
+            }
+            this.sampling = ratio < 1.0 || intervalNanos > 0;
+        }
+
+        boolean tryKeep() {
+            if (!sampling) {
+                return true;
+            }
+            if ((ratio < 1.0 && ThreadLocalRandom.current().nextDouble() >= ratio) || !tryAcquireToken()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        private boolean tryAcquireToken() {
+            if (intervalNanos == 0L) {
+                return true;
+            }
+            long now = System.nanoTime();
+            while (true) {
+                long next = nextTokenNanos.get();
+                long base = next == Long.MIN_VALUE || next - now < 0 ? now : next;
+                if (base + intervalNanos - now > burstNanos) {
+                    return false;
+                }
+                if (nextTokenNanos.compareAndSet(next, base + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
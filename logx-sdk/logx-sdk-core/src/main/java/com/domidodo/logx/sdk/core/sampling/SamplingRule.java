@@ -0,0 +1,42 @@
+package com.domidodo.logx.sdk.core.sampling;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 采样规则
+ * <p>
+ * 按声明顺序匹配，命中的第一条规则生效；level 与 logger 均为空时匹配所有日志
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SamplingRule {
+
+    /**
+     * 匹配的日志级别（DEBUG / INFO / WARN），为空表示所有级别
+     * ERROR 日志始终保留，不参与采样
+     */
+    private String level;
+
+    /**
+     * 匹配的 Logger 名称前缀（通常为包名或类名），为空表示所有 Logger
+     * 仅对通过 LogXLogger 或显式设置 logger 的日志生效
+     */
+    private String logger;
+
+    /**
+     * 固定采样比例（0 ~ 1），1 表示全部保留
+     */
+    @Builder.Default
+    private double ratio = 1.0;
+
+    /**
+     * 每秒最多保留的条数（令牌桶，突发容量等于该值），0 表示不限速
+     */
+    @Builder.Default
+    private int ratePerSecond = 0;
+}
@@ -0,0 +1,139 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器
+ * <p>
+ * 1. CLOSED：正常发送，连续 failureThreshold 次网关不可用类的失败后打开
+ * 2. OPEN：拒绝发送，批次直接走回退路径（磁盘溢写，或留在缓冲区）；
+ * 持续 openDuration，连续打开时时长翻倍，最长 5 分钟
+ * 3. HALF_OPEN：打开时长结束后只放行一个探测批次，成功则关闭，失败则重新打开；
+ * 探测批次超过 openDuration 仍无结果时再放行一个
+ * <p>
+ * 每个批次只调用一次 tryAcquire 和一次结果记录，使用对象锁即可
+ */
+@Slf4j
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final long MAX_OPEN_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final String name;
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final DeliveryCounters counters;
+
+    // 以下字段由对象锁保护
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int consecutiveOpens;
+    private long openUntil;
+    private boolean probing;
+    private long probeStartedAt;
+
+    /**
+     * @param name    传输名称，用于日志
+     * @param enabled 未启用时始终放行
+     */
+    CircuitBreaker(String name, boolean enabled, int failureThreshold, long openNanos, DeliveryCounters counters) {
+        this.name = name;
+        this.enabled = enabled;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = Math.max(1L, openNanos);
+        this.counters = counters;
+    }
+
+    /**
+     * 申请发送一个批次
+     *
+     * @return false 表示熔断中，调用方应走回退路径
+     */
+    synchronized boolean tryAcquire() {
+        if (!enabled || state == State.CLOSED) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (state == State.OPEN) {
+            if (now - openUntil < 0) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            log.info("{} 熔断器半开，放行探测批次", name);
+        } else if (probing && now - probeStartedAt < openNanos) {
+            return false;
+        }
+        probing = true;
+        probeStartedAt = now;
+        return true;
+    }
+
+    /**
+     * 当前是否会放行批次（不占用半开状态的探测名额）
+     */
+    synchronized boolean isAvailable() {
+        if (!enabled) {
+            return true;
+        }
+        long now = System.nanoTime();
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> now - openUntil >= 0;
+            case HALF_OPEN -> !probing || now - probeStartedAt >= openNanos;
+        };
+    }
+
+    /**
+     * 记录网关正常响应（包括被网关拒绝的请求，说明网关可达）
+     */
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            consecutiveOpens = 0;
+            probing = false;
+            log.info("{} 熔断器已关闭，恢复发送", name);
+        }
+    }
+
+    /**
+     * 记录网关不可用类的失败
+     */
+    synchronized void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        switch (state) {
+            case HALF_OPEN -> open("探测批次失败");
+            case CLOSED -> {
+                if (++consecutiveFailures >= failureThreshold) {
+                    open("连续失败 " + consecutiveFailures + " 次");
+                }
+            }
+            default -> {
+                // 打开前发出的请求陆续失败，不延长打开时间
+            }
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void open(String reason) {
+        consecutiveOpens++;
+        long duration = Math.min(openNanos << Math.min(consecutiveOpens - 1, 16), MAX_OPEN_NANOS);
+        state = State.OPEN;
+        openUntil = System.nanoTime() + duration;
+        probing = false;
+        consecutiveFailures = 0;
+        counters.recordCircuitOpen();
+        log.warn("{} 熔断器打开 {} 毫秒: {}", name, TimeUnit.NANOSECONDS.toMillis(duration), reason);
+    }
+}
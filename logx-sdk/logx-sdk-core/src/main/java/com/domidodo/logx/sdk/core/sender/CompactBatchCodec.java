@@ -0,0 +1,101 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.common.grpc.LogBatchRequest;
+import com.domidodo.logx.common.grpc.LogEntry;
+import com.google.protobuf.ProtocolStringList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑批次（LogBatchRequest.version = 2）的字符串表
+ * <p>
+ * 同一批次中 level、logger、thread、class_name 等低基数字段大量重复，
+ * 紧凑批次将其写入批次级字符串表，日志中只保留下标（varint，通常 1 字节）
+ */
+class CompactBatchCodec {
+
+    static final int VERSION = 2;
+
+    private final Map<String, Integer> index = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    CompactBatchCodec() {
+        strings.add("");
+    }
+
+    /**
+     * 返回字符串在表中的下标，null 或空字符串返回 0
+     */
+    int ref(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        Integer existing = index.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int ref = strings.size();
+        strings.add(value);
+        index.put(value, ref);
+        return ref;
+    }
+
+    /**
+     * 写入批次头（版本号与字符串表）
+     */
+    void writeTo(LogBatchRequest.Builder request) {
+        request.setVersion(VERSION).addAllStrings(strings);
+    }
+
+    /**
+     * 将紧凑批次还原为普通批次（网关不支持紧凑批次时回退使用）
+     */
+    static LogBatchRequest expand(LogBatchRequest request) {
+        if (request.getVersion() != VERSION) {
+            return request;
+        }
+        ProtocolStringList table = request.getStringsList();
+        LogBatchRequest.Builder expanded = request.toBuilder()
+                .clearVersion()
+                .clearStrings()
+                .clearLogs();
+        for (LogEntry entry : request.getLogsList()) {
+            LogEntry.Builder builder = entry.toBuilder()
+                    .setTenantId(request.getTenantId())
+                    .setSystemId(request.getSystemId())
+                    .setSystemName(request.getSystemName())
+                    .setTimestamp(entry.getTimestamp() > 0 ? entry.getTimestamp() : entry.getTimestampMicros() / 1_000L)
+                    .setLevel(resolve(table, entry.getLevelRef(), entry.getLevel()))
+                    .setLogger(resolve(table, entry.getLoggerRef(), entry.getLogger()))
+                    .setThread(resolve(table, entry.getThreadRef(), entry.getThread()))
+                    .setClassName(resolve(table, entry.getClassNameRef(), entry.getClassName()))
+                    .setMethodName(resolve(table, entry.getMethodNameRef(), entry.getMethodName()))
+                    .setModule(resolve(table, entry.getModuleRef(), entry.getModule()))
+                    .setOperation(resolve(table, entry.getOperationRef(), entry.getOperation()))
+                    .setRequestMethod(resolve(table, entry.getRequestMethodRef(), entry.getRequestMethod()))
+                    .setUserAgent(resolve(table, entry.getUserAgentRef(), entry.getUserAgent()))
+                    .clearLevelRef()
+                    .clearLoggerRef()
+                    .clearThreadRef()
+                    .clearClassNameRef()
+                    .clearMethodNameRef()
+                    .clearModuleRef()
+                    .clearOperationRef()
+                    .clearRequestMethodRef()
+                    .clearUserAgentRef()
+                    .clearTagRefs();
+            for (int ref : entry.getTagRefsList()) {
+                builder.addTags(resolve(table, ref, ""));
+            }
+            expanded.addLogs(builder);
+        }
+        return expanded.build();
+    }
+
+    private static String resolve(ProtocolStringList table, int ref, String plain) {
+        return ref > 0 && ref < table.size() ? table.get(ref) : plain;
+    }
+}
@@ -0,0 +1,203 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.sdk.core.metrics.Histogram;
+import com.domidodo.logx.sdk.core.spill.SpillStore;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发送结果计数器
+ * <p>
+ * 由发送器在异步完成回调中更新，可在任意线程读取
+ */
+public class DeliveryCounters {
+
+    /**
+     * 传输方式（http / grpc）
+     */
+    private final String transport;
+
+    private final LongAdder sentBatches = new LongAdder();
+    private final LongAdder sentEntries = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder failedEntries = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder spilledBatches = new LongAdder();
+    private final LongAdder spilledEntries = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder circuitOpens = new LongAdder();
+    private final LongAdder shortCircuitedBatches = new LongAdder();
+
+    /**
+     * 单次请求的发送延迟（毫秒，含失败的请求；stream 模式为写入流到收到确认）
+     */
+    private final Histogram sendLatency = new Histogram(Histogram.LATENCY_MILLIS_BOUNDS);
+
+    /**
+     * 交给发送器的批次条数
+     */
+    private final Histogram batchSizes = new Histogram(Histogram.BATCH_SIZE_BOUNDS);
+
+    /**
+     * 磁盘溢写存储（未启用时为 null）
+     */
+    private volatile SpillStore spillStore;
+
+    public DeliveryCounters(String transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * 记录一个发送成功的批次
+     */
+    public void recordSuccess(int entries) {
+        sentBatches.increment();
+        sentEntries.add(entries);
+    }
+
+    /**
+     * 记录一个最终放弃的批次
+     */
+    public void recordFailure(int entries) {
+        failedBatches.increment();
+        failedEntries.add(entries);
+    }
+
+    /**
+     * 记录一次重试（含断线重连后的重发）
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * 记录多个批次的重发
+     */
+    public void recordRetries(int batches) {
+        retries.add(batches);
+    }
+
+    /**
+     * 记录一个写入磁盘溢写存储的批次
+     */
+    public void recordSpill(int entries) {
+        spilledBatches.increment();
+        spilledEntries.add(entries);
+    }
+
+    /**
+     * 记录成功发送的字节数（压缩后的请求体或 protobuf 消息大小）
+     */
+    public void recordBytes(long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    /**
+     * 记录一次熔断器打开
+     */
+    public void recordCircuitOpen() {
+        circuitOpens.increment();
+    }
+
+    /**
+     * 记录一个因熔断未发送、直接走回退路径的批次
+     */
+    public void recordShortCircuit() {
+        shortCircuitedBatches.increment();
+    }
+
+    /**
+     * 记录一次请求的发送延迟
+     */
+    public void recordLatency(long nanos) {
+        sendLatency.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * 记录交给发送器的批次条数
+     */
+    public void recordBatchSize(int entries) {
+        batchSizes.record(entries);
+    }
+
+    /**
+     * 关联磁盘溢写存储，用于读取溢写统计（多个传输共用计数时只关联第一个）
+     */
+    public void bindSpillStore(SpillStore spillStore) {
+        if (this.spillStore == null) {
+            this.spillStore = spillStore;
+        }
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    public long getSentBatches() {
+        return sentBatches.sum();
+    }
+
+    public long getSentEntries() {
+        return sentEntries.sum();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    public long getFailedEntries() {
+        return failedEntries.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getSpilledBatches() {
+        return spilledBatches.sum();
+    }
+
+    public long getSpilledEntries() {
+        return spilledEntries.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getCircuitOpens() {
+        return circuitOpens.sum();
+    }
+
+    public long getShortCircuitedBatches() {
+        return shortCircuitedBatches.sum();
+    }
+
+    public Histogram.Snapshot getSendLatency() {
+        return sendLatency.snapshot();
+    }
+
+    public Histogram.Snapshot getBatchSizes() {
+        return batchSizes.snapshot();
+    }
+
+    public SpillStore getSpillStore() {
+        return spillStore;
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryCounters{transport=" + transport
+                + ", sentBatches=" + getSentBatches()
+                + ", sentEntries=" + getSentEntries()
+                + ", failedBatches=" + getFailedBatches()
+                + ", failedEntries=" + getFailedEntries()
+                + ", retries=" + getRetries()
+                + ", spilledBatches=" + getSpilledBatches()
+                + ", spilledEntries=" + getSpilledEntries()
+                + ", bytesSent=" + getBytesSent()
+                + ", circuitOpens=" + getCircuitOpens()
+                + ", shortCircuitedBatches=" + getShortCircuitedBatches() + "}";
+    }
+}
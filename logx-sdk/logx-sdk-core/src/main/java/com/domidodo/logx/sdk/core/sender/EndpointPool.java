@@ -0,0 +1,254 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关节点池（客户端负载均衡与异常节点摘除）
+ * <p>
+ * 1. 按平滑加权轮询选择节点，权重与成功率成正比、与延迟（EWMA）成反比
+ * 2. 连续失败 5 次、错误率超过 50% 或延迟超过其他节点中位数 3 倍（且超过 100 毫秒）的节点被摘除，
+ * 摘除时长为 10 秒 × 摘除次数，最长 5 分钟；节点健康运行超过上次摘除时长后次数清零
+ * 3. 因延迟摘除的节点不超过总数的一半；所有节点都被摘除时仍选择最早恢复的节点，请求成功即提前恢复
+ * <p>
+ * 每个批次只调用一次 select / record，使用对象锁即可
+ *
+ * @param <T> 节点地址类型
+ */
+@Slf4j
+class EndpointPool<T> {
+
+    private static final int CONSECUTIVE_FAILURES = 5;
+    private static final int MIN_SAMPLES = 10;
+    private static final double FAILURE_RATE_THRESHOLD = 0.5;
+    private static final double LATENCY_OUTLIER_FACTOR = 3.0;
+    private static final double LATENCY_OUTLIER_MIN_MICROS = 100_000.0;
+    private static final long BASE_EJECTION_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long MAX_EJECTION_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    /**
+     * EWMA 平滑系数（越大越偏向最近的结果）
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * 延迟未知时的默认值（微秒）
+     */
+    private static final double DEFAULT_LATENCY_MICROS = 1_000.0;
+
+    private final List<Endpoint<T>> endpoints;
+
+    EndpointPool(List<T> addresses) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("网关节点列表不能为空");
+        }
+        List<Endpoint<T>> list = new ArrayList<>(addresses.size());
+        for (T address : addresses) {
+            list.add(new Endpoint<>(address));
+        }
+        this.endpoints = List.copyOf(list);
+    }
+
+    /**
+     * 选择一个节点
+     */
+    synchronized Endpoint<T> select() {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+        long now = System.nanoTime();
+        double defaultLatency = averageLatency();
+        Endpoint<T> best = null;
+        long total = 0;
+        for (Endpoint<T> endpoint : endpoints) {
+            if (!endpoint.isAvailable(now)) {
+                continue;
+            }
+            long weight = endpoint.weight(defaultLatency);
+            endpoint.currentWeight += weight;
+            total += weight;
+            if (best == null || endpoint.currentWeight > best.currentWeight) {
+                best = endpoint;
+            }
+        }
+        if (best == null) {
+            // 全部被摘除：选择最早恢复的节点
+            for (Endpoint<T> endpoint : endpoints) {
+                if (best == null || endpoint.ejectedUntil < best.ejectedUntil) {
+                    best = endpoint;
+                }
+            }
+            return best;
+        }
+        best.currentWeight -= total;
+        return best;
+    }
+
+    /**
+     * 记录一次请求结果
+     *
+     * @param success      节点是否正常响应
+     * @param latencyNanos 请求耗时
+     */
+    synchronized void record(Endpoint<T> endpoint, boolean success, long latencyNanos) {
+        long now = System.nanoTime();
+        endpoint.samples++;
+        if (success) {
+            double micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+            endpoint.consecutiveFailures = 0;
+            endpoint.failureRate *= 1 - ALPHA;
+            endpoint.latencyMicros = endpoint.latencyMicros < 0
+                    ? micros
+                    : endpoint.latencyMicros + ALPHA * (micros - endpoint.latencyMicros);
+        } else {
+            endpoint.consecutiveFailures++;
+            endpoint.failureRate = endpoint.failureRate * (1 - ALPHA) + ALPHA;
+        }
+
+        if (!endpoint.isAvailable(now)) {
+            if (success) {
+                endpoint.ejectedUntil = now;
+                log.info("网关节点 {} 已恢复", endpoint.address);
+            }
+            return;
+        }
+        if (success && endpoint.ejections > 0 && now - endpoint.ejectedUntil > ejectionNanos(endpoint.ejections)) {
+            endpoint.ejections = 0;
+        }
+
+        if (endpoint.consecutiveFailures >= CONSECUTIVE_FAILURES) {
+            eject(endpoint, now, "连续失败 " + endpoint.consecutiveFailures + " 次");
+        } else if (endpoint.samples >= MIN_SAMPLES && endpoint.failureRate > FAILURE_RATE_THRESHOLD) {
+            eject(endpoint, now, String.format("错误率 %.0f%%", endpoint.failureRate * 100));
+        } else if (success && isLatencyOutlier(endpoint, now)) {
+            eject(endpoint, now, String.format("平均延迟 %.1f 毫秒，明显高于其他节点", endpoint.latencyMicros / 1000));
+        }
+    }
+
+    /**
+     * 是否有未被摘除的节点
+     */
+    synchronized boolean hasAvailable() {
+        long now = System.nanoTime();
+        for (Endpoint<T> endpoint : endpoints) {
+            if (endpoint.isAvailable(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return endpoints.size();
+    }
+
+    private void eject(Endpoint<T> endpoint, long now, String reason) {
+        endpoint.ejections++;
+        long duration = ejectionNanos(endpoint.ejections);
+        endpoint.ejectedUntil = now + duration;
+        endpoint.samples = 0;
+        endpoint.consecutiveFailures = 0;
+        endpoint.failureRate = 0.0;
+        endpoint.latencyMicros = -1;
+        endpoint.currentWeight = 0;
+        log.warn("网关节点 {} 被摘除 {} 秒: {}", endpoint.address, TimeUnit.NANOSECONDS.toSeconds(duration), reason);
+    }
+
+    private static long ejectionNanos(int ejections) {
+        return Math.min(BASE_EJECTION_NANOS * ejections, MAX_EJECTION_NANOS);
+    }
+
+    /**
+     * 延迟离群：高于其他可用节点延迟中位数的 3 倍，且被摘除的节点不超过一半
+     */
+    private boolean isLatencyOutlier(Endpoint<T> endpoint, long now) {
+        if (endpoints.size() < 2 || endpoint.samples < MIN_SAMPLES
+                || endpoint.latencyMicros < LATENCY_OUTLIER_MIN_MICROS) {
+            return false;
+        }
+        List<Double> others = new ArrayList<>(endpoints.size());
+        int ejected = 0;
+        for (Endpoint<T> other : endpoints) {
+            if (!other.isAvailable(now)) {
+                ejected++;
+            } else if (other != endpoint && other.latencyMicros >= 0) {
+                others.add(other.latencyMicros);
+            }
+        }
+        if (others.isEmpty() || (ejected + 1) * 2 > endpoints.size()) {
+            return false;
+        }
+        others.sort(null);
+        double median = others.get(others.size() / 2);
+        return endpoint.latencyMicros > median * LATENCY_OUTLIER_FACTOR;
+    }
+
+    private double averageLatency() {
+        double sum = 0;
+        int known = 0;
+        for (Endpoint<T> endpoint : endpoints) {
+            if (endpoint.latencyMicros >= 0) {
+                sum += endpoint.latencyMicros;
+                known++;
+            }
+        }
+        return known == 0 ? DEFAULT_LATENCY_MICROS : sum / known;
+    }
+
+    /**
+     * 节点及其健康状态（由 EndpointPool 的锁保护）
+     */
+    static final class Endpoint<T> {
+
+        private final T address;
+
+        /**
+         * 延迟 EWMA（微秒），-1 表示尚无样本
+         */
+        private double latencyMicros = -1;
+
+        /**
+         * 失败率 EWMA
+         */
+        private double failureRate;
+
+        private int samples;
+        private int consecutiveFailures;
+        private int ejections;
+        private long ejectedUntil = System.nanoTime();
+
+        /**
+         * 平滑加权轮询的当前权重
+         */
+        private long currentWeight;
+
+        private Endpoint(T address) {
+            this.address = address;
+        }
+
+        T address() {
+            return address;
+        }
+
+        private boolean isAvailable(long now) {
+            return now - ejectedUntil >= 0;
+        }
+
+        /**
+         * 权重：成功率 / 延迟（毫秒），延迟不足 1 毫秒按 1 毫秒计
+         */
+        private long weight(double defaultLatency) {
+            double latency = latencyMicros < 0 ? defaultLatency : latencyMicros;
+            double weight = (1 - failureRate) * 1_000_000.0 / Math.max(latency, 1_000.0);
+            return Math.max(1L, Math.round(weight));
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(address);
+        }
+    }
+}
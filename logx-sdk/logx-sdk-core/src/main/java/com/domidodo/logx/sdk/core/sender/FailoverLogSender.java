@@ -0,0 +1,109 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 传输故障转移（gRPC ↔ HTTP）
+ * <p>
+ * 主传输（mode 指定）不可用时，新批次改由备用传输发送，主传输恢复后自动切回；
+ * 已交给主传输的批次仍按主传输的重试 / 溢写流程处理，不会转交备用传输
+ */
+@Slf4j
+public class FailoverLogSender implements LogSender {
+
+    private final LogSender primary;
+    private final LogSender secondary;
+
+    private volatile boolean failedOver;
+
+    public FailoverLogSender(LogSender primary, LogSender secondary) {
+        this.primary = primary;
+        this.secondary = secondary;
+    }
+
+    @Override
+    public void send(LogEntry entry) {
+        current().send(entry);
+    }
+
+    @Override
+    public void sendBatch(List<LogEntry> entries) {
+        current().sendBatch(entries);
+    }
+
+    /**
+     * 主传输可用或备用传输也不可用时使用主传输
+     */
+    private LogSender current() {
+        boolean useSecondary = !primary.isAvailable() && secondary.isAvailable();
+        if (useSecondary != failedOver) {
+            failedOver = useSecondary;
+            if (useSecondary) {
+                log.warn("主传输不可用，新批次改用备用传输发送");
+            } else {
+                log.info("主传输已恢复，切回主传输发送");
+            }
+        }
+        return useSecondary ? secondary : primary;
+    }
+
+    /**
+     * 当前是否在使用备用传输
+     */
+    public boolean isFailedOver() {
+        return failedOver;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return primary.isAvailable() || secondary.isAvailable();
+    }
+
+    /**
+     * 两个传输都不可用时仍由主传输处理，是否有回退路径取决于主传输
+     */
+    @Override
+    public boolean hasFallback() {
+        return primary.hasFallback();
+    }
+
+    /**
+     * 主传输的发送结果计数
+     */
+    @Override
+    public DeliveryCounters getDeliveryCounters() {
+        return primary.getDeliveryCounters();
+    }
+
+    /**
+     * 主传输和备用传输各自的发送结果计数（主传输在前）
+     */
+    @Override
+    public List<DeliveryCounters> getTransportCounters() {
+        List<DeliveryCounters> counters = new ArrayList<>(primary.getTransportCounters());
+        counters.addAll(secondary.getTransportCounters());
+        return counters;
+    }
+
+    @Override
+    public void expediteRetries() {
+        primary.expediteRetries();
+        secondary.expediteRetries();
+    }
+
+    /**
+     * 先关闭主传输再关闭备用传输，两者的在途批次都会排空
+     */
+    @Override
+    public void shutdown() {
+        try {
+            primary.shutdown();
+        } finally {
+            secondary.shutdown();
+        }
+    }
+}
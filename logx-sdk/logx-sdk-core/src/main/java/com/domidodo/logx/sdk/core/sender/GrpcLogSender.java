@@ -4,18 +4,39 @@ import com.domidodo.logx.common.grpc.*;
 import com.domidodo.logx.sdk.core.HeaderClientInterceptor;
 import com.domidodo.logx.sdk.core.config.LogXConfig;
 import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.spill.SpillManager;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
 import io.grpc.*;
-import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * gRPC 日志发送器
  * 支持 google.protobuf.Struct 类型的 extra 字段
+ * <p>
+ * stream 模式复用一条持久双向流（见 GrpcLogStream）；batch 模式通过 future stub 异步调用批量接口：
+ * 1. 同时在途的批次数不超过 maxInFlightBatches，单个慢响应不会阻塞后续批次
+ * 2. 可重试的失败（UNAVAILABLE、DEADLINE_EXCEEDED 等）按带抖动的指数退避在定时器上重试，不占用刷新线程；
+ * 重试受重试预算和熔断器限制（见 RetryPolicy），熔断中的新批次不发送，直接溢写（未启用溢写时留在缓冲区）
+ * 3. 发送结果记录在 DeliveryCounters 中
+ * 4. 启用磁盘溢写时，因网关不可用而放弃的批次以 LogBatchRequest 字节写入磁盘，恢复后重放
+ * 5. 默认发送紧凑批次（批次级字符串表），网关返回 UNIMPLEMENTED 时还原为普通批次并不再使用
+ * 6. 配置多个节点时通过静态地址解析器连接所有节点，round_robin 负载均衡，
+ * 并由 gRPC 的 outlier_detection 策略摘除失败率过高的节点
+ * 7. 关闭时待执行的重试立即执行，仍失败的批次直接溢写，不等待退避
  */
 @Slf4j
 public class GrpcLogSender implements LogSender {
@@ -23,7 +44,52 @@ public class GrpcLogSender implements LogSender {
     private final LogXConfig config;
     private final ManagedChannel channel;
     private final LogServiceGrpc.LogServiceBlockingStub blockingStub;
+    private final LogServiceGrpc.LogServiceFutureStub futureStub;
     private final LogServiceGrpc.LogServiceStub asyncStub;
+    private final GrpcLogStream logStream;
+    private final ScheduledExecutorService scheduler;
+    private final PendingRetries retries;
+    private final DeliveryCounters counters;
+
+    /**
+     * 重试预算与熔断器（batch 与 stream 模式共用）
+     */
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * 磁盘溢写（未启用时为 null）
+     */
+    private final SpillManager spill;
+
+    /**
+     * 是否发送紧凑批次（网关不支持时关闭）
+     */
+    private volatile boolean compact;
+
+    /**
+     * batch 模式的在途批次窗口
+     */
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    /**
+     * 多节点时的负载均衡配置：outlier_detection 包装 round_robin，
+     * 每 10 秒统计一次，请求数不少于 10 且失败率达到 50% 的节点被摘除（最多一半节点）；
+     * 数值按 JSON 解析结果的约定使用 Double
+     */
+    private static final Map<String, ?> LOAD_BALANCING_CONFIG = Map.of(
+            "loadBalancingConfig", List.of(Map.of(
+                    "outlier_detection_experimental", Map.of(
+                            "interval", "10s",
+                            "baseEjectionTime", "10s",
+                            "maxEjectionTime", "300s",
+                            "maxEjectionPercent", 50.0,
+                            "failurePercentageEjection", Map.of(
+                                    "threshold", 50.0,
+                                    "enforcementPercentage", 100.0,
+                                    "minimumHosts", 2.0,
+                                    "requestVolume", 10.0),
+                            "childPolicy", List.of(Map.of("round_robin", Map.of()))))));
 
     /**
      * Metadata Keys
@@ -36,11 +102,27 @@ public class GrpcLogSender implements LogSender {
             Metadata.Key.of("X-System-Id", Metadata.ASCII_STRING_MARSHALLER);
 
     public GrpcLogSender(LogXConfig config) {
-        this.config = config;
+        this(config, new DeliveryCounters("grpc"));
+    }
 
-        // 创建 gRPC Channel
-        this.channel = ManagedChannelBuilder
-                .forAddress(config.getGrpcHost(), config.getGrpcPort())
+    /**
+     * @param counters 发送结果计数
+     */
+    public GrpcLogSender(LogXConfig config, DeliveryCounters counters) {
+        this.config = config;
+        this.counters = counters;
+
+        // 创建 gRPC Channel（多节点时使用静态地址解析器 + 负载均衡）
+        List<String> endpoints = config.resolveGrpcEndpoints();
+        ManagedChannelBuilder<?> channelBuilder;
+        if (endpoints.size() > 1) {
+            StaticNameResolverProvider.register();
+            channelBuilder = ManagedChannelBuilder.forTarget(StaticNameResolverProvider.target(endpoints))
+                    .defaultServiceConfig(LOAD_BALANCING_CONFIG);
+        } else {
+            channelBuilder = ManagedChannelBuilder.forTarget(endpoints.get(0));
+        }
+        this.channel = channelBuilder
                 .usePlaintext()
                 .maxInboundMessageSize(config.getGrpcMaxInboundMessageSize())
                 .build();
@@ -51,7 +133,28 @@ public class GrpcLogSender implements LogSender {
         Channel interceptedChannel = ClientInterceptors.intercept(channel, interceptor);
 
         this.blockingStub = LogServiceGrpc.newBlockingStub(interceptedChannel);
+        this.futureStub = LogServiceGrpc.newFutureStub(interceptedChannel);
         this.asyncStub = LogServiceGrpc.newStub(interceptedChannel);
+
+        // 重试与重连共用定时器；两个线程避免回退发送等待窗口时阻塞重试
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "logx-grpc-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retries = new PendingRetries(scheduler);
+        this.retryPolicy = new RetryPolicy(config, "gRPC", counters);
+
+        this.compact = config.isGrpcCompactBatch();
+        this.maxInFlight = Math.max(1, config.getMaxInFlightBatches());
+        this.inFlight = new Semaphore(maxInFlight);
+        this.logStream = new GrpcLogStream(asyncStub, compact, this::downgrade, this::sendFallback,
+                counters, retryPolicy, scheduler, maxInFlight, config.getReadTimeout());
+        this.spill = SpillManager.create(config, "grpc", this::resend);
+        if (spill != null) {
+            counters.bindSpillStore(spill.getStore());
+        }
     }
 
     /**
@@ -59,25 +162,7 @@ public class GrpcLogSender implements LogSender {
      */
     @Override
     public void send(LogEntry entry) {
-        try {
-            LogBatchRequest request = LogBatchRequest.newBuilder()
-                    .setTenantId(config.getTenantId())
-                    .setSystemId(config.getSystemId())
-                    .setSystemName(config.getSystemName())
-                    .setApiKey(config.getApiKey())
-                    .addLogs(buildLogEntry(entry))
-                    .build();
-
-            LogBatchResponse response = blockingStub.sendLogs(request);
-
-            if (!response.getSuccess()) {
-                log.error("gRPC 发送失败: {}", response.getMessage());
-            } else {
-                log.debug("gRPC 发送成功: {}", response.getMessage());
-            }
-        } catch (Exception e) {
-            log.error("gRPC 发送异常", e);
-        }
+        sendBatch(List.of(entry));
     }
 
     /**
@@ -88,7 +173,13 @@ public class GrpcLogSender implements LogSender {
         if (entries == null || entries.isEmpty()) {
             return;
         }
-        if ("stream".equals(config.getBatchMode())) {
+        counters.recordBatchSize(entries.size());
+        if (!retryPolicy.tryAcquire()) {
+            counters.recordShortCircuit();
+            spillOrDrop(buildBatchRequest(entries).build(), "gRPC 网关熔断中");
+            return;
+        }
+        if ("stream".equals(config.getBatchMode()) && logStream.isSupported()) {
             sendBatchStream(entries);
         } else {
             sendBatchHttp(entries);
@@ -96,93 +187,267 @@ public class GrpcLogSender implements LogSender {
     }
 
     public void sendBatchHttp(List<LogEntry> entries) {
-        try {
-            // 构建批量请求
-            LogBatchRequest.Builder requestBuilder = LogBatchRequest.newBuilder()
-                    .setTenantId(config.getTenantId())
-                    .setSystemId(config.getSystemId())
-                    .setSystemName(config.getSystemName())
-                    .setApiKey(config.getApiKey());
-
-            // 添加所有日志
-            for (LogEntry entry : entries) {
-                requestBuilder.addLogs(buildLogEntry(entry));
-            }
-
-            // 同步发送
-            LogBatchResponse response = blockingStub.sendLogs(requestBuilder.build());
+        dispatch(buildBatchRequest(entries).build());
+    }
 
-            if (response.getSuccess()) {
-                log.debug("gRPC 批量发送成功: 接收={}, 成功={}, 失败={}",
-                        response.getReceived(), response.getSuccessCount(), response.getFailedCount());
-            } else {
-                log.error("gRPC 批量发送失败: {}", response.getMessage());
+    /**
+     * 占用发送窗口后异步发送一个批次，窗口长时间占满时丢弃
+     */
+    private void dispatch(LogBatchRequest request) {
+        int count = request.getLogsCount();
+        try {
+            if (!inFlight.tryAcquire(config.getReadTimeout(), TimeUnit.MILLISECONDS)) {
+                spillOrDrop(request, "gRPC 发送窗口已满");
+                return;
             }
-        } catch (Exception e) {
-            log.error("gRPC 批量发送异常", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            counters.recordFailure(count);
+            log.warn("等待 gRPC 发送窗口被中断，丢弃 {} 条日志", count);
+            return;
         }
+        sendAsync(request, 1);
     }
 
     /**
-     * 流式发送日志（异步）
+     * 异步发送，完成（成功或放弃重试）后释放发送窗口
      */
-    public void sendBatchStream(List<LogEntry> entries) {
-        if (entries == null || entries.isEmpty()) {
+    private void sendAsync(LogBatchRequest request, int attempt) {
+        ListenableFuture<LogBatchResponse> future;
+        long start = System.nanoTime();
+        try {
+            LogServiceGrpc.LogServiceFutureStub stub =
+                    futureStub.withDeadlineAfter(config.getReadTimeout(), TimeUnit.MILLISECONDS);
+            future = isCompact(request) ? stub.sendCompactLogs(request) : stub.sendLogs(request);
+        } catch (Exception e) {
+            handleFailure(request, attempt, e);
             return;
         }
 
-        CountDownLatch latch = new CountDownLatch(1);
-
-        // 响应观察者
-        StreamObserver<LogBatchResponse> responseObserver = new StreamObserver<>() {
+        Futures.addCallback(future, new FutureCallback<>() {
             @Override
-            public void onNext(LogBatchResponse response) {
+            public void onSuccess(LogBatchResponse response) {
+                long latency = System.nanoTime() - start;
+                counters.recordLatency(latency);
+                retryPolicy.onSuccess();
+                inFlight.release();
                 if (response.getSuccess()) {
-                    log.debug("gRPC 流式发送成功: 接收={}, 成功={}, 失败={}",
+                    counters.recordSuccess(request.getLogsCount());
+                    counters.recordBytes(request.getSerializedSize());
+                    log.debug("gRPC 批量发送成功: 接收={}, 成功={}, 失败={}",
                             response.getReceived(), response.getSuccessCount(), response.getFailedCount());
                 } else {
-                    log.error("gRPC 流式发送失败: {}", response.getMessage());
+                    // 网关已处理该批次（校验失败或写入 Kafka 失败），不再重试
+                    counters.recordFailure(request.getLogsCount());
+                    log.error("gRPC 批量发送失败: {}", response.getMessage());
                 }
             }
 
             @Override
-            public void onError(Throwable t) {
-                log.error("gRPC 流式发送异常", t);
-                latch.countDown();
+            public void onFailure(Throwable t) {
+                long latency = System.nanoTime() - start;
+                counters.recordLatency(latency);
+                recordOutcome(Status.fromThrowable(t));
+                handleFailure(request, attempt, t);
             }
+        }, MoreExecutors.directExecutor());
+    }
 
-            @Override
-            public void onCompleted() {
-                latch.countDown();
+    /**
+     * 可重试的失败在定时器上按带抖动的指数退避重试，否则丢弃批次
+     */
+    private void handleFailure(LogBatchRequest request, int attempt, Throwable error) {
+        int count = request.getLogsCount();
+        Status status = Status.fromThrowable(error);
+        if (status.getCode() == Status.Code.UNIMPLEMENTED && isCompact(request)) {
+            // 旧版网关：还原为普通批次立即重发，不计入重试次数
+            sendAsync(downgrade(request), attempt);
+            return;
+        }
+        if (!isRetryable(status) || !retryPolicy.shouldRetry(attempt)
+                || retries.isExpedited() || scheduler.isShutdown()) {
+            inFlight.release();
+            if (isRetryable(status)) {
+                spillOrDrop(request, "gRPC 批量发送失败，已尝试 " + attempt + " 次: " + status);
+            } else {
+                counters.recordFailure(count);
+                log.error("gRPC 批量发送失败，已尝试 {} 次，丢弃 {} 条日志: {}", attempt, count, status);
             }
-        };
+            return;
+        }
 
-        // 请求观察者
-        StreamObserver<com.domidodo.logx.common.grpc.LogEntry> requestObserver =
-                asyncStub.streamLogs(responseObserver);
+        long delay = retryPolicy.backoffMillis(attempt);
+        counters.recordRetry();
+        log.warn("gRPC 批量发送失败，{} 毫秒后重试 ({}/{}): {}", delay, attempt, config.getMaxRetries(), status);
+        try {
+            retries.schedule(() -> retry(request, attempt), delay);
+        } catch (Exception e) {
+            inFlight.release();
+            counters.recordFailure(count);
+            log.error("调度重试失败，丢弃 {} 条日志", count, e);
+        }
+    }
+
+    /**
+     * 执行重试；等待期间熔断器已打开时不再发送
+     */
+    private void retry(LogBatchRequest request, int attempt) {
+        if (!retries.isExpedited() && !retryPolicy.isAvailable()) {
+            inFlight.release();
+            spillOrDrop(request, "gRPC 网关熔断中，放弃第 " + (attempt + 1) + " 次尝试");
+            return;
+        }
+        sendAsync(request, attempt + 1);
+    }
+
+    /**
+     * 记录一次失败调用：网关不可用类的失败计入熔断和重试预算，其余结果说明网关可达
+     */
+    private void recordOutcome(Status status) {
+        if (isRetryable(status)) {
+            retryPolicy.onFailure();
+        } else {
+            retryPolicy.onSuccess();
+        }
+    }
+
+    private static boolean isRetryable(Status status) {
+        switch (status.getCode()) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case RESOURCE_EXHAUSTED:
+            case ABORTED:
+                return true;
+            default:
+                return false;
+        }
+    }
 
+    /**
+     * 构建批量请求（在调用线程上完成转换，之后不再引用 LogEntry）
+     */
+    LogBatchRequest.Builder buildBatchRequest(List<LogEntry> entries) {
+        LogBatchRequest.Builder requestBuilder = LogBatchRequest.newBuilder()
+                .setTenantId(config.getTenantId())
+                .setSystemId(config.getSystemId())
+                .setSystemName(config.getSystemName())
+                .setApiKey(config.getApiKey());
+
+        // 添加所有日志
+        CompactBatchCodec codec = compact ? new CompactBatchCodec() : null;
+        for (LogEntry entry : entries) {
+            requestBuilder.addLogs(buildLogEntry(entry, codec));
+        }
+        if (codec != null) {
+            codec.writeTo(requestBuilder);
+        }
+        return requestBuilder;
+    }
+
+    private static boolean isCompact(LogBatchRequest request) {
+        return request.getVersion() == CompactBatchCodec.VERSION;
+    }
+
+    /**
+     * 网关不支持紧凑批次：之后只发送普通批次，并还原已编码的批次
+     */
+    private LogBatchRequest downgrade(LogBatchRequest request) {
+        if (compact) {
+            compact = false;
+            log.warn("网关不支持紧凑批次，改用普通批次发送");
+        }
+        return CompactBatchCodec.expand(request);
+    }
+
+    /**
+     * 流式发送日志（持久双向流，网关确认前批次保留在发送窗口中）
+     */
+    public void sendBatchStream(List<LogEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        LogBatchRequest.Builder request = buildBatchRequest(entries);
         try {
-            // 发送所有日志
-            for (LogEntry entry : entries) {
-                com.domidodo.logx.common.grpc.LogEntry grpcLogEntry = buildLogEntry(entry);
-                requestObserver.onNext(grpcLogEntry);
+            if (!logStream.send(request)) {
+                spillOrDrop(request.build(), "gRPC 流式发送窗口已满（未确认批次 " + logStream.pendingBatches() + " 个）");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            counters.recordFailure(entries.size());
+            log.warn("等待 gRPC 发送窗口被中断，丢弃 {} 条日志", entries.size());
+        }
+    }
 
-            // 完成发送
-            requestObserver.onCompleted();
+    /**
+     * 网关不可用时写入磁盘溢写，未启用溢写或写入失败时丢弃
+     */
+    private void spillOrDrop(LogBatchRequest request, String reason) {
+        int count = request.getLogsCount();
+        if (spill != null && spill.spill(request.toBuilder().clearSequence().build().toByteArray())) {
+            counters.recordSpill(count);
+            log.warn("{}，{} 条日志已写入磁盘溢写", reason, count);
+        } else {
+            counters.recordFailure(count);
+            log.error("{}，丢弃 {} 条日志", reason, count);
+        }
+    }
 
-            // 等待响应
-            latch.await(30, TimeUnit.SECONDS);
-        } catch (Exception e) {
-            log.error("gRPC 流式发送异常", e);
-            requestObserver.onError(e);
+    /**
+     * 同步重放一条溢写记录（由溢写重放线程调用）
+     *
+     * @return true 表示已处理（成功或被网关拒绝），false 表示网关仍不可用
+     */
+    private boolean resend(byte[] record) {
+        LogBatchRequest request;
+        try {
+            request = LogBatchRequest.parseFrom(record);
+        } catch (InvalidProtocolBufferException e) {
+            log.error("溢写记录无法解析，已丢弃", e);
+            return true;
+        }
+
+        try {
+            LogServiceGrpc.LogServiceBlockingStub stub =
+                    blockingStub.withDeadlineAfter(config.getReadTimeout(), TimeUnit.MILLISECONDS);
+            LogBatchResponse response;
+            if (isCompact(request) && compact) {
+                response = stub.sendCompactLogs(request);
+            } else {
+                response = stub.sendLogs(CompactBatchCodec.expand(request));
+            }
+            retryPolicy.onSuccess();
+            if (!response.getSuccess()) {
+                log.error("重放溢写批次失败: {}", response.getMessage());
+            }
+            return true;
+        } catch (StatusRuntimeException e) {
+            recordOutcome(e.getStatus());
+            if (e.getStatus().getCode() == Status.Code.UNIMPLEMENTED && isCompact(request) && compact) {
+                downgrade(request);
+                return false;
+            }
+            if (isRetryable(e.getStatus())) {
+                return false;
+            }
+            log.error("重放溢写批次被网关拒绝，已丢弃: {}", e.getStatus());
+            return true;
         }
     }
 
+    /**
+     * 网关不支持持久流时，未确认批次改用批量接口发送
+     */
+    private void sendFallback(LogBatchRequest request) {
+        dispatch(request.toBuilder().clearSequence().build());
+    }
+
     /**
      * 构建 gRPC LogEntry（支持所有字段和 Struct）
+     *
+     * @param codec 紧凑批次的字符串表，为 null 时构建普通批次
      */
-    private com.domidodo.logx.common.grpc.LogEntry buildLogEntry(LogEntry entry) {
+    private com.domidodo.logx.common.grpc.LogEntry buildLogEntry(LogEntry entry, CompactBatchCodec codec) {
         com.domidodo.logx.common.grpc.LogEntry.Builder builder =
                 com.domidodo.logx.common.grpc.LogEntry.newBuilder();
 
@@ -194,39 +459,50 @@ public class GrpcLogSender implements LogSender {
             builder.setSpanId(entry.getSpanId());
         }
 
-        // ============ 租户信息 ============
-        builder.setTenantId(config.getTenantId());
-        builder.setSystemId(config.getSystemId());
-        builder.setSystemName(config.getSystemName());
+        // ============ 租户信息（紧凑批次沿用批次头） ============
+        if (codec == null) {
+            builder.setTenantId(config.getTenantId());
+            builder.setSystemId(config.getSystemId());
+            builder.setSystemName(config.getSystemName());
+        }
 
         // ============ 时间戳 ============
-        if (entry.getTimestamp() != null) {
-            builder.setTimestamp(
-                    entry.getTimestamp()
-                            .atZone(java.time.ZoneId.systemDefault())
-                            .toInstant()
-                            .toEpochMilli()
-            );
-        } else {
-            builder.setTimestamp(System.currentTimeMillis());
+        // 紧凑批次只写微秒，普通批次同时写毫秒以兼容旧版网关
+        long timestampMicros = entry.toEpochMicros();
+        if (timestampMicros <= 0) {
+            timestampMicros = System.currentTimeMillis() * 1_000L;
+        }
+        builder.setTimestampMicros(timestampMicros);
+        if (codec == null) {
+            builder.setTimestamp(timestampMicros / 1_000L);
         }
 
         // ============ 日志基础信息 ============
-        if (entry.getLevel() != null) {
+        if (codec != null) {
+            builder.setLevelRef(codec.ref(entry.getLevel()));
+        } else if (entry.getLevel() != null) {
             builder.setLevel(entry.getLevel());
         }
-        if (entry.getLogger() != null) {
+        if (codec != null) {
+            builder.setLoggerRef(codec.ref(entry.getLogger()));
+        } else if (entry.getLogger() != null) {
             builder.setLogger(entry.getLogger());
         }
-        if (entry.getThread() != null) {
+        if (codec != null) {
+            builder.setThreadRef(codec.ref(entry.getThread()));
+        } else if (entry.getThread() != null) {
             builder.setThread(entry.getThread());
         }
 
         // ============ 代码位置 ============
-        if (entry.getClassName() != null) {
+        if (codec != null) {
+            builder.setClassNameRef(codec.ref(entry.getClassName()));
+        } else if (entry.getClassName() != null) {
             builder.setClassName(entry.getClassName());
         }
-        if (entry.getMethodName() != null) {
+        if (codec != null) {
+            builder.setMethodNameRef(codec.ref(entry.getMethodName()));
+        } else if (entry.getMethodName() != null) {
             builder.setMethodName(entry.getMethodName());
         }
         if (entry.getLineNumber() != null) {
@@ -250,10 +526,14 @@ public class GrpcLogSender implements LogSender {
         }
 
         // ============ 业务信息 ============
-        if (entry.getModule() != null) {
+        if (codec != null) {
+            builder.setModuleRef(codec.ref(entry.getModule()));
+        } else if (entry.getModule() != null) {
             builder.setModule(entry.getModule());
         }
-        if (entry.getOperation() != null) {
+        if (codec != null) {
+            builder.setOperationRef(codec.ref(entry.getOperation()));
+        } else if (entry.getOperation() != null) {
             builder.setOperation(entry.getOperation());
         }
 
@@ -261,7 +541,9 @@ public class GrpcLogSender implements LogSender {
         if (entry.getRequestUrl() != null) {
             builder.setRequestUrl(entry.getRequestUrl());
         }
-        if (entry.getRequestMethod() != null) {
+        if (codec != null) {
+            builder.setRequestMethodRef(codec.ref(entry.getRequestMethod()));
+        } else if (entry.getRequestMethod() != null) {
             builder.setRequestMethod(entry.getRequestMethod());
         }
         if (entry.getRequestParams() != null) {
@@ -275,14 +557,22 @@ public class GrpcLogSender implements LogSender {
         if (entry.getIp() != null) {
             builder.setIp(entry.getIp());
         }
-        if (entry.getUserAgent() != null) {
+        if (codec != null) {
+            builder.setUserAgentRef(codec.ref(entry.getUserAgent()));
+        } else if (entry.getUserAgent() != null) {
             builder.setUserAgent(entry.getUserAgent());
         }
 
         // ============ 扩展信息 ============
         // 标签列表
         if (entry.getTags() != null && !entry.getTags().isEmpty()) {
-            builder.addAllTags(entry.getTags());
+            if (codec != null) {
+                for (String tag : entry.getTags()) {
+                    builder.addTagRefs(codec.ref(tag));
+                }
+            } else {
+                builder.addAllTags(entry.getTags());
+            }
         }
 
         // 扩展字段（google.protobuf.Struct）
@@ -312,9 +602,34 @@ public class GrpcLogSender implements LogSender {
             structBuilder.putAllFields(entry.getExtra().getFieldsMap());
         }
 
+        // 3. 参数化日志的消息模板（调用方已设置同名字段时不覆盖）
+        if (entry.getMessagePattern() != null && !structBuilder.containsFields(LogEntry.MESSAGE_PATTERN_KEY)) {
+            structBuilder.putFields(LogEntry.MESSAGE_PATTERN_KEY,
+                    Value.newBuilder().setStringValue(entry.getMessagePattern()).build());
+        }
+
+        // 4. LogXLogger 所属类名（调用方已设置同名字段时不覆盖）
+        if (entry.getLoggerClassName() != null && !structBuilder.containsFields(LogEntry.LOGGER_CLASS_NAME_KEY)) {
+            structBuilder.putFields(LogEntry.LOGGER_CLASS_NAME_KEY,
+                    Value.newBuilder().setStringValue(entry.getLoggerClassName()).build());
+        }
+
         return structBuilder.build();
     }
 
+    @Override
+    public void expediteRetries() {
+        retries.expedite();
+    }
+
+    /**
+     * 发送结果计数
+     */
+    @Override
+    public DeliveryCounters getDeliveryCounters() {
+        return counters;
+    }
+
     /**
      * 创建认证 Metadata
      */
@@ -331,10 +646,39 @@ public class GrpcLogSender implements LogSender {
         return metadata;
     }
 
+    /**
+     * 连接未处于失败状态且未熔断
+     */
+    @Override
+    public boolean isAvailable() {
+        return channel.getState(false) != ConnectivityState.TRANSIENT_FAILURE && retryPolicy.isAvailable();
+    }
+
+    @Override
+    public boolean hasFallback() {
+        return spill != null;
+    }
+
     /**
      * 关闭连接
      */
+    @Override
     public void shutdown() {
+        for (LogBatchRequest request : logStream.shutdown(config.getReadTimeout(), TimeUnit.MILLISECONDS)) {
+            spillOrDrop(request, "关闭时 gRPC 流式批次未确认");
+        }
+        retries.expedite();
+        try {
+            if (!inFlight.tryAcquire(maxInFlight, config.getReadTimeout() + 1000L, TimeUnit.MILLISECONDS)) {
+                log.warn("关闭 gRPC 发送器时仍有未完成的批次");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (spill != null) {
+            spill.shutdown(config.getReadTimeout() + 1000L, TimeUnit.MILLISECONDS);
+        }
+        scheduler.shutdownNow();
         try {
             channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
             log.info("gRPC通道已关闭");
@@ -0,0 +1,327 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.common.grpc.LogBatchRequest;
+import com.domidodo.logx.common.grpc.LogServiceGrpc;
+import com.domidodo.logx.common.grpc.LogStreamAck;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * gRPC 持久日志流
+ * <p>
+ * 每个通道维持一条 StreamLogBatches 双向流：
+ * 1. 批次带递增序号写入，服务端逐批确认，未确认批次最多 windowSize 个，窗口占满时刷新线程等待
+ * 2. 仅在 isReady() 时写入，其余批次由 onReadyHandler 继续发送，遵循 HTTP/2 流控
+ * 3. 流断开后按带抖动的指数退避重连，并从最小的未确认序号开始重发（至少一次语义）；确认与断线结果计入熔断器；
+ * 网关按消息限流（RESOURCE_EXHAUSTED）时，重连后的确认不清零退避次数，直到积压的批次全部确认，避免限流期间反复快速重连
+ * 4. 网关不支持该接口（UNIMPLEMENTED）时，未确认批次交给回退发送器，后续批次由调用方改走批量接口
+ * 5. 紧凑批次使用 StreamCompactLogBatches，网关不支持时先还原为普通批次，改用 StreamLogBatches 重连
+ */
+@Slf4j
+class GrpcLogStream {
+
+    private final LogServiceGrpc.LogServiceStub asyncStub;
+    private final UnaryOperator<LogBatchRequest> downgrade;
+    private final Consumer<LogBatchRequest> fallback;
+    private final int windowSize;
+    private final long windowTimeoutMs;
+    private final Semaphore window;
+    private final DeliveryCounters counters;
+    private final RetryPolicy retryPolicy;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 未确认的批次（按序号排序），重连后从头重发
+     */
+    private final NavigableMap<Long, LogBatchRequest> unacked = new ConcurrentSkipListMap<>();
+
+    /**
+     * 未确认批次的写入时间（纳秒），用于统计确认延迟
+     */
+    private final Map<Long, Long> enqueuedAt = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    // 以下字段由 lock 保护
+    private ClientCallStreamObserver<LogBatchRequest> call;
+    private long nextSequence = 1;
+    private long nextToSend = 1;
+    private int reconnectAttempts;
+    private boolean reconnectScheduled;
+    private boolean throttled;
+
+    private volatile boolean compact;
+    private volatile boolean unsupported;
+    private volatile boolean closed;
+
+    /**
+     * @param compact         是否使用紧凑批次接口
+     * @param downgrade       网关不支持紧凑批次时，将紧凑批次还原为普通批次
+     * @param fallback        网关不支持持久流时，用于发送未确认批次的批量接口
+     * @param retryPolicy     熔断器与退避策略（与发送器共用）
+     * @param scheduler       重连调度线程（由发送器持有并关闭）
+     * @param windowSize      最大未确认批次数
+     * @param windowTimeoutMs 等待发送窗口的最长时间，超时后丢弃批次
+     */
+    GrpcLogStream(LogServiceGrpc.LogServiceStub asyncStub, boolean compact,
+                  UnaryOperator<LogBatchRequest> downgrade, Consumer<LogBatchRequest> fallback,
+                  DeliveryCounters counters, RetryPolicy retryPolicy, ScheduledExecutorService scheduler,
+                  int windowSize, long windowTimeoutMs) {
+        this.asyncStub = asyncStub;
+        this.compact = compact;
+        this.downgrade = downgrade;
+        this.fallback = fallback;
+        this.counters = counters;
+        this.retryPolicy = retryPolicy;
+        this.scheduler = scheduler;
+        this.windowSize = Math.max(1, windowSize);
+        this.windowTimeoutMs = windowTimeoutMs;
+        this.window = new Semaphore(this.windowSize);
+    }
+
+    /**
+     * 网关是否支持持久流
+     */
+    boolean isSupported() {
+        return !unsupported;
+    }
+
+    /**
+     * 写入一个批次（序号由本类分配）
+     *
+     * @return false 表示发送窗口长时间占满，批次未写入，由调用方处理
+     */
+    boolean send(LogBatchRequest.Builder request) throws InterruptedException {
+        if (!window.tryAcquire(windowTimeoutMs, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        synchronized (lock) {
+            long sequence = nextSequence++;
+            LogBatchRequest batch = request.setSequence(sequence).build();
+            enqueuedAt.put(sequence, System.nanoTime());
+            unacked.put(sequence, compact ? batch : downgrade.apply(batch));
+            if (call == null && !reconnectScheduled) {
+                connect();
+            }
+            drain();
+        }
+        return true;
+    }
+
+    /**
+     * 当前未确认的批次数
+     */
+    int pendingBatches() {
+        return unacked.size();
+    }
+
+    /**
+     * 等待未确认批次完成后关闭流
+     *
+     * @return 超时后仍未确认的批次（按序号排序）
+     */
+    List<LogBatchRequest> shutdown(long timeout, TimeUnit unit) {
+        closed = true;
+        try {
+            if (!window.tryAcquire(windowSize, timeout, unit)) {
+                log.warn("关闭 gRPC 日志流时仍有 {} 个批次未确认", unacked.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            if (call != null) {
+                call.onCompleted();
+                call = null;
+            }
+            List<LogBatchRequest> remaining = new ArrayList<>(unacked.values());
+            unacked.clear();
+            enqueuedAt.clear();
+            return remaining;
+        }
+    }
+
+    /**
+     * 建立新的流，并将发送位置移到最小的未确认序号（需持有 lock）
+     */
+    private void connect() {
+        ClientResponseObserver<LogBatchRequest, LogStreamAck> observer = new ClientResponseObserver<>() {
+            private ClientCallStreamObserver<LogBatchRequest> requestStream;
+
+            @Override
+            public void beforeStart(ClientCallStreamObserver<LogBatchRequest> requestStream) {
+                this.requestStream = requestStream;
+                requestStream.setOnReadyHandler(() -> {
+                    synchronized (lock) {
+                        if (call == requestStream) {
+                            drain();
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(LogStreamAck ack) {
+                onAck(ack);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                onStreamClosed(requestStream, t);
+            }
+
+            @Override
+            public void onCompleted() {
+                onStreamClosed(requestStream, null);
+            }
+        };
+
+        call = (ClientCallStreamObserver<LogBatchRequest>) (compact
+                ? asyncStub.streamCompactLogBatches(observer)
+                : asyncStub.streamLogBatches(observer));
+        nextToSend = unacked.isEmpty() ? nextSequence : unacked.firstKey();
+    }
+
+    /**
+     * 在流可写时按序号发送批次（需持有 lock）
+     */
+    private void drain() {
+        while (call != null && call.isReady()) {
+            Map.Entry<Long, LogBatchRequest> next = unacked.ceilingEntry(nextToSend);
+            if (next == null) {
+                return;
+            }
+            call.onNext(next.getValue());
+            nextToSend = next.getKey() + 1;
+        }
+    }
+
+    private void onAck(LogStreamAck ack) {
+        LogBatchRequest request = unacked.remove(ack.getSequence());
+        if (request == null) {
+            // 重连前已确认过的重复批次
+            return;
+        }
+        window.release();
+        retryPolicy.onSuccess();
+        synchronized (lock) {
+            if (!throttled || unacked.isEmpty()) {
+                throttled = false;
+                reconnectAttempts = 0;
+            }
+        }
+        Long enqueued = enqueuedAt.remove(ack.getSequence());
+        if (enqueued != null) {
+            counters.recordLatency(System.nanoTime() - enqueued);
+        }
+
+        if (ack.getSuccess()) {
+            counters.recordSuccess(request.getLogsCount());
+            counters.recordBytes(request.getSerializedSize());
+            log.debug("gRPC 流式发送成功: 序号={}, 接收={}, 成功={}, 失败={}",
+                    ack.getSequence(), ack.getReceived(), ack.getSuccessCount(), ack.getFailedCount());
+        } else {
+            counters.recordFailure(request.getLogsCount());
+            log.error("gRPC 流式发送失败: 序号={}, {}", ack.getSequence(), ack.getMessage());
+        }
+    }
+
+    private void onStreamClosed(ClientCallStreamObserver<LogBatchRequest> stream, Throwable error) {
+        synchronized (lock) {
+            if (call != stream) {
+                return;
+            }
+            call = null;
+
+            if (error != null && Status.fromThrowable(error).getCode() == Status.Code.UNIMPLEMENTED && compact) {
+                // 旧版网关：未确认批次还原为普通批次（保留序号），立即改用普通流重连
+                compact = false;
+                unacked.replaceAll((sequence, request) -> downgrade.apply(request));
+                connect();
+                drain();
+                return;
+            }
+            if (error != null && Status.fromThrowable(error).getCode() == Status.Code.UNIMPLEMENTED) {
+                log.warn("网关不支持 gRPC 持久流，改用批量接口发送");
+                unsupported = true;
+                scheduler.execute(this::drainToFallback);
+                return;
+            }
+            if (unacked.isEmpty()) {
+                // 没有待确认批次，下次写入时再建立连接
+                if (error != null && !closed) {
+                    log.debug("gRPC 日志流已断开: {}", Status.fromThrowable(error));
+                }
+                return;
+            }
+            if (error != null) {
+                retryPolicy.onFailure();
+                if (Status.fromThrowable(error).getCode() == Status.Code.RESOURCE_EXHAUSTED) {
+                    throttled = true;
+                }
+            }
+            if (!closed || error != null) {
+                scheduleReconnect(error);
+            }
+        }
+    }
+
+    /**
+     * 按带抖动的指数退避调度重连（需持有 lock）
+     */
+    private void scheduleReconnect(Throwable error) {
+        if (reconnectScheduled || scheduler.isShutdown()) {
+            return;
+        }
+        reconnectAttempts++;
+        long delay = retryPolicy.backoffMillis(reconnectAttempts);
+        reconnectScheduled = true;
+        log.warn("gRPC 日志流已断开，{} 毫秒后重连，未确认批次 {} 个: {}",
+                delay, unacked.size(), error != null ? Status.fromThrowable(error) : "服务端关闭");
+
+        try {
+            scheduler.schedule(() -> {
+                synchronized (lock) {
+                    reconnectScheduled = false;
+                    if (call == null && !unacked.isEmpty()) {
+                        counters.recordRetries(unacked.size());
+                        connect();
+                        drain();
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            reconnectScheduled = false;
+            log.error("调度 gRPC 日志流重连失败", e);
+        }
+    }
+
+    /**
+     * 将未确认批次交给回退发送器（回退发送器负责计数）
+     */
+    private void drainToFallback() {
+        Map.Entry<Long, LogBatchRequest> next;
+        while ((next = unacked.pollFirstEntry()) != null) {
+            enqueuedAt.remove(next.getKey());
+            try {
+                fallback.accept(next.getValue());
+            } finally {
+                window.release();
+            }
+        }
+    }
+}
@@ -2,28 +2,113 @@ package com.domidodo.logx.sdk.core.sender;
 
 import com.domidodo.logx.sdk.core.config.LogXConfig;
 import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.spill.SpillManager;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * HTTP 日志发送器
  * 支持 google.protobuf.Struct（转换为 JSON）
+ * <p>
+ * 基于 java.net.http.HttpClient：
+ * 1. 复用持久连接池（HTTP/1.1 keep-alive 或 HTTP/2 多路复用）
+ * 2. 异步发送，同时在途的批次数不超过 maxInFlightBatches，窗口占满时阻塞刷新线程
+ * 3. 失败重试按带抖动的指数退避由定时器调度，不占用刷新线程；重试受重试预算和熔断器限制（见 RetryPolicy），
+ * 熔断中的批次不发送，直接溢写（未启用溢写时刷新线程暂停，日志留在缓冲区）
+ * 4. 日志流式编码为 UTF-8 JSON，写入按在途窗口预留的可复用请求体缓冲，可选 gzip / zstd 压缩
+ * 5. 启用磁盘溢写时，重试耗尽的批次以 [编码][请求体] 格式写入磁盘，网关恢复后原样重放
+ * 6. 配置多个网关地址时按节点健康状况加权轮询，异常节点被摘除，重试会换到其他节点（见 EndpointPool）
+ * 7. 关闭时待执行的重试立即执行，仍失败的批次直接溢写，不等待退避
+ * 8. 网关不支持请求体的压缩方式（415，如网关缺少 zstd-jni）时，批次转换为降级编码（zstd → gzip → 不压缩）后立即重发，
+ * 之后的批次也使用降级编码
  */
 @Slf4j
 public class HttpLogSender implements LogSender {
 
     private final LogXConfig config;
-    private final String endpoint;
+    private final EndpointPool<URI> endpoints;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService retryScheduler;
+    private final PendingRetries retries;
+    private final RetryPolicy retryPolicy;
+    private final HttpClient httpClient;
+    private final int maxInFlight;
+
+    /**
+     * 空闲的请求体缓冲，数量等于在途窗口大小，取不到即表示窗口已满
+     */
+    private final BlockingQueue<RequestBodyBuffer> freeBodies;
+
+    /**
+     * Content-Encoding（null 表示不压缩），网关返回 415 时降级
+     */
+    private volatile String contentEncoding;
+
+    private final DeliveryCounters counters;
+
+    /**
+     * 磁盘溢写（未启用时为 null）
+     */
+    private final SpillManager spill;
+
+    /**
+     * 溢写记录首字节：请求体编码
+     */
+    private static final byte SPILL_IDENTITY = 0;
+    private static final byte SPILL_GZIP = 1;
+    private static final byte SPILL_ZSTD = 2;
 
     public HttpLogSender(LogXConfig config) {
+        this(config, new DeliveryCounters("http"));
+    }
+
+    /**
+     * @param counters 发送结果计数
+     */
+    public HttpLogSender(LogXConfig config, DeliveryCounters counters) {
         this.config = config;
-        this.endpoint = config.getGatewayUrl() + "/api/v1/logs";
+        this.counters = counters;
+        this.endpoints = new EndpointPool<>(config.resolveGatewayUrls().stream()
+                .map(url -> URI.create(url + "/api/v1/logs"))
+                .toList());
+        this.maxInFlight = Math.max(1, config.getMaxInFlightBatches());
+        this.freeBodies = new ArrayBlockingQueue<>(maxInFlight);
+        for (int i = 0; i < maxInFlight; i++) {
+            freeBodies.add(new RequestBodyBuffer());
+        }
+        this.contentEncoding = RequestBodyBuffer.resolveEncoding(config.getCompression());
+
+        this.executor = Executors.newFixedThreadPool(2, daemonThreadFactory("logx-http"));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("logx-http-retry"));
+        this.retries = new PendingRetries(retryScheduler);
+        this.retryPolicy = new RetryPolicy(config, "HTTP", counters);
+        this.httpClient = HttpClient.newBuilder()
+                .version("HTTP_2".equalsIgnoreCase(config.getHttpVersion())
+                        ? HttpClient.Version.HTTP_2
+                        : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeout()))
+                .executor(executor)
+                .build();
+        this.spill = SpillManager.create(config, "http", this::resend);
+        if (spill != null) {
+            counters.bindSpillStore(spill.getStore());
+        }
     }
 
     @Override
@@ -37,244 +122,304 @@ public class HttpLogSender implements LogSender {
             return;
         }
 
-        int retries = 0;
-        while (retries < config.getMaxRetries()) {
-            try {
-                doSend(entries);
-                return;
-            } catch (Exception e) {
-                retries++;
-                if (retries >= config.getMaxRetries()) {
-                    log.error("发送日志失败，已重试 {} 次", retries, e);
-                } else {
-                    log.warn("发送日志失败，正在重试 ({}/{})", retries, config.getMaxRetries());
-                    try {
-                        Thread.sleep(1000L * retries);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            }
+        int count = entries.size();
+        counters.recordBatchSize(count);
+        RequestBodyBuffer body;
+        try {
+            body = freeBodies.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            counters.recordFailure(count);
+            log.warn("等待发送窗口被中断，丢弃 {} 条日志", count);
+            return;
         }
-    }
-
-    private void doSend(List<LogEntry> entries) throws Exception {
-        URL url = new URL(endpoint);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
 
+        // 在调用线程上完成编码，之后不再引用 LogEntry
         try {
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-            conn.setRequestProperty("X-Tenant-Id", config.getTenantId());
-            conn.setRequestProperty("X-System-Id", config.getSystemId());
-            conn.setRequestProperty("X-API-Key", config.getApiKey());
-            conn.setConnectTimeout(config.getConnectTimeout());
-            conn.setReadTimeout(config.getReadTimeout());
-            conn.setDoOutput(true);
-
-            // JSON 序列化
-            String json = toJson(entries);
-
-            try (OutputStream os = conn.getOutputStream()) {
-                os.write(json.getBytes(StandardCharsets.UTF_8));
-                os.flush();
-            }
-
-            int responseCode = conn.getResponseCode();
-            if (responseCode < 200 || responseCode >= 300) {
-                throw new RuntimeException("HTTP 响应码: " + responseCode);
-            }
+            body.encode(entries, contentEncoding);
+        } catch (Exception e) {
+            freeBodies.add(body);
+            counters.recordFailure(count);
+            log.error("序列化日志失败，丢弃 {} 条日志", count, e);
+            return;
+        }
 
-            log.debug("成功发送 {} 条日志", entries.size());
-        } finally {
-            conn.disconnect();
+        if (!retryPolicy.tryAcquire()) {
+            counters.recordShortCircuit();
+            giveUp(body, count, 0, true, "网关熔断中");
+            return;
         }
+        sendAsync(body, count, 1);
     }
 
     /**
-     * JSON 序列化
-     * 支持 google.protobuf.Struct（转换为 Map）
+     * 异步发送，完成（成功或放弃重试）后归还请求体缓冲
      */
-    private String toJson(List<LogEntry> entries) {
-        StringBuilder json = new StringBuilder("[");
-
-        for (int i = 0; i < entries.size(); i++) {
-            LogEntry entry = entries.get(i);
-            json.append("{");
-
-            // 基础字段
-            appendField(json, "id", entry.getId(), true);
-            appendField(json, "tenantId", entry.getTenantId(), false);
-            appendField(json, "systemId", entry.getSystemId(), false);
-            appendField(json, "systemName", entry.getSystemName(), false);
-            appendField(json, "level", entry.getLevel(), false);
-            appendField(json, "message", entry.getMessage(), false);
-
-            // 时间戳
-            if (entry.getTimestamp() != null) {
-                json.append(",\"timestamp\":\"").append(entry.getTimestamp()).append("\"");
-            }
-
-            // 追踪信息
-            appendField(json, "traceId", entry.getTraceId(), false);
-            appendField(json, "spanId", entry.getSpanId(), false);
-
-            // 日志基础信息
-            appendField(json, "logger", entry.getLogger(), false);
-            appendField(json, "thread", entry.getThread(), false);
-
-            // 代码位置
-            appendField(json, "className", entry.getClassName(), false);
-            appendField(json, "methodName", entry.getMethodName(), false);
-            if (entry.getLineNumber() != null) {
-                json.append(",\"lineNumber\":").append(entry.getLineNumber());
-            }
-
-            // 异常信息
-            appendField(json, "exception", entry.getException(), false);
-
-            // 用户信息
-            appendField(json, "userId", entry.getUserId(), false);
-            appendField(json, "userName", entry.getUserName(), false);
-
-            // 业务信息
-            appendField(json, "module", entry.getModule(), false);
-            appendField(json, "operation", entry.getOperation(), false);
-
-            // 请求信息
-            appendField(json, "requestUrl", entry.getRequestUrl(), false);
-            appendField(json, "requestMethod", entry.getRequestMethod(), false);
-            appendField(json, "requestParams", entry.getRequestParams(), false);
-            if (entry.getResponseTime() != null) {
-                json.append(",\"responseTime\":").append(entry.getResponseTime());
-            }
-
-            // 网络信息
-            appendField(json, "ip", entry.getIp(), false);
-            appendField(json, "userAgent", entry.getUserAgent(), false);
-
-            // 标签
-            if (entry.getTags() != null && !entry.getTags().isEmpty()) {
-                json.append(",\"tags\":[");
-                for (int j = 0; j < entry.getTags().size(); j++) {
-                    json.append("\"").append(escape(entry.getTags().get(j))).append("\"");
-                    if (j < entry.getTags().size() - 1) {
-                        json.append(",");
+    private void sendAsync(RequestBodyBuffer body, int count, int attempt) {
+        EndpointPool.Endpoint<URI> endpoint = endpoints.select();
+        HttpRequest request = newRequest(endpoint.address(), body.publisher(), body.encoding());
+        long start = System.nanoTime();
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - start;
+                    counters.recordLatency(latency);
+                    if (isUnsupportedEncoding(response, body.encoding())) {
+                        endpoints.record(endpoint, true, latency);
+                        resendWithFallbackEncoding(body, count, attempt);
+                        return;
+                    }
+                    boolean retryable = isRetryable(response, error);
+                    endpoints.record(endpoint, !retryable, latency);
+                    if (retryable) {
+                        retryPolicy.onFailure();
+                    } else {
+                        retryPolicy.onSuccess();
+                    }
+                    if (error == null && response.statusCode() >= 200 && response.statusCode() < 300) {
+                        counters.recordSuccess(count);
+                        counters.recordBytes(body.size());
+                        freeBodies.add(body);
+                        log.debug("成功发送 {} 条日志（{} 字节）", count, body.size());
+                        return;
                     }
-                }
-                json.append("]");
-            }
 
-            // 扩展字段（Struct -> Map -> JSON）
-            Map<String, Object> extraMap = buildExtraMap(entry);
-            if (!extraMap.isEmpty()) {
-                json.append(",\"extra\":");
-                appendMapAsJson(json, extraMap);
-            }
+                    String reason = endpoint + " " + (error != null ? error.toString() : "HTTP 响应码: " + response.statusCode());
+                    if (!retryable || !retryPolicy.shouldRetry(attempt)
+                            || retries.isExpedited() || retryScheduler.isShutdown()) {
+                        giveUp(body, count, attempt, retryable, reason);
+                        return;
+                    }
 
-            json.append("}");
+                    long delay = retryPolicy.backoffMillis(attempt);
+                    counters.recordRetry();
+                    log.warn("发送日志失败，{} 毫秒后重试 ({}/{}): {}", delay, attempt, config.getMaxRetries(), reason);
+                    try {
+                        retries.schedule(() -> retry(body, count, attempt), delay);
+                    } catch (Exception e) {
+                        freeBodies.add(body);
+                        counters.recordFailure(count);
+                        log.error("调度重试失败，丢弃 {} 条日志", count, e);
+                    }
+                });
+    }
 
-            if (i < entries.size() - 1) {
-                json.append(",");
-            }
+    /**
+     * 网关不支持当前压缩方式：批次转换为降级编码后立即重发（不计入重试次数），之后的批次也使用降级编码
+     */
+    private void resendWithFallbackEncoding(RequestBodyBuffer body, int count, int attempt) {
+        String rejected = body.encoding();
+        String fallback = RequestBodyBuffer.fallbackEncoding(rejected);
+        downgradeEncoding(rejected, fallback);
+        try {
+            body.transcode(fallback);
+        } catch (Exception e) {
+            giveUp(body, count, attempt, false, "转换请求体编码失败: " + e);
+            return;
         }
+        sendAsync(body, count, attempt);
+    }
 
-        json.append("]");
-        return json.toString();
+    /**
+     * 网关拒绝 rejected 编码后，之后的批次改用 fallback
+     */
+    private synchronized void downgradeEncoding(String rejected, String fallback) {
+        if (Objects.equals(contentEncoding, rejected)) {
+            contentEncoding = fallback;
+            log.warn("网关不支持 {} 压缩（HTTP 415），请求体改用 {}", rejected, fallback != null ? fallback : "不压缩");
+        }
     }
 
     /**
-     * 构建 extra Map
-     * 合并 context 和 extra Struct
+     * 执行重试；等待期间熔断器已打开时不再发送
      */
-    private Map<String, Object> buildExtraMap(LogEntry entry) {
-        Map<String, Object> result = new java.util.HashMap<>();
+    private void retry(RequestBodyBuffer body, int count, int attempt) {
+        if (!retries.isExpedited() && !retryPolicy.isAvailable()) {
+            giveUp(body, count, attempt, true, "网关熔断中");
+            return;
+        }
+        sendAsync(body, count, attempt + 1);
+    }
 
-        // 1. 添加 context
-        if (entry.getContext() != null) {
-            result.putAll(entry.getContext());
+    /**
+     * 放弃发送：网关不可用类的失败写入磁盘溢写，否则丢弃；之后归还请求体缓冲
+     *
+     * @param attempt 已尝试次数（熔断时为 0）
+     */
+    private void giveUp(RequestBodyBuffer body, int count, int attempt, boolean retryable, String reason) {
+        if (retryable && spill(body, count)) {
+            log.warn("发送日志失败，已尝试 {} 次，{} 条日志已写入磁盘溢写: {}", attempt, count, reason);
+        } else {
+            counters.recordFailure(count);
+            log.error("发送日志失败，已尝试 {} 次，丢弃 {} 条日志: {}", attempt, count, reason);
         }
+        freeBodies.add(body);
+    }
 
-        // 2. 添加 extra（Struct 转 Map）
-        if (entry.getExtra() != null) {
-            Map<String, Object> extraMap = LogEntry.structToMap(entry.getExtra());
-            result.putAll(extraMap);
+    private HttpRequest newRequest(URI endpoint, HttpRequest.BodyPublisher publisher, String encoding) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofMillis(config.getReadTimeout()))
+                .header("Content-Type", "application/json; charset=UTF-8")
+                .header("X-Tenant-Id", config.getTenantId())
+                .header("X-System-Id", config.getSystemId())
+                .header("X-API-Key", config.getApiKey());
+        if (encoding != null) {
+            builder.header("Content-Encoding", encoding);
         }
+        return builder.POST(publisher).build();
+    }
 
-        return result;
+    /**
+     * 请求体已压缩且网关返回 415（不支持该 Content-Encoding）
+     */
+    private static boolean isUnsupportedEncoding(HttpResponse<?> response, String encoding) {
+        return encoding != null && response != null && response.statusCode() == 415;
     }
 
     /**
-     * 添加字段到 JSON
+     * 网络异常、5xx、408、429 视为网关暂时不可用，其余响应码重发也不会成功
      */
-    private void appendField(StringBuilder json, String key, String value, boolean isFirst) {
-        if (value != null && !value.isEmpty()) {
-            if (!isFirst) {
-                json.append(",");
-            }
-            json.append("\"").append(key).append("\":\"")
-                    .append(escape(value)).append("\"");
+    private static boolean isRetryable(HttpResponse<?> response, Throwable error) {
+        if (error != null || response == null) {
+            return true;
         }
+        int status = response.statusCode();
+        return status >= 500 || status == 408 || status == 429;
     }
 
     /**
-     * 将 Map 转换为 JSON
+     * 将请求体写入磁盘溢写
      */
-    private void appendMapAsJson(StringBuilder json, Map<String, Object> map) {
-        json.append("{");
-        int count = 0;
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (count > 0) {
-                json.append(",");
-            }
-            json.append("\"").append(escape(entry.getKey())).append("\":");
-            appendValueAsJson(json, entry.getValue());
-            count++;
+    private boolean spill(RequestBodyBuffer body, int count) {
+        if (spill == null) {
+            return false;
+        }
+        byte[] record = new byte[body.size() + 1];
+        record[0] = RequestBodyBuffer.GZIP.equals(body.encoding()) ? SPILL_GZIP
+                : RequestBodyBuffer.ZSTD.equals(body.encoding()) ? SPILL_ZSTD
+                : SPILL_IDENTITY;
+        body.copyTo(record, 1);
+        if (!spill.spill(record)) {
+            return false;
         }
-        json.append("}");
+        counters.recordSpill(count);
+        return true;
     }
 
     /**
-     * 将值转换为 JSON
+     * 同步重放一条溢写记录（由溢写重放线程调用）
+     *
+     * @return true 表示已处理（成功或被网关拒绝），false 表示网关仍不可用
      */
-    private void appendValueAsJson(StringBuilder json, Object value) {
-        if (value == null) {
-            json.append("null");
-        } else if (value instanceof String) {
-            json.append("\"").append(escape((String) value)).append("\"");
-        } else if (value instanceof Number || value instanceof Boolean) {
-            json.append(value);
-        } else if (value instanceof List<?> list) {
-            json.append("[");
-            for (int i = 0; i < list.size(); i++) {
-                appendValueAsJson(json, list.get(i));
-                if (i < list.size() - 1) {
-                    json.append(",");
+    private boolean resend(byte[] record) {
+        String encoding = record[0] == SPILL_GZIP ? RequestBodyBuffer.GZIP
+                : record[0] == SPILL_ZSTD ? RequestBodyBuffer.ZSTD
+                : null;
+        EndpointPool.Endpoint<URI> endpoint = endpoints.select();
+        HttpRequest request = newRequest(endpoint.address(),
+                HttpRequest.BodyPublishers.ofByteArray(record, 1, record.length - 1), encoding);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (isUnsupportedEncoding(response, encoding)) {
+                // 网关不支持溢写时的压缩方式，解压后不压缩重放
+                downgradeEncoding(encoding, RequestBodyBuffer.fallbackEncoding(encoding));
+                byte[] raw;
+                try {
+                    raw = RequestBodyBuffer.decompress(record, 1, record.length - 1, encoding);
+                } catch (IOException e) {
+                    log.error("溢写批次解压失败，已丢弃: {}", e.toString());
+                    return true;
                 }
+                request = newRequest(endpoint.address(), HttpRequest.BodyPublishers.ofByteArray(raw), null);
+                response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
             }
-            json.append("]");
-        } else if (value instanceof Map) {
-            appendMapAsJson(json, (Map<String, Object>) value);
-        } else {
-            // 其他类型转为字符串
-            json.append("\"").append(escape(value.toString())).append("\"");
+            boolean retryable = isRetryable(response, null);
+            endpoints.record(endpoint, !retryable, System.nanoTime() - start);
+            if (retryable) {
+                retryPolicy.onFailure();
+            } else {
+                retryPolicy.onSuccess();
+            }
+            if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                log.debug("重放溢写批次成功（{} 字节）", record.length - 1);
+                return true;
+            }
+            if (isRetryable(response, null)) {
+                return false;
+            }
+            log.error("重放溢写批次被网关拒绝，已丢弃: HTTP 响应码 {}", response.statusCode());
+            return true;
+        } catch (IOException e) {
+            endpoints.record(endpoint, false, System.nanoTime() - start);
+            retryPolicy.onFailure();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
     /**
-     * 转义 JSON 字符串
+     * 是否有未被摘除的网关节点且未熔断
      */
-    private String escape(String str) {
-        if (str == null) {
-            return "";
+    @Override
+    public boolean isAvailable() {
+        return endpoints.hasAvailable() && retryPolicy.isAvailable();
+    }
+
+    @Override
+    public boolean hasFallback() {
+        return spill != null;
+    }
+
+    /**
+     * 提前执行待重试的批次，等待在途批次完成并释放线程池
+     * Java 17 的 HttpClient 没有 close()，连接在线程池关闭、客户端不可达后由 JDK 回收
+     */
+    @Override
+    public void shutdown() {
+        retries.expedite();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getReadTimeout() + 1000L);
+        try {
+            for (int i = 0; i < maxInFlight; i++) {
+                RequestBodyBuffer body = freeBodies.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (body == null) {
+                    log.warn("关闭 HTTP 发送器时仍有未完成的批次");
+                    break;
+                }
+                body.dispose();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (spill != null) {
+            spill.shutdown(config.getReadTimeout() + 1000L, TimeUnit.MILLISECONDS);
         }
-        return str.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t")
-                .replace("\b", "\\b")
-                .replace("\f", "\\f");
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+        log.info("HTTP 发送器已关闭");
+    }
+
+    @Override
+    public void expediteRetries() {
+        retries.expedite();
+    }
+
+    /**
+     * 发送结果计数
+     */
+    @Override
+    public DeliveryCounters getDeliveryCounters() {
+        return counters;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,370 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式 JSON 编码器
+ * <p>
+ * 将日志批次直接编码为 UTF-8 字节写入输出流：
+ * 1. 不构建中间 String，转义与 UTF-8 编码在同一次遍历中完成
+ * 2. 通过可复用的字节缓冲分段写出，输出流可以是压缩流
+ * 3. 非线程安全，每个请求体缓冲独占一个实例
+ */
+class JsonLogEncoder {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final byte[] scratch;
+    private int position;
+    private OutputStream out;
+
+    /**
+     * 当前日志对象是否已写入字段（决定下一个字段前是否需要逗号）
+     */
+    private boolean fieldWritten;
+
+    JsonLogEncoder(int bufferSize) {
+        this.scratch = new byte[Math.max(bufferSize, 64)];
+    }
+
+    /**
+     * 编码一个批次
+     */
+    void encode(List<LogEntry> entries, OutputStream out) throws IOException {
+        this.out = out;
+        this.position = 0;
+        try {
+            writeByte('[');
+            for (int i = 0; i < entries.size(); i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+                writeEntry(entries.get(i));
+            }
+            writeByte(']');
+            flushScratch();
+        } finally {
+            this.out = null;
+        }
+    }
+
+    private void writeEntry(LogEntry entry) throws IOException {
+        writeByte('{');
+        fieldWritten = false;
+
+        // 基础字段
+        writeField("tenantId", entry.getTenantId());
+        writeField("id", entry.getId());
+        writeField("systemId", entry.getSystemId());
+        writeField("systemName", entry.getSystemName());
+        writeField("level", entry.getLevel());
+        writeField("message", entry.getMessage());
+
+        // 时间戳（纪元微秒，数值类型，网关与处理器无需解析日期字符串）
+        long timestampMicros = entry.toEpochMicros();
+        if (timestampMicros > 0) {
+            writeKey("timestampMicros");
+            writeLong(timestampMicros);
+        }
+
+        // 追踪信息
+        writeField("traceId", entry.getTraceId());
+        writeField("spanId", entry.getSpanId());
+
+        // 日志基础信息
+        writeField("logger", entry.getLogger());
+        writeField("thread", entry.getThread());
+
+        // 代码位置
+        writeField("className", entry.getClassName());
+        writeField("methodName", entry.getMethodName());
+        if (entry.getLineNumber() != null) {
+            writeKey("lineNumber");
+            writeLong(entry.getLineNumber());
+        }
+
+        // 异常信息
+        writeField("exception", entry.getException());
+
+        // 用户信息
+        writeField("userId", entry.getUserId());
+        writeField("userName", entry.getUserName());
+
+        // 业务信息
+        writeField("module", entry.getModule());
+        writeField("operation", entry.getOperation());
+
+        // 请求信息
+        writeField("requestUrl", entry.getRequestUrl());
+        writeField("requestMethod", entry.getRequestMethod());
+        writeField("requestParams", entry.getRequestParams());
+        if (entry.getResponseTime() != null) {
+            writeKey("responseTime");
+            writeLong(entry.getResponseTime());
+        }
+
+        // 网络信息
+        writeField("ip", entry.getIp());
+        writeField("userAgent", entry.getUserAgent());
+
+        // 标签
+        List<String> tags = entry.getTags();
+        if (tags != null && !tags.isEmpty()) {
+            writeKey("tags");
+            writeByte('[');
+            for (int i = 0; i < tags.size(); i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+                writeString(tags.get(i));
+            }
+            writeByte(']');
+        }
+
+        // 扩展字段（context 与 extra Struct 合并，参数化日志附带消息模板，LogXLogger 附带类名）
+        Map<String, Object> extraMap = buildExtraMap(entry);
+        String messagePattern = entry.getMessagePattern();
+        String loggerClassName = entry.getLoggerClassName();
+        if ((extraMap != null && !extraMap.isEmpty()) || messagePattern != null || loggerClassName != null) {
+            writeKey("extra");
+            writeMap(extraMap, messagePattern, loggerClassName);
+        }
+
+        writeByte('}');
+    }
+
+    /**
+     * 构建 extra Map
+     * 仅有 context 时直接使用，避免复制
+     */
+    private Map<String, Object> buildExtraMap(LogEntry entry) {
+        if (entry.getExtra() == null) {
+            return entry.getContext();
+        }
+        Map<String, Object> result = new HashMap<>();
+        if (entry.getContext() != null) {
+            result.putAll(entry.getContext());
+        }
+        result.putAll(LogEntry.structToMap(entry.getExtra()));
+        return result;
+    }
+
+    /**
+     * 写入字符串字段，null 或空字符串不写
+     */
+    private void writeField(String key, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        writeKey(key);
+        writeString(value);
+    }
+
+    /**
+     * 写入字段名，不是日志对象的第一个字段时先写逗号
+     */
+    private void writeKey(String key) throws IOException {
+        if (fieldWritten) {
+            writeByte(',');
+        }
+        fieldWritten = true;
+        writeByte('"');
+        writeAscii(key);
+        writeAscii("\":");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            writeAscii("null");
+        } else if (value instanceof String str) {
+            writeString(str);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writeAscii(value.toString());
+        } else if (value instanceof List<?> list) {
+            writeByte('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+                writeValue(list.get(i));
+            }
+            writeByte(']');
+        } else if (value instanceof Map) {
+            writeMap((Map<String, Object>) value);
+        } else {
+            // 其他类型转为字符串
+            writeString(value.toString());
+        }
+    }
+
+    private void writeMap(Map<String, Object> map) throws IOException {
+        writeMap(map, null, null);
+    }
+
+    /**
+     * @param messagePattern  不为 null 时追加消息模板字段（不复制 map）
+     * @param loggerClassName 不为 null 时追加 LogXLogger 类名字段（不复制 map）
+     */
+    private void writeMap(Map<String, Object> map, String messagePattern, String loggerClassName) throws IOException {
+        writeByte('{');
+        boolean first = true;
+        if (map != null) {
+            for (Map.Entry<String, Object> e : map.entrySet()) {
+                if (!first) {
+                    writeByte(',');
+                }
+                first = false;
+                writeString(e.getKey());
+                writeByte(':');
+                writeValue(e.getValue());
+            }
+        }
+        if (messagePattern != null && (map == null || !map.containsKey(LogEntry.MESSAGE_PATTERN_KEY))) {
+            if (!first) {
+                writeByte(',');
+            }
+            writeString(LogEntry.MESSAGE_PATTERN_KEY);
+            writeByte(':');
+            writeString(messagePattern);
+            first = false;
+        }
+        if (loggerClassName != null && (map == null || !map.containsKey(LogEntry.LOGGER_CLASS_NAME_KEY))) {
+            if (!first) {
+                writeByte(',');
+            }
+            writeString(LogEntry.LOGGER_CLASS_NAME_KEY);
+            writeByte(':');
+            writeString(loggerClassName);
+        }
+        writeByte('}');
+    }
+
+    /**
+     * 写入带引号的 JSON 字符串（转义并编码为 UTF-8）
+     */
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        if (value != null) {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    writeAsciiChar(c);
+                } else if (c < 0x800) {
+                    ensure(2);
+                    scratch[position++] = (byte) (0xC0 | (c >> 6));
+                    scratch[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    ensure(4);
+                    scratch[position++] = (byte) (0xF0 | (cp >> 18));
+                    scratch[position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    scratch[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    scratch[position++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // 不成对的代理字符无法编码为合法 UTF-8
+                    writeByte('?');
+                } else {
+                    ensure(3);
+                    scratch[position++] = (byte) (0xE0 | (c >> 12));
+                    scratch[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    scratch[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeAsciiChar(char c) throws IOException {
+        switch (c) {
+            case '"' -> writeEscaped('"');
+            case '\\' -> writeEscaped('\\');
+            case '\n' -> writeEscaped('n');
+            case '\r' -> writeEscaped('r');
+            case '\t' -> writeEscaped('t');
+            case '\b' -> writeEscaped('b');
+            case '\f' -> writeEscaped('f');
+            default -> {
+                if (c < 0x20) {
+                    ensure(6);
+                    scratch[position++] = '\\';
+                    scratch[position++] = 'u';
+                    scratch[position++] = '0';
+                    scratch[position++] = '0';
+                    scratch[position++] = HEX[c >> 4];
+                    scratch[position++] = HEX[c & 0xF];
+                } else {
+                    writeByte(c);
+                }
+            }
+        }
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        ensure(2);
+        scratch[position++] = '\\';
+        scratch[position++] = (byte) c;
+    }
+
+    /**
+     * 写入不需要转义的 ASCII 文本（字段名、数字、时间戳）
+     */
+    private void writeAscii(String text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            writeByte(text.charAt(i));
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            scratch[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            scratch[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == scratch.length) {
+            flushScratch();
+        }
+        scratch[position++] = (byte) b;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > scratch.length) {
+            flushScratch();
+        }
+    }
+
+    private void flushScratch() throws IOException {
+        if (position > 0) {
+            out.write(scratch, 0, position);
+            position = 0;
+        }
+    }
+}
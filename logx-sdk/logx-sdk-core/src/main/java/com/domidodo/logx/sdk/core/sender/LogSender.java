@@ -9,4 +9,46 @@ public interface LogSender {
     void send(LogEntry entry);
 
     void sendBatch(List<LogEntry> entries);
+
+    /**
+     * 发送结果计数，不统计时返回 null
+     */
+    default DeliveryCounters getDeliveryCounters() {
+        return null;
+    }
+
+    /**
+     * 各传输的发送结果计数（组合多个传输的发送器返回每个传输各自的计数）
+     */
+    default List<DeliveryCounters> getTransportCounters() {
+        DeliveryCounters counters = getDeliveryCounters();
+        return counters != null ? List.of(counters) : List.of();
+    }
+
+    /**
+     * 网关当前是否可用（所有节点都被摘除、连接处于失败状态或熔断中时返回 false），用于传输故障转移和暂停刷新
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * 网关不可用时批次是否仍有去处（如磁盘溢写）；没有时刷新线程暂停发送，日志留在缓冲区
+     */
+    default boolean hasFallback() {
+        return false;
+    }
+
+    /**
+     * 开始关闭：待执行的重试立即执行，之后失败的批次直接溢写或丢弃，不再等待退避；
+     * 在停止刷新线程前调用，避免刷新线程等待重试占用的发送窗口
+     */
+    default void expediteRetries() {
+    }
+
+    /**
+     * 释放连接和线程等资源
+     */
+    default void shutdown() {
+    }
 }
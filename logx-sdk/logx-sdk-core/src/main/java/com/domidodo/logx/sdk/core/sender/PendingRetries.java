@@ -0,0 +1,75 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 待执行的重试
+ * <p>
+ * 重试任务在定时器上按退避延迟执行；关闭发送器时调用 {@link #expedite()}，已调度的重试立即执行，
+ * 发送器据 {@link #isExpedited()} 把之后的失败按最终失败处理（溢写或丢弃），在途批次能在关闭超时内排空
+ */
+final class PendingRetries {
+
+    private final ScheduledExecutorService scheduler;
+    private final Set<Task> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean expedited;
+
+    PendingRetries(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 延迟执行重试（已提前执行时立即执行）
+     *
+     * @throws java.util.concurrent.RejectedExecutionException 定时器已关闭
+     */
+    void schedule(Runnable action, long delayMillis) {
+        Task task = new Task(action);
+        pending.add(task);
+        if (expedited) {
+            scheduler.execute(task);
+            return;
+        }
+        scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        if (expedited) {
+            // 与 expedite() 并发：任务可能已被提前执行，Task 保证只执行一次
+            scheduler.execute(task);
+        }
+    }
+
+    /**
+     * 立即执行所有已调度的重试
+     */
+    void expedite() {
+        expedited = true;
+        for (Task task : pending) {
+            scheduler.execute(task);
+        }
+    }
+
+    boolean isExpedited() {
+        return expedited;
+    }
+
+    private final class Task implements Runnable {
+
+        private final Runnable action;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Task(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            if (started.compareAndSet(false, true)) {
+                pending.remove(this);
+                action.run();
+            }
+        }
+    }
+}
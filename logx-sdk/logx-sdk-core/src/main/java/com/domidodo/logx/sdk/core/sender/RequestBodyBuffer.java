@@ -0,0 +1,280 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 可复用的 HTTP 请求体缓冲
+ * <p>
+ * 每个在途批次独占一个实例，批次完成（含重试）后归还：
+ * 1. 日志经 JsonLogEncoder 直接编码进本缓冲，或先经过压缩流
+ * 2. 字节数组跨批次复用，发送时直接包装为请求体，不再复制
+ * 3. gzip 压缩复用同一个 Deflater；zstd 通过反射加载 zstd-jni
+ * 4. 网关不支持当前压缩方式（415）时可原地转换为其他编码，不需要重新编码日志
+ */
+@Slf4j
+class RequestBodyBuffer extends OutputStream {
+
+    static final String GZIP = "gzip";
+    static final String ZSTD = "zstd";
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    /**
+     * 超过该大小的缓冲在下次使用前收缩，避免偶发大批次长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024 * 1024;
+
+    private static final Constructor<?> ZSTD_STREAM = loadZstdStream();
+    private static final Constructor<?> ZSTD_INPUT_STREAM = loadZstdInputStream();
+
+    private byte[] buf = new byte[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * 当前内容的编码（null 表示不压缩）
+     */
+    private String encoding;
+
+    private final JsonLogEncoder encoder = new JsonLogEncoder(8 * 1024);
+    private GzipStream gzip;
+
+    /**
+     * 返回实际可用的编码方式（zstd 不可用时回退为 gzip，未知值视为不压缩）
+     */
+    static String resolveEncoding(String compression) {
+        if (ZSTD.equalsIgnoreCase(compression)) {
+            if (ZSTD_STREAM != null) {
+                return ZSTD;
+            }
+            log.warn("未找到 zstd-jni，请求体压缩回退为 gzip");
+            return GZIP;
+        }
+        return GZIP.equalsIgnoreCase(compression) ? GZIP : null;
+    }
+
+    /**
+     * 编码一个批次，覆盖之前的内容
+     *
+     * @param encoding gzip、zstd 或 null（不压缩）
+     */
+    void encode(List<LogEntry> entries, String encoding) throws IOException {
+        reset();
+        this.encoding = encoding;
+        if (GZIP.equals(encoding)) {
+            if (gzip == null) {
+                gzip = new GzipStream(this);
+            }
+            gzip.begin();
+            encoder.encode(entries, gzip);
+            gzip.finish();
+        } else if (ZSTD.equals(encoding)) {
+            try (OutputStream zstd = newZstdStream()) {
+                encoder.encode(entries, zstd);
+            }
+        } else {
+            encoder.encode(entries, this);
+        }
+    }
+
+    /**
+     * 将当前内容转换为另一种编码，覆盖之前的内容
+     *
+     * @param target gzip 或 null（不压缩）
+     */
+    void transcode(String target) throws IOException {
+        byte[] raw = decompress(buf, 0, count, encoding);
+        reset();
+        this.encoding = target;
+        if (GZIP.equals(target)) {
+            if (gzip == null) {
+                gzip = new GzipStream(this);
+            }
+            gzip.begin();
+            gzip.write(raw, 0, raw.length);
+            gzip.finish();
+        } else {
+            write(raw, 0, raw.length);
+        }
+    }
+
+    /**
+     * 当前内容的编码（null 表示不压缩）
+     */
+    String encoding() {
+        return encoding;
+    }
+
+    /**
+     * 网关不支持某种压缩方式时的降级编码：zstd → gzip → 不压缩
+     */
+    static String fallbackEncoding(String encoding) {
+        return ZSTD.equals(encoding) ? GZIP : null;
+    }
+
+    /**
+     * 解压请求体
+     *
+     * @param encoding gzip、zstd 或 null（原样返回副本）
+     */
+    static byte[] decompress(byte[] data, int offset, int length, String encoding) throws IOException {
+        InputStream in = new ByteArrayInputStream(data, offset, length);
+        if (GZIP.equals(encoding)) {
+            in = new GZIPInputStream(in);
+        } else if (ZSTD.equals(encoding)) {
+            if (ZSTD_INPUT_STREAM == null) {
+                throw new IOException("未找到 zstd-jni，无法解压");
+            }
+            try {
+                in = (InputStream) ZSTD_INPUT_STREAM.newInstance(in);
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("创建 zstd 解压流失败", e);
+            }
+        }
+        try (InputStream decompressed = in) {
+            return decompressed.readAllBytes();
+        }
+    }
+
+    /**
+     * 以当前内容构造请求体（不复制字节数组，在归还前有效）
+     */
+    HttpRequest.BodyPublisher publisher() {
+        return HttpRequest.BodyPublishers.ofByteArray(buf, 0, count);
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * 将当前内容复制到目标数组
+     */
+    void copyTo(byte[] target, int offset) {
+        System.arraycopy(buf, 0, target, offset, count);
+    }
+
+    /**
+     * 释放压缩器持有的本地内存
+     */
+    void dispose() {
+        if (gzip != null) {
+            gzip.end();
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    /**
+     * 压缩流关闭时会级联关闭本缓冲，此处不做任何处理
+     */
+    @Override
+    public void close() {
+    }
+
+    private void reset() {
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new byte[INITIAL_CAPACITY];
+        }
+        count = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length << 1));
+        }
+    }
+
+    private OutputStream newZstdStream() throws IOException {
+        try {
+            return (OutputStream) ZSTD_STREAM.newInstance(this);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("创建 zstd 压缩流失败", e);
+        }
+    }
+
+    private static Constructor<?> loadZstdStream() {
+        try {
+            return Class.forName("com.github.luben.zstd.ZstdOutputStream").getConstructor(OutputStream.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static Constructor<?> loadZstdInputStream() {
+        try {
+            return Class.forName("com.github.luben.zstd.ZstdInputStream").getConstructor(InputStream.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 可复用的 gzip 压缩流
+     * GZIPOutputStream 每次都会新建 Deflater，这里复用同一个 Deflater，手动写入 gzip 头尾
+     */
+    private static final class GzipStream extends DeflaterOutputStream {
+
+        private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+        private final CRC32 crc = new CRC32();
+
+        GzipStream(OutputStream out) {
+            super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true), 8 * 1024);
+        }
+
+        void begin() throws IOException {
+            def.reset();
+            crc.reset();
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            super.finish();
+            writeIntLE((int) crc.getValue());
+            writeIntLE((int) def.getBytesRead());
+        }
+
+        void end() {
+            def.end();
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            out.write(value & 0xFF);
+            out.write((value >> 8) & 0xFF);
+            out.write((value >> 16) & 0xFF);
+            out.write((value >> 24) & 0xFF);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.sdk.core.config.LogXConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 发送重试策略（HTTP 与 gRPC 发送器共用）
+ * <p>
+ * 1. 熔断：见 {@link CircuitBreaker}，熔断中的批次不发送也不重试
+ * 2. 重试预算：令牌桶，算法同 gRPC retryThrottling——成功存入 ratio 个令牌，失败取出 1 个，
+ * 令牌数超过上限一半时才允许重试，网关持续失败时重试自动停止，重试流量不超过成功流量的 ratio 倍
+ * 3. 退避：带等比抖动的指数退避，由调用方在定时器上调度，不阻塞发送线程
+ */
+final class RetryPolicy {
+
+    /**
+     * 重试退避基数与上限（毫秒）
+     */
+    private static final long BASE_DELAY_MS = 500L;
+    private static final long MAX_DELAY_MS = 30_000L;
+
+    /**
+     * 令牌上限（按千分之一令牌计数）
+     */
+    private static final int MAX_TOKENS = 10_000;
+
+    private final int maxRetries;
+    private final int tokenRatio;
+    private final AtomicInteger tokens = new AtomicInteger(MAX_TOKENS);
+    private final CircuitBreaker breaker;
+
+    RetryPolicy(LogXConfig config, String name, DeliveryCounters counters) {
+        this.maxRetries = config.getMaxRetries();
+        this.tokenRatio = (int) Math.round(Math.max(0.0, config.getRetryBudgetRatio()) * 1000);
+        this.breaker = new CircuitBreaker(name, config.isCircuitBreakerEnabled(),
+                config.getCircuitFailureThreshold(), config.getCircuitOpenDuration().toNanos(), counters);
+    }
+
+    /**
+     * 申请发送一个新批次
+     *
+     * @return false 表示熔断中
+     */
+    boolean tryAcquire() {
+        return breaker.tryAcquire();
+    }
+
+    /**
+     * 熔断器是否放行
+     */
+    boolean isAvailable() {
+        return breaker.isAvailable();
+    }
+
+    /**
+     * 网关正常响应（包括被网关拒绝、不可重试的请求）
+     */
+    void onSuccess() {
+        breaker.onSuccess();
+        tokens.getAndUpdate(current -> Math.min(MAX_TOKENS, current + tokenRatio));
+    }
+
+    /**
+     * 网关不可用类的失败
+     */
+    void onFailure() {
+        breaker.onFailure();
+        tokens.getAndUpdate(current -> Math.max(0, current - 1000));
+    }
+
+    /**
+     * 第 attempt 次尝试失败后是否重试：未达最大次数、熔断器关闭且重试预算充足
+     */
+    boolean shouldRetry(int attempt) {
+        return attempt < maxRetries
+                && breaker.state() == CircuitBreaker.State.CLOSED
+                && tokens.get() > MAX_TOKENS / 2;
+    }
+
+    /**
+     * 指数退避加等比抖动：在 [base/2, base] 内随机，避免大量客户端同时重试
+     */
+    long backoffMillis(int attempt) {
+        long base = Math.min(BASE_DELAY_MS << Math.min(Math.max(attempt, 1) - 1, 16), MAX_DELAY_MS);
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+}
@@ -0,0 +1,139 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Status;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 静态地址列表解析器
+ * <p>
+ * 目标格式 logx-static:///host1:port1,host2:port2，每个地址作为一个后端交给负载均衡策略；
+ * 主机名在 start / refresh 时解析，连接断开后 gRPC 会触发 refresh，DNS 变更可以被感知
+ */
+final class StaticNameResolverProvider extends NameResolverProvider {
+
+    static final String SCHEME = "logx-static";
+
+    private static final AtomicBoolean REGISTERED = new AtomicBoolean();
+
+    /**
+     * 注册到默认解析器注册表（只注册一次）
+     */
+    static void register() {
+        if (REGISTERED.compareAndSet(false, true)) {
+            NameResolverRegistry.getDefaultRegistry().register(new StaticNameResolverProvider());
+        }
+    }
+
+    /**
+     * 生成 channel 目标地址
+     */
+    static String target(List<String> endpoints) {
+        return SCHEME + ":///" + String.join(",", endpoints);
+    }
+
+    @Override
+    protected boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * 最低优先级，不会成为默认 scheme
+     */
+    @Override
+    protected int priority() {
+        return 0;
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        String path = targetUri.getPath();
+        List<String> endpoints = new ArrayList<>();
+        for (String endpoint : (path.startsWith("/") ? path.substring(1) : path).split(",")) {
+            if (!endpoint.isBlank()) {
+                endpoints.add(endpoint.trim());
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("gRPC 节点列表不能为空: " + targetUri);
+        }
+        return new StaticNameResolver(endpoints);
+    }
+
+    private static final class StaticNameResolver extends NameResolver {
+
+        private final List<String> endpoints;
+        private Listener2 listener;
+
+        private StaticNameResolver(List<String> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        @Override
+        public String getServiceAuthority() {
+            return endpoints.get(0);
+        }
+
+        @Override
+        public void start(Listener2 listener) {
+            this.listener = listener;
+            resolve();
+        }
+
+        @Override
+        public void refresh() {
+            resolve();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        private void resolve() {
+            List<EquivalentAddressGroup> groups = new ArrayList<>(endpoints.size());
+            for (String endpoint : endpoints) {
+                SocketAddress address = parse(endpoint);
+                if (!((InetSocketAddress) address).isUnresolved()) {
+                    groups.add(new EquivalentAddressGroup(address));
+                }
+            }
+            if (groups.isEmpty()) {
+                listener.onError(Status.UNAVAILABLE.withDescription("无法解析 gRPC 节点: " + endpoints));
+                return;
+            }
+            listener.onResult(ResolutionResult.newBuilder().setAddresses(groups).build());
+        }
+
+        /**
+         * 解析 host:port（IPv6 地址写作 [::1]:9090）
+         */
+        private static SocketAddress parse(String endpoint) {
+            int colon = endpoint.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("gRPC 节点格式应为 host:port: " + endpoint);
+            }
+            String host = endpoint.substring(0, colon);
+            if (host.startsWith("[") && host.endsWith("]")) {
+                host = host.substring(1, host.length() - 1);
+            }
+            return new InetSocketAddress(host, Integer.parseInt(endpoint.substring(colon + 1)));
+        }
+    }
+}
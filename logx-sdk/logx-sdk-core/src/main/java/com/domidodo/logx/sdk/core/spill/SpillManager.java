@@ -0,0 +1,76 @@
+package com.domidodo.logx.sdk.core.spill;
+
+import com.domidodo.logx.sdk.core.config.LogXConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 溢写存储与重放线程的组合，供发送器使用
+ */
+@Slf4j
+public class SpillManager {
+
+    private final SpillStore store;
+    private final SpillReplayer replayer;
+
+    private SpillManager(SpillStore store, SpillReplayer replayer) {
+        this.store = store;
+        this.replayer = replayer;
+    }
+
+    /**
+     * 按配置创建溢写存储并启动重放线程
+     *
+     * @param name     发送器名称，用于区分目录（http / grpc）
+     * @param resender 同步重发一条记录，语义见 {@link SpillReplayer}
+     * @return 未启用或目录不可用时返回 null
+     */
+    public static SpillManager create(LogXConfig config, String name, Predicate<byte[]> resender) {
+        if (!config.isSpillEnabled()) {
+            return null;
+        }
+        Path directory = resolveDirectory(config, name);
+        try {
+            SpillStore store = new SpillStore(directory, config.getSpillSegmentBytes(), config.getSpillMaxBytes());
+            SpillReplayer replayer = new SpillReplayer(store, resender, config.getSpillReplayRate());
+            replayer.start();
+            log.info("LogX 磁盘溢写已启用: {}", directory);
+            return new SpillManager(store, replayer);
+        } catch (IOException e) {
+            log.error("LogX 磁盘溢写不可用，发送失败的日志将被丢弃: {}", directory, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入一个发送失败的批次
+     */
+    public boolean spill(byte[] payload) {
+        return store.append(payload);
+    }
+
+    public SpillStore getStore() {
+        return store;
+    }
+
+    /**
+     * 停止重放并关闭存储，未重放的数据保留到下次启动
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        replayer.shutdown(timeout, unit);
+        store.close();
+    }
+
+    private static Path resolveDirectory(LogXConfig config, String name) {
+        if (config.getSpillDirectory() != null && !config.getSpillDirectory().isBlank()) {
+            return Paths.get(config.getSpillDirectory(), name);
+        }
+        String system = config.getSystemId() != null ? config.getSystemId() : "default";
+        return Paths.get(System.getProperty("java.io.tmpdir"), "logx-spill", system, name);
+    }
+}
@@ -0,0 +1,88 @@
+package com.domidodo.logx.sdk.core.spill;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * 溢写数据重放线程
+ * <p>
+ * 按写入顺序逐条重放溢写记录：
+ * 1. 重放速率不超过 batchesPerSecond，避免网关恢复时被积压数据冲垮
+ * 2. 重放失败说明网关仍不可用，按指数退避等待后再试（重放本身即健康探测）
+ * 3. 存储为空时低频轮询
+ */
+@Slf4j
+public class SpillReplayer implements Runnable {
+
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final SpillStore store;
+    private final Predicate<byte[]> resender;
+    private final long intervalNanos;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param resender         同步重发一条记录；返回 true 表示已处理（成功或不可重试的拒绝），false 表示稍后重试
+     * @param batchesPerSecond 每秒最多重放的批次数
+     */
+    public SpillReplayer(SpillStore store, Predicate<byte[]> resender, int batchesPerSecond) {
+        this.store = store;
+        this.resender = resender;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, batchesPerSecond);
+        this.thread = new Thread(this, "logx-spill-replay");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        long backoff = MIN_BACKOFF_NANOS;
+        while (running) {
+            byte[] payload = store.peek();
+            if (payload == null) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+
+            boolean handled;
+            try {
+                handled = resender.test(payload);
+            } catch (Exception e) {
+                log.debug("重放溢写数据失败", e);
+                handled = false;
+            }
+
+            if (handled) {
+                store.commit();
+                backoff = MIN_BACKOFF_NANOS;
+                LockSupport.parkNanos(this, intervalNanos);
+            } else {
+                LockSupport.parkNanos(this, backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    /**
+     * 停止重放线程（未重放的数据保留在磁盘上，下次启动继续）
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(unit.toMillis(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.domidodo.logx.sdk.core.spill;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 磁盘溢写存储
+ * <p>
+ * 网关不可用时，发送失败的批次以不透明字节写入本地磁盘，恢复后按写入顺序重放：
+ * 1. 按段存储：每段是一个内存映射的只追加文件，记录格式为 [长度][CRC32][数据]
+ * 2. 读取位置记录在 cursor 文件中，进程重启后从上次位置继续重放，已重放完的段直接删除
+ * 3. 总大小超过上限时淘汰最旧的段
+ * 4. 目录通过文件锁独占，同一目录只允许一个进程（进程内一个客户端）使用
+ * <p>
+ * 写入只落到页缓存（滚动段和关闭时 force），进程崩溃不丢数据，操作系统崩溃可能丢失最近写入
+ */
+@Slf4j
+public class SpillStore implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".spill";
+    private static final String CURSOR_FILE = "cursor";
+    private static final String LOCK_FILE = ".lock";
+
+    /**
+     * 记录头：长度（4 字节）+ CRC32（4 字节）
+     */
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final MappedByteBuffer cursor;
+
+    /**
+     * 段 ID -> 文件大小（按 ID 递增即写入顺序）
+     */
+    private final TreeMap<Long, Long> segments = new TreeMap<>();
+    private long totalBytes;
+    private long lastSegmentId;
+
+    // 写入端
+    private long writeId = -1;
+    private MappedByteBuffer writeBuffer;
+
+    // 读取端
+    private long readId = -1;
+    private ByteBuffer readBuffer;
+    private int readOffset;
+    private int peekedLength = -1;
+
+    private final CRC32 crc = new CRC32();
+
+    private final LongAdder spilledBatches = new LongAdder();
+    private final LongAdder replayedBatches = new LongAdder();
+    private final LongAdder evictedSegments = new LongAdder();
+
+    /**
+     * @param directory    存储目录
+     * @param segmentBytes 单个段文件大小
+     * @param maxBytes     所有段文件的总大小上限
+     * @throws IOException 目录不可用，或已被其他进程或本进程中的其他客户端占用
+     */
+    public SpillStore(Path directory, long segmentBytes, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = Math.max(segmentBytes, 64 * 1024);
+        this.maxBytes = Math.max(maxBytes, this.segmentBytes);
+
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 同一进程中的另一个客户端已持有该目录的锁
+            lockChannel.close();
+            throw new IOException("溢写目录已被本进程中的其他客户端占用: " + directory, e);
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IOException("溢写目录已被其他进程占用: " + directory);
+        }
+        this.lock = acquired;
+
+        try {
+            try (FileChannel channel = FileChannel.open(directory.resolve(CURSOR_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.cursor = channel.map(FileChannel.MapMode.READ_WRITE, 0, 16);
+            }
+            recover();
+        } catch (IOException | RuntimeException e) {
+            // 初始化失败时释放目录锁，后续客户端仍可使用该目录
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return false 表示记录超过存储上限或写入失败
+     */
+    public synchronized boolean append(byte[] payload) {
+        int required = HEADER_BYTES + payload.length;
+        if (required > maxBytes) {
+            log.warn("溢写记录过大（{} 字节），已丢弃", payload.length);
+            return false;
+        }
+
+        try {
+            if (writeBuffer == null || writeBuffer.remaining() < required) {
+                rollSegment(required);
+            }
+        } catch (IOException e) {
+            log.error("创建溢写段失败: {}", directory, e);
+            return false;
+        }
+
+        crc.reset();
+        crc.update(payload);
+        writeBuffer.putInt(payload.length);
+        writeBuffer.putInt((int) crc.getValue());
+        writeBuffer.put(payload);
+        spilledBatches.increment();
+        return true;
+    }
+
+    /**
+     * 读取最旧的一条未重放记录（不移动读取位置）
+     *
+     * @return 记录数据，没有待重放记录时返回 null
+     */
+    public synchronized byte[] peek() {
+        while (true) {
+            if (readBuffer == null && !openNextReadSegment()) {
+                return null;
+            }
+
+            if (readOffset + HEADER_BYTES <= readBuffer.limit()) {
+                int length = readBuffer.getInt(readOffset);
+                if (length > 0 && readOffset + HEADER_BYTES + length <= readBuffer.limit()) {
+                    byte[] payload = new byte[length];
+                    readBuffer.get(readOffset + HEADER_BYTES, payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() == readBuffer.getInt(readOffset + 4)) {
+                        peekedLength = length;
+                        return payload;
+                    }
+                    log.warn("溢写段 {} 在偏移 {} 处校验失败，跳过该段剩余内容", readId, readOffset);
+                }
+            }
+
+            // 当前段没有更多记录
+            if (readId == writeId) {
+                return null;
+            }
+            deleteSegment(readId);
+            readId = -1;
+            readBuffer = null;
+        }
+    }
+
+    /**
+     * 确认 peek 返回的记录已重放，移动读取位置
+     */
+    public synchronized void commit() {
+        if (peekedLength < 0 || readBuffer == null) {
+            return;
+        }
+        readOffset += HEADER_BYTES + peekedLength;
+        peekedLength = -1;
+        cursor.putLong(0, readId);
+        cursor.putLong(8, readOffset);
+        replayedBatches.increment();
+    }
+
+    /**
+     * 段文件占用的磁盘大小
+     */
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    public long getSpilledBatches() {
+        return spilledBatches.sum();
+    }
+
+    public long getReplayedBatches() {
+        return replayedBatches.sum();
+    }
+
+    public long getEvictedSegments() {
+        return evictedSegments.sum();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writeBuffer != null) {
+            writeBuffer.force();
+        }
+        cursor.force();
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("释放溢写目录锁失败: {}", directory, e);
+        }
+    }
+
+    /**
+     * 扫描已有段文件并恢复读取位置；写入总是从新段开始
+     */
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(path -> {
+                        String name = path.getFileName().toString();
+                        try {
+                            long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                            long size = Files.size(path);
+                            segments.put(id, size);
+                            totalBytes += size;
+                        } catch (NumberFormatException | IOException e) {
+                            log.warn("忽略无法识别的溢写文件: {}", path);
+                        }
+                    });
+        }
+        lastSegmentId = segments.isEmpty() ? 0 : segments.lastKey();
+
+        long cursorId = cursor.getLong(0);
+        long cursorOffset = cursor.getLong(8);
+        // 游标之前的段已重放完
+        while (!segments.isEmpty() && segments.firstKey() < cursorId) {
+            deleteSegment(segments.firstKey());
+        }
+        if (segments.containsKey(cursorId)) {
+            readId = cursorId;
+            readBuffer = map(cursorId, FileChannel.MapMode.READ_ONLY, segments.get(cursorId));
+            readOffset = (int) Math.min(cursorOffset, readBuffer.limit());
+        }
+
+        if (!segments.isEmpty()) {
+            log.info("发现待重放的溢写数据: {} 个段，{} 字节", segments.size(), totalBytes);
+        }
+    }
+
+    private boolean openNextReadSegment() {
+        Map.Entry<Long, Long> first = segments.firstEntry();
+        if (first == null) {
+            return false;
+        }
+        readId = first.getKey();
+        readOffset = 0;
+        if (readId == writeId) {
+            readBuffer = writeBuffer.duplicate();
+            return true;
+        }
+        try {
+            readBuffer = map(readId, FileChannel.MapMode.READ_ONLY, first.getValue());
+            return true;
+        } catch (IOException e) {
+            log.error("读取溢写段失败，已删除: {}", segmentPath(readId), e);
+            deleteSegment(readId);
+            readId = -1;
+            return openNextReadSegment();
+        }
+    }
+
+    private void rollSegment(int required) throws IOException {
+        if (writeBuffer != null) {
+            writeBuffer.force();
+        }
+        long size = Math.max(segmentBytes, required);
+        evictFor(size);
+
+        long id = ++lastSegmentId;
+        writeBuffer = map(id, FileChannel.MapMode.READ_WRITE, size);
+        writeId = id;
+        segments.put(id, size);
+        totalBytes += size;
+    }
+
+    /**
+     * 淘汰最旧的段，直到能容纳新段
+     */
+    private void evictFor(long incoming) {
+        while (!segments.isEmpty() && totalBytes + incoming > maxBytes) {
+            long oldest = segments.firstKey();
+            log.warn("溢写存储超过上限 {} 字节，淘汰最旧的段 {}", maxBytes, oldest);
+            deleteSegment(oldest);
+            evictedSegments.increment();
+            if (oldest == readId) {
+                readId = -1;
+                readBuffer = null;
+                peekedLength = -1;
+            }
+            if (oldest == writeId) {
+                writeId = -1;
+                writeBuffer = null;
+            }
+        }
+    }
+
+    private MappedByteBuffer map(long id, FileChannel.MapMode mode, long size) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(segmentPath(id), options)) {
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private void deleteSegment(long id) {
+        Long size = segments.remove(id);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(segmentPath(id));
+        } catch (IOException e) {
+            log.warn("删除溢写段失败: {}", segmentPath(id), e);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+}
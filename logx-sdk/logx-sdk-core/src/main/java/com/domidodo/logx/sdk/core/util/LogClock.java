@@ -0,0 +1,71 @@
+package com.domidodo.logx.sdk.core.util;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 日志时钟（微秒时间戳）
+ * <p>
+ * 1. 粗粒度模式（默认）：后台线程每毫秒刷新一次缓存的时间，读取只是一次 volatile 读，精度为 1 毫秒
+ * 2. 精确模式：每次读取系统时钟，精度取决于操作系统（通常为微秒）
+ * <p>
+ * 时间戳为 UTC 纪元微秒，不涉及时区转换
+ */
+public final class LogClock {
+
+    private static final long RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final boolean precise;
+    private final Thread updater;
+
+    private volatile long cachedMicros;
+    private volatile boolean running = true;
+
+    /**
+     * @param precise true 为精确模式，false 为粗粒度模式
+     */
+    public LogClock(boolean precise) {
+        this.precise = precise;
+        if (precise) {
+            this.updater = null;
+            return;
+        }
+        this.cachedMicros = preciseMicros();
+        this.updater = new Thread(this::update, "logx-clock");
+        this.updater.setDaemon(true);
+        this.updater.start();
+    }
+
+    /**
+     * 当前时间（纪元微秒）
+     */
+    public long currentTimeMicros() {
+        return precise ? preciseMicros() : cachedMicros;
+    }
+
+    /**
+     * 停止刷新线程
+     */
+    public void shutdown() {
+        running = false;
+        if (updater != null) {
+            LockSupport.unpark(updater);
+        }
+    }
+
+    private void update() {
+        while (running) {
+            LockSupport.parkNanos(this, RESOLUTION_NANOS);
+            cachedMicros = preciseMicros();
+        }
+    }
+
+    /**
+     * 读取系统时钟（纪元微秒）
+     */
+    public static long preciseMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000L;
+    }
+}
@@ -0,0 +1,144 @@
+package com.domidodo.logx.sdk.core.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 参数化日志消息格式化（占位符语法与 SLF4J 一致）
+ * <p>
+ * 1. {} 依次替换为参数，\{} 输出字面量 {}，参数不足时保留占位符，多余参数忽略
+ * 2. 数组参数按 Arrays.toString 输出，toString 抛出异常时输出异常说明而不是中断日志
+ * 3. 最后一个参数是异常且没有对应的占位符时视为日志异常（见 {@link #trailingThrowable}）
+ */
+public final class MessageFormatter {
+
+    private static final char DELIMITER_START = '{';
+    private static final String DELIMITER = "{}";
+    private static final char ESCAPE = '\\';
+
+    /**
+     * 不可变的参数类型，延迟到刷新线程格式化也不会输出被修改后的值
+     */
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class, UUID.class, Class.class);
+
+    private MessageFormatter() {
+    }
+
+    /**
+     * 格式化消息
+     *
+     * @param pattern 消息模板，为 null 时返回 null
+     * @param args    参数，为空时原样返回模板
+     */
+    public static String format(String pattern, Object[] args) {
+        if (pattern == null || args == null || args.length == 0) {
+            return pattern;
+        }
+        StringBuilder sb = new StringBuilder(pattern.length() + 16 * args.length);
+        int start = 0;
+        int argIndex = 0;
+        while (argIndex < args.length) {
+            int index = pattern.indexOf(DELIMITER, start);
+            if (index < 0) {
+                break;
+            }
+            if (isEscaped(pattern, index)) {
+                if (isEscaped(pattern, index - 1)) {
+                    // \\{} 输出一个反斜杠，占位符仍然生效
+                    sb.append(pattern, start, index - 1);
+                    appendArg(sb, args[argIndex++]);
+                } else {
+                    sb.append(pattern, start, index - 1).append(DELIMITER_START);
+                    index -= 1;
+                    start = index + 2;
+                    continue;
+                }
+            } else {
+                sb.append(pattern, start, index);
+                appendArg(sb, args[argIndex++]);
+            }
+            start = index + 2;
+        }
+        sb.append(pattern, start, pattern.length());
+        return sb.toString();
+    }
+
+    /**
+     * 最后一个参数是异常且没有对应占位符时返回该异常，调用方应将其从参数中移除
+     */
+    public static Throwable trailingThrowable(String pattern, Object[] args) {
+        if (args == null || args.length == 0 || !(args[args.length - 1] instanceof Throwable throwable)) {
+            return null;
+        }
+        return countPlaceholders(pattern) < args.length ? throwable : null;
+    }
+
+    /**
+     * 参数是否都可以延迟格式化：null、不可变的值类型、枚举和 java.time 类型；
+     * 其他对象可能在入队后被调用方修改，应在调用线程上格式化
+     */
+    public static boolean canDefer(Object[] args) {
+        for (Object arg : args) {
+            if (arg != null && !IMMUTABLE_TYPES.contains(arg.getClass())
+                    && !(arg instanceof Enum<?>)
+                    && !arg.getClass().getName().startsWith("java.time.")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int countPlaceholders(String pattern) {
+        if (pattern == null) {
+            return 0;
+        }
+        int count = 0;
+        int index = pattern.indexOf(DELIMITER);
+        while (index >= 0) {
+            if (!isEscaped(pattern, index) || isEscaped(pattern, index - 1)) {
+                count++;
+            }
+            index = pattern.indexOf(DELIMITER, index + 2);
+        }
+        return count;
+    }
+
+    private static boolean isEscaped(String pattern, int delimiterIndex) {
+        return delimiterIndex > 0 && pattern.charAt(delimiterIndex - 1) == ESCAPE;
+    }
+
+    private static void appendArg(StringBuilder sb, Object arg) {
+        try {
+            if (arg == null || !arg.getClass().isArray()) {
+                sb.append(arg);
+            } else if (arg instanceof Object[] array) {
+                sb.append(Arrays.deepToString(array));
+            } else if (arg instanceof int[] array) {
+                sb.append(Arrays.toString(array));
+            } else if (arg instanceof long[] array) {
+                sb.append(Arrays.toString(array));
+            } else if (arg instanceof byte[] array) {
+                sb.append(Arrays.toString(array));
+            } else if (arg instanceof short[] array) {
+                sb.append(Arrays.toString(array));
+            } else if (arg instanceof char[] array) {
+                sb.append(Arrays.toString(array));
+            } else if (arg instanceof double[] array) {
+                sb.append(Arrays.toString(array));
+            } else if (arg instanceof float[] array) {
+                sb.append(Arrays.toString(array));
+            } else {
+                sb.append(Arrays.toString((boolean[]) arg));
+            }
+        } catch (Exception e) {
+            sb.append("[toString 失败: ").append(arg.getClass().getName())
+                    .append(": ").append(e.getMessage()).append(']');
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.domidodo.logx.sdk.core;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.sender.LogSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 无垃圾模式：稳态下 info() 在调用线程上不分配对象
+ * <p>
+ * 通过 ThreadMXBean 统计当前线程的分配字节数；先预热足够多的调用让 JIT 完成编译（逃逸分析生效），再要求连续若干轮均为 0。
+ * 同一 JVM 中其他测试占用编译线程时 C2 编译可能晚于预热完成，之前的轮次仍会分配，因此允许在有限轮次内达到稳态
+ */
+class GarbageFreeAllocationTest {
+
+    private static final int CALLS_PER_ROUND = 1000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int MAX_ROUNDS = 500;
+
+    private final AtomicLong sentCount = new AtomicLong();
+    private com.sun.management.ThreadMXBean threadMXBean;
+    private LogXClient client;
+    private long loggedCount;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        // 未设置 locationCapture：无垃圾模式下默认不遍历调用栈
+        client = LogXClient.builder()
+                .apiKey("test")
+                .tenantId("tenant")
+                .systemId("system")
+                .sender(new CountingSender())
+                .garbageFree(true)
+                .bufferSize(4096)
+                .flushInterval(Duration.ofMillis(5))
+                .build();
+        LogXLogger.initClient(client);
+    }
+
+    @AfterEach
+    void tearDown() {
+        LogXLogger.initClient(null);
+        if (client != null) {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    void clientInfoDoesNotAllocate() throws InterruptedException {
+        assertSteadyStateAllocatesNothing(() -> client.info("order created"));
+    }
+
+    @Test
+    void loggerInfoDoesNotAllocate() throws InterruptedException {
+        LogXLogger logger = LogXLogger.getLogger(GarbageFreeAllocationTest.class);
+        assertSteadyStateAllocatesNothing(() -> logger.info("order created"));
+    }
+
+    private void assertSteadyStateAllocatesNothing(Runnable call) throws InterruptedException {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(call);
+        }
+        int zeroRounds = 0;
+        long allocated = 0L;
+        for (int round = 0; round < MAX_ROUNDS && zeroRounds < MEASURED_ROUNDS; round++) {
+            allocated = runRound(call);
+            zeroRounds = allocated == 0L ? zeroRounds + 1 : 0;
+        }
+        assertEquals(MEASURED_ROUNDS, zeroRounds,
+                MAX_ROUNDS + " 轮内未达到连续不分配的轮数，最后一轮 info() 分配 " + allocated + " 字节");
+    }
+
+    /**
+     * 执行一轮调用并返回调用线程分配的字节数；等待刷新线程发送完毕，对象池不会被取空
+     */
+    private long runRound(Runnable call) throws InterruptedException {
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < CALLS_PER_ROUND; i++) {
+            call.run();
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        loggedCount += CALLS_PER_ROUND;
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (sentCount.get() < loggedCount) {
+            if (System.nanoTime() > deadline) {
+                fail("刷新线程未在 10 秒内发送完毕");
+            }
+            Thread.sleep(1);
+        }
+        return allocated;
+    }
+
+    private class CountingSender implements LogSender {
+
+        @Override
+        public void send(LogEntry entry) {
+            sentCount.incrementAndGet();
+        }
+
+        @Override
+        public void sendBatch(List<LogEntry> entries) {
+            sentCount.addAndGet(entries.size());
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
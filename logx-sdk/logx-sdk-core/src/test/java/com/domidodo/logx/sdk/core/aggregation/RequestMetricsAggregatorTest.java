@@ -0,0 +1,185 @@
+package com.domidodo.logx.sdk.core.aggregation;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 请求 RED 指标聚合：汇总日志、键数量上限、空闲键移除
+ */
+class RequestMetricsAggregatorTest {
+
+    /**
+     * 周期足够长，测试中只手动调用 flush
+     */
+    private static final Duration INTERVAL = Duration.ofHours(1);
+
+    private final ConcurrentLinkedQueue<LogEntry> emitted = new ConcurrentLinkedQueue<>();
+    private RequestMetricsAggregator aggregator;
+
+    @AfterEach
+    void tearDown() {
+        if (aggregator != null) {
+            aggregator.shutdown();
+        }
+    }
+
+    @Test
+    void flushEmitsOneSummaryPerKey() {
+        aggregator = newAggregator(10);
+        aggregator.record("/orders/{id}", "GET", "2xx", false, 5);
+        aggregator.record("/orders/{id}", "GET", "2xx", false, 15);
+        aggregator.record("/orders/{id}", "GET", "5xx", true, 100);
+
+        Map<String, LogEntry> summaries = flush();
+
+        assertEquals(2, summaries.size());
+        LogEntry ok = summaries.get("/orders/{id} 2xx");
+        assertEquals(2L, ok.getContext().get("count"));
+        assertEquals(0L, ok.getContext().get("errorCount"));
+        assertEquals(20L, ok.getContext().get("durationSum"));
+        assertEquals(RequestMetricsAggregator.RECORD_TYPE_METRIC,
+                ok.getContext().get(RequestMetricsAggregator.RECORD_TYPE_KEY));
+        assertTrue(ok.getTags().contains(RequestMetricsAggregator.METRIC_TAG));
+        assertEquals("GET", ok.getRequestMethod());
+        assertEquals(1L, summaries.get("/orders/{id} 5xx").getContext().get("errorCount"));
+
+        assertTrue(flush().isEmpty(), "累计值每个周期清零");
+    }
+
+    @Test
+    void routesBeyondTheCapAreMergedIntoOther() {
+        aggregator = newAggregator(2);
+        aggregator.record("/a", "GET", "2xx", false, 1);
+        aggregator.record("/b", "GET", "2xx", false, 1);
+        aggregator.record("/c", "GET", "2xx", false, 1);
+        aggregator.record("/d", "GET", "2xx", false, 1);
+        aggregator.record("/a", "GET", "2xx", false, 1);
+
+        Map<String, LogEntry> summaries = flush();
+
+        assertEquals(List.of("/a 2xx", "/b 2xx", "OTHER 2xx"), summaries.keySet().stream().sorted().toList());
+        assertEquals(2L, summaries.get("/a 2xx").getContext().get("count"));
+        assertEquals(2L, summaries.get("OTHER 2xx").getContext().get("count"));
+    }
+
+    @Test
+    void idleKeyIsKeptForFourIntervals() {
+        aggregator = newAggregator(1);
+        aggregator.record("/a", "GET", "2xx", false, 1);
+        flush();
+        for (int i = 0; i < 4; i++) {
+            flush();
+        }
+
+        aggregator.record("/b", "GET", "2xx", false, 1);
+
+        assertEquals(List.of("OTHER 2xx"), List.copyOf(flush().keySet()), "/a 仍占用唯一的键");
+    }
+
+    @Test
+    void idleKeyIsRemovedAfterFiveEmptyIntervals() {
+        aggregator = newAggregator(1);
+        aggregator.record("/a", "GET", "2xx", false, 1);
+        flush();
+        for (int i = 0; i < 5; i++) {
+            flush();
+        }
+
+        aggregator.record("/b", "GET", "2xx", false, 1);
+        aggregator.record("/a", "GET", "2xx", false, 1);
+
+        Map<String, LogEntry> summaries = flush();
+        assertEquals(List.of("/b 2xx", "OTHER 2xx"), summaries.keySet().stream().sorted().toList());
+    }
+
+    @Test
+    void requestsRecordedWhileKeysAreRemovedAreNotLost() throws InterruptedException {
+        aggregator = newAggregator(1000);
+        int threads = 4;
+        int perThread = 200_000;
+        AtomicBoolean done = new AtomicBoolean();
+
+        // 汇总线程持续执行，空闲键不断被停用移除
+        Thread flusher = new Thread(() -> {
+            while (!done.get()) {
+                aggregator.flush();
+            }
+        });
+        flusher.start();
+        List<Thread> recorders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread recorder = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    aggregator.record("/r" + random.nextInt(64), "GET", "2xx", false, 1);
+                }
+            });
+            recorders.add(recorder);
+            recorder.start();
+        }
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+        done.set(true);
+        flusher.join();
+        aggregator.flush();
+
+        long total = emitted.stream().mapToLong(entry -> (Long) entry.getContext().get("count")).sum();
+        assertEquals((long) threads * perThread, total);
+    }
+
+    @Test
+    void shutdownEmitsTheLastInterval() {
+        aggregator = newAggregator(10);
+        aggregator.record("/a", "POST", "2xx", false, 3);
+
+        aggregator.shutdown();
+
+        assertEquals(1, emitted.size());
+        aggregator = null;
+    }
+
+    @Test
+    void normalizePathReplacesIdentifiers() {
+        assertEquals("/orders/{id}/items/{id}", RequestMetricsAggregator.normalizePath("/orders/123/items/7"));
+        assertEquals("/users/{id}",
+                RequestMetricsAggregator.normalizePath("/users/3f2504e0-4f89-11d3-9a0c-0305e82c3301"));
+        assertEquals("/files/{id}", RequestMetricsAggregator.normalizePath("/files/0123456789abcdef0123"));
+        assertEquals("/orders/abc/v2", RequestMetricsAggregator.normalizePath("/orders/abc/v2"));
+        assertEquals("/orders/", RequestMetricsAggregator.normalizePath("/orders/"));
+    }
+
+    @Test
+    void statusClassGroupsByHundreds() {
+        assertEquals("2xx", RequestMetricsAggregator.statusClass(204));
+        assertEquals("5xx", RequestMetricsAggregator.statusClass(503));
+        assertEquals("unknown", RequestMetricsAggregator.statusClass(0));
+    }
+
+    private RequestMetricsAggregator newAggregator(int maxRoutes) {
+        return new RequestMetricsAggregator(INTERVAL, 0.0, maxRoutes, emitted::add);
+    }
+
+    /**
+     * 执行一次汇总，返回 "路由 状态" → 汇总日志
+     */
+    private Map<String, LogEntry> flush() {
+        emitted.clear();
+        aggregator.flush();
+        return emitted.stream().collect(Collectors.toMap(
+                entry -> entry.getRequestUrl() + " " + entry.getContext().get("status"), entry -> entry));
+    }
+}
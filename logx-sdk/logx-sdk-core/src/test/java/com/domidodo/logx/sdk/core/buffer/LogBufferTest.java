@@ -0,0 +1,174 @@
+package com.domidodo.logx.sdk.core.buffer;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 缓冲区并发写入与取出：三种溢出策略下不丢失、不重复，丢弃计数准确
+ */
+class LogBufferTest {
+
+    private static final int CAPACITY = 64;
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 50_000;
+
+    @Test
+    void dropNewestDeliversEveryAcceptedEntryExactlyOnce() throws InterruptedException {
+        LogBuffer buffer = new LogBuffer(CAPACITY, OverflowPolicy.DROP_NEWEST, Duration.ZERO);
+        Result result = run(buffer);
+
+        assertEquals(PRODUCERS * PER_PRODUCER, result.accepted + buffer.getDroppedCount(),
+                "写入成功数 + 丢弃数应等于写入总数");
+        assertEquals(result.accepted, result.received, "写入成功的日志都应被取出");
+    }
+
+    @Test
+    void dropOldestCountsEveryEvictedEntry() throws InterruptedException {
+        LogBuffer buffer = new LogBuffer(CAPACITY, OverflowPolicy.DROP_OLDEST, Duration.ZERO);
+        Result result = run(buffer);
+
+        assertEquals(PRODUCERS * PER_PRODUCER, result.accepted, "淘汰最旧日志后新日志总能写入");
+        assertEquals(result.accepted, result.received + buffer.getDroppedCount(),
+                "取出数 + 淘汰数应等于写入总数");
+    }
+
+    @Test
+    void blockWithTimeoutLosesNothingWhileConsumerKeepsUp() throws InterruptedException {
+        LogBuffer buffer = new LogBuffer(CAPACITY, OverflowPolicy.BLOCK_WITH_TIMEOUT, Duration.ofSeconds(10));
+        Result result = run(buffer);
+
+        assertEquals(PRODUCERS * PER_PRODUCER, result.accepted, "超时足够长时写入不应失败");
+        assertEquals(result.accepted, result.received);
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    void blockWithTimeoutDropsAfterTimeoutWhenNobodyDrains() {
+        LogBuffer buffer = new LogBuffer(2, OverflowPolicy.BLOCK_WITH_TIMEOUT, Duration.ofMillis(100));
+        assertTrue(buffer.add(entry(0, 0)));
+        assertTrue(buffer.add(entry(0, 1)));
+
+        long start = System.nanoTime();
+        assertFalse(buffer.add(entry(0, 2)), "缓冲区一直满时超时后丢弃");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis >= 100, "应等待到超时，实际 " + elapsedMillis + " 毫秒");
+        assertEquals(1, buffer.getDroppedCount());
+        assertEquals(List.of("0:0", "0:1"), messages(buffer.drain()), "已缓冲的日志不受影响");
+    }
+
+    @Test
+    void dropOldestEvictsFromTheHead() {
+        LogBuffer buffer = new LogBuffer(2, OverflowPolicy.DROP_OLDEST, Duration.ZERO);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.add(entry(0, i)));
+        }
+
+        assertEquals(3, buffer.getDroppedCount());
+        assertEquals(List.of("0:3", "0:4"), messages(buffer.drain()));
+    }
+
+    /**
+     * 多个生产者并发写入、一个消费者持续取出，生产者结束后取出剩余日志；
+     * 校验每条日志最多取出一次，且同一生产者的日志按写入顺序取出
+     */
+    private static Result run(LogBuffer buffer) throws InterruptedException {
+        AtomicLong accepted = new AtomicLong();
+        CountDownLatch ready = new CountDownLatch(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int seq = 0; seq < PER_PRODUCER; seq++) {
+                    if (buffer.add(entry(producer, seq))) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            }, "producer-" + p);
+            producers.add(thread);
+            thread.start();
+        }
+
+        AtomicBoolean producing = new AtomicBoolean(true);
+        boolean[][] seen = new boolean[PRODUCERS][PER_PRODUCER];
+        int[] lastSeq = new int[PRODUCERS];
+        Arrays.fill(lastSeq, -1);
+        long[] received = new long[1];
+        AssertionError[] failure = new AssertionError[1];
+        Thread consumer = new Thread(() -> {
+            try {
+                while (true) {
+                    boolean done = !producing.get();
+                    List<LogEntry> batch = buffer.drain(16);
+                    for (LogEntry entry : batch) {
+                        String[] parts = entry.getMessage().split(":");
+                        int producer = Integer.parseInt(parts[0]);
+                        int seq = Integer.parseInt(parts[1]);
+                        assertFalse(seen[producer][seq], "日志被重复取出: " + entry.getMessage());
+                        assertTrue(seq > lastSeq[producer], "同一生产者的日志应按写入顺序取出: " + entry.getMessage());
+                        seen[producer][seq] = true;
+                        lastSeq[producer] = seq;
+                        received[0]++;
+                    }
+                    if (batch.isEmpty()) {
+                        if (done) {
+                            return;
+                        }
+                        LockSupport.parkNanos(1_000L);
+                    }
+                }
+            } catch (AssertionError e) {
+                failure[0] = e;
+            }
+        }, "consumer");
+        consumer.start();
+
+        assertTrue(ready.await(5, TimeUnit.SECONDS));
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join(TimeUnit.SECONDS.toMillis(60));
+            assertFalse(producer.isAlive(), "生产者应在超时内结束");
+        }
+        producing.set(false);
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(consumer.isAlive(), "消费者应在生产者结束后取完剩余日志");
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        assertTrue(buffer.isEmpty());
+        return new Result(accepted.get(), received[0]);
+    }
+
+    private static LogEntry entry(int producer, int seq) {
+        return LogEntry.builder().message(producer + ":" + seq).build();
+    }
+
+    private static List<String> messages(List<LogEntry> entries) {
+        return entries.stream().map(LogEntry::getMessage).toList();
+    }
+
+    private record Result(long accepted, long received) {
+    }
+}
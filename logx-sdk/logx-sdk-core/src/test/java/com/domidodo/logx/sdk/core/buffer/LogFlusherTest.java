@@ -0,0 +1,104 @@
+package com.domidodo.logx.sdk.core.buffer;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.sender.LogSender;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 刷新线程关闭：提前执行重试、关闭超时时不在调用线程上发送
+ */
+class LogFlusherTest {
+
+    @Test
+    void shutdownExpeditesRetriesBeforeWaitingForTheFlusherThread() throws InterruptedException {
+        LogBuffer buffer = new LogBuffer(16);
+        BlockingSender sender = new BlockingSender(true);
+        LogFlusher flusher = new LogFlusher(buffer, sender, null, 1, 0, Duration.ofMillis(1));
+        flusher.start();
+
+        buffer.add(LogEntry.builder().message("first").build());
+        flusher.flushNow();
+        assertTrue(sender.entered.await(5, TimeUnit.SECONDS), "刷新线程应进入 sendBatch");
+
+        long start = System.nanoTime();
+        flusher.shutdown(5, TimeUnit.SECONDS);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "提前执行重试后关闭应立即完成");
+        assertEquals(1, sender.sent.get());
+        assertEquals(Set.of("logx-flusher"), sender.threads);
+    }
+
+    @Test
+    void shutdownDoesNotDrainOnCallerWhileFlusherThreadIsStuck() throws InterruptedException {
+        LogBuffer buffer = new LogBuffer(16);
+        BlockingSender sender = new BlockingSender(false);
+        LogFlusher flusher = new LogFlusher(buffer, sender, null, 1, 0, Duration.ofMillis(1));
+        flusher.start();
+
+        buffer.add(LogEntry.builder().message("stuck").build());
+        flusher.flushNow();
+        assertTrue(sender.entered.await(5, TimeUnit.SECONDS), "刷新线程应进入 sendBatch");
+        buffer.add(LogEntry.builder().message("remaining").build());
+
+        long start = System.nanoTime();
+        flusher.shutdown(200, TimeUnit.MILLISECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 2000, "关闭应在超时后返回，实际 " + elapsedMillis + " 毫秒");
+        assertFalse(sender.threads.contains(Thread.currentThread().getName()), "调用线程不应参与发送");
+        assertEquals(1, buffer.size(), "刷新线程未结束时剩余日志留在缓冲区");
+        sender.release.countDown();
+    }
+
+    /**
+     * sendBatch 阻塞到 release 或 expediteRetries（可选）被调用，模拟发送窗口被待重试批次占满
+     */
+    private static class BlockingSender implements LogSender {
+
+        private final boolean releaseOnExpedite;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger sent = new AtomicInteger();
+        private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        private BlockingSender(boolean releaseOnExpedite) {
+            this.releaseOnExpedite = releaseOnExpedite;
+        }
+
+        @Override
+        public void send(LogEntry entry) {
+            sendBatch(List.of(entry));
+        }
+
+        @Override
+        public void sendBatch(List<LogEntry> entries) {
+            threads.add(Thread.currentThread().getName());
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.addAndGet(entries.size());
+        }
+
+        @Override
+        public void expediteRetries() {
+            if (releaseOnExpedite) {
+                release.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.domidodo.logx.sdk.core.fingerprint;
+
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异常堆栈指纹与去重
+ */
+class StackTraceDeduplicatorTest {
+
+    @Test
+    void normalizeClassNameStripsGeneratedSuffixes() {
+        assertEquals("com.acme.OrderService",
+                StackTraceDeduplicator.normalizeClassName("com.acme.OrderService$$SpringCGLIB$$0"));
+        assertEquals("com.acme.OrderService",
+                StackTraceDeduplicator.normalizeClassName("com.acme.OrderService$$EnhancerBySpringCGLIB$$1a2b3c"));
+        assertEquals("com.acme.OrderService",
+                StackTraceDeduplicator.normalizeClassName("com.acme.OrderService$$Lambda$123/0x0000000800c4b840"));
+        assertEquals("jdk.internal.reflect.GeneratedMethodAccessor",
+                StackTraceDeduplicator.normalizeClassName("jdk.internal.reflect.GeneratedMethodAccessor12"));
+        assertEquals("com.sun.proxy.$Proxy",
+                StackTraceDeduplicator.normalizeClassName("com.sun.proxy.$Proxy34"));
+    }
+
+    @Test
+    void normalizeClassNameKeepsOrdinaryNames() {
+        assertEquals("com.acme.OrderService", StackTraceDeduplicator.normalizeClassName("com.acme.OrderService"));
+        assertEquals("com.acme.Order2", StackTraceDeduplicator.normalizeClassName("com.acme.Order2"));
+        assertEquals("com.acme.OrderService$1", StackTraceDeduplicator.normalizeClassName("com.acme.OrderService$1"));
+        assertEquals("com.acme.FieldAccessor1", StackTraceDeduplicator.normalizeClassName("com.acme.FieldAccessor1"));
+        assertEquals("com.acme.Proxy2", StackTraceDeduplicator.normalizeClassName("com.acme.Proxy2"));
+    }
+
+    @Test
+    void fingerprintIgnoresMessageButNotThrowSite() {
+        Throwable[] errors = failAtSameSite("order 1", "order 2");
+        String first = StackTraceDeduplicator.fingerprint(errors[0]);
+        String second = StackTraceDeduplicator.fingerprint(errors[1]);
+        String elsewhere = StackTraceDeduplicator.fingerprint(new IllegalStateException("order 1"));
+
+        assertEquals(first, second);
+        assertNotEquals(first, elsewhere);
+        assertTrue(first.matches("[0-9a-f]{16}"), first);
+    }
+
+    @Test
+    void fingerprintIsStableAcrossGeneratedClassNumbers() {
+        Throwable proxied1 = withFrames(new IllegalStateException(),
+                frame("com.acme.OrderService$$SpringCGLIB$$0", "pay", 10),
+                frame("jdk.internal.reflect.GeneratedMethodAccessor12", "invoke", -1));
+        Throwable proxied2 = withFrames(new IllegalStateException(),
+                frame("com.acme.OrderService$$SpringCGLIB$$7", "pay", 10),
+                frame("jdk.internal.reflect.GeneratedMethodAccessor99", "invoke", -1));
+        Throwable otherLine = withFrames(new IllegalStateException(),
+                frame("com.acme.OrderService$$SpringCGLIB$$0", "pay", 11),
+                frame("jdk.internal.reflect.GeneratedMethodAccessor12", "invoke", -1));
+
+        assertEquals(StackTraceDeduplicator.fingerprint(proxied1), StackTraceDeduplicator.fingerprint(proxied2));
+        assertNotEquals(StackTraceDeduplicator.fingerprint(proxied1), StackTraceDeduplicator.fingerprint(otherLine));
+    }
+
+    @Test
+    void fingerprintIncludesTheCauseChain() {
+        Throwable[] errors = failAtSameSite("x", "x");
+        Throwable plain = errors[0];
+        Throwable withCause = errors[1];
+        withCause.initCause(new IllegalArgumentException("root"));
+
+        assertNotEquals(StackTraceDeduplicator.fingerprint(plain), StackTraceDeduplicator.fingerprint(withCause));
+    }
+
+    @Test
+    void fingerprintTerminatesOnCauseCycles() {
+        IllegalStateException outer = new IllegalStateException("outer");
+        IllegalArgumentException inner = new IllegalArgumentException("inner", outer);
+        outer.initCause(inner);
+
+        assertNotNull(StackTraceDeduplicator.fingerprint(outer));
+    }
+
+    @Test
+    void fullStackIsSentOncePerWindowAfterMarkSent() {
+        StackTraceDeduplicator deduplicator = new StackTraceDeduplicator(Duration.ofMinutes(10), 2, 100);
+
+        Throwable[] errors = failAtSameSite("first", "retry", "second");
+        LogEntry first = new LogEntry();
+        String fingerprint = deduplicator.apply(first, errors[0]);
+        assertNotNull(fingerprint);
+        assertEquals(fingerprint, first.getContext().get(StackTraceDeduplicator.FINGERPRINT_KEY));
+        assertFalse(first.getContext().containsKey(StackTraceDeduplicator.OMITTED_KEY));
+
+        // 未调用 markSent（如写入缓冲区失败）时仍发送完整堆栈
+        assertNotNull(deduplicator.apply(new LogEntry(), errors[1]));
+
+        deduplicator.markSent(fingerprint);
+        LogEntry repeated = new LogEntry();
+        assertNull(deduplicator.apply(repeated, errors[2]));
+        assertEquals(Boolean.TRUE, repeated.getContext().get(StackTraceDeduplicator.OMITTED_KEY));
+        assertTrue(repeated.getException().startsWith("java.lang.IllegalStateException: second\n"),
+                repeated.getException());
+        assertTrue(repeated.getException().contains("more (fingerprint " + fingerprint + ")"),
+                repeated.getException());
+        assertEquals(4, repeated.getException().split("\n").length, "首行、2 帧、省略说明");
+    }
+
+    @Test
+    void fingerprintMapIsClearedWhenFullOfUnexpiredEntries() {
+        StackTraceDeduplicator deduplicator = new StackTraceDeduplicator(Duration.ofMinutes(10), 2, 16);
+        for (int i = 0; i < 16; i++) {
+            deduplicator.markSent("fingerprint-" + i);
+        }
+        assertEquals(16, deduplicator.size());
+
+        deduplicator.markSent("fingerprint-0");
+        assertEquals(16, deduplicator.size(), "已记录的指纹不触发清理");
+
+        deduplicator.markSent("fingerprint-16");
+        assertEquals(1, deduplicator.size());
+    }
+
+    /**
+     * 在同一位置（同一调用栈）创建多个异常
+     */
+    private static Throwable[] failAtSameSite(String... messages) {
+        Throwable[] errors = new Throwable[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            errors[i] = new IllegalStateException(messages[i]);
+        }
+        return errors;
+    }
+
+    private static Throwable withFrames(Throwable throwable, StackTraceElement... frames) {
+        throwable.setStackTrace(frames);
+        return throwable;
+    }
+
+    private static StackTraceElement frame(String className, String methodName, int lineNumber) {
+        return new StackTraceElement(className, methodName, null, lineNumber);
+    }
+}
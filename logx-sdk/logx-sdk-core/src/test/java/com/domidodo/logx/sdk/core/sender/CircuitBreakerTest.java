@@ -0,0 +1,113 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 熔断器状态转换
+ */
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 200;
+
+    private final DeliveryCounters counters = new DeliveryCounters("test");
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejectsBatches() {
+        CircuitBreaker breaker = newBreaker(3);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isAvailable());
+        assertEquals(1, counters.getCircuitOpens());
+    }
+
+    @Test
+    void successResetsTheConsecutiveFailureCount() {
+        CircuitBreaker breaker = newBreaker(3);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void halfOpenLetsOneProbeThroughAndClosesOnSuccess() throws InterruptedException {
+        CircuitBreaker breaker = newBreaker(1);
+        breaker.onFailure();
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertTrue(breaker.isAvailable());
+        assertTrue(breaker.tryAcquire(), "打开时长结束后放行探测批次");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire(), "探测批次未完成时不放行其他批次");
+        assertFalse(breaker.isAvailable());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeReopensForTwiceAsLong() throws InterruptedException {
+        CircuitBreaker breaker = newBreaker(1);
+        breaker.onFailure();
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(2, counters.getCircuitOpens());
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertFalse(breaker.tryAcquire(), "第二次打开的时长翻倍");
+
+        Thread.sleep(OPEN_MILLIS);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failuresReportedWhileOpenDoNotExtendTheOpenPeriod() throws InterruptedException {
+        CircuitBreaker breaker = newBreaker(1);
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertEquals(1, counters.getCircuitOpens());
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void disabledBreakerAlwaysAllows() {
+        CircuitBreaker breaker = new CircuitBreaker("test", false, 1,
+                TimeUnit.MILLISECONDS.toNanos(OPEN_MILLIS), counters);
+
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(0, counters.getCircuitOpens());
+    }
+
+    private CircuitBreaker newBreaker(int failureThreshold) {
+        return new CircuitBreaker("test", true, failureThreshold,
+                TimeUnit.MILLISECONDS.toNanos(OPEN_MILLIS), counters);
+    }
+}
@@ -0,0 +1,106 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.common.grpc.LogBatchRequest;
+import com.domidodo.logx.common.grpc.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 紧凑批次字符串表：编码与还原为普通批次
+ */
+class CompactBatchCodecTest {
+
+    private static final long TIMESTAMP_MICROS = 1_700_000_000_123_456L;
+
+    @Test
+    void refsAreDeduplicatedAndNullOrEmptyMapsToZero() {
+        CompactBatchCodec codec = new CompactBatchCodec();
+
+        assertEquals(0, codec.ref(null));
+        assertEquals(0, codec.ref(""));
+        assertEquals(1, codec.ref("INFO"));
+        assertEquals(2, codec.ref("main"));
+        assertEquals(1, codec.ref("INFO"), "重复字符串返回同一下标");
+
+        LogBatchRequest.Builder request = LogBatchRequest.newBuilder();
+        codec.writeTo(request);
+        assertEquals(CompactBatchCodec.VERSION, request.getVersion());
+        assertEquals(List.of("", "INFO", "main"), request.getStringsList(), "下标 0 保留为空字符串");
+    }
+
+    @Test
+    void expandRestoresThePlainBatch() {
+        CompactBatchCodec codec = new CompactBatchCodec();
+        LogBatchRequest.Builder compact = header()
+                .addLogs(LogEntry.newBuilder()
+                        .setTimestampMicros(TIMESTAMP_MICROS)
+                        .setLevelRef(codec.ref("ERROR"))
+                        .setLoggerRef(codec.ref("com.example.OrderService"))
+                        .setThreadRef(codec.ref("http-nio-8080-exec-1"))
+                        .setClassNameRef(codec.ref("com.example.OrderService"))
+                        .setMethodNameRef(codec.ref("create"))
+                        .setModuleRef(codec.ref("order"))
+                        .setOperationRef(codec.ref("create"))
+                        .setRequestMethodRef(codec.ref("POST"))
+                        .setUserAgentRef(codec.ref("curl/8.0"))
+                        .addTagRefs(codec.ref("slow"))
+                        .addTagRefs(codec.ref("order"))
+                        .setMessage("下单失败"))
+                .addLogs(LogEntry.newBuilder()
+                        .setTimestampMicros(TIMESTAMP_MICROS + 1_000L)
+                        .setLevelRef(codec.ref("ERROR"))
+                        .setMessage("没有其他字段"));
+        codec.writeTo(compact);
+
+        LogBatchRequest expected = header()
+                .addLogs(plain()
+                        .setTimestampMicros(TIMESTAMP_MICROS)
+                        .setTimestamp(TIMESTAMP_MICROS / 1_000L)
+                        .setLevel("ERROR")
+                        .setLogger("com.example.OrderService")
+                        .setThread("http-nio-8080-exec-1")
+                        .setClassName("com.example.OrderService")
+                        .setMethodName("create")
+                        .setModule("order")
+                        .setOperation("create")
+                        .setRequestMethod("POST")
+                        .setUserAgent("curl/8.0")
+                        .addTags("slow")
+                        .addTags("order")
+                        .setMessage("下单失败"))
+                .addLogs(plain()
+                        .setTimestampMicros(TIMESTAMP_MICROS + 1_000L)
+                        .setTimestamp(TIMESTAMP_MICROS / 1_000L + 1)
+                        .setLevel("ERROR")
+                        .setMessage("没有其他字段"))
+                .build();
+
+        assertEquals(expected, CompactBatchCodec.expand(compact.build()));
+    }
+
+    @Test
+    void plainBatchIsReturnedUnchanged() {
+        LogBatchRequest request = header().addLogs(plain().setLevel("INFO")).build();
+
+        assertSame(request, CompactBatchCodec.expand(request));
+    }
+
+    private static LogBatchRequest.Builder header() {
+        return LogBatchRequest.newBuilder()
+                .setTenantId("tenant-1")
+                .setSystemId("system-1")
+                .setSystemName("订单系统")
+                .setApiKey("key");
+    }
+
+    private static LogEntry.Builder plain() {
+        return LogEntry.newBuilder()
+                .setTenantId("tenant-1")
+                .setSystemId("system-1")
+                .setSystemName("订单系统");
+    }
+}
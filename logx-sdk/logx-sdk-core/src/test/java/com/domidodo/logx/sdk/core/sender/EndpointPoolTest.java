@@ -0,0 +1,148 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 网关节点池：加权轮询、异常节点摘除与恢复
+ */
+class EndpointPoolTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void healthyEndpointsShareTrafficEvenly() {
+        EndpointPool<String> pool = new EndpointPool<>(List.of("a", "b"));
+
+        Map<String, Integer> selected = select(pool, 100);
+
+        assertEquals(50, selected.get("a"));
+        assertEquals(50, selected.get("b"));
+    }
+
+    @Test
+    void consecutiveFailuresEjectTheEndpoint() {
+        EndpointPool<String> pool = new EndpointPool<>(List.of("a", "b"));
+        EndpointPool.Endpoint<String> a = endpoints(pool).get("a");
+
+        for (int i = 0; i < 4; i++) {
+            pool.record(a, false, FAST);
+        }
+        assertEquals(2, select(pool, 10).size(), "失败 4 次仍在轮询中");
+
+        pool.record(a, false, FAST);
+        assertEquals(Map.of("b", 20), select(pool, 20));
+        assertTrue(pool.hasAvailable());
+    }
+
+    @Test
+    void successfulRequestToAnEjectedEndpointRecoversItEarly() {
+        EndpointPool<String> pool = new EndpointPool<>(List.of("a", "b"));
+        EndpointPool.Endpoint<String> a = endpoints(pool).get("a");
+        for (int i = 0; i < 5; i++) {
+            pool.record(a, false, FAST);
+        }
+        assertFalse(select(pool, 10).containsKey("a"));
+
+        pool.record(a, true, FAST);
+
+        assertTrue(select(pool, 10).containsKey("a"));
+    }
+
+    @Test
+    void whenAllEndpointsAreEjectedTheEarliestToRecoverIsSelected() {
+        EndpointPool<String> pool = new EndpointPool<>(List.of("a", "b"));
+        Map<String, EndpointPool.Endpoint<String>> endpoints = endpoints(pool);
+        EndpointPool.Endpoint<String> a = endpoints.get("a");
+        EndpointPool.Endpoint<String> b = endpoints.get("b");
+        for (int i = 0; i < 5; i++) {
+            pool.record(a, false, FAST);
+        }
+        for (int i = 0; i < 5; i++) {
+            pool.record(b, false, FAST);
+        }
+
+        assertFalse(pool.hasAvailable());
+        assertEquals("a", pool.select().address());
+    }
+
+    @Test
+    void highFailureRateEjectsWithoutConsecutiveFailures() {
+        EndpointPool<String> pool = new EndpointPool<>(List.of("a", "b"));
+        EndpointPool.Endpoint<String> a = endpoints(pool).get("a");
+
+        // 每 4 次请求失败 3 次，连续失败不超过 3 次；第 10 次（失败）时错误率超过 50%
+        for (int i = 0; i < 10; i++) {
+            pool.record(a, i % 4 == 3, FAST);
+        }
+
+        assertFalse(select(pool, 10).containsKey("a"));
+    }
+
+    @Test
+    void latencyOutlierIsEjected() {
+        EndpointPool<String> pool = new EndpointPool<>(List.of("a", "b", "c"));
+        Map<String, EndpointPool.Endpoint<String>> endpoints = endpoints(pool);
+        for (String address : List.of("b", "c")) {
+            for (int i = 0; i < 10; i++) {
+                pool.record(endpoints.get(address), true, FAST);
+            }
+        }
+        EndpointPool.Endpoint<String> a = endpoints.get("a");
+        for (int i = 0; i < 9; i++) {
+            pool.record(a, true, SLOW);
+        }
+        assertTrue(select(pool, 200).containsKey("a"), "样本不足时不按延迟摘除");
+
+        pool.record(a, true, SLOW);
+
+        assertFalse(select(pool, 20).containsKey("a"));
+    }
+
+    @Test
+    void slowerEndpointReceivesLessTraffic() {
+        EndpointPool<String> pool = new EndpointPool<>(List.of("a", "b"));
+        Map<String, EndpointPool.Endpoint<String>> endpoints = endpoints(pool);
+        // 延迟为 2 倍，不构成离群
+        for (int i = 0; i < 10; i++) {
+            pool.record(endpoints.get("a"), true, FAST);
+            pool.record(endpoints.get("b"), true, 2 * FAST);
+        }
+
+        Map<String, Integer> selected = select(pool, 300);
+
+        assertNotEquals(selected.get("a"), selected.get("b"));
+        assertTrue(selected.get("a") > selected.get("b"));
+    }
+
+    private static Map<String, Integer> select(EndpointPool<String> pool, int times) {
+        Map<String, Integer> selected = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            selected.merge(pool.select().address(), 1, Integer::sum);
+        }
+        return selected;
+    }
+
+    /**
+     * 通过轮询取得所有节点（需在记录任何结果前调用，此时权重相同，一轮即覆盖每个节点）
+     */
+    private static Map<String, EndpointPool.Endpoint<String>> endpoints(EndpointPool<String> pool) {
+        Map<String, EndpointPool.Endpoint<String>> endpoints = new HashMap<>();
+        for (int i = 0; i < pool.size(); i++) {
+            EndpointPool.Endpoint<String> endpoint = pool.select();
+            endpoints.put(endpoint.address(), endpoint);
+        }
+        assertEquals(pool.size(), endpoints.size());
+        return endpoints;
+    }
+}
@@ -0,0 +1,62 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.domidodo.logx.sdk.core.model.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 流式 JSON 编码器
+ */
+class JsonLogEncoderTest {
+
+    @Test
+    void emptyTenantIdStillProducesValidJson() throws IOException {
+        LogEntry entry = LogEntry.builder().tenantId("").id("1").level("INFO").message("hello").build();
+
+        JSONObject encoded = encode(entry).getJSONObject(0);
+
+        assertFalse(encoded.containsKey("tenantId"));
+        assertEquals("1", encoded.getString("id"));
+        assertEquals("hello", encoded.getString("message"));
+    }
+
+    @Test
+    void entryWithOnlyNumericFieldsStillProducesValidJson() throws IOException {
+        LogEntry entry = LogEntry.builder().tenantId("").lineNumber(42).responseTime(7L).build();
+        LogEntry empty = LogEntry.builder().build();
+
+        JSONArray encoded = encode(entry, empty);
+
+        assertEquals(42, encoded.getJSONObject(0).getIntValue("lineNumber"));
+        assertEquals(7L, encoded.getJSONObject(0).getLongValue("responseTime"));
+        assertEquals(0, encoded.getJSONObject(1).size());
+    }
+
+    @Test
+    void escapesControlCharactersAndEncodesUtf8() throws IOException {
+        String message = "line1\nline2\t\"quoted\" \\ 日志 😀 \u0001";
+        LogEntry entry = LogEntry.builder().message(message).tags(List.of("a", "b")).build();
+
+        JSONObject encoded = encode(entry).getJSONObject(0);
+
+        assertEquals(message, encoded.getString("message"));
+        assertEquals(List.of("a", "b"), encoded.getJSONArray("tags").toJavaList(String.class));
+    }
+
+    private static JSONArray encode(LogEntry... entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // 缓冲区取最小值，覆盖分段写出
+        new JsonLogEncoder(16).encode(List.of(entries), out);
+        return JSON.parseArray(out.toString(StandardCharsets.UTF_8));
+    }
+}
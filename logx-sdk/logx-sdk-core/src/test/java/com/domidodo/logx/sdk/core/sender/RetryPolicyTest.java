@@ -0,0 +1,83 @@
+package com.domidodo.logx.sdk.core.sender;
+
+import com.domidodo.logx.sdk.core.config.LogXConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 重试次数、重试预算与退避
+ */
+class RetryPolicyTest {
+
+    @Test
+    void stopsRetryingAfterMaxAttempts() {
+        RetryPolicy policy = newPolicy(false);
+
+        assertTrue(policy.shouldRetry(1));
+        assertTrue(policy.shouldRetry(2));
+        assertFalse(policy.shouldRetry(3));
+    }
+
+    @Test
+    void budgetIsExhaustedByFailuresAndRefilledBySuccesses() {
+        RetryPolicy policy = newPolicy(false);
+
+        // 令牌从上限开始，每次失败取出 1 个，超过上限一半时才允许重试
+        for (int i = 0; i < 4; i++) {
+            policy.onFailure();
+        }
+        assertTrue(policy.shouldRetry(1));
+
+        policy.onFailure();
+        assertFalse(policy.shouldRetry(1), "预算耗尽后停止重试");
+
+        // ratio = 0.2：每次成功存入 0.2 个令牌
+        policy.onSuccess();
+        assertTrue(policy.shouldRetry(1));
+    }
+
+    @Test
+    void doesNotRetryWhileTheCircuitIsOpen() {
+        LogXConfig config = newConfig(true);
+        config.setCircuitFailureThreshold(1);
+        RetryPolicy policy = new RetryPolicy(config, "test", new DeliveryCounters("test"));
+
+        policy.onFailure();
+
+        assertFalse(policy.isAvailable());
+        assertFalse(policy.tryAcquire());
+        assertFalse(policy.shouldRetry(1));
+    }
+
+    @Test
+    void backoffGrowsExponentiallyWithJitterAndIsCapped() {
+        RetryPolicy policy = newPolicy(false);
+
+        for (int i = 0; i < 100; i++) {
+            assertInRange(policy.backoffMillis(1), 250, 500);
+            assertInRange(policy.backoffMillis(3), 1_000, 2_000);
+            assertInRange(policy.backoffMillis(20), 15_000, 30_000);
+        }
+    }
+
+    private static void assertInRange(long value, long min, long max) {
+        assertTrue(value >= min && value <= max, value + " 不在 [" + min + ", " + max + "] 内");
+    }
+
+    private static RetryPolicy newPolicy(boolean circuitBreakerEnabled) {
+        return new RetryPolicy(newConfig(circuitBreakerEnabled), "test", new DeliveryCounters("test"));
+    }
+
+    private static LogXConfig newConfig(boolean circuitBreakerEnabled) {
+        LogXConfig config = new LogXConfig();
+        config.setMaxRetries(3);
+        config.setRetryBudgetRatio(0.2);
+        config.setCircuitBreakerEnabled(circuitBreakerEnabled);
+        config.setCircuitOpenDuration(Duration.ofSeconds(10));
+        return config;
+    }
+}
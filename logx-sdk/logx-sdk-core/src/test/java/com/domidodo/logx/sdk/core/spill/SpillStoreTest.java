@@ -0,0 +1,112 @@
+package com.domidodo.logx.sdk.core.spill;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 磁盘溢写存储
+ */
+class SpillStoreTest {
+
+    private static final long SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void secondStoreInSameJvmFailsWithIoExceptionAndLeavesDirectoryUsable() throws IOException {
+        SpillStore first = new SpillStore(directory, SEGMENT_BYTES, 4 * SEGMENT_BYTES);
+        assertThrows(IOException.class, () -> new SpillStore(directory, SEGMENT_BYTES, 4 * SEGMENT_BYTES));
+        first.close();
+
+        // 第二次尝试失败时没有遗留锁通道，前一个存储关闭后目录可以再次使用
+        try (SpillStore reopened = new SpillStore(directory, SEGMENT_BYTES, 4 * SEGMENT_BYTES)) {
+            reopened.append(bytes("after"));
+            assertArrayEquals(bytes("after"), reopened.peek());
+        }
+    }
+
+    @Test
+    void replayResumesAfterLastCommittedRecordWhenProcessCrashes(@TempDir Path crashed) throws IOException {
+        try (SpillStore store = new SpillStore(directory, SEGMENT_BYTES, 4 * SEGMENT_BYTES)) {
+            store.append(bytes("a"));
+            store.append(bytes("b"));
+            store.append(bytes("c"));
+            assertArrayEquals(bytes("a"), store.peek());
+            store.commit();
+            // 已读取但未确认的记录在重启后需要再次重放
+            assertArrayEquals(bytes("b"), store.peek());
+
+            // 不调用 close：复制进程崩溃时磁盘（页缓存）上的内容
+            copyFiles(directory, crashed);
+        }
+
+        try (SpillStore restarted = new SpillStore(crashed, SEGMENT_BYTES, 4 * SEGMENT_BYTES)) {
+            assertArrayEquals(bytes("b"), restarted.peek());
+            restarted.commit();
+            restarted.append(bytes("d"));
+            assertArrayEquals(bytes("c"), restarted.peek());
+            restarted.commit();
+            assertArrayEquals(bytes("d"), restarted.peek(), "重启后写入新段，在旧段之后重放");
+            restarted.commit();
+            assertNull(restarted.peek());
+        }
+    }
+
+    @Test
+    void evictingPeekedSegmentDiscardsPendingCommit() throws IOException {
+        try (SpillStore store = new SpillStore(directory, SEGMENT_BYTES, 2 * SEGMENT_BYTES)) {
+            store.append(payload(1));
+            store.append(payload(2));
+            assertArrayEquals(payload(1), store.peek());
+
+            // 第三段超过上限，淘汰正在读取的最旧段
+            store.append(payload(3));
+            assertEquals(1, store.getEvictedSegments());
+
+            store.commit();
+            assertEquals(0, store.getReplayedBatches(), "被淘汰记录的确认应被忽略");
+            assertArrayEquals(payload(2), store.peek(), "淘汰后从下一段的第一条记录继续");
+            store.commit();
+            assertArrayEquals(payload(3), store.peek());
+            store.commit();
+            assertNull(store.peek());
+            assertEquals(2, store.getReplayedBatches());
+        }
+    }
+
+    /**
+     * 超过半个段的记录，每段只容纳一条
+     */
+    private static byte[] payload(int value) {
+        byte[] payload = new byte[(int) (SEGMENT_BYTES * 5 / 8)];
+        Arrays.fill(payload, (byte) value);
+        return payload;
+    }
+
+    private static void copyFiles(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+        assertTrue(Files.exists(to.resolve("cursor")));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
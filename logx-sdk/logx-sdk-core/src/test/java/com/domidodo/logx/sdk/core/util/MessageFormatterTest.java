@@ -0,0 +1,97 @@
+package com.domidodo.logx.sdk.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 参数化消息格式化（与 SLF4J 行为一致）
+ */
+class MessageFormatterTest {
+
+    @Test
+    void replacesPlaceholdersInOrder() {
+        assertEquals("order 42 paid by alice", format("order {} paid by {}", 42, "alice"));
+        assertEquals("null value", format("{} value", (Object) null));
+    }
+
+    @Test
+    void keepsPlaceholdersWithoutArgumentsAndIgnoresExtraArguments() {
+        assertEquals("a {}", format("{} {}", "a"));
+        assertEquals("a b", format("{} {}", "a", "b", "c"));
+        assertEquals("no placeholders", format("no placeholders", "a"));
+    }
+
+    @Test
+    void returnsPatternUnchangedWithoutArguments() {
+        assertEquals("{} left", MessageFormatter.format("{} left", null));
+        assertEquals("{} left", MessageFormatter.format("{} left", new Object[0]));
+        assertNull(MessageFormatter.format(null, new Object[]{"a"}));
+    }
+
+    @Test
+    void escapedPlaceholderIsLiteralAndDoesNotConsumeAnArgument() {
+        assertEquals("set {} to x", format("set \\{} to {}", "x"));
+        assertEquals("\\x", format("\\\\{}", "x"));
+    }
+
+    @Test
+    void formatsArraysByContent() {
+        assertEquals("ids [1, 2, 3]", format("ids {}", (Object) new int[]{1, 2, 3}));
+        assertEquals("flags [true, false]", format("flags {}", (Object) new boolean[]{true, false}));
+        assertEquals("chars [a, b]", format("chars {}", (Object) new char[]{'a', 'b'}));
+        assertEquals("nested [[a], [b, c]]", format("nested {}", (Object) new String[][]{{"a"}, {"b", "c"}}));
+    }
+
+    @Test
+    void failingToStringDoesNotBreakTheMessage() {
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        String message = format("value {} end", broken);
+
+        assertTrue(message.startsWith("value [toString 失败: "), message);
+        assertTrue(message.endsWith(": boom] end"), message);
+    }
+
+    @Test
+    void trailingThrowableWithoutPlaceholderIsTheLogException() {
+        IllegalStateException error = new IllegalStateException("boom");
+
+        assertSame(error, MessageFormatter.trailingThrowable("order {} failed", new Object[]{42, error}));
+        assertSame(error, MessageFormatter.trailingThrowable("failed", new Object[]{error}));
+        assertSame(error, MessageFormatter.trailingThrowable("literal \\{}", new Object[]{error}));
+    }
+
+    @Test
+    void throwableConsumedByPlaceholderIsNotTheLogException() {
+        IllegalStateException error = new IllegalStateException("boom");
+
+        assertNull(MessageFormatter.trailingThrowable("order {} failed: {}", new Object[]{42, error}));
+        assertNull(MessageFormatter.trailingThrowable("order {} failed", new Object[]{error, 42}));
+        assertNull(MessageFormatter.trailingThrowable("order failed", new Object[0]));
+    }
+
+    @Test
+    void onlyImmutableArgumentsCanBeDeferred() {
+        assertTrue(MessageFormatter.canDefer(new Object[]{"a", 1, 2L, null, TimeUnit.SECONDS, Instant.EPOCH}));
+        assertFalse(MessageFormatter.canDefer(new Object[]{"a", new ArrayList<>()}));
+        assertFalse(MessageFormatter.canDefer(new Object[]{new int[]{1}}));
+    }
+
+    private static String format(String pattern, Object... args) {
+        return MessageFormatter.format(pattern, args);
+    }
+}
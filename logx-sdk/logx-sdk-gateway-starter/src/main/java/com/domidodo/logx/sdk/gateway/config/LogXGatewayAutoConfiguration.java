@@ -51,9 +51,27 @@ public class LogXGatewayAutoConfiguration {
                 .systemName(properties.getSystemName())
                 .apiKey(properties.getApiKey())
                 .mode(properties.getMode())
+                .preciseTimestamp(properties.isPreciseTimestamp())
                 .bufferEnabled(properties.getBuffer().isEnabled())
                 .bufferSize(properties.getBuffer().getSize())
-                .flushInterval(properties.getBuffer().getFlushInterval());
+                .flushInterval(properties.getBuffer().getFlushInterval())
+                .batchSize(properties.getBuffer().getBatchSize())
+                .maxBatchBytes(properties.getBuffer().getMaxBatchBytes())
+                .overflowPolicy(properties.getBuffer().getOverflowPolicy())
+                .blockTimeout(properties.getBuffer().getBlockTimeout())
+                .priorityLane(properties.getBuffer().isPriorityEnabled(),
+                        properties.getBuffer().getPriorityLevel(), properties.getBuffer().getPrioritySize())
+                .spill(properties.getSpill().isEnabled(), properties.getSpill().getDirectory())
+                .spillLimits(properties.getSpill().getMaxBytes(), properties.getSpill().getSegmentBytes())
+                .spillReplayRate(properties.getSpill().getReplayRate())
+                .minLevel(properties.getSampling().getMinLevel())
+                .samplingRules(properties.getSampling().getRules())
+                .aggregation(properties.getAggregation().isEnabled(), properties.getAggregation().getWindow())
+                .stackTraceDedup(properties.getStackTrace().isDedupEnabled(),
+                        properties.getStackTrace().getDedupWindow(), properties.getStackTrace().getTopFrames())
+                .requestMetrics(properties.getRequestMetrics().isEnabled(),
+                        properties.getRequestMetrics().getInterval(), properties.getRequestMetrics().getSampleRate())
+                .requestMetricsMaxRoutes(properties.getRequestMetrics().getMaxRoutes());
 
         // 设置服务端配置
         if ("grpc".equalsIgnoreCase(properties.getMode())) {
@@ -61,7 +79,8 @@ public class LogXGatewayAutoConfiguration {
                             properties.getServer().getHost(),
                             properties.getServer().getPort()
                     )
-                    .batchMode(properties.getServer().getBatchMode());
+                    .batchMode(properties.getServer().getBatchMode())
+                    .grpcCompactBatch(properties.getServer().isCompactBatch());
 
             log.info("LogX Gateway SDK 使用 gRPC 模式 [{}:{}]",
                     properties.getServer().getHost(),
@@ -72,8 +91,32 @@ public class LogXGatewayAutoConfiguration {
                     properties.getServer().getUrl());
         }
 
+        // 多实例地址与传输故障转移（备用传输使用另一种模式的地址）
+        builder.gatewayUrls(properties.getServer().getUrls())
+                .grpcEndpoints(properties.getServer().getEndpoints())
+                .transportFailover(properties.getServer().isFailover());
+        if (properties.getServer().isFailover()) {
+            if ("grpc".equalsIgnoreCase(properties.getMode())) {
+                builder.gatewayUrl(properties.getServer().getUrl()).mode("grpc");
+            } else {
+                builder.grpcEndpoint(properties.getServer().getHost(), properties.getServer().getPort())
+                        .batchMode(properties.getServer().getBatchMode())
+                        .grpcCompactBatch(properties.getServer().isCompactBatch())
+                        .mode("http");
+            }
+            log.info("LogX Gateway SDK 启用传输故障转移");
+        }
+
         builder.connectTimeout(properties.getServer().getConnectTimeout())
-                .readTimeout(properties.getServer().getReadTimeout());
+                .readTimeout(properties.getServer().getReadTimeout())
+                .httpVersion(properties.getServer().getHttpVersion())
+                .maxInFlightBatches(properties.getServer().getMaxInFlightBatches())
+                .maxRetries(properties.getServer().getMaxRetries())
+                .retryBudgetRatio(properties.getServer().getRetryBudgetRatio())
+                .circuitBreaker(properties.getCircuitBreaker().isEnabled(),
+                        properties.getCircuitBreaker().getFailureThreshold(),
+                        properties.getCircuitBreaker().getOpenDuration())
+                .compression(properties.getServer().getCompression());
 
         logXClient = builder.build();
 
@@ -87,8 +130,9 @@ public class LogXGatewayAutoConfiguration {
 
     /**
      * 创建网关全局过滤器
+     * 过滤器依赖 LogXClient，先于客户端销毁，关闭时处理完已移交的访问记录再关闭客户端
      */
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     @ConditionalOnProperty(prefix = "logx.gateway.trace", name = "enabled", havingValue = "true", matchIfMissing = true)
     public LogXGatewayFilter logXGatewayFilter(LogXClient logXClient, LogXGatewayProperties properties) {
         log.info("启用 LogX 网关过滤器 [排除前缀:{}, 慢请求阈值:{}ms]",
@@ -121,14 +165,16 @@ public class LogXGatewayAutoConfiguration {
 
         // 验证服务端配置
         if ("grpc".equalsIgnoreCase(properties.getMode())) {
-            if (properties.getServer().getHost() == null || properties.getServer().getHost().isEmpty()) {
+            if (properties.getServer().getEndpoints().isEmpty()
+                    && (properties.getServer().getHost() == null || properties.getServer().getHost().isEmpty())) {
                 throw new IllegalArgumentException("gRPC 模式下 logx.gateway.server.host 不能为空");
             }
             if (properties.getServer().getPort() <= 0) {
                 throw new IllegalArgumentException("gRPC 模式下 logx.gateway.server.port 必须大于 0");
             }
         } else {
-            if (properties.getServer().getUrl() == null || properties.getServer().getUrl().isEmpty()) {
+            if (properties.getServer().getUrls().isEmpty()
+                    && (properties.getServer().getUrl() == null || properties.getServer().getUrl().isEmpty())) {
                 throw new IllegalArgumentException("HTTP 模式下 logx.gateway.server.url 不能为空");
             }
         }
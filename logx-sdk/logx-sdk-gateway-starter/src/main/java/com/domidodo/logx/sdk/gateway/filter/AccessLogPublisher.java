@@ -0,0 +1,112 @@
+package com.domidodo.logx.sdk.gateway.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 访问记录的非阻塞移交
+ * <p>
+ * 1. Netty 事件循环线程只把访问记录放入无锁多生产者队列，不加锁、不等待、不做 I/O
+ * 2. 独立的单线程调度器按 work-in-progress 计数排空队列，在该线程上构建日志并交给 LogXClient，
+ * 缓冲区溢出策略为 BLOCK 或关闭缓冲时的等待 / 同步发送都只发生在该线程上
+ * 3. 队列中的记录数达到上限时丢弃新记录并计数
+ * 4. 关闭后丢弃新记录并计数（关闭超时时排空线程可能仍未结束，新记录不会再被处理）
+ */
+@Slf4j
+class AccessLogPublisher {
+
+    private final Queue<AccessRecord> queue = Queues.<AccessRecord>unboundedMultiproducer().get();
+
+    /**
+     * 已放入队列、尚未处理的记录数，由 0 变为 1 时调度一次排空
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final int capacity;
+    private final Consumer<AccessRecord> handler;
+    private final Scheduler scheduler;
+
+    private volatile boolean closed;
+
+    /**
+     * @param capacity 队列中最多等待处理的记录数
+     * @param handler  在排空线程上处理记录
+     */
+    AccessLogPublisher(int capacity, Consumer<AccessRecord> handler) {
+        this.capacity = Math.max(1, capacity);
+        this.handler = handler;
+        this.scheduler = Schedulers.newSingle("logx-access-log", true);
+    }
+
+    /**
+     * 移交一条访问记录（不阻塞）
+     *
+     * @return false 表示队列已满或已关闭，记录被丢弃
+     */
+    boolean publish(AccessRecord record) {
+        if (closed || pending.get() >= capacity) {
+            droppedCount.increment();
+            return false;
+        }
+        queue.offer(record);
+        if (pending.getAndIncrement() == 0) {
+            try {
+                scheduler.schedule(this::drain);
+            } catch (Exception e) {
+                // 调度器已关闭
+                queue.clear();
+                droppedCount.add(pending.getAndSet(0));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 排空队列（同一时刻只有一个排空任务）
+     */
+    private void drain() {
+        do {
+            AccessRecord record = queue.poll();
+            while (record == null) {
+                // 计数先于入队完成之后增加，为空只可能是其他生产者的入队尚未链接完成
+                Thread.onSpinWait();
+                record = queue.poll();
+            }
+            try {
+                handler.accept(record);
+            } catch (Exception e) {
+                log.error("记录网关日志失败", e);
+            }
+        } while (pending.decrementAndGet() > 0);
+    }
+
+    /**
+     * 因队列已满或已关闭被丢弃的记录数
+     */
+    long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 处理完已移交的记录后关闭排空线程
+     */
+    void shutdown(Duration timeout) {
+        closed = true;
+        try {
+            scheduler.disposeGracefully().timeout(timeout).block();
+        } catch (Exception e) {
+            log.warn("等待网关访问日志处理完成超时，剩余 {} 条", pending.get());
+            scheduler.dispose();
+        }
+    }
+}
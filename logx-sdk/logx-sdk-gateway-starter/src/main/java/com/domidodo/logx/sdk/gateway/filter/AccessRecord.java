@@ -0,0 +1,41 @@
+package com.domidodo.logx.sdk.gateway.filter;
+
+import java.util.Map;
+
+/**
+ * 一次网关请求的访问记录
+ * <p>
+ * 在事件循环线程上从 exchange 中取出的不可变快照，之后的日志构建和发送只依赖该记录
+ *
+ * @param path         请求路径
+ * @param method       请求方法
+ * @param query        查询字符串
+ * @param host         Host 请求头
+ * @param userAgent    User-Agent 请求头
+ * @param clientIp     客户端 IP
+ * @param headers      需要记录的请求头（未开启时为 null）
+ * @param status       响应状态码（没有时为 0）
+ * @param responseTime 响应时间（毫秒）
+ * @param traceId      追踪 ID
+ * @param spanId       Span ID
+ * @param userId       用户 ID
+ * @param userName     用户名
+ * @param flagged      追踪是否被标记（始终保留日志）
+ * @param thread       处理请求的线程名
+ */
+record AccessRecord(String path,
+                    String method,
+                    String query,
+                    String host,
+                    String userAgent,
+                    String clientIp,
+                    Map<String, String> headers,
+                    int status,
+                    long responseTime,
+                    String traceId,
+                    String spanId,
+                    String userId,
+                    String userName,
+                    boolean flagged,
+                    String thread) {
+}
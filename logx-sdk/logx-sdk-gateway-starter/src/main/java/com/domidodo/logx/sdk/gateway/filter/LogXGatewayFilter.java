@@ -1,9 +1,11 @@
 package com.domidodo.logx.sdk.gateway.filter;
 
 import com.domidodo.logx.sdk.core.LogXClient;
+import com.domidodo.logx.sdk.core.aggregation.RequestMetricsAggregator;
 import com.domidodo.logx.sdk.core.context.TraceContext;
 import com.domidodo.logx.sdk.core.context.TraceContext.TraceInfo;
 import com.domidodo.logx.sdk.core.model.LogEntry;
+import com.domidodo.logx.sdk.core.sampling.LogSampler;
 import com.domidodo.logx.sdk.gateway.properties.LogXGatewayProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -17,7 +19,7 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.net.InetSocketAddress;
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,12 +33,15 @@ import java.util.stream.Collectors;
  * 2. 向下游服务传递追踪信息（通过 HTTP Header）
  * 3. 记录网关层访问日志
  * 4. 标记慢请求、错误请求
+ * 5. 启用请求指标聚合时，成功且不慢的请求只计入 RED 指标汇总，按采样比例记录访问日志
+ * 6. 事件循环线程只截取访问记录并非阻塞地移交，日志构建、指标统计和发送在独立线程上完成（见 {@link AccessLogPublisher}）
  */
 @Slf4j
 public class LogXGatewayFilter implements GlobalFilter, Ordered {
 
     private final LogXClient logXClient;
     private final LogXGatewayProperties properties;
+    private final AccessLogPublisher publisher;
 
     private static final String START_TIME_ATTR = "logx-start-time";
     private static final String TRACE_INFO_ATTR = "logx-trace-info";
@@ -44,6 +49,7 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
     public LogXGatewayFilter(LogXClient logXClient, LogXGatewayProperties properties) {
         this.logXClient = logXClient;
         this.properties = properties;
+        this.publisher = new AccessLogPublisher(properties.getLog().getHandoffQueueSize(), this::recordAccessLog);
     }
 
     @Override
@@ -70,7 +76,7 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
         return chain.filter(exchange.mutate().request(mutatedRequest).build())
                 .doFinally(signal -> {
                     try {
-                        recordAccessLog(exchange, traceInfo);
+                        publisher.publish(captureAccessRecord(exchange, traceInfo));
                     } catch (Exception e) {
                         log.error("记录网关日志失败", e);
                     }
@@ -95,6 +101,7 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
         traceInfo.setUserId(headers.getFirst(traceConfig.getUserIdHeader()));
         traceInfo.setUserName(headers.getFirst(traceConfig.getUserNameHeader()));
         traceInfo.setTenantId(headers.getFirst(traceConfig.getTenantIdHeader()));
+        traceInfo.setFlagged(TraceContext.parseFlagged(headers.getFirst(TraceContext.TRACE_FLAGGED_HEADER)));
 
         return traceInfo;
     }
@@ -117,6 +124,11 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
             builder.header(TraceContext.PARENT_SPAN_ID_HEADER, traceInfo.getParentSpanId());
         }
 
+        // 传递追踪标记（下游服务不对该追踪采样）
+        if (traceInfo.isFlagged()) {
+            builder.header(TraceContext.TRACE_FLAGGED_HEADER, "1");
+        }
+
         // 传递用户信息
         if (traceConfig.isPropagateUser()) {
             if (traceInfo.getUserId() != null) {
@@ -134,11 +146,12 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
     }
 
     /**
-     * 记录访问日志
+     * 截取访问记录（在事件循环线程上执行，只读取请求和响应中已有的值）
      */
-    private void recordAccessLog(ServerWebExchange exchange, TraceInfo traceInfo) {
+    private AccessRecord captureAccessRecord(ServerWebExchange exchange, TraceInfo traceInfo) {
         ServerHttpRequest request = exchange.getRequest();
         ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = request.getHeaders();
 
         // 计算响应时间
         Long startTime = exchange.getAttribute(START_TIME_ATTR);
@@ -148,33 +161,73 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
         HttpStatusCode statusCode = response.getStatusCode();
         int status = statusCode != null ? statusCode.value() : 0;
 
+        return new AccessRecord(
+                request.getPath().value(),
+                request.getMethod().name(),
+                request.getURI().getQuery(),
+                headers.getFirst(HttpHeaders.HOST),
+                headers.getFirst(HttpHeaders.USER_AGENT),
+                getClientIp(request),
+                properties.getLog().isLogHeaders() ? extractHeaders(headers) : null,
+                status,
+                responseTime,
+                traceInfo.getTraceId(),
+                traceInfo.getSpanId(),
+                traceInfo.getUserId(),
+                traceInfo.getUserName(),
+                traceInfo.isFlagged(),
+                Thread.currentThread().getName());
+    }
+
+    /**
+     * 记录访问日志（在移交线程上执行）
+     */
+    private void recordAccessLog(AccessRecord record) {
+        int status = record.status();
+        long responseTime = record.responseTime();
+        String level = determineLogLevel(status, responseTime);
+
+        // 计入请求指标；成功且不慢的请求只保留采样命中的访问日志（被标记的追踪始终保留）
+        RequestMetricsAggregator requestMetrics = logXClient.getRequestMetrics();
+        boolean sampled = false;
+        if (requestMetrics != null) {
+            requestMetrics.record(RequestMetricsAggregator.normalizePath(record.path()),
+                    record.method(), RequestMetricsAggregator.statusClass(status),
+                    status >= 500, responseTime);
+            if ("INFO".equals(level) && !record.flagged()) {
+                if (!requestMetrics.sample()) {
+                    return;
+                }
+                sampled = true;
+            }
+        }
+
         // 构建日志条目
         LogEntry entry = LogEntry.builder()
                 .tenantId(properties.getTenantId())
                 .systemId(properties.getSystemId())
                 .systemName(properties.getSystemName())
-                .traceId(traceInfo.getTraceId())
-                .spanId(traceInfo.getSpanId())
-                .timestamp(LocalDateTime.now())
-                .level(determineLogLevel(status, responseTime))
+                .traceId(record.traceId())
+                .spanId(record.spanId())
+                .level(level)
                 .logger("GatewayAccessLog")
-                .thread(Thread.currentThread().getName())
+                .thread(record.thread())
                 .className("LogXGatewayFilter")
                 .methodName("filter")
-                .message(buildLogMessage(request, status, responseTime))
-                .requestUrl(request.getPath().value())
-                .requestMethod(request.getMethod().name())
+                .message(buildLogMessage(record.method(), record.path(), status, responseTime))
+                .requestUrl(record.path())
+                .requestMethod(record.method())
                 .responseTime(responseTime)
-                .ip(getClientIp(request))
-                .userAgent(request.getHeaders().getFirst(HttpHeaders.USER_AGENT))
-                .userId(traceInfo.getUserId())
-                .userName(traceInfo.getUserName())
+                .ip(record.clientIp())
+                .userAgent(record.userAgent())
+                .userId(record.userId())
+                .userName(record.userName())
                 .module("Gateway")
                 .operation("HTTP_REQUEST")
                 .build();
 
         // 记录请求参数
-        String queryString = request.getURI().getQuery();
+        String queryString = record.query();
         if (queryString != null && !queryString.isEmpty()) {
             entry.setRequestParams(queryString);
         }
@@ -182,11 +235,14 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
         // 添加扩展信息
         Map<String, Object> context = new HashMap<>();
         context.put("statusCode", status);
-        context.put("host", request.getHeaders().getFirst(HttpHeaders.HOST));
+        context.put("host", record.host());
+        if (sampled) {
+            context.put(LogSampler.SAMPLE_RATE_KEY, requestMetrics.getSampleRate());
+        }
         
         // 记录请求头
-        if (properties.getLog().isLogHeaders()) {
-            context.put("requestHeaders", extractHeaders(request.getHeaders()));
+        if (record.headers() != null) {
+            context.put("requestHeaders", record.headers());
         }
         entry.setContext(context);
 
@@ -208,9 +264,9 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
         // 本地调试日志
         if (log.isDebugEnabled()) {
             log.debug("[{}] {} {} -> {} ({}ms)",
-                    traceInfo.getTraceId().substring(0, 8),
-                    request.getMethod(),
-                    request.getPath().value(),
+                    record.traceId().substring(0, 8),
+                    record.method(),
+                    record.path(),
                     status,
                     responseTime);
         }
@@ -219,10 +275,10 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
     /**
      * 构建日志消息
      */
-    private String buildLogMessage(ServerHttpRequest request, int status, long responseTime) {
+    private String buildLogMessage(String method, String path, int status, long responseTime) {
         return String.format("%s %s -> %d (%dms)",
-                request.getMethod(),
-                request.getPath().value(),
+                method,
+                path,
                 status,
                 responseTime);
     }
@@ -312,6 +368,20 @@ public class LogXGatewayFilter implements GlobalFilter, Ordered {
         return false;
     }
 
+    /**
+     * 因移交队列已满被丢弃的访问记录数
+     */
+    public long getDroppedCount() {
+        return publisher.getDroppedCount();
+    }
+
+    /**
+     * 处理完已移交的访问记录后停止移交线程（在关闭 LogXClient 之前调用）
+     */
+    public void shutdown() {
+        publisher.shutdown(Duration.ofSeconds(5));
+    }
+
     @Override
     public int getOrder() {
         // 最高优先级，确保最早执行（在其他过滤器之前）
@@ -1,5 +1,7 @@
 package com.domidodo.logx.sdk.gateway.properties;
 
+import com.domidodo.logx.sdk.core.buffer.OverflowPolicy;
+import com.domidodo.logx.sdk.core.sampling.SamplingRule;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -46,6 +48,11 @@ public class LogXGatewayProperties {
      */
     private String mode = "http";
 
+    /**
+     * 精确时间戳（每条日志读取系统时钟），默认使用每毫秒刷新一次的粗粒度时钟
+     */
+    private boolean preciseTimestamp = false;
+
     /**
      * LogX 服务端配置
      */
@@ -66,6 +73,36 @@ public class LogXGatewayProperties {
      */
     private Buffer buffer = new Buffer();
 
+    /**
+     * 磁盘溢写配置
+     */
+    private Spill spill = new Spill();
+
+    /**
+     * 熔断器配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * 采样配置
+     */
+    private Sampling sampling = new Sampling();
+
+    /**
+     * 重复日志聚合配置
+     */
+    private Aggregation aggregation = new Aggregation();
+
+    /**
+     * 异常堆栈去重配置
+     */
+    private StackTrace stackTrace = new StackTrace();
+
+    /**
+     * 请求 RED 指标聚合配置
+     */
+    private RequestMetrics requestMetrics = new RequestMetrics();
+
     @Data
     public static class Server {
         /**
@@ -83,11 +120,31 @@ public class LogXGatewayProperties {
          */
         private int port = 9090;
 
+        /**
+         * HTTP 模式：LogX 服务端地址列表（多个实例时客户端负载均衡，非空时优先于 url）
+         */
+        private List<String> urls = new ArrayList<>();
+
+        /**
+         * gRPC 模式：节点列表，格式 host:port（非空时优先于 host / port）
+         */
+        private List<String> endpoints = new ArrayList<>();
+
+        /**
+         * 是否启用传输故障转移：主传输（mode）不可用时新批次改用另一种传输发送
+         */
+        private boolean failover = false;
+
         /**
          * gRPC 批量模式：stream 或 batch
          */
         private String batchMode = "stream";
 
+        /**
+         * gRPC 模式：是否发送紧凑批次（批次级字符串表），旧版网关不支持时自动回退
+         */
+        private boolean compactBatch = true;
+
         /**
          * 连接超时（毫秒）
          */
@@ -97,6 +154,31 @@ public class LogXGatewayProperties {
          * 读取超时（毫秒）
          */
         private int readTimeout = 5000;
+
+        /**
+         * HTTP 模式：协议版本（HTTP_1_1 | HTTP_2）
+         */
+        private String httpVersion = "HTTP_1_1";
+
+        /**
+         * 同时在途的最大批次数
+         */
+        private int maxInFlightBatches = 4;
+
+        /**
+         * 单个批次的最大尝试次数
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 重试预算：重试流量最多为成功流量的比例，网关持续失败时停止重试
+         */
+        private double retryBudgetRatio = 0.2;
+
+        /**
+         * HTTP 模式：请求体压缩（none | gzip | zstd）
+         */
+        private String compression = "none";
     }
 
     @Data
@@ -193,6 +275,12 @@ public class LogXGatewayProperties {
                 "Origin",
                 "Referer"
         ));
+
+        /**
+         * 访问记录移交队列容量
+         * 事件循环线程只把访问记录放入该队列，由独立线程构建并发送日志；队列满时丢弃新记录
+         */
+        private int handoffQueueSize = 8192;
     }
 
     @Data
@@ -211,5 +299,171 @@ public class LogXGatewayProperties {
          * 刷新间隔
          */
         private Duration flushInterval = Duration.ofSeconds(5);
+
+        /**
+         * 单批次最大日志条数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 单批次最大估算字节数
+         */
+        private long maxBatchBytes = 1024 * 1024;
+
+        /**
+         * 溢出策略：DROP_NEWEST / DROP_OLDEST / BLOCK_WITH_TIMEOUT
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+        /**
+         * BLOCK_WITH_TIMEOUT 策略下的最长等待时间
+         */
+        private Duration blockTimeout = Duration.ofMillis(100);
+
+        /**
+         * 是否启用高优先级通道（达到 priorityLevel 的日志立即发送，不会因普通日志溢出被丢弃）
+         */
+        private boolean priorityEnabled = true;
+
+        /**
+         * 进入高优先级通道的最低级别：WARN / ERROR
+         */
+        private String priorityLevel = "ERROR";
+
+        /**
+         * 高优先级通道的预留容量
+         */
+        private int prioritySize = 256;
+    }
+
+    /**
+     * 熔断器配置：网关连续失败时暂停发送，批次直接溢写（未启用溢写时留在缓冲区），到期后放行探测批次
+     */
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * 是否启用熔断器
+         */
+        private boolean enabled = true;
+
+        /**
+         * 连续失败多少次后熔断
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * 熔断持续时间（连续熔断时翻倍，最长 5 分钟）
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
+
+    /**
+     * 磁盘溢写配置：网关不可用时将发送失败的批次写入本地磁盘，恢复后重放
+     */
+    @Data
+    public static class Spill {
+        /**
+         * 是否启用磁盘溢写
+         */
+        private boolean enabled = false;
+
+        /**
+         * 溢写目录（默认 ${java.io.tmpdir}/logx-spill/{systemId}）
+         */
+        private String directory;
+
+        /**
+         * 溢写文件总大小上限（字节），超过后淘汰最旧的数据
+         */
+        private long maxBytes = 256L * 1024 * 1024;
+
+        /**
+         * 单个段文件大小（字节）
+         */
+        private long segmentBytes = 16L * 1024 * 1024;
+
+        /**
+         * 每秒最多重放的批次数
+         */
+        private int replayRate = 20;
+    }
+
+    /**
+     * 采样配置：最低级别过滤与按级别 / Logger 的采样规则
+     */
+    @Data
+    public static class Sampling {
+        /**
+         * 最低日志级别：DEBUG / INFO / WARN / ERROR
+         */
+        private String minLevel = "DEBUG";
+
+        /**
+         * 采样规则（按顺序匹配，ERROR 日志与被标记的追踪始终保留）
+         */
+        private List<SamplingRule> rules = new ArrayList<>();
+    }
+
+    /**
+     * 重复日志聚合配置
+     */
+    @Data
+    public static class Aggregation {
+        /**
+         * 是否启用重复日志聚合
+         */
+        private boolean enabled = false;
+
+        /**
+         * 聚合窗口
+         */
+        private Duration window = Duration.ofSeconds(1);
+    }
+
+    /**
+     * 异常堆栈去重配置
+     */
+    @Data
+    public static class StackTrace {
+        /**
+         * 是否按指纹去重异常堆栈（重复堆栈依赖处理服务的缓存补全，缓存未命中时只保留栈顶帧）
+         */
+        private boolean dedupEnabled = false;
+
+        /**
+         * 同一指纹两次发送完整堆栈的最小间隔
+         */
+        private Duration dedupWindow = Duration.ofMinutes(10);
+
+        /**
+         * 重复堆栈保留的栈顶帧数
+         */
+        private int topFrames = 5;
+    }
+
+    /**
+     * 请求 RED 指标聚合配置
+     */
+    @Data
+    public static class RequestMetrics {
+        /**
+         * 是否在本地聚合请求指标，成功且不慢的请求不再逐条记录访问日志
+         */
+        private boolean enabled = false;
+
+        /**
+         * 汇总周期
+         */
+        private Duration interval = Duration.ofMinutes(1);
+
+        /**
+         * 成功且不慢的请求仍逐条记录日志的比例（0 ~ 1）
+         */
+        private double sampleRate = 0.01;
+
+        /**
+         * 聚合键（路由 + 方法 + 状态分类）的数量上限
+         */
+        private int maxRoutes = 1000;
     }
 }
@@ -0,0 +1,144 @@
+package com.domidodo.logx.sdk.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 访问记录移交：队列满时丢弃、关闭前处理完已移交的记录、关闭后拒绝新记录
+ */
+class AccessLogPublisherTest {
+
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+
+    @Test
+    void dropsNewRecordsWhileQueueIsFull() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AccessLogPublisher publisher = new AccessLogPublisher(3, record -> {
+            entered.countDown();
+            await(release);
+            handled.add(record.path());
+        });
+
+        assertTrue(publisher.publish(record("/1")));
+        assertTrue(entered.await(5, TimeUnit.SECONDS), "排空线程应开始处理第一条记录");
+        assertTrue(publisher.publish(record("/2")));
+        assertTrue(publisher.publish(record("/3")));
+        assertFalse(publisher.publish(record("/4")), "等待处理的记录数达到上限时丢弃新记录");
+        assertEquals(1, publisher.getDroppedCount());
+
+        release.countDown();
+        publisher.shutdown(Duration.ofSeconds(5));
+        assertEquals(List.of("/1", "/2", "/3"), handled, "已移交的记录按顺序处理");
+    }
+
+    @Test
+    void acceptsRecordsAgainOnceQueueDrains() {
+        CountDownLatch release = new CountDownLatch(1);
+        AccessLogPublisher publisher = new AccessLogPublisher(1, record -> {
+            await(release);
+            handled.add(record.path());
+        });
+
+        assertTrue(publisher.publish(record("/1")));
+        assertFalse(publisher.publish(record("/2")));
+        release.countDown();
+        awaitHandled(1);
+
+        assertTrue(publisher.publish(record("/3")));
+        publisher.shutdown(Duration.ofSeconds(5));
+        assertEquals(List.of("/1", "/3"), handled);
+        assertEquals(1, publisher.getDroppedCount());
+    }
+
+    @Test
+    void handlerFailureDoesNotStopDraining() {
+        AccessLogPublisher publisher = new AccessLogPublisher(16, record -> {
+            if (record.path().equals("/fail")) {
+                throw new IllegalStateException("boom");
+            }
+            handled.add(record.path());
+        });
+
+        publisher.publish(record("/1"));
+        publisher.publish(record("/fail"));
+        publisher.publish(record("/2"));
+        publisher.shutdown(Duration.ofSeconds(5));
+
+        assertEquals(List.of("/1", "/2"), handled);
+    }
+
+    @Test
+    void shutdownHandlesPublishedRecordsThenRejectsNewOnes() {
+        AccessLogPublisher publisher = new AccessLogPublisher(1024, record -> {
+            sleep(1);
+            handled.add(record.path());
+        });
+        for (int i = 0; i < 100; i++) {
+            assertTrue(publisher.publish(record("/" + i)));
+        }
+
+        publisher.shutdown(Duration.ofSeconds(10));
+        assertEquals(100, handled.size(), "关闭前处理完已移交的记录");
+
+        assertFalse(publisher.publish(record("/late")), "关闭后拒绝新记录");
+        assertEquals(1, publisher.getDroppedCount());
+        assertEquals(100, handled.size());
+    }
+
+    @Test
+    void publishAfterTimedOutShutdownIsRejected() {
+        CountDownLatch release = new CountDownLatch(1);
+        AccessLogPublisher publisher = new AccessLogPublisher(16, record -> {
+            await(release);
+            handled.add(record.path());
+        });
+        assertTrue(publisher.publish(record("/stuck")));
+
+        publisher.shutdown(Duration.ofMillis(100));
+
+        // 排空线程仍未结束时新记录不会被处理，应计为丢弃而不是返回成功
+        assertFalse(publisher.publish(record("/late")));
+        assertFalse(publisher.publish(record("/later")));
+        assertEquals(2, publisher.getDroppedCount());
+        release.countDown();
+    }
+
+    private void awaitHandled(int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handled.size() < count && System.nanoTime() < deadline) {
+            sleep(1);
+        }
+        assertEquals(count, handled.size());
+    }
+
+    private static AccessRecord record(String path) {
+        return new AccessRecord(path, "GET", null, "localhost", "test", "127.0.0.1", null,
+                200, 1L, null, null, null, null, false, "reactor-http-nio-1");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
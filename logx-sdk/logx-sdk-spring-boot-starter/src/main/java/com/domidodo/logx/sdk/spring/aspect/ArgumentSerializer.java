@@ -0,0 +1,452 @@
+package com.domidodo.logx.sdk.spring.aspect;
+
+import com.domidodo.logx.sdk.core.model.DeferredValue;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 方法参数 / 返回值序列化
+ * <p>
+ * 1. 调用线程只保存参数数组的引用（切面拿到的已是副本），重量级对象当场替换为占位符，
+ * 序列化通过 {@link DeferredValue} 延迟到 SDK 刷新线程
+ * 2. 流式写出 JSON：超过字节上限立即停止遍历，嵌套深度和集合元素数量有上限，循环引用在深度上限处截断
+ * 3. 每种类型的处理方式（标量、集合、数组、Bean 字段列表、跳过）用 ClassValue 缓存，只反射一次
+ * 4. 自身或父类声明了 toString() 的类型按 toString() 输出，与之前的行为一致，
+ * 在 toString() 中脱敏的字段（密码、令牌、卡号等）不会因反射字段而泄露；只有未声明 toString() 的类型才输出字段
+ * 5. 流、文件上传、Servlet 对象等重量级类型不序列化，只输出类型名
+ */
+final class ArgumentSerializer {
+
+    private static final String TRUNCATED = "...(truncated)";
+
+    /**
+     * 不序列化的类型（按类名匹配，starter 不依赖这些类）
+     */
+    private static final Set<String> HEAVY_TYPES = Set.of(
+            "java.io.InputStream", "java.io.OutputStream", "java.io.Reader", "java.io.Writer",
+            "java.nio.channels.Channel", "java.util.stream.BaseStream", "java.lang.Thread",
+            "jakarta.servlet.ServletRequest", "jakarta.servlet.ServletResponse", "jakarta.servlet.http.HttpSession",
+            "javax.servlet.ServletRequest", "javax.servlet.ServletResponse", "javax.servlet.http.HttpSession",
+            "org.springframework.web.multipart.MultipartFile", "jakarta.servlet.http.Part",
+            "org.springframework.validation.Errors", "org.springframework.ui.Model",
+            "org.springframework.core.io.InputStreamSource", "org.springframework.web.context.request.WebRequest",
+            "org.springframework.http.HttpInputMessage", "org.springframework.http.HttpOutputMessage");
+
+    private static final ClassValue<TypeHandler> HANDLERS = new ClassValue<>() {
+        @Override
+        protected TypeHandler computeValue(Class<?> type) {
+            return TypeHandler.of(type);
+        }
+    };
+
+    private final int maxBytes;
+    private final int maxDepth;
+    private final int maxItems;
+
+    /**
+     * @param maxBytes 单个字段（参数或返回值）序列化后的最大字节数（UTF-8）
+     * @param maxDepth 对象嵌套的最大深度
+     * @param maxItems 集合、数组、Map 最多输出的元素数量
+     */
+    ArgumentSerializer(int maxBytes, int maxDepth, int maxItems) {
+        this.maxBytes = Math.max(64, maxBytes);
+        this.maxDepth = Math.max(1, maxDepth);
+        this.maxItems = Math.max(1, maxItems);
+    }
+
+    /**
+     * 捕获参数快照，在刷新线程上序列化为 JSON 数组
+     */
+    DeferredValue captureArgs(Object[] args) {
+        Object[] snapshot = args;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] != null && HANDLERS.get(args[i].getClass()).kind == Kind.SKIPPED) {
+                // 不持有请求、流等对象的引用，请求结束后它们可能已被回收复用
+                if (snapshot == args) {
+                    snapshot = args.clone();
+                }
+                snapshot[i] = new Placeholder(args[i].getClass());
+            }
+        }
+        Object[] captured = snapshot;
+        return () -> serializeArgs(captured);
+    }
+
+    /**
+     * 捕获返回值，在刷新线程上序列化
+     */
+    DeferredValue captureResult(Object result) {
+        if (HANDLERS.get(result.getClass()).kind == Kind.SKIPPED) {
+            String placeholder = placeholder(result.getClass());
+            return () -> placeholder;
+        }
+        return () -> serialize(result);
+    }
+
+    /**
+     * 参数列表序列化为 JSON 数组（参数个数不受集合元素数量限制），超过字节上限时截断
+     */
+    String serializeArgs(Object[] args) {
+        Writer writer = new Writer(maxBytes);
+        try {
+            writer.raw("[");
+            for (int i = 0; i < args.length; i++) {
+                if (i > 0) {
+                    writer.raw(",");
+                }
+                writeValue(writer, args[i], 0);
+            }
+            writer.raw("]");
+        } catch (LimitReached e) {
+            return writer.sb.append(TRUNCATED).toString();
+        }
+        return writer.sb.toString();
+    }
+
+    /**
+     * 序列化为 JSON，超过字节上限时截断
+     */
+    String serialize(Object value) {
+        Writer writer = new Writer(maxBytes);
+        try {
+            writeValue(writer, value, 0);
+        } catch (LimitReached e) {
+            return writer.sb.append(TRUNCATED).toString();
+        }
+        return writer.sb.toString();
+    }
+
+    private void writeValue(Writer writer, Object value, int depth) {
+        if (value == null) {
+            writer.raw("null");
+            return;
+        }
+        TypeHandler handler = HANDLERS.get(value.getClass());
+        switch (handler.kind) {
+            case RAW -> writer.raw(value.toString());
+            case STRING -> writer.string(value.toString());
+            case ENUM -> writer.string(((Enum<?>) value).name());
+            case BYTES -> writer.string("<byte[" + ((byte[]) value).length + "]>");
+            case SKIPPED -> writer.string(placeholder(value.getClass()));
+            case PLACEHOLDER -> writer.string(placeholder(((Placeholder) value).type));
+            case ARRAY -> writeArray(writer, value, depth);
+            case ITERABLE -> writeIterable(writer, (Iterable<?>) value, depth);
+            case MAP -> writeMap(writer, (Map<?, ?>) value, depth);
+            case BEAN -> writeBean(writer, value, handler.fields, depth);
+            default -> writer.string(safeToString(value));
+        }
+    }
+
+    private void writeArray(Writer writer, Object array, int depth) {
+        if (depth >= maxDepth) {
+            writer.string("<" + array.getClass().getSimpleName() + ">");
+            return;
+        }
+        int length = Array.getLength(array);
+        writer.raw("[");
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                writer.raw(",");
+            }
+            if (i >= maxItems) {
+                writer.string("...(" + length + " items)");
+                break;
+            }
+            writeValue(writer, Array.get(array, i), depth + 1);
+        }
+        writer.raw("]");
+    }
+
+    private void writeIterable(Writer writer, Iterable<?> iterable, int depth) {
+        if (depth >= maxDepth) {
+            writer.string("<" + iterable.getClass().getSimpleName() + ">");
+            return;
+        }
+        writer.raw("[");
+        int index = 0;
+        for (Object item : iterable) {
+            if (index > 0) {
+                writer.raw(",");
+            }
+            if (index >= maxItems) {
+                writer.string("...");
+                break;
+            }
+            writeValue(writer, item, depth + 1);
+            index++;
+        }
+        writer.raw("]");
+    }
+
+    private void writeMap(Writer writer, Map<?, ?> map, int depth) {
+        if (depth >= maxDepth) {
+            writer.string("<" + map.getClass().getSimpleName() + ">");
+            return;
+        }
+        writer.raw("{");
+        int index = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (index > 0) {
+                writer.raw(",");
+            }
+            if (index >= maxItems) {
+                writer.string("...");
+                writer.raw(":null");
+                break;
+            }
+            writer.string(String.valueOf(entry.getKey()));
+            writer.raw(":");
+            writeValue(writer, entry.getValue(), depth + 1);
+            index++;
+        }
+        writer.raw("}");
+    }
+
+    private void writeBean(Writer writer, Object bean, Field[] fields, int depth) {
+        if (depth >= maxDepth) {
+            writer.string("<" + bean.getClass().getSimpleName() + ">");
+            return;
+        }
+        writer.raw("{");
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.raw(",");
+            }
+            writer.string(fields[i].getName());
+            writer.raw(":");
+            Object value;
+            try {
+                value = fields[i].get(bean);
+            } catch (Exception e) {
+                writer.string("<" + e.getClass().getSimpleName() + ">");
+                continue;
+            }
+            writeValue(writer, value, depth + 1);
+        }
+        writer.raw("}");
+    }
+
+    private static String safeToString(Object value) {
+        try {
+            return value.toString();
+        } catch (Exception e) {
+            // 如懒加载实体在会话关闭后访问
+            return "<" + value.getClass().getSimpleName() + ": " + e.getClass().getSimpleName() + ">";
+        }
+    }
+
+    private static String placeholder(Class<?> type) {
+        return "<" + type.getSimpleName() + ">";
+    }
+
+    private enum Kind {
+        RAW, STRING, ENUM, BYTES, ARRAY, ITERABLE, MAP, BEAN, TO_STRING, SKIPPED, PLACEHOLDER
+    }
+
+    /**
+     * 一种类型的序列化方式
+     */
+    private static final class TypeHandler {
+
+        final Kind kind;
+        final Field[] fields;
+
+        private TypeHandler(Kind kind, Field[] fields) {
+            this.kind = kind;
+            this.fields = fields;
+        }
+
+        static TypeHandler of(Class<?> type) {
+            return new TypeHandler(kindOf(type), null).withFields(type);
+        }
+
+        private TypeHandler withFields(Class<?> type) {
+            if (kind != Kind.BEAN) {
+                return this;
+            }
+            Field[] beanFields = beanFields(type);
+            return beanFields != null ? new TypeHandler(Kind.BEAN, beanFields) : new TypeHandler(Kind.TO_STRING, null);
+        }
+
+        private static Kind kindOf(Class<?> type) {
+            if (type == Placeholder.class) {
+                return Kind.PLACEHOLDER;
+            }
+            if (type == Boolean.class || type == Integer.class || type == Long.class || type == Short.class
+                    || type == Byte.class || type == Double.class || type == Float.class) {
+                return Kind.RAW;
+            }
+            if (CharSequence.class.isAssignableFrom(type) || type == Character.class || type == UUID.class
+                    || Number.class.isAssignableFrom(type) || TemporalAccessor.class.isAssignableFrom(type)
+                    || Date.class.isAssignableFrom(type)) {
+                return Kind.STRING;
+            }
+            if (type.isEnum() || Enum.class.isAssignableFrom(type)) {
+                return Kind.ENUM;
+            }
+            if (isHeavy(type)) {
+                return Kind.SKIPPED;
+            }
+            if (type == byte[].class) {
+                return Kind.BYTES;
+            }
+            if (type.isArray()) {
+                return Kind.ARRAY;
+            }
+            if (Map.class.isAssignableFrom(type)) {
+                return Kind.MAP;
+            }
+            if (Iterable.class.isAssignableFrom(type)) {
+                return Kind.ITERABLE;
+            }
+            String name = type.getName();
+            if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jakarta.")
+                    || name.startsWith("sun.") || name.startsWith("jdk.") || type.isSynthetic()
+                    || Throwable.class.isAssignableFrom(type)) {
+                // JDK 与框架类型的内部字段没有意义，且通常无法反射访问
+                return Kind.TO_STRING;
+            }
+            if (declaresToString(type)) {
+                // 应用自己定义的输出格式（可能已脱敏），不绕过它读取私有字段
+                return Kind.TO_STRING;
+            }
+            return Kind.BEAN;
+        }
+
+        /**
+         * 类型自身或任一父类（Object 除外）声明了 toString()
+         */
+        private static boolean declaresToString(Class<?> type) {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                try {
+                    current.getDeclaredMethod("toString");
+                    return true;
+                } catch (NoSuchMethodException e) {
+                    // 继续检查父类
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 类型自身或任一父类型、接口属于重量级类型
+         */
+        private static boolean isHeavy(Class<?> type) {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                if (HEAVY_TYPES.contains(current.getName()) || hasHeavyInterface(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean hasHeavyInterface(Class<?> type) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (HEAVY_TYPES.contains(candidate.getName()) || hasHeavyInterface(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 实例字段（含父类，不含 static / transient），无法访问时返回 null
+         */
+        private static Field[] beanFields(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class
+                    && !current.getName().startsWith("java."); current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    if (!field.trySetAccessible()) {
+                        return null;
+                    }
+                    fields.add(field);
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    }
+
+    /**
+     * 调用线程上替换掉的重量级参数
+     */
+    private record Placeholder(Class<?> type) {
+    }
+
+    /**
+     * 达到字节上限，停止遍历
+     */
+    private static final class LimitReached extends RuntimeException {
+        private LimitReached() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 按 UTF-8 字节数计数的 JSON 输出
+     */
+    private static final class Writer {
+
+        final StringBuilder sb = new StringBuilder(128);
+        private final int maxBytes;
+        private int bytes;
+
+        Writer(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        void raw(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                append(value.charAt(i));
+            }
+        }
+
+        void string(String value) {
+            append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> escape('"');
+                    case '\\' -> escape('\\');
+                    case '\n' -> escape('n');
+                    case '\r' -> escape('r');
+                    case '\t' -> escape('t');
+                    default -> {
+                        if (c < 0x20) {
+                            raw(String.format("\\u%04x", (int) c));
+                        } else {
+                            append(c);
+                        }
+                    }
+                }
+            }
+            append('"');
+        }
+
+        private void escape(char c) {
+            append('\\');
+            append(c);
+        }
+
+        private void append(char c) {
+            bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+            if (bytes > maxBytes) {
+                throw new LimitReached();
+            }
+            sb.append(c);
+        }
+    }
+}
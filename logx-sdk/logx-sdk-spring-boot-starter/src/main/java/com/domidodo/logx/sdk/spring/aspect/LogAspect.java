@@ -1,12 +1,11 @@
 package com.domidodo.logx.sdk.spring.aspect;
 
 import com.domidodo.logx.sdk.core.LogXClient;
+import com.domidodo.logx.sdk.core.aggregation.RequestMetricsAggregator;
 import com.domidodo.logx.sdk.core.context.TraceContext;
 import com.domidodo.logx.sdk.core.context.TraceContext.TraceInfo;
 import com.domidodo.logx.sdk.core.model.LogEntry;
-import com.domidodo.logx.sdk.spring.annotation.LogIgnore;
-import com.domidodo.logx.sdk.spring.annotation.LogModule;
-import com.domidodo.logx.sdk.spring.annotation.LogOperation;
+import com.domidodo.logx.sdk.core.sampling.LogSampler;
 import com.domidodo.logx.sdk.spring.context.UserContextProvider;
 import com.domidodo.logx.sdk.spring.properties.LogXProperties;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,11 +17,9 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.lang.reflect.Method;
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -33,19 +30,32 @@ import java.util.Map;
  * 1. 自动从 TraceContext 获取 TraceId（网关传递的）
  * 2. 支持 @LogModule、@LogOperation、@LogIgnore 注解
  * 3. 自动记录请求参数、响应结果、异常信息
+ * 4. 注解、模块映射和类名按方法缓存（见 {@link MethodLogMetadata}），每次调用只做一次缓存查找
+ * 5. 参数和返回值在请求线程上只保存引用，由 SDK 刷新线程做限长序列化（见 {@link ArgumentSerializer}）
+ * 6. 启用请求指标聚合时，成功且不慢的调用只计入 RED 指标汇总，按采样比例记录日志
  */
 @Slf4j
 @Aspect
 public class LogAspect {
 
+    private static final String CONTROLLER_LAYER = "Controller";
+
     private final LogXClient logXClient;
     private final LogXProperties properties;
     private final UserContextProvider userContextProvider;
+    private final MethodLogMetadata.Cache controllerMetadata;
+    private final MethodLogMetadata.Cache serviceMetadata;
+    private final ArgumentSerializer argumentSerializer;
 
     public LogAspect(LogXClient logXClient, LogXProperties properties, UserContextProvider userContextProvider) {
         this.logXClient = logXClient;
         this.properties = properties;
         this.userContextProvider = userContextProvider;
+        this.controllerMetadata = new MethodLogMetadata.Cache(CONTROLLER_LAYER, properties);
+        this.serviceMetadata = new MethodLogMetadata.Cache("Service", properties);
+        LogXProperties.Aspect aspect = properties.getAspect();
+        this.argumentSerializer = new ArgumentSerializer(
+                aspect.getMaxFieldBytes(), aspect.getMaxDepth(), aspect.getMaxCollectionItems());
     }
 
     /**
@@ -71,7 +81,7 @@ public class LogAspect {
         if (!properties.getAspect().isController()) {
             return joinPoint.proceed();
         }
-        return doAround(joinPoint, "Controller");
+        return doAround(joinPoint, controllerMetadata);
     }
 
     /**
@@ -82,19 +92,18 @@ public class LogAspect {
         if (!properties.getAspect().isService()) {
             return joinPoint.proceed();
         }
-        return doAround(joinPoint, "Service");
+        return doAround(joinPoint, serviceMetadata);
     }
 
     /**
      * 核心日志处理逻辑
      */
-    private Object doAround(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
+    private Object doAround(ProceedingJoinPoint joinPoint, MethodLogMetadata.Cache cache) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodLogMetadata metadata = cache.get(joinPoint.getTarget().getClass(), method);
 
         // 检查是否忽略
-        if (method.isAnnotationPresent(LogIgnore.class) ||
-            joinPoint.getTarget().getClass().isAnnotationPresent(LogIgnore.class)) {
+        if (metadata.ignored) {
             return joinPoint.proceed();
         }
 
@@ -111,7 +120,7 @@ public class LogAspect {
         } finally {
             try {
                 long responseTime = System.currentTimeMillis() - startTime;
-                recordLog(joinPoint, method, layer, result, exception, responseTime);
+                recordLog(joinPoint, metadata, result, exception, responseTime);
             } catch (Exception e) {
                 log.error("记录日志失败", e);
             }
@@ -121,7 +130,7 @@ public class LogAspect {
     /**
      * 记录日志
      */
-    private void recordLog(ProceedingJoinPoint joinPoint, Method method, String layer,
+    private void recordLog(ProceedingJoinPoint joinPoint, MethodLogMetadata metadata,
                            Object result, Throwable exception, long responseTime) {
 
         // 获取请求上下文
@@ -130,16 +139,29 @@ public class LogAspect {
         // ★ 核心改进：从 TraceContext 获取追踪信息
         TraceInfo traceInfo = TraceContext.getTrace();
 
+        // 计入请求指标；成功且不慢的调用只保留采样命中的日志（被标记的追踪始终保留）
+        boolean slow = responseTime > properties.getAspect().getSlowThreshold();
+        RequestMetricsAggregator requestMetrics = logXClient.getRequestMetrics();
+        boolean sampled = false;
+        if (requestMetrics != null) {
+            recordRequestMetrics(requestMetrics, request, metadata, exception != null, responseTime);
+            if (exception == null && !slow && (traceInfo == null || !traceInfo.isFlagged())) {
+                if (!requestMetrics.sample()) {
+                    return;
+                }
+                sampled = true;
+            }
+        }
+
         // 构建日志条目
         LogEntry.LogEntryBuilder builder = LogEntry.builder()
                 .tenantId(properties.getTenantId())
                 .systemId(properties.getSystemId())
                 .systemName(properties.getSystemName())
-                .timestamp(LocalDateTime.now())
-                .logger(joinPoint.getTarget().getClass().getName())
+                .logger(metadata.loggerName)
                 .thread(Thread.currentThread().getName())
-                .className(joinPoint.getTarget().getClass().getSimpleName())
-                .methodName(method.getName())
+                .className(metadata.simpleClassName)
+                .methodName(metadata.methodName)
                 .responseTime(responseTime);
 
         // ★ 设置追踪信息（从 TraceContext 获取）
@@ -175,68 +197,53 @@ public class LogAspect {
         }
 
         // 设置模块和操作
-        String module = getModule(joinPoint, method);
-        String operation = getOperation(method);
-        builder.module(module);
-        builder.operation(operation);
+        builder.module(metadata.module);
+        builder.operation(metadata.operation);
 
         // 设置日志级别和消息
         String level;
         String message;
         if (exception != null) {
             level = "ERROR";
-            message = String.format("%s.%s() 执行异常: %s",
-                    joinPoint.getTarget().getClass().getSimpleName(),
-                    method.getName(),
-                    exception.getMessage());
-            builder.exception(getStackTrace(exception));
-        } else if (responseTime > properties.getAspect().getSlowThreshold()) {
+            message = metadata.messagePrefix + "执行异常: " + exception.getMessage();
+            // 由客户端格式化异常（启用堆栈去重时重复堆栈只发送栈顶帧和指纹）
+            builder.throwable(exception);
+        } else if (slow) {
             level = "WARN";
-            message = String.format("%s.%s() 执行缓慢 (%dms)",
-                    joinPoint.getTarget().getClass().getSimpleName(),
-                    method.getName(),
-                    responseTime);
+            message = metadata.messagePrefix + "执行缓慢 (" + responseTime + "ms)";
         } else {
             level = "INFO";
-            message = String.format("%s.%s() 执行完成 (%dms)",
-                    joinPoint.getTarget().getClass().getSimpleName(),
-                    method.getName(),
-                    responseTime);
+            message = metadata.messagePrefix + "执行完成 (" + responseTime + "ms)";
         }
         builder.level(level);
         builder.message(message);
 
         // 构建扩展信息
         Map<String, Object> context = new HashMap<>();
-        context.put("layer", layer);
+        context.put("layer", metadata.layer);
+        if (sampled) {
+            context.put(LogSampler.SAMPLE_RATE_KEY, requestMetrics.getSampleRate());
+        }
 
-        // 记录请求参数
+        // 记录请求参数（getArgs 返回的已是参数数组副本，序列化延迟到刷新线程）
         if (properties.getAspect().isLogArgs()) {
-            try {
-                Object[] args = joinPoint.getArgs();
-                if (args != null && args.length > 0) {
-                    context.put("args", serializeArgs(args));
-                }
-            } catch (Exception e) {
-                log.debug("序列化参数失败", e);
+            Object[] args = joinPoint.getArgs();
+            if (args != null && args.length > 0) {
+                context.put("args", argumentSerializer.captureArgs(args));
             }
         }
 
         // 记录响应结果
         if (properties.getAspect().isLogResult() && result != null && exception == null) {
-            try {
-                context.put("result", result.toString());
-            } catch (Exception e) {
-                log.debug("序列化结果失败", e);
-            }
+            context.put("result", argumentSerializer.captureResult(result));
         }
 
         builder.context(context);
 
         // 添加标签
         LogEntry entry = builder.build();
-        entry.addTag(layer.toLowerCase());
-        if (responseTime > properties.getAspect().getSlowThreshold()) {
+        entry.addTag(metadata.layerTag);
+        if (slow) {
             entry.addTag("slow-request");
         }
         if (exception != null) {
@@ -248,52 +255,25 @@ public class LogAspect {
     }
 
     /**
-     * 获取模块名
+     * 计入请求指标
+     * Controller 按 Spring MVC 匹配到的路由模板（如 /orders/{id}）和请求方法分组，
+     * Service 按 类名.方法名 分组；状态分类为 ok / error
      */
-    private String getModule(ProceedingJoinPoint joinPoint, Method method) {
-        // 1. 检查方法注解
-        LogModule methodModule = method.getAnnotation(LogModule.class);
-        if (methodModule != null) {
-            return methodModule.value();
-        }
-
-        // 2. 检查类注解
-        LogModule classModule = joinPoint.getTarget().getClass().getAnnotation(LogModule.class);
-        if (classModule != null) {
-            return classModule.value();
-        }
-
-        // 3. 使用配置的映射
-        if (properties.getModule().isEnabled()) {
-            String className = joinPoint.getTarget().getClass().getName();
-
-            // 检查类映射
-            String module = properties.getModule().getClassMapping().get(className);
-            if (module != null) {
-                return module;
-            }
-
-            // 检查包映射
-            for (Map.Entry<String, String> entry : properties.getModule().getPackageMapping().entrySet()) {
-                if (className.startsWith(entry.getKey())) {
-                    return entry.getValue();
-                }
-            }
-        }
-
-        // 4. 返回默认值
-        return properties.getModule().getDefaultModule();
-    }
-
-    /**
-     * 获取操作名
-     */
-    private String getOperation(Method method) {
-        LogOperation operation = method.getAnnotation(LogOperation.class);
-        if (operation != null) {
-            return operation.value();
+    private void recordRequestMetrics(RequestMetricsAggregator requestMetrics, HttpServletRequest request,
+                                      MethodLogMetadata metadata, boolean error, long responseTime) {
+        String route;
+        String method;
+        if (request != null && CONTROLLER_LAYER.equals(metadata.layer)) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            route = pattern != null
+                    ? pattern.toString()
+                    : RequestMetricsAggregator.normalizePath(request.getRequestURI());
+            method = request.getMethod();
+        } else {
+            route = metadata.simpleClassName + "." + metadata.methodName;
+            method = metadata.layer;
         }
-        return method.getName();
+        requestMetrics.record(route, method, error ? "error" : "ok", error, responseTime);
     }
 
     /**
@@ -332,42 +312,4 @@ public class LogAspect {
 
         return request.getRemoteAddr();
     }
-
-    /**
-     * 序列化参数
-     */
-    private String serializeArgs(Object[] args) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < args.length; i++) {
-            if (i > 0) sb.append(", ");
-            Object arg = args[i];
-            if (arg == null) {
-                sb.append("null");
-            } else if (arg instanceof HttpServletRequest) {
-                sb.append("HttpServletRequest");
-            } else {
-                try {
-                    String str = arg.toString();
-                    if (str.length() > 200) {
-                        str = str.substring(0, 200) + "...";
-                    }
-                    sb.append(str);
-                } catch (Exception e) {
-                    sb.append(arg.getClass().getSimpleName());
-                }
-            }
-        }
-        sb.append("]");
-        return sb.toString();
-    }
-
-    /**
-     * 获取异常堆栈
-     */
-    private String getStackTrace(Throwable throwable) {
-        StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
-        throwable.printStackTrace(pw);
-        return sw.toString();
-    }
 }
@@ -0,0 +1,139 @@
+package com.domidodo.logx.sdk.spring.aspect;
+
+import com.domidodo.logx.sdk.spring.annotation.LogIgnore;
+import com.domidodo.logx.sdk.spring.annotation.LogModule;
+import com.domidodo.logx.sdk.spring.annotation.LogOperation;
+import com.domidodo.logx.sdk.spring.properties.LogXProperties;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 被拦截方法的日志元数据
+ * <p>
+ * 注解、模块映射和类名在每个（目标类, 方法）上只解析一次，切面每次调用只做缓存查找：
+ * 1. 以目标类为键使用 ClassValue，类卸载时缓存随之释放；同一方法被多个子类继承时各自解析类级注解
+ * 2. 模块映射在首次调用时读取配置，之后修改配置不影响已缓存的方法
+ */
+final class MethodLogMetadata {
+
+    /**
+     * 方法或类标注了 @LogIgnore
+     */
+    final boolean ignored;
+
+    /**
+     * 切面层级（Controller / Service）及对应的标签
+     */
+    final String layer;
+    final String layerTag;
+
+    final String module;
+    final String operation;
+
+    /**
+     * 目标类全名（logger）与简单类名（className）
+     */
+    final String loggerName;
+    final String simpleClassName;
+    final String methodName;
+
+    /**
+     * 日志消息前缀，如 "OrderService.create() "
+     */
+    final String messagePrefix;
+
+    private MethodLogMetadata(Class<?> targetClass, Method method, String layer, LogXProperties properties) {
+        this.ignored = method.isAnnotationPresent(LogIgnore.class)
+                || targetClass.isAnnotationPresent(LogIgnore.class);
+        this.layer = layer;
+        this.layerTag = layer.toLowerCase();
+        this.module = resolveModule(targetClass, method, properties.getModule());
+        this.operation = resolveOperation(method);
+        this.loggerName = targetClass.getName();
+        this.simpleClassName = targetClass.getSimpleName();
+        this.methodName = method.getName();
+        this.messagePrefix = simpleClassName + "." + methodName + "() ";
+    }
+
+    /**
+     * 获取模块名
+     * 优先级：方法注解 > 类注解 > 类映射 > 包映射 > 默认值
+     */
+    private static String resolveModule(Class<?> targetClass, Method method, LogXProperties.Module config) {
+        // 1. 检查方法注解
+        LogModule methodModule = method.getAnnotation(LogModule.class);
+        if (methodModule != null) {
+            return methodModule.value();
+        }
+
+        // 2. 检查类注解
+        LogModule classModule = targetClass.getAnnotation(LogModule.class);
+        if (classModule != null) {
+            return classModule.value();
+        }
+
+        // 3. 使用配置的映射
+        if (config.isEnabled()) {
+            String className = targetClass.getName();
+
+            // 检查类映射
+            String module = config.getClassMapping().get(className);
+            if (module != null) {
+                return module;
+            }
+
+            // 检查包映射
+            for (Map.Entry<String, String> entry : config.getPackageMapping().entrySet()) {
+                if (className.startsWith(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+
+        // 4. 返回默认值
+        return config.getDefaultModule();
+    }
+
+    /**
+     * 获取操作名
+     */
+    private static String resolveOperation(Method method) {
+        LogOperation operation = method.getAnnotation(LogOperation.class);
+        if (operation != null) {
+            return operation.value();
+        }
+        return method.getName();
+    }
+
+    /**
+     * 一个切面层级的元数据缓存
+     */
+    static final class Cache {
+
+        private final String layer;
+        private final LogXProperties properties;
+        private final ClassValue<Map<Method, MethodLogMetadata>> byClass = new ClassValue<>() {
+            @Override
+            protected Map<Method, MethodLogMetadata> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
+        Cache(String layer, LogXProperties properties) {
+            this.layer = layer;
+            this.properties = properties;
+        }
+
+        MethodLogMetadata get(Class<?> targetClass, Method method) {
+            Map<Method, MethodLogMetadata> methods = byClass.get(targetClass);
+            MethodLogMetadata metadata = methods.get(method);
+            if (metadata == null) {
+                metadata = methods.computeIfAbsent(method,
+                        key -> new MethodLogMetadata(targetClass, key, layer, properties));
+            }
+            return metadata;
+        }
+    }
+}
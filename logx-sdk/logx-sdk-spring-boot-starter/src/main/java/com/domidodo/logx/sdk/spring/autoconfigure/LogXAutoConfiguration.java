@@ -1,6 +1,7 @@
 package com.domidodo.logx.sdk.spring.autoconfigure;
 
 import com.domidodo.logx.sdk.spring.aspect.LogAspect;
+import com.domidodo.logx.sdk.spring.config.LogXMetricsConfiguration;
 import com.domidodo.logx.sdk.spring.config.TraceIdFilterConfiguration;
 import com.domidodo.logx.sdk.spring.context.DefaultUserContextProvider;
 import com.domidodo.logx.sdk.spring.context.UserContextProvider;
@@ -26,13 +27,14 @@ import org.springframework.context.annotation.Import;
  * 核心改进：
  * 1. 导入 TraceIdFilterConfiguration（自动注册 TraceId 过滤器）
  * 2. 支持用户上下文自定义
+ * 3. 导入 LogXMetricsConfiguration（存在 Micrometer 时注册 SDK 指标）
  */
 @Slf4j
 @Configuration
 @EnableConfigurationProperties(LogXProperties.class)
 @ConditionalOnProperty(prefix = "logx", name = "enabled", havingValue = "true", matchIfMissing = true)
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
-@Import(TraceIdFilterConfiguration.class)  // ★ 导入 TraceId 过滤器配置
+@Import({TraceIdFilterConfiguration.class, LogXMetricsConfiguration.class})  // ★ 导入 TraceId 过滤器与 SDK 指标配置
 public class LogXAutoConfiguration {
 
     private LogXClient logXClient;
@@ -55,9 +57,29 @@ public class LogXAutoConfiguration {
                 .systemName(properties.getSystemName())
                 .apiKey(properties.getApiKey())
                 .mode(properties.getMode())
+                .locationCapture(properties.getLocationCapture())
+                .garbageFree(properties.isGarbageFree())
+                .preciseTimestamp(properties.isPreciseTimestamp())
                 .bufferEnabled(properties.getBuffer().isEnabled())
                 .bufferSize(properties.getBuffer().getSize())
-                .flushInterval(properties.getBuffer().getFlushInterval());
+                .flushInterval(properties.getBuffer().getFlushInterval())
+                .batchSize(properties.getBuffer().getBatchSize())
+                .maxBatchBytes(properties.getBuffer().getMaxBatchBytes())
+                .overflowPolicy(properties.getBuffer().getOverflowPolicy())
+                .blockTimeout(properties.getBuffer().getBlockTimeout())
+                .priorityLane(properties.getBuffer().isPriorityEnabled(),
+                        properties.getBuffer().getPriorityLevel(), properties.getBuffer().getPrioritySize())
+                .spill(properties.getSpill().isEnabled(), properties.getSpill().getDirectory())
+                .spillLimits(properties.getSpill().getMaxBytes(), properties.getSpill().getSegmentBytes())
+                .spillReplayRate(properties.getSpill().getReplayRate())
+                .minLevel(properties.getSampling().getMinLevel())
+                .samplingRules(properties.getSampling().getRules())
+                .aggregation(properties.getAggregation().isEnabled(), properties.getAggregation().getWindow())
+                .stackTraceDedup(properties.getStackTrace().isDedupEnabled(),
+                        properties.getStackTrace().getDedupWindow(), properties.getStackTrace().getTopFrames())
+                .requestMetrics(properties.getRequestMetrics().isEnabled(),
+                        properties.getRequestMetrics().getInterval(), properties.getRequestMetrics().getSampleRate())
+                .requestMetricsMaxRoutes(properties.getRequestMetrics().getMaxRoutes());
 
         // 根据模式设置网关配置
         if ("grpc".equalsIgnoreCase(properties.getMode())) {
@@ -65,7 +87,8 @@ public class LogXAutoConfiguration {
                             properties.getGateway().getHost(),
                             properties.getGateway().getPort()
                     )
-                    .batchMode(properties.getGateway().getBatchMode());
+                    .batchMode(properties.getGateway().getBatchMode())
+                    .grpcCompactBatch(properties.getGateway().isCompactBatch());
 
             log.info("LogX SDK 使用 gRPC 模式 [{}:{}, batchMode={}]",
                     properties.getGateway().getHost(),
@@ -77,8 +100,32 @@ public class LogXAutoConfiguration {
                     properties.getGateway().getUrl());
         }
 
+        // 多实例地址与传输故障转移（备用传输使用另一种模式的地址）
+        builder.gatewayUrls(properties.getGateway().getUrls())
+                .grpcEndpoints(properties.getGateway().getEndpoints())
+                .transportFailover(properties.getGateway().isFailover());
+        if (properties.getGateway().isFailover()) {
+            if ("grpc".equalsIgnoreCase(properties.getMode())) {
+                builder.gatewayUrl(properties.getGateway().getUrl()).mode("grpc");
+            } else {
+                builder.grpcEndpoint(properties.getGateway().getHost(), properties.getGateway().getPort())
+                        .batchMode(properties.getGateway().getBatchMode())
+                        .grpcCompactBatch(properties.getGateway().isCompactBatch())
+                        .mode("http");
+            }
+            log.info("LogX SDK 启用传输故障转移");
+        }
+
         builder.connectTimeout(properties.getGateway().getConnectTimeout())
-                .readTimeout(properties.getGateway().getReadTimeout());
+                .readTimeout(properties.getGateway().getReadTimeout())
+                .httpVersion(properties.getGateway().getHttpVersion())
+                .maxInFlightBatches(properties.getGateway().getMaxInFlightBatches())
+                .maxRetries(properties.getGateway().getMaxRetries())
+                .retryBudgetRatio(properties.getGateway().getRetryBudgetRatio())
+                .circuitBreaker(properties.getCircuitBreaker().isEnabled(),
+                        properties.getCircuitBreaker().getFailureThreshold(),
+                        properties.getCircuitBreaker().getOpenDuration())
+                .compression(properties.getGateway().getCompression());
 
         // 构建客户端
         logXClient = builder.build();
@@ -166,14 +213,16 @@ public class LogXAutoConfiguration {
 
         // 验证网关配置
         if ("grpc".equalsIgnoreCase(properties.getMode())) {
-            if (properties.getGateway().getHost() == null || properties.getGateway().getHost().isEmpty()) {
+            if (properties.getGateway().getEndpoints().isEmpty()
+                    && (properties.getGateway().getHost() == null || properties.getGateway().getHost().isEmpty())) {
                 throw new IllegalArgumentException("gRPC 模式下 logx.gateway.host 不能为空");
             }
             if (properties.getGateway().getPort() <= 0) {
                 throw new IllegalArgumentException("gRPC 模式下 logx.gateway.port 必须大于 0");
             }
         } else {
-            if (properties.getGateway().getUrl() == null || properties.getGateway().getUrl().isEmpty()) {
+            if (properties.getGateway().getUrls().isEmpty()
+                    && (properties.getGateway().getUrl() == null || properties.getGateway().getUrl().isEmpty())) {
                 throw new IllegalArgumentException("HTTP 模式下 logx.gateway.url 不能为空");
             }
         }
@@ -0,0 +1,32 @@
+package com.domidodo.logx.sdk.spring.config;
+
+import com.domidodo.logx.sdk.core.LogXClient;
+import com.domidodo.logx.sdk.spring.metrics.LogXMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SDK 自身指标自动配置
+ * <p>
+ * 仅在 classpath 中存在 micrometer-core 时生效，MeterBinder 由 Spring Boot Actuator 自动绑定到 MeterRegistry
+ */
+@Slf4j
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+@ConditionalOnProperty(prefix = "logx.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LogXMetricsConfiguration {
+
+    /**
+     * 注册 SDK 指标
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public LogXMetricsBinder logXMetricsBinder(LogXClient logXClient) {
+        log.info("注册 LogX SDK Micrometer 指标");
+        return new LogXMetricsBinder(logXClient);
+    }
+}
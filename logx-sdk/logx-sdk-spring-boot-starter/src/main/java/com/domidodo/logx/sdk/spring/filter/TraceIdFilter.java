@@ -71,6 +71,7 @@ public class TraceIdFilter implements Filter, Ordered {
             traceInfo.setUserId(httpRequest.getHeader(userIdHeader));
             traceInfo.setUserName(httpRequest.getHeader(userNameHeader));
             traceInfo.setTenantId(httpRequest.getHeader(tenantIdHeader));
+            traceInfo.setFlagged(TraceContext.parseFlagged(httpRequest.getHeader(TraceContext.TRACE_FLAGGED_HEADER)));
 
             // 4. 存入 ThreadLocal
             TraceContext.setTrace(traceInfo);
@@ -0,0 +1,202 @@
+package com.domidodo.logx.sdk.spring.metrics;
+
+import com.domidodo.logx.sdk.core.LogXClient;
+import com.domidodo.logx.sdk.core.metrics.Histogram;
+import com.domidodo.logx.sdk.core.metrics.LogXMetrics;
+import com.domidodo.logx.sdk.core.metrics.TransportMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 将 {@link LogXClient#metrics()} 注册为 Micrometer 指标
+ * <p>
+ * 所有指标以 logx.sdk 为前缀，带 transport 标签：发送和溢写指标按传输分别注册（http / grpc，启用故障转移时两者都有），
+ * 缓冲区和日志条数等客户端级指标的标签为客户端的传输组合（如 grpc+http）；
+ * 一次采集中的多个指标共用同一份快照（最多缓存 1 秒），避免重复复制直方图
+ */
+public class LogXMetricsBinder implements MeterBinder {
+
+    private static final String PREFIX = "logx.sdk.";
+
+    private static final long SNAPSHOT_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final TransportMetrics EMPTY_TRANSPORT = new TransportMetrics();
+
+    private final LogXClient client;
+
+    private volatile LogXMetrics snapshot;
+    private volatile long snapshotNanos;
+
+    public LogXMetricsBinder(LogXClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        LogXMetrics metrics = current();
+        Tags tags = Tags.of(Tag.of("transport", String.valueOf(metrics.getTransport())));
+
+        // 缓冲区
+        gauge(registry, tags, "buffer.size", "缓冲区中待发送的日志条数", LogXMetrics::getBufferSize);
+        gauge(registry, tags, "buffer.capacity", "缓冲区容量", LogXMetrics::getBufferCapacity);
+        gauge(registry, tags, "priority.buffer.size", "高优先级通道中待发送的日志条数", LogXMetrics::getPriorityBufferSize);
+        gauge(registry, tags, "priority.buffer.capacity", "高优先级通道容量", LogXMetrics::getPriorityBufferCapacity);
+
+        // 日志条数
+        counter(registry, tags.and("result", "accepted"), "logs", "进入缓冲区或交给发送器的日志条数", LogXMetrics::getAcceptedLogs);
+        counter(registry, tags.and("result", "dropped"), "logs", "因缓冲区溢出被丢弃的日志条数", LogXMetrics::getDroppedLogs);
+        counter(registry, tags.and("result", "filtered"), "logs", "低于最低级别被过滤的日志条数", LogXMetrics::getFilteredLogs);
+        counter(registry, tags.and("result", "sampled"), "logs", "被采样规则丢弃的日志条数", LogXMetrics::getSampledOutLogs);
+        counter(registry, tags.and("result", "aggregated"), "logs", "被合并到汇总日志中的重复日志条数", LogXMetrics::getAggregatedLogs);
+
+        gauge(registry, tags, "gateway.available", "网关是否可用（1 可用，0 熔断中或无可用节点）",
+                m -> m.isGatewayAvailable() ? 1 : 0);
+        counter(registry, tags, "flush.errors", "发送器抛出异常的批次数", LogXMetrics::getFlushErrors);
+
+        // 各传输的发送结果、分布和磁盘溢写
+        List<TransportMetrics> transports = metrics.getTransports() != null ? metrics.getTransports() : List.of();
+        for (int i = 0; i < transports.size(); i++) {
+            bindTransport(registry, i, Tags.of(Tag.of("transport", String.valueOf(transports.get(i).getTransport()))));
+        }
+    }
+
+    /**
+     * 注册一个传输的指标
+     *
+     * @param index 在 {@link LogXMetrics#getTransports()} 中的位置（发送器创建后不变）
+     */
+    private void bindTransport(MeterRegistry registry, int index, Tags tags) {
+        // 发送结果
+        counter(registry, tags.and("result", "sent"), "send.batches", "发送成功的批次数",
+                transport(index, TransportMetrics::getSentBatches));
+        counter(registry, tags.and("result", "failed"), "send.batches", "最终放弃的批次数",
+                transport(index, TransportMetrics::getFailedBatches));
+        counter(registry, tags.and("result", "spilled"), "send.batches", "写入磁盘溢写存储的批次数",
+                transport(index, TransportMetrics::getSpilledBatches));
+        counter(registry, tags.and("result", "sent"), "send.logs", "发送成功的日志条数",
+                transport(index, TransportMetrics::getSentLogs));
+        counter(registry, tags.and("result", "failed"), "send.logs", "最终放弃的日志条数",
+                transport(index, TransportMetrics::getFailedLogs));
+        counter(registry, tags.and("result", "spilled"), "send.logs", "写入磁盘溢写存储的日志条数",
+                transport(index, TransportMetrics::getSpilledLogs));
+        counter(registry, tags, "retries", "重试次数（含断线重连后的重发）",
+                transport(index, TransportMetrics::getRetries));
+        counter(registry, tags, "circuit.opens", "熔断器打开次数",
+                transport(index, TransportMetrics::getCircuitOpens));
+        counter(registry, tags.and("result", "short_circuited"), "send.batches", "因熔断未发送的批次数",
+                transport(index, TransportMetrics::getShortCircuitedBatches));
+        counter(registry, tags, "bytes.sent", "成功发送的字节数",
+                transport(index, TransportMetrics::getBytesSent));
+
+        // 发送延迟与批次大小分布
+        Function<LogXMetrics, Histogram.Snapshot> sendLatency = histogram(index, TransportMetrics::getSendLatency);
+        Function<LogXMetrics, Histogram.Snapshot> batchSizes = histogram(index, TransportMetrics::getBatchSizes);
+        FunctionTimer.builder(PREFIX + "send.latency", this,
+                        binder -> binder.histogram(sendLatency).count(),
+                        binder -> binder.histogram(sendLatency).sum(),
+                        TimeUnit.MILLISECONDS)
+                .tags(tags)
+                .description("单次请求的发送延迟")
+                .register(registry);
+        gauge(registry, tags, "send.latency.max", "发送延迟最大值（毫秒）",
+                m -> histogramOf(sendLatency.apply(m)).max());
+        buckets(registry, tags, "send.latency.histogram", "发送延迟不超过 le 毫秒的请求数",
+                Histogram.LATENCY_MILLIS_BOUNDS, sendLatency);
+
+        gauge(registry, tags, "batch.size.mean", "批次平均条数",
+                m -> histogramOf(batchSizes.apply(m)).mean());
+        gauge(registry, tags, "batch.size.max", "批次最大条数",
+                m -> histogramOf(batchSizes.apply(m)).max());
+        buckets(registry, tags, "batch.size.histogram", "条数不超过 le 的批次数",
+                Histogram.BATCH_SIZE_BOUNDS, batchSizes);
+
+        // 磁盘溢写
+        gauge(registry, tags, "spill.bytes", "溢写段文件占用的磁盘大小",
+                m -> transportOf(m, index).getSpillBytes());
+        counter(registry, tags, "spill.replayed", "已重放的溢写批次数",
+                transport(index, TransportMetrics::getReplayedBatches));
+        counter(registry, tags, "spill.evicted", "因超出上限被淘汰的溢写段数",
+                transport(index, TransportMetrics::getEvictedSegments));
+    }
+
+    private static ToLongFunction<LogXMetrics> transport(int index, ToLongFunction<TransportMetrics> value) {
+        return metrics -> value.applyAsLong(transportOf(metrics, index));
+    }
+
+    private static Function<LogXMetrics, Histogram.Snapshot> histogram(
+            int index, Function<TransportMetrics, Histogram.Snapshot> histogram) {
+        return metrics -> histogram.apply(transportOf(metrics, index));
+    }
+
+    private static TransportMetrics transportOf(LogXMetrics metrics, int index) {
+        List<TransportMetrics> transports = metrics.getTransports();
+        return transports != null && index < transports.size() ? transports.get(index) : EMPTY_TRANSPORT;
+    }
+
+    private void gauge(MeterRegistry registry, Tags tags, String name, String description,
+                       ToDoubleFunction<LogXMetrics> value) {
+        Gauge.builder(PREFIX + name, this, binder -> value.applyAsDouble(binder.current()))
+                .tags(tags)
+                .description(description)
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, Tags tags, String name, String description,
+                         ToLongFunction<LogXMetrics> value) {
+        FunctionCounter.builder(PREFIX + name, this, binder -> value.applyAsLong(binder.current()))
+                .tags(tags)
+                .description(description)
+                .register(registry);
+    }
+
+    /**
+     * 直方图每个桶注册一个 Gauge，值为不超过桶上界（le 标签，最后一个桶为 +Inf）的累计计数
+     * <p>
+     * 分布由 SDK 的固定桶直方图在发送线程上记录，Micrometer 的 Timer 无法读取已有的分桶计数，
+     * 因此总数和总和由 FunctionTimer 提供，分布以桶为单位的 Gauge 暴露，可直接用于 histogram_quantile
+     */
+    private void buckets(MeterRegistry registry, Tags tags, String name, String description,
+                         long[] bounds, Function<LogXMetrics, Histogram.Snapshot> histogram) {
+        for (int i = 0; i <= bounds.length; i++) {
+            int bucket = i;
+            String le = i < bounds.length ? String.valueOf(bounds[i]) : "+Inf";
+            Gauge.builder(PREFIX + name, this, binder -> binder.histogram(histogram).cumulativeCount(bucket))
+                    .tags(tags.and("le", le))
+                    .description(description)
+                    .register(registry);
+        }
+    }
+
+    private Histogram.Snapshot histogram(Function<LogXMetrics, Histogram.Snapshot> histogram) {
+        return histogramOf(histogram.apply(current()));
+    }
+
+    private static Histogram.Snapshot histogramOf(Histogram.Snapshot snapshot) {
+        return snapshot != null ? snapshot : new Histogram.Snapshot(new long[0], new long[1], 0, 0, 0);
+    }
+
+    /**
+     * 当前快照（超过 TTL 时重新生成）
+     */
+    private LogXMetrics current() {
+        long now = System.nanoTime();
+        LogXMetrics metrics = snapshot;
+        if (metrics == null || now - snapshotNanos > SNAPSHOT_TTL_NANOS) {
+            metrics = client.metrics();
+            snapshot = metrics;
+            snapshotNanos = now;
+        }
+        return metrics;
+    }
+}